@@ -22,9 +22,13 @@ import java.util.concurrent.ThreadFactory;
 
 import net.sf.hajdbc.balancer.Balancer;
 import net.sf.hajdbc.cache.DatabaseMetaDataCache;
+import net.sf.hajdbc.cache.PreparedStatementCacheStatistics;
+import net.sf.hajdbc.cache.SQLAnalysisCache;
 import net.sf.hajdbc.codec.Decoder;
 import net.sf.hajdbc.dialect.Dialect;
 import net.sf.hajdbc.durability.Durability;
+import net.sf.hajdbc.invocation.HedgedReadStatistics;
+import net.sf.hajdbc.invocation.ResultVerifier;
 import net.sf.hajdbc.io.InputSinkStrategy;
 import net.sf.hajdbc.lock.LockManager;
 import net.sf.hajdbc.state.StateManager;
@@ -125,6 +129,42 @@ public interface DatabaseCluster<Z, D extends Database<Z>> extends Lifecycle
 	 */
 	boolean isSequenceDetectionEnabled();
 	
+	/**
+	 * Returns the allocator of pre-allocated sequence values for this cluster.
+	 * @return a sequence allocator, or null if sequence pre-allocation is disabled.
+	 */
+	SequenceAllocator getSequenceAllocator();
+	
+	/**
+	 * Returns the cache of SQL statement analysis for this cluster.
+	 * @return a SQL analysis cache, or null if analysis caching is disabled.
+	 */
+	SQLAnalysisCache getSQLAnalysisCache();
+	
+	/**
+	 * Returns the maximum number of closed prepared statements retained for reuse, per connection.
+	 * @return a number of prepared statements, or 0 if prepared statement caching is disabled.
+	 */
+	int getPreparedStatementCacheSize();
+	
+	/**
+	 * Returns the statistics of the prepared statement caches of the connections to this cluster.
+	 * @return prepared statement cache statistics, or null if prepared statement caching is disabled.
+	 */
+	PreparedStatementCacheStatistics getPreparedStatementCacheStatistics();
+	
+	/**
+	 * Returns the statistics of hedged reads against this cluster.
+	 * @return hedged read statistics, or null if hedged reads are disabled.
+	 */
+	HedgedReadStatistics getHedgedReadStatistics();
+	
+	/**
+	 * Returns the verifier of the results of backup databases against the results of the primary database.
+	 * @return a result verifier
+	 */
+	ResultVerifier getResultVerifier();
+	
 	/**
 	 * Indicates whether or not identity column detection is enabled for this cluster.
 	 * @return true, if identity column detection is enabled, false otherwise.
@@ -155,6 +195,76 @@ public interface DatabaseCluster<Z, D extends Database<Z>> extends Lifecycle
 	 */
 	boolean isRandEvaluationEnabled();
 	
+	/**
+	 * Indicates whether or not evaluated non-deterministic functions within prepared statements will be replaced by bind parameters, rather than by static values.
+	 * Parameterized statements remain identical across executions, and thus cacheable by the database, while evaluation is deferred until each execution.
+	 * @return true, if parameterized evaluation is enabled, false otherwise.
+	 */
+	boolean isParameterizedEvaluationEnabled();
+	
+	/**
+	 * Indicates whether or not the parameters and batches of open statements are recorded, such that they can be replayed against databases activated while the statement is open.
+	 * If disabled, a database activated while a statement has pending parameters or batches is deactivated again.
+	 * @return true, if parameter replay is enabled, false otherwise.
+	 */
+	boolean isParameterReplayEnabled();
+	
+	/**
+	 * Indicates whether or not the parameters and batches of prepared statements are buffered, rather than invoked against each database as they are set.
+	 * Buffered parameters and batches are applied to each database, concurrently, upon statement execution.
+	 * @return true, if parameter buffering is enabled, false otherwise.
+	 */
+	boolean isParameterBufferingEnabled();
+	
+	/**
+	 * Indicates whether or not lock-free writes within a transaction return as soon as the primary database has responded.
+	 * The remaining databases complete the write asynchronously, and are deactivated if their results differ from that of the primary database.
+	 * Subsequent operations on the same connection, including commit, wait for any outstanding asynchronous writes.
+	 * @return true, if asynchronous writes are enabled, false otherwise.
+	 */
+	boolean isAsynchronousWriteEnabled();
+	
+	/**
+	 * Indicates whether or not asynchronous writes additionally wait for a majority of databases to respond before returning.
+	 * @return true, if asynchronous writes require a quorum, false otherwise.
+	 */
+	boolean isAsynchronousWriteQuorumEnabled();
+	
+	/**
+	 * Returns the number of databases that must return matching results before a write completes.
+	 * Databases whose results differ from those of the quorum are deactivated,
+	 * as are databases that have not responded within the write quorum timeout.
+	 * A quorum only applies when it is smaller than the number of active databases, e.g. a quorum of 2 in a cluster of 3 databases,
+	 * and only to lock-free writes within a transaction, whose remaining databases complete before the next operation on the connection.
+	 * @return a number of databases, or 0 if writes must complete on all databases
+	 */
+	int getWriteQuorum();
+	
+	/**
+	 * Returns the duration, in milliseconds since the start of a write, for which to wait for databases outside of a reached write quorum.
+	 * @return a timeout in milliseconds
+	 */
+	long getWriteQuorumTimeout();
+	
+	/**
+	 * Returns the percentile of recent read latencies after which an unanswered read is hedged against a second database.
+	 * @return a percentile, e.g. 95, or 0 if hedged reads are disabled
+	 */
+	int getHedgedReadPercentile();
+	
+	/**
+	 * Returns the number of elements of an array result, e.g. the update counts of a batch, that are verified against the result of the primary database.
+	 * @return a sample size, or 0 if array results are verified in full
+	 */
+	int getResultVerificationSampleSize();
+	
+	/**
+	 * Returns the number of rows per round trip fetched by streaming reads, i.e. forward-only, read-only queries executed against a single database.
+	 * The results of streaming reads bypass the result set proxy, and return chunked blobs and clobs rather than locator proxies.
+	 * @return a fetch size, or 0 if streaming reads are disabled
+	 */
+	int getStreamingFetchSize();
+	
 	/**
 	 * Indicates whether or not this cluster is active, i.e. started, but not yet stopped.
 	 * @return true, if this cluster is active, false otherwise.
@@ -120,6 +120,76 @@ public interface DatabaseClusterConfiguration<Z, D extends Database<Z>> extends
 	 * @return true, if temporal SQL replacement is enabled, false otherwise.
 	 */
 	boolean isRandEvaluationEnabled();
+	
+	/**
+	 * Indicates whether or not evaluated non-deterministic functions within prepared statements will be replaced by bind parameters, rather than by static values.
+	 * Parameterized statements remain identical across executions, and thus cacheable by the database, while evaluation is deferred until each execution.
+	 * @return true, if parameterized evaluation is enabled, false otherwise.
+	 */
+	boolean isParameterizedEvaluationEnabled();
+	
+	/**
+	 * Indicates whether or not the parameters and batches of open statements are recorded, such that they can be replayed against databases activated while the statement is open.
+	 * If disabled, a database activated while a statement has pending parameters or batches is deactivated again.
+	 * @return true, if parameter replay is enabled, false otherwise.
+	 */
+	boolean isParameterReplayEnabled();
+	
+	/**
+	 * Indicates whether or not the parameters and batches of prepared statements are buffered, rather than invoked against each database as they are set.
+	 * Buffered parameters and batches are applied to each database, concurrently, upon statement execution.
+	 * @return true, if parameter buffering is enabled, false otherwise.
+	 */
+	boolean isParameterBufferingEnabled();
+	
+	/**
+	 * Indicates whether or not lock-free writes within a transaction return as soon as the primary database has responded.
+	 * The remaining databases complete the write asynchronously, and are deactivated if their results differ from that of the primary database.
+	 * Subsequent operations on the same connection, including commit, wait for any outstanding asynchronous writes.
+	 * @return true, if asynchronous writes are enabled, false otherwise.
+	 */
+	boolean isAsynchronousWriteEnabled();
+	
+	/**
+	 * Indicates whether or not asynchronous writes additionally wait for a majority of databases to respond before returning.
+	 * @return true, if asynchronous writes require a quorum, false otherwise.
+	 */
+	boolean isAsynchronousWriteQuorumEnabled();
+	
+	/**
+	 * Returns the number of databases that must return matching results before a write completes.
+	 * Databases whose results differ from those of the quorum are deactivated,
+	 * as are databases that have not responded within the write quorum timeout.
+	 * A quorum only applies when it is smaller than the number of active databases, e.g. a quorum of 2 in a cluster of 3 databases.
+	 * Writes that acquire locks, auto-committed writes, and the commit or rollback of a transaction always complete on all databases.
+	 * @return a number of databases, or 0 if writes must complete on all databases
+	 */
+	int getWriteQuorum();
+	
+	/**
+	 * Returns the duration, in milliseconds since the start of a write, for which to wait for databases outside of a reached write quorum.
+	 * @return a timeout in milliseconds
+	 */
+	long getWriteQuorumTimeout();
+	
+	/**
+	 * Returns the percentile of recent read latencies after which an unanswered read is hedged against a second database.
+	 * @return a percentile, e.g. 95, or 0 if hedged reads are disabled
+	 */
+	int getHedgedReadPercentile();
+	
+	/**
+	 * Returns the number of elements of an array result, e.g. the update counts of a batch, that are verified against the result of the primary database.
+	 * @return a sample size, or 0 if array results are verified in full
+	 */
+	int getResultVerificationSampleSize();
+	
+	/**
+	 * Returns the number of rows per round trip fetched by streaming reads, i.e. forward-only, read-only queries executed against a single database.
+	 * The results of streaming reads bypass the result set proxy, and return chunked blobs and clobs rather than locator proxies.
+	 * @return a fetch size, or 0 if streaming reads are disabled
+	 */
+	int getStreamingFetchSize();
 
 	CronExpression getFailureDetectionExpression();
 	
@@ -135,6 +205,31 @@ public interface DatabaseClusterConfiguration<Z, D extends Database<Z>> extends
 	
 	boolean isEmptyClusterAllowed();
 
+	/**
+	 * Returns the duration, in milliseconds, for which a member of a distributed cluster may retain a write lock after releasing it locally.
+	 * While retained, subsequent local acquisitions of the same lock do not require communication with the group coordinator.
+	 * @return a lease duration in milliseconds, or 0 if leasing is disabled
+	 */
+	long getLockLeaseTime();
+
+	/**
+	 * Returns the number of sequence values to pre-allocate per sequence, such that statements can obtain next sequence values without locking.
+	 * @return a number of sequence values, or 0 if sequence pre-allocation is disabled
+	 */
+	int getSequenceAllocationSize();
+
+	/**
+	 * Returns the maximum number of SQL statements whose analysis (i.e. locks, SELECT ... FOR UPDATE detection, non-deterministic function locations) is cached.
+	 * @return a number of SQL statements, or 0 if analysis caching is disabled
+	 */
+	int getSQLAnalysisCacheSize();
+	
+	/**
+	 * Returns the maximum number of closed prepared statements retained for reuse, per connection.
+	 * @return a number of prepared statements, or 0 if prepared statement caching is disabled
+	 */
+	int getPreparedStatementCacheSize();
+
 	DatabaseFactory<Z, D> getDatabaseFactory();
 
 	InputSinkProvider getInputSinkProvider();
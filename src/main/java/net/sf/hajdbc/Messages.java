@@ -75,6 +75,7 @@ public enum Messages
 	SEQUENCE_OUT_OF_SYNC("sequence-out-of-sync"),
 	SHUT_DOWN("shut-down"),
 	SQL_OBJECT_INIT_FAILED("sql-object-init-failed"),
+	STATEMENT_CLOSED("statement-closed"),
 	STATEMENT_FAILED("statement-failed"),
 	TABLE_LOCK_ACQUIRE("table-lock-acquire"),
 	TABLE_LOCK_RELEASE("table-lock-release"),
@@ -0,0 +1,35 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc;
+
+import java.sql.SQLException;
+
+/**
+ * Allocates sequence values on behalf of the databases of a cluster.
+ * @author Paul Ferraro
+ */
+public interface SequenceAllocator
+{
+	/**
+	 * Returns the next value of the specified sequence.
+	 * @param sequence a sequence name, as parsed from a SQL statement
+	 * @return the next sequence value
+	 * @throws SQLException if a sequence value could not be allocated
+	 */
+	long next(String sequence) throws SQLException;
+}
@@ -35,6 +35,16 @@ public interface SequenceSupport
 	 */
 	String parseSequence(String sql) throws SQLException;
 	
+	/**
+	 * Replaces each expression within the specified SQL statement that obtains the next value of a sequence with a literal value obtained from the specified allocator.
+	 * @param sql a SQL statement
+	 * @param allocator a sequence value allocator
+	 * @return the evaluated SQL statement
+	 * @throws SQLException if a sequence value could not be allocated
+	 * @since 3.1
+	 */
+	String evaluateNextSequenceValues(String sql, SequenceAllocator allocator) throws SQLException;
+	
 	/**
 	 * Returns a collection of sequences using dialect specific logic.
 	 * @param metaData database meta data
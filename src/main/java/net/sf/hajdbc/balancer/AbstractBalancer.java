@@ -17,9 +17,11 @@
  */
 package net.sf.hajdbc.balancer;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
@@ -37,8 +39,63 @@ import net.sf.hajdbc.Database;
  */
 public abstract class AbstractBalancer<Z, D extends Database<Z>> implements Balancer<Z, D>
 {
+	private final WriteSequenceTracker<D> tracker = new WriteSequenceTracker<>();
+	private volatile Snapshot<D> snapshot = null;
+
 	protected abstract Set<D> getDatabases();
 
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.balancer.Balancer#next(long)
+	 */
+	@Override
+	public D next(long sequence)
+	{
+		D next = this.next();
+		
+		if ((next == null) || this.tracker.isCommitted(next, sequence)) return next;
+		
+		for (D database: this.getDatabases())
+		{
+			if ((database != next) && this.tracker.isCommitted(database, sequence))
+			{
+				return database;
+			}
+		}
+		
+		return this.primary();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * Since membership changes replace the underlying set of databases, the snapshot is only rebuilt if that set was replaced.
+	 * @see net.sf.hajdbc.balancer.Balancer#snapshot()
+	 */
+	@Override
+	public List<D> snapshot()
+	{
+		Set<D> databases = this.getDatabases();
+		Snapshot<D> snapshot = this.snapshot;
+		
+		if ((snapshot == null) || (snapshot.databases != databases))
+		{
+			snapshot = new Snapshot<>(databases);
+			this.snapshot = snapshot;
+		}
+		
+		return snapshot.list;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.balancer.Balancer#getWriteSequenceTracker()
+	 */
+	@Override
+	public WriteSequenceTracker<D> getWriteSequenceTracker()
+	{
+		return this.tracker;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 * @see net.sf.hajdbc.balancer.Balancer#backups()
@@ -163,4 +220,16 @@ public abstract class AbstractBalancer<Z, D extends Database<Z>> implements Bala
 	{
 		return this.getDatabases().toString();
 	}
+
+	private static class Snapshot<D>
+	{
+		final Set<D> databases;
+		final List<D> list;
+		
+		Snapshot(Set<D> databases)
+		{
+			this.databases = databases;
+			this.list = Collections.unmodifiableList(new ArrayList<>(databases));
+		}
+	}
 }
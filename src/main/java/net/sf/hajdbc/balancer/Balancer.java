@@ -17,6 +17,7 @@
  */
 package net.sf.hajdbc.balancer;
 
+import java.util.List;
 import java.util.Set;
 
 import net.sf.hajdbc.Database;
@@ -51,6 +52,27 @@ public interface Balancer<Z, D extends Database<Z>> extends Set<D>
 	 */
 	D next();
 
+	/**
+	 * Returns an immutable snapshot of the databases of this balancer, in natural order.
+	 * The index of a database within the snapshot is stable until the next change in membership, and can thus be used to index per-database state.
+	 * @return a list of databases
+	 */
+	List<D> snapshot();
+
+	/**
+	 * Returns the next database from this balancer that has committed the write identified by the specified sequence.
+	 * If no such database exists, the primary database is returned, since it always completes writes first.
+	 * @param sequence a write sequence allocated via {@link #getWriteSequenceTracker()}
+	 * @return the next database that has caught up with the specified write
+	 */
+	D next(long sequence);
+
+	/**
+	 * Returns the tracker of the write sequences committed by the databases of this balancer.
+	 * @return a write sequence tracker
+	 */
+	WriteSequenceTracker<D> getWriteSequenceTracker();
+
 	/**
 	 * Invoke the specified invoker on the specified object against the specified database, potentially informing the balancer.
 	 * @param <T> invoker target object type
@@ -0,0 +1,207 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.balancer;
+
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.sf.hajdbc.Database;
+
+/**
+ * Tracks the HA-JDBC write sequences committed by each database of a balancer.
+ * Write sequences are allocated per transaction, and are used to route reads only to databases that have caught up with a given write.
+ * Since transactions may complete out of order, a database having committed a later sequence says nothing about an earlier one.
+ * Thus, each database tracks a low watermark, below which it committed every sequence, and the individual sequences it committed out of order above it.
+ * Likewise, the tracker maintains a global low watermark, below which all allocated sequences have completed, i.e. were committed or rolled back.
+ * All operations are lock-free, since they are performed for every transaction and every read.
+ * @author Paul Ferraro
+ * @param <D> the database descriptor
+ */
+public class WriteSequenceTracker<D extends Database<?>>
+{
+	private final AtomicLong sequence = new AtomicLong(0);
+	// Allocated sequences that have yet to complete
+	private final NavigableSet<Long> pending = new ConcurrentSkipListSet<>();
+	// All sequences up to, and including, the low watermark have completed
+	private final AtomicLong watermark = new AtomicLong(0);
+	private final ConcurrentMap<D, Committed> committedSequences = new ConcurrentHashMap<>();
+
+	/**
+	 * Allocates a new write sequence, which must eventually be passed to {@link #completed(long)}.
+	 * @return a write sequence, unique to this tracker
+	 */
+	public long next()
+	{
+		while (true)
+		{
+			long current = this.sequence.get();
+			long next = current + 1;
+			
+			// A sequence must be pending before it is allocated, otherwise a concurrent completion could advance the watermark past it
+			if (this.pending.add(next))
+			{
+				if (this.sequence.compareAndSet(current, next)) return next;
+				
+				this.pending.remove(next);
+			}
+		}
+	}
+
+	/**
+	 * Records that the specified database committed the write identified by the specified sequence.
+	 * @param database a database descriptor
+	 * @param sequence a write sequence
+	 */
+	public void committed(D database, long sequence)
+	{
+		long watermark = this.watermark.get();
+		
+		if (sequence <= watermark) return;
+		
+		Committed committed = this.getCommitted(database);
+		
+		if (sequence == Math.max(watermark, committed.watermark.get()) + 1)
+		{
+			advance(committed.watermark, sequence);
+			
+			// Advance past any subsequent sequences committed out of order, prior to removing them, so they remain visible to isCommitted(...)
+			long current = sequence;
+			while (!committed.sequences.isEmpty() && committed.sequences.contains(current + 1))
+			{
+				current += 1;
+				advance(committed.watermark, current);
+				committed.sequences.remove(current);
+			}
+		}
+		else
+		{
+			committed.sequences.add(sequence);
+		}
+	}
+
+	/**
+	 * Records that the write identified by the specified sequence completed, i.e. was committed or rolled back, on all databases.
+	 * @param sequence a write sequence
+	 */
+	public void completed(long sequence)
+	{
+		this.pending.remove(sequence);
+		
+		// Any incomplete sequence allocated thus far is still pending
+		long allocated = this.sequence.get();
+		Iterator<Long> pending = this.pending.iterator();
+		long watermark = pending.hasNext() ? Math.min(pending.next() - 1, allocated) : allocated;
+		
+		if (!advance(this.watermark, watermark)) return;
+		
+		// Individual sequences below the watermark no longer need tracking
+		for (Committed committed: this.committedSequences.values())
+		{
+			if (!committed.sequences.isEmpty())
+			{
+				committed.sequences.headSet(watermark, true).clear();
+			}
+		}
+	}
+
+	/**
+	 * Indicates whether the specified database has committed the write identified by the specified sequence.
+	 * @param database a database descriptor
+	 * @param sequence a write sequence
+	 * @return true, if the database has caught up with the specified write, false otherwise
+	 */
+	public boolean isCommitted(D database, long sequence)
+	{
+		if (sequence <= this.watermark.get()) return true;
+		
+		Committed committed = this.committedSequences.get(database);
+		
+		if (committed == null) return false;
+		
+		// Sequences are only removed once a watermark has advanced past them, thus the watermarks must be read after the sequences
+		if (!committed.sequences.isEmpty() && committed.sequences.contains(sequence)) return true;
+		
+		return (sequence <= committed.watermark.get()) || (sequence <= this.watermark.get());
+	}
+
+	/**
+	 * Marks the specified database as current with respect to all sequences allocated thus far, e.g. following its synchronization.
+	 * @param database a database descriptor
+	 */
+	public void reset(D database)
+	{
+		long sequence = this.sequence.get();
+		
+		Committed committed = this.getCommitted(database);
+		advance(committed.watermark, sequence);
+		committed.sequences.headSet(sequence, true).clear();
+	}
+	
+	private Committed getCommitted(D database)
+	{
+		Committed committed = this.committedSequences.get(database);
+		
+		if (committed == null)
+		{
+			committed = new Committed();
+			
+			Committed existing = this.committedSequences.putIfAbsent(database, committed);
+			
+			if (existing != null) return existing;
+		}
+		
+		return committed;
+	}
+	
+	/**
+	 * Advances the specified watermark to the specified sequence, unless it is already at or beyond it.
+	 * @return true, if the watermark was advanced, false otherwise
+	 */
+	private static boolean advance(AtomicLong watermark, long sequence)
+	{
+		long current = watermark.get();
+		
+		while (current < sequence)
+		{
+			if (watermark.compareAndSet(current, sequence)) return true;
+			
+			current = watermark.get();
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * The write sequences committed by a database.
+	 */
+	private static class Committed
+	{
+		// All sequences up to, and including, this sequence were committed, or are current, e.g. via synchronization
+		final AtomicLong watermark = new AtomicLong(0);
+		// Sequences committed above the watermark, i.e. out of order
+		final NavigableSet<Long> sequences = new ConcurrentSkipListSet<>();
+		
+		Committed()
+		{
+		}
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.cache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cluster-wide statistics of the prepared statement caches of individual connections.
+ * @author Paul Ferraro
+ */
+public class PreparedStatementCacheStatistics
+{
+	private final AtomicInteger size = new AtomicInteger(0);
+	private final AtomicLong hits = new AtomicLong(0);
+	private final AtomicLong misses = new AtomicLong(0);
+	private final AtomicLong evictions = new AtomicLong(0);
+	
+	/**
+	 * Records that a prepared statement was reused from a cache.
+	 */
+	public void hit()
+	{
+		this.hits.incrementAndGet();
+		this.size.decrementAndGet();
+	}
+	
+	/**
+	 * Records that a prepared statement was not found in a cache, and so was prepared.
+	 */
+	public void miss()
+	{
+		this.misses.incrementAndGet();
+	}
+	
+	/**
+	 * Records that a closed prepared statement was added to a cache.
+	 */
+	public void added()
+	{
+		this.size.incrementAndGet();
+	}
+	
+	/**
+	 * Records that cached prepared statements were discarded, e.g. since their connection was closed.
+	 * @param count the number of discarded prepared statements
+	 */
+	public void removed(int count)
+	{
+		this.size.addAndGet(-count);
+	}
+	
+	/**
+	 * Records that a cached prepared statement was closed to make room for another.
+	 */
+	public void evicted()
+	{
+		this.evictions.incrementAndGet();
+		this.size.decrementAndGet();
+	}
+	
+	public long getHits()
+	{
+		return this.hits.get();
+	}
+	
+	public long getMisses()
+	{
+		return this.misses.get();
+	}
+	
+	public long getEvictions()
+	{
+		return this.evictions.get();
+	}
+	
+	/**
+	 * Returns the number of prepared statements currently cached, across all connections.
+	 * @return a number of prepared statements
+	 */
+	public int size()
+	{
+		return this.size.get();
+	}
+}
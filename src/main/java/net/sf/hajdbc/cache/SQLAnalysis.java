@@ -0,0 +1,72 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.cache;
+
+import java.util.List;
+import java.util.Set;
+
+import net.sf.hajdbc.dialect.SQLFeature;
+import net.sf.hajdbc.dialect.SQLFunctionCall;
+
+/**
+ * The result of analyzing a SQL statement, which is reusable for subsequent executions of identical SQL.
+ * @author Paul Ferraro
+ * @see SQLAnalysisCache
+ */
+public class SQLAnalysis
+{
+	private final Set<SQLFeature> features;
+	private final List<String> lockIdentifiers;
+	private final boolean selectForUpdate;
+	private final List<SQLFunctionCall> functionCalls;
+	
+	/**
+	 * Creates a new SQL analysis
+	 * @param features the features detected in the statement
+	 * @param lockIdentifiers the ordered identifiers of the write locks required to execute the statement
+	 * @param selectForUpdate indicates whether the statement is a SELECT ... FOR UPDATE statement
+	 * @param functionCalls the calls to non-deterministic functions to be evaluated prior to execution
+	 */
+	public SQLAnalysis(Set<SQLFeature> features, List<String> lockIdentifiers, boolean selectForUpdate, List<SQLFunctionCall> functionCalls)
+	{
+		this.features = features;
+		this.lockIdentifiers = lockIdentifiers;
+		this.selectForUpdate = selectForUpdate;
+		this.functionCalls = functionCalls;
+	}
+	
+	public Set<SQLFeature> getFeatures()
+	{
+		return this.features;
+	}
+	
+	public List<String> getLockIdentifiers()
+	{
+		return this.lockIdentifiers;
+	}
+	
+	public boolean isSelectForUpdate()
+	{
+		return this.selectForUpdate;
+	}
+	
+	public List<SQLFunctionCall> getFunctionCalls()
+	{
+		return this.functionCalls;
+	}
+}
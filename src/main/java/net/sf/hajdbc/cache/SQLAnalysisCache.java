@@ -0,0 +1,203 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.cache;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bounded, concurrent cache of {@link SQLAnalysis}, keyed by SQL statement.
+ * Once full, entries are evicted using the "second chance" (i.e. CLOCK) approximation of least-recently-used: an entry that was read since it was last considered for eviction is spared, once.
+ * Reads are lock-free; concurrent writes share a lock, which {@link #clear()} acquires exclusively, such that no entry published by a concurrent write survives a clear.
+ * @author Paul Ferraro
+ */
+public class SQLAnalysisCache
+{
+	private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+	private final Queue<String> queue = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger size = new AtomicInteger(0);
+	private final AtomicLong hits = new AtomicLong(0);
+	private final AtomicLong misses = new AtomicLong(0);
+	private final AtomicLong evictions = new AtomicLong(0);
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final int maxSize;
+	
+	/**
+	 * Creates a new cache
+	 * @param maxSize the maximum number of SQL statements to cache
+	 */
+	public SQLAnalysisCache(int maxSize)
+	{
+		this.maxSize = maxSize;
+	}
+	
+	/**
+	 * Returns the cached analysis of the specified SQL statement.
+	 * @param sql a SQL statement
+	 * @return a SQL analysis, or null if the statement is not cached
+	 */
+	public SQLAnalysis get(String sql)
+	{
+		Entry entry = this.entries.get(sql);
+		
+		if (entry == null)
+		{
+			this.misses.incrementAndGet();
+			return null;
+		}
+		
+		this.hits.incrementAndGet();
+		
+		if (!entry.referenced)
+		{
+			entry.referenced = true;
+		}
+		
+		return entry.analysis;
+	}
+	
+	/**
+	 * Caches the analysis of the specified SQL statement, evicting other entries if necessary.
+	 * @param sql a SQL statement
+	 * @param analysis a SQL analysis
+	 */
+	public void put(String sql, SQLAnalysis analysis)
+	{
+		Lock lock = this.lock.readLock();
+		
+		lock.lock();
+		
+		try
+		{
+			if (this.entries.putIfAbsent(sql, new Entry(analysis)) == null)
+			{
+				this.queue.add(sql);
+				
+				if (this.size.incrementAndGet() > this.maxSize)
+				{
+					this.evict();
+				}
+			}
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+	
+	private void evict()
+	{
+		while (this.size.get() > this.maxSize)
+		{
+			String sql = this.queue.poll();
+			
+			if (sql == null) return;
+			
+			Entry entry = this.entries.get(sql);
+			
+			if (entry == null) continue;
+			
+			if (entry.referenced)
+			{
+				// Second chance
+				entry.referenced = false;
+				this.queue.add(sql);
+			}
+			else if (this.entries.remove(sql, entry))
+			{
+				this.size.decrementAndGet();
+				this.evictions.incrementAndGet();
+			}
+		}
+	}
+	
+	/**
+	 * Removes all entries from this cache, e.g. following a change to database meta data.
+	 */
+	public void clear()
+	{
+		Lock lock = this.lock.writeLock();
+		
+		lock.lock();
+		
+		try
+		{
+			this.entries.clear();
+			this.queue.clear();
+			this.size.set(0);
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Returns the number of SQL statements currently cached.
+	 * @return a number of SQL statements
+	 */
+	public int size()
+	{
+		return this.size.get();
+	}
+	
+	/**
+	 * Returns the number of lookups that found a cached analysis.
+	 * @return a number of lookups
+	 */
+	public long getHits()
+	{
+		return this.hits.get();
+	}
+	
+	/**
+	 * Returns the number of lookups that did not find a cached analysis.
+	 * @return a number of lookups
+	 */
+	public long getMisses()
+	{
+		return this.misses.get();
+	}
+	
+	/**
+	 * Returns the number of entries evicted to maintain the maximum size of this cache.
+	 * @return a number of evictions
+	 */
+	public long getEvictions()
+	{
+		return this.evictions.get();
+	}
+	
+	private static class Entry
+	{
+		final SQLAnalysis analysis;
+		volatile boolean referenced = false;
+		
+		Entry(SQLAnalysis analysis)
+		{
+			this.analysis = analysis;
+		}
+	}
+}
@@ -20,9 +20,11 @@ package net.sf.hajdbc.dialect;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 import javax.transaction.xa.XAException;
@@ -99,6 +101,35 @@ public interface Dialect
 	 */
 	boolean isSelectForUpdate(String sql) throws SQLException;
 	
+	/**
+	 * Scans the specified SQL statement, in a single pass, for those features that require further analysis or evaluation.
+	 * Keywords within string literals, quoted identifiers, and comments are ignored.
+	 * A feature absent from the returned set is guaranteed not to be present in the statement, while a feature within the returned set may be a false positive.
+	 * @param sql a SQL statement
+	 * @return the set of features detected in the specified statement
+	 * @since 3.1
+	 */
+	Set<SQLFeature> scan(String sql);
+	
+	/**
+	 * Locates the calls to the specified non-deterministic functions within the specified SQL statement.
+	 * These are the same function calls replaced by {@link #evaluateCurrentDate(String, java.sql.Date)}, {@link #evaluateCurrentTime(String, java.sql.Time)}, {@link #evaluateCurrentTimestamp(String, java.sql.Timestamp)}, and {@link #evaluateRand(String)}.
+	 * @param sql a SQL statement
+	 * @param functions a set of functions, i.e. {@link SQLFeature#CURRENT_DATE}, {@link SQLFeature#CURRENT_TIME}, {@link SQLFeature#CURRENT_TIMESTAMP}, or {@link SQLFeature#RAND}
+	 * @return a list of non-overlapping function calls, ordered by position
+	 * @since 3.1
+	 */
+	List<SQLFunctionCall> locateFunctionCalls(String sql, Set<SQLFeature> functions);
+	
+	/**
+	 * Evaluates the specified non-deterministic function as a SQL literal.
+	 * @param function one of {@link SQLFeature#CURRENT_DATE}, {@link SQLFeature#CURRENT_TIME}, {@link SQLFeature#CURRENT_TIMESTAMP}, or {@link SQLFeature#RAND}
+	 * @param time the time, in milliseconds, at which to evaluate temporal functions
+	 * @return a SQL literal
+	 * @since 3.1
+	 */
+	String evaluateFunction(SQLFeature function, long time);
+	
 	/**
 	 * Returns the data type of the specified column of the specified schema and table.
 	 * This method is intended to correct JDBC driver type mapping quirks.
@@ -256,4 +287,14 @@ public interface Dialect
 	UniqueConstraintFactory createUniqueConstraintFactory(IdentifierNormalizer normalizer);
 	
 	boolean isValid(Connection connection) throws SQLException;
+	
+	/**
+	 * Configures the specified statement, prior to the execution of a query, such that its results are fetched from the server incrementally, rather than buffered in memory.
+	 * The caller is responsible for restoring the fetch size of the statement after execution.
+	 * @param statement a statement
+	 * @param fetchSize the number of rows to fetch per round trip
+	 * @return true, if the results of the statement will be streamed, false if the statement or the state of its connection does not permit streaming
+	 * @throws SQLException if the statement could not be configured
+	 */
+	boolean configureStreaming(Statement statement, int fetchSize) throws SQLException;
 }
@@ -0,0 +1,41 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.dialect;
+
+/**
+ * Enumerates the features of a SQL statement that HA-JDBC needs to analyze or evaluate.
+ * @author Paul Ferraro
+ * @see SQLLexer
+ */
+public enum SQLFeature
+{
+	/** A SELECT ... FOR UPDATE statement, or equivalent */
+	SELECT_FOR_UPDATE,
+	/** An INSERT statement */
+	INSERT,
+	/** A reference to a sequence */
+	SEQUENCE,
+	/** A CURRENT_DATE function, or equivalent */
+	CURRENT_DATE,
+	/** A CURRENT_TIME function, or equivalent */
+	CURRENT_TIME,
+	/** A CURRENT_TIMESTAMP function, or equivalent */
+	CURRENT_TIMESTAMP,
+	/** A RAND() function, or equivalent */
+	RAND,
+}
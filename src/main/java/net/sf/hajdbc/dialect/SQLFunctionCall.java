@@ -0,0 +1,90 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.dialect;
+
+/**
+ * Identifies the location of a call to a non-deterministic function within a SQL statement.
+ * @author Paul Ferraro
+ * @see Dialect#locateFunctionCalls(String, java.util.Set)
+ */
+public class SQLFunctionCall implements Comparable<SQLFunctionCall>
+{
+	private final SQLFeature function;
+	private final int start;
+	private final int end;
+	
+	/**
+	 * Creates a new function call
+	 * @param function the function
+	 * @param start the index of the first character of this call
+	 * @param end the index following the last character of this call
+	 */
+	public SQLFunctionCall(SQLFeature function, int start, int end)
+	{
+		this.function = function;
+		this.start = start;
+		this.end = end;
+	}
+	
+	/**
+	 * Returns the function called.
+	 * @return one of {@link SQLFeature#CURRENT_DATE}, {@link SQLFeature#CURRENT_TIME}, {@link SQLFeature#CURRENT_TIMESTAMP}, or {@link SQLFeature#RAND}
+	 */
+	public SQLFeature getFunction()
+	{
+		return this.function;
+	}
+	
+	/**
+	 * Returns the index of the first character of this call.
+	 * @return a string index
+	 */
+	public int getStart()
+	{
+		return this.start;
+	}
+	
+	/**
+	 * Returns the index following the last character of this call.
+	 * @return a string index
+	 */
+	public int getEnd()
+	{
+		return this.end;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see java.lang.Comparable#compareTo(java.lang.Object)
+	 */
+	@Override
+	public int compareTo(SQLFunctionCall call)
+	{
+		return (this.start < call.start) ? -1 : ((this.start == call.start) ? 0 : 1);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("%s[%d, %d)", this.function, this.start, this.end);
+	}
+}
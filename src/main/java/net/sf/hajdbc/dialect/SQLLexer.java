@@ -0,0 +1,310 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.dialect;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Single-pass, comment and literal aware, SQL lexer that detects the {@link SQLFeature}s of a SQL statement via dialect specific keywords.
+ * Keywords that appear within string literals, quoted identifiers, or comments are ignored.
+ * String literals include PostgreSQL dollar-quoted strings, e.g. <code>$$...$$</code> or <code>$tag$...$tag$</code>.
+ * Detection is conservative, i.e. a feature may be reported that the statement does not actually contain, but never vice versa.
+ * Consequently, the more expensive dialect patterns need only be applied to statements containing the corresponding feature.
+ * @author Paul Ferraro
+ */
+public class SQLLexer
+{
+	private static final Set<SQLFeature> ALL = EnumSet.allOf(SQLFeature.class);
+	private static final SQLFeature[] FEATURES = SQLFeature.values();
+	
+	private final Map<String, Integer> keywords = new HashMap<>();
+	private final int minLength;
+	private final int maxLength;
+	
+	/**
+	 * Creates a new lexer
+	 * @param keywords the keywords, by feature, indicating the presence of that feature
+	 */
+	public SQLLexer(Map<SQLFeature, String[]> keywords)
+	{
+		int minLength = Integer.MAX_VALUE;
+		int maxLength = 0;
+		
+		for (Map.Entry<SQLFeature, String[]> entry: keywords.entrySet())
+		{
+			int flag = 1 << entry.getKey().ordinal();
+			
+			for (String keyword: entry.getValue())
+			{
+				String key = keyword.toUpperCase();
+				Integer flags = this.keywords.get(key);
+				
+				this.keywords.put(key, (flags != null) ? (flags | flag) : flag);
+				
+				minLength = Math.min(minLength, key.length());
+				maxLength = Math.max(maxLength, key.length());
+			}
+		}
+		
+		this.minLength = minLength;
+		this.maxLength = maxLength;
+	}
+	
+	/**
+	 * Scans the specified SQL statement for the features indicated by the keywords of this lexer.
+	 * @param sql a SQL statement
+	 * @return the set of features detected in the specified statement
+	 */
+	public Set<SQLFeature> scan(String sql)
+	{
+		int flags = 0;
+		int length = sql.length();
+		int index = 0;
+		
+		while (index < length)
+		{
+			int end = skipQuoted(sql, index);
+			
+			if (end < 0) return ALL;
+			
+			if (end > index)
+			{
+				index = end;
+				continue;
+			}
+			
+			char c = sql.charAt(index);
+			
+			if (Character.isLetter(c) || (c == '_'))
+			{
+				int start = index;
+				
+				index = skipWord(sql, index + 1);
+				
+				flags |= this.match(sql, start, index);
+			}
+			else if (Character.isDigit(c))
+			{
+				index = skipWord(sql, index + 1);
+			}
+			else
+			{
+				index += 1;
+			}
+		}
+		
+		if (flags == 0) return EnumSet.noneOf(SQLFeature.class);
+		
+		Set<SQLFeature> features = EnumSet.noneOf(SQLFeature.class);
+		
+		for (SQLFeature feature: FEATURES)
+		{
+			if ((flags & (1 << feature.ordinal())) != 0)
+			{
+				features.add(feature);
+			}
+		}
+		
+		return features;
+	}
+	
+	/**
+	 * Locates the JDBC parameter markers within the specified SQL statement.
+	 * Markers within string literals, quoted identifiers, and comments are ignored.
+	 * @param sql a SQL statement
+	 * @return the indexes of the parameter markers, or null, if they cannot be reliably determined
+	 */
+	public static List<Integer> locateParameterMarkers(String sql)
+	{
+		List<Integer> markers = new ArrayList<>();
+		int length = sql.length();
+		int index = 0;
+		
+		while (index < length)
+		{
+			int end = skipQuoted(sql, index);
+			
+			if (end < 0) return null;
+			
+			if (end > index)
+			{
+				index = end;
+			}
+			else
+			{
+				if (sql.charAt(index) == '?')
+				{
+					markers.add(index);
+				}
+				index += 1;
+			}
+		}
+		
+		return markers;
+	}
+	
+	/**
+	 * Indicates whether the specified index of the specified SQL statement lies within a string literal, quoted identifier, or comment.
+	 * @param sql a SQL statement
+	 * @param position a string index
+	 * @return true, if the specified index is quoted, or if this cannot be reliably determined, false otherwise
+	 */
+	public static boolean isQuoted(String sql, int position)
+	{
+		int index = 0;
+		
+		while (index <= position)
+		{
+			int end = skipQuoted(sql, index);
+			
+			if (end < 0) return true;
+			
+			if (end > index)
+			{
+				if (end > position) return true;
+				
+				index = end;
+			}
+			else
+			{
+				index += 1;
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Skips the string literal, quoted identifier, or comment starting at the specified index, if any.
+	 * @param sql a SQL statement
+	 * @param index a string index
+	 * @return the index following the skipped text, the specified index if there was nothing to skip, or -1 if the end of the skipped text cannot be reliably determined
+	 */
+	private static int skipQuoted(String sql, int index)
+	{
+		int length = sql.length();
+		char c = sql.charAt(index);
+		
+		if ((c == '\'') || (c == '"') || (c == '`'))
+		{
+			int end = sql.indexOf(c, index + 1);
+			
+			if (end < 0) return -1;
+			
+			// Backslash escapes are dialect and configuration specific (e.g. MySQL honors them within both ' and " delimited literals), so we cannot reliably determine the end of this literal
+			if ((c != '`') && containsBackslash(sql, index + 1, end)) return -1;
+			
+			return end + 1;
+		}
+		
+		// Dollar-quoted string, unless the $ is part of an identifier, e.g. Oracle's v$session, or a positional parameter, e.g. $1
+		if ((c == '$') && ((index == 0) || !isWordPart(sql.charAt(index - 1))))
+		{
+			int tagEnd = index + 1;
+			
+			if ((tagEnd < length) && Character.isDigit(sql.charAt(tagEnd))) return index;
+			
+			while ((tagEnd < length) && isTagPart(sql.charAt(tagEnd)))
+			{
+				tagEnd += 1;
+			}
+			
+			if ((tagEnd < length) && (sql.charAt(tagEnd) == '$'))
+			{
+				String tag = sql.substring(index, tagEnd + 1);
+				int end = sql.indexOf(tag, tagEnd + 1);
+				
+				return (end < 0) ? -1 : end + tag.length();
+			}
+			
+			return index;
+		}
+		
+		if ((c == '-') && (index + 1 < length) && (sql.charAt(index + 1) == '-'))
+		{
+			int end = sql.indexOf('\n', index + 2);
+			
+			return (end < 0) ? length : end + 1;
+		}
+		
+		if ((c == '/') && (index + 1 < length) && (sql.charAt(index + 1) == '*'))
+		{
+			int end = sql.indexOf("*/", index + 2);
+			
+			return (end < 0) ? -1 : end + 2;
+		}
+		
+		return index;
+	}
+	
+	private static int skipWord(String sql, int index)
+	{
+		int length = sql.length();
+		int end = index;
+		
+		while ((end < length) && isWordPart(sql.charAt(end)))
+		{
+			end += 1;
+		}
+		
+		return end;
+	}
+	
+	private static boolean containsBackslash(String sql, int start, int end)
+	{
+		for (int i = start; i < end; ++i)
+		{
+			if (sql.charAt(i) == '\\') return true;
+		}
+		
+		return false;
+	}
+	
+	private static boolean isWordPart(char c)
+	{
+		return Character.isLetterOrDigit(c) || (c == '_') || (c == '$');
+	}
+	
+	private static boolean isTagPart(char c)
+	{
+		return Character.isLetterOrDigit(c) || (c == '_');
+	}
+	
+	private int match(String sql, int start, int end)
+	{
+		int length = end - start;
+		
+		if ((length < this.minLength) || (length > this.maxLength)) return 0;
+		
+		char[] word = new char[length];
+		
+		for (int i = 0; i < length; ++i)
+		{
+			word[i] = Character.toUpperCase(sql.charAt(start + i));
+		}
+		
+		Integer flags = this.keywords.get(new String(word));
+		
+		return (flags != null) ? flags.intValue() : 0;
+	}
+}
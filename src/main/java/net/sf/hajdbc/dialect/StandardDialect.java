@@ -29,11 +29,14 @@ import java.sql.SQLTransientConnectionException;
 import java.sql.Statement;
 import java.text.MessageFormat;
 import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -53,6 +56,7 @@ import net.sf.hajdbc.IdentifierNormalizer;
 import net.sf.hajdbc.IdentityColumnSupport;
 import net.sf.hajdbc.QualifiedName;
 import net.sf.hajdbc.QualifiedNameFactory;
+import net.sf.hajdbc.SequenceAllocator;
 import net.sf.hajdbc.SequenceProperties;
 import net.sf.hajdbc.SequencePropertiesFactory;
 import net.sf.hajdbc.SequenceSupport;
@@ -101,10 +105,12 @@ public class StandardDialect implements Dialect, SequenceSupport, IdentityColumn
 	private final Pattern selectForUpdatePattern = compile(this.selectForUpdatePattern());
 	private final Pattern insertIntoTablePattern = compile(this.insertIntoTablePattern());
 	private final Pattern sequencePattern = compile(this.sequencePattern());
+	private final Pattern nextSequenceValuePattern = compile(this.nextSequenceValuePattern());
 	private final Pattern currentTimestampPattern = compile(this.currentTimestampPattern());
 	private final Pattern currentDatePattern = compile(this.currentDatePattern());
 	private final Pattern currentTimePattern = compile(this.currentTimePattern());
 	private final Pattern randomPattern = compile(this.randomPattern());
+	private final SQLLexer lexer = new SQLLexer(this.keywords());
 	private final Pattern urlPattern = Pattern.compile(String.format("jdbc\\:%s\\:%s", this.vendorPattern(), this.locatorPattern()));
 	
 	protected String vendorPattern()
@@ -137,6 +143,16 @@ public class StandardDialect implements Dialect, SequenceSupport, IdentityColumn
 		return "NEXT\\s+VALUE\\s+FOR\\s+'?([^',\\s\\(\\)]+)";
 	}
 	
+	/**
+	 * Returns a pattern matching an expression that obtains the next value of a sequence, whose first group captures the sequence name.
+	 * Unlike {@link #sequencePattern()}, this should only match expressions that increment the sequence.
+	 * @return a regular expression
+	 */
+	protected String nextSequenceValuePattern()
+	{
+		return "NEXT\\s+VALUE\\s+FOR\\s+([^',\\s\\(\\)]+)";
+	}
+	
 	protected String currentDatePattern()
 	{
 		return "(?<=\\W)CURRENT_DATE(?=\\W)";
@@ -157,6 +173,59 @@ public class StandardDialect implements Dialect, SequenceSupport, IdentityColumn
 		return "(?<=\\W)RAND\\s*\\(\\s*\\)";
 	}
 
+	private Map<SQLFeature, String[]> keywords()
+	{
+		Map<SQLFeature, String[]> keywords = new EnumMap<>(SQLFeature.class);
+		keywords.put(SQLFeature.SELECT_FOR_UPDATE, this.selectForUpdateKeywords());
+		keywords.put(SQLFeature.INSERT, this.insertKeywords());
+		keywords.put(SQLFeature.SEQUENCE, this.sequenceKeywords());
+		keywords.put(SQLFeature.CURRENT_DATE, this.currentDateKeywords());
+		keywords.put(SQLFeature.CURRENT_TIME, this.currentTimeKeywords());
+		keywords.put(SQLFeature.CURRENT_TIMESTAMP, this.currentTimestampKeywords());
+		keywords.put(SQLFeature.RAND, this.randomKeywords());
+		return keywords;
+	}
+	
+	/**
+	 * Returns the keywords, any of which must be present in a statement matching {@link #selectForUpdatePattern()}.
+	 * Dialects that override a pattern must also override the corresponding keywords, if necessary.
+	 * @return an array of keywords
+	 */
+	protected String[] selectForUpdateKeywords()
+	{
+		return new String[] { "FOR" };
+	}
+	
+	protected String[] insertKeywords()
+	{
+		return new String[] { "INSERT" };
+	}
+	
+	protected String[] sequenceKeywords()
+	{
+		return new String[] { "NEXT" };
+	}
+	
+	protected String[] currentDateKeywords()
+	{
+		return new String[] { "CURRENT_DATE" };
+	}
+	
+	protected String[] currentTimeKeywords()
+	{
+		return new String[] { "CURRENT_TIME", "LOCALTIME" };
+	}
+	
+	protected String[] currentTimestampKeywords()
+	{
+		return new String[] { "CURRENT_TIMESTAMP", "LOCALTIMESTAMP" };
+	}
+	
+	protected String[] randomKeywords()
+	{
+		return new String[] { "RAND" };
+	}
+	
 	protected String executeFunctionFormat()
 	{
 		StringBuilder builder = new StringBuilder("SELECT {0}");
@@ -265,6 +334,16 @@ public class StandardDialect implements Dialect, SequenceSupport, IdentityColumn
 		return this.selectForUpdatePattern.matcher(sql).find();
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.dialect.Dialect#scan(java.lang.String)
+	 */
+	@Override
+	public Set<SQLFeature> scan(String sql)
+	{
+		return this.lexer.scan(sql);
+	}
+
 	/**
 	 * @see net.sf.hajdbc.dialect.Dialect#getDefaultSchemas(java.sql.DatabaseMetaData)
 	 */
@@ -324,6 +403,28 @@ public class StandardDialect implements Dialect, SequenceSupport, IdentityColumn
 		return this.parse(this.sequencePattern, sql);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.SequenceSupport#evaluateNextSequenceValues(java.lang.String, net.sf.hajdbc.SequenceAllocator)
+	 */
+	@Override
+	public String evaluateNextSequenceValues(String sql, SequenceAllocator allocator) throws SQLException
+	{
+		Matcher matcher = this.nextSequenceValuePattern.matcher(sql);
+		
+		if (!matcher.find()) return sql;
+		
+		StringBuffer buffer = new StringBuffer();
+		
+		do
+		{
+			matcher.appendReplacement(buffer, Long.toString(allocator.next(matcher.group(1))));
+		}
+		while (matcher.find());
+		
+		return matcher.appendTail(buffer).toString();
+	}
+
 	/**
 	 * @see net.sf.hajdbc.dialect.Dialect#getColumnType(net.sf.hajdbc.ColumnProperties)
 	 */
@@ -470,6 +571,110 @@ public class StandardDialect implements Dialect, SequenceSupport, IdentityColumn
 		return pattern.matcher(sql).replaceAll(MessageFormat.format(format, date.toString()));
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.dialect.Dialect#locateFunctionCalls(java.lang.String, java.util.Set)
+	 */
+	@Override
+	public List<SQLFunctionCall> locateFunctionCalls(String sql, Set<SQLFeature> functions)
+	{
+		List<SQLFunctionCall> calls = new ArrayList<>();
+		
+		for (SQLFeature function: functions)
+		{
+			Matcher matcher = this.functionPattern(function).matcher(sql);
+			
+			while (matcher.find())
+			{
+				calls.add(new SQLFunctionCall(function, matcher.start(), matcher.end()));
+			}
+		}
+		
+		if (calls.size() > 1)
+		{
+			Collections.sort(calls);
+			
+			// Discard overlapping calls
+			Iterator<SQLFunctionCall> iterator = calls.iterator();
+			int end = iterator.next().getEnd();
+			
+			while (iterator.hasNext())
+			{
+				SQLFunctionCall call = iterator.next();
+				
+				if (call.getStart() < end)
+				{
+					iterator.remove();
+				}
+				else
+				{
+					end = call.getEnd();
+				}
+			}
+		}
+		
+		return calls;
+	}
+	
+	private Pattern functionPattern(SQLFeature function)
+	{
+		switch (function)
+		{
+			case CURRENT_DATE:
+			{
+				return this.currentDatePattern;
+			}
+			case CURRENT_TIME:
+			{
+				return this.currentTimePattern;
+			}
+			case CURRENT_TIMESTAMP:
+			{
+				return this.currentTimestampPattern;
+			}
+			case RAND:
+			{
+				return this.randomPattern;
+			}
+			default:
+			{
+				throw new IllegalArgumentException(function.name());
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.dialect.Dialect#evaluateFunction(net.sf.hajdbc.dialect.SQLFeature, long)
+	 */
+	@Override
+	public String evaluateFunction(SQLFeature function, long time)
+	{
+		switch (function)
+		{
+			case CURRENT_DATE:
+			{
+				return MessageFormat.format(this.dateLiteralFormat(), new java.sql.Date(time).toString());
+			}
+			case CURRENT_TIME:
+			{
+				return MessageFormat.format(this.timeLiteralFormat(), new java.sql.Time(time).toString());
+			}
+			case CURRENT_TIMESTAMP:
+			{
+				return MessageFormat.format(this.timestampLiteralFormat(), new java.sql.Timestamp(time).toString());
+			}
+			case RAND:
+			{
+				return Double.toString(Math.random());
+			}
+			default:
+			{
+				throw new IllegalArgumentException(function.name());
+			}
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 * @see net.sf.hajdbc.dialect.Dialect#evaluateRand(java.lang.String)
@@ -950,4 +1155,19 @@ public class StandardDialect implements Dialect, SequenceSupport, IdentityColumn
 	{
 		return connection.isValid(0);
 	}
+
+	/**
+	 * {@inheritDoc}
+	 * Streaming requires a forward-only result set, whose rows are fetched according to the fetch size of the statement.
+	 * @see net.sf.hajdbc.dialect.Dialect#configureStreaming(java.sql.Statement, int)
+	 */
+	@Override
+	public boolean configureStreaming(Statement statement, int fetchSize) throws SQLException
+	{
+		if (statement.getResultSetType() != ResultSet.TYPE_FORWARD_ONLY) return false;
+		
+		statement.setFetchSize(fetchSize);
+		
+		return true;
+	}
 }
@@ -106,6 +106,24 @@ public class DB2Dialect extends StandardDialect
 		return "(?:NEXT|PREV)VAL\\s+FOR\\s+'?([^',\\s\\(\\)]+)";
 	}
 
+	/**
+	 * @see net.sf.hajdbc.dialect.StandardDialect#nextSequenceValuePattern()
+	 */
+	@Override
+	protected String nextSequenceValuePattern()
+	{
+		return "(?:NEXTVAL|NEXT\\s+VALUE)\\s+FOR\\s+([^',\\s\\(\\)]+)";
+	}
+
+	/**
+	 * @see net.sf.hajdbc.dialect.StandardDialect#sequenceKeywords()
+	 */
+	@Override
+	protected String[] sequenceKeywords()
+	{
+		return new String[] { "NEXTVAL", "PREVVAL", "NEXT" };
+	}
+
 	/**
 	 * @see net.sf.hajdbc.dialect.StandardDialect#nextSequenceValueFormat()
 	 */
@@ -111,6 +111,33 @@ public class DerbyDialect extends StandardDialect
 		return super.currentTimestampPattern() + "|(?<=\\W)CURRENT\\s+TIMESTAMP(?=\\W)";
 	}
 
+	/**
+	 * @see net.sf.hajdbc.dialect.StandardDialect#currentDateKeywords()
+	 */
+	@Override
+	protected String[] currentDateKeywords()
+	{
+		return new String[] { "CURRENT_DATE", "CURRENT" };
+	}
+
+	/**
+	 * @see net.sf.hajdbc.dialect.StandardDialect#currentTimeKeywords()
+	 */
+	@Override
+	protected String[] currentTimeKeywords()
+	{
+		return new String[] { "CURRENT_TIME", "LOCALTIME", "CURRENT" };
+	}
+
+	/**
+	 * @see net.sf.hajdbc.dialect.StandardDialect#currentTimestampKeywords()
+	 */
+	@Override
+	protected String[] currentTimestampKeywords()
+	{
+		return new String[] { "CURRENT_TIMESTAMP", "LOCALTIMESTAMP", "CURRENT" };
+	}
+
 	/**
 	 * @see net.sf.hajdbc.dialect.StandardDialect#dateLiteralFormat()
 	 */
@@ -105,6 +105,24 @@ public class FirebirdDialect extends StandardDialect
 		return "GEN_ID\\s*\\(\\s*([^\\s,]+)\\s*,\\s*\\d+\\s*\\)";
 	}
 
+	/**
+	 * @see net.sf.hajdbc.dialect.StandardDialect#nextSequenceValuePattern()
+	 */
+	@Override
+	protected String nextSequenceValuePattern()
+	{
+		return "GEN_ID\\s*\\(\\s*([^\\s,]+)\\s*,\\s*1\\s*\\)";
+	}
+
+	/**
+	 * @see net.sf.hajdbc.dialect.StandardDialect#sequenceKeywords()
+	 */
+	@Override
+	protected String[] sequenceKeywords()
+	{
+		return new String[] { "GEN_ID" };
+	}
+
 	/**
 	 * @see net.sf.hajdbc.dialect.StandardDialect#selectForUpdatePattern()
 	 */
@@ -114,6 +132,15 @@ public class FirebirdDialect extends StandardDialect
 		return "SELECT\\s+.+\\s+WITH\\s+LOCK";
 	}
 
+	/**
+	 * @see net.sf.hajdbc.dialect.StandardDialect#selectForUpdateKeywords()
+	 */
+	@Override
+	protected String[] selectForUpdateKeywords()
+	{
+		return new String[] { "LOCK" };
+	}
+
 	/**
 	 * @see net.sf.hajdbc.dialect.StandardDialect#nextSequenceValueFormat()
 	 */
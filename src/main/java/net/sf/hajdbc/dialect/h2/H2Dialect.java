@@ -132,6 +132,33 @@ public class H2Dialect extends StandardDialect
 		return "(?<=\\W)RAND\\s*\\(\\s*\\d*\\s*\\)";
 	}
 
+	/**
+	 * @see net.sf.hajdbc.dialect.StandardDialect#currentDateKeywords()
+	 */
+	@Override
+	protected String[] currentDateKeywords()
+	{
+		return new String[] { "CURRENT_DATE", "CURDATE", "SYSDATE", "TODAY" };
+	}
+
+	/**
+	 * @see net.sf.hajdbc.dialect.StandardDialect#currentTimeKeywords()
+	 */
+	@Override
+	protected String[] currentTimeKeywords()
+	{
+		return new String[] { "CURRENT_TIME", "CURTIME" };
+	}
+
+	/**
+	 * @see net.sf.hajdbc.dialect.StandardDialect#currentTimestampKeywords()
+	 */
+	@Override
+	protected String[] currentTimestampKeywords()
+	{
+		return new String[] { "CURRENT_TIMESTAMP", "NOW" };
+	}
+
 	/**
 	 * {@inheritDoc}
 	 * @see net.sf.hajdbc.dialect.StandardDialect#getDefaultSchemas(java.sql.DatabaseMetaData)
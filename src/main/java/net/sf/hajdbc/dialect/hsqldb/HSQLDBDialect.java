@@ -129,4 +129,31 @@ public class HSQLDBDialect extends StandardDialect
 	{
 		return "(?<=\\W)CURRENT_TIMESTAMP(?=\\W)|(?<=\\W)NOW\\s*\\(\\s*\\)";
 	}
+
+	/**
+	 * @see net.sf.hajdbc.dialect.StandardDialect#currentDateKeywords()
+	 */
+	@Override
+	protected String[] currentDateKeywords()
+	{
+		return new String[] { "CURRENT_DATE", "CURDATE" };
+	}
+
+	/**
+	 * @see net.sf.hajdbc.dialect.StandardDialect#currentTimeKeywords()
+	 */
+	@Override
+	protected String[] currentTimeKeywords()
+	{
+		return new String[] { "CURRENT_TIME", "CURTIME" };
+	}
+
+	/**
+	 * @see net.sf.hajdbc.dialect.StandardDialect#currentTimestampKeywords()
+	 */
+	@Override
+	protected String[] currentTimestampKeywords()
+	{
+		return new String[] { "CURRENT_TIMESTAMP", "NOW" };
+	}
 }
@@ -99,6 +99,15 @@ public class IngresDialect extends StandardDialect
 		return "(?:NEXT|CURRENT)\\s+VALUE\\s+FOR\\s+'?([^',\\s\\(\\)]+)";
 	}
 
+	/**
+	 * @see net.sf.hajdbc.dialect.StandardDialect#sequenceKeywords()
+	 */
+	@Override
+	protected String[] sequenceKeywords()
+	{
+		return new String[] { "NEXT", "CURRENT" };
+	}
+
 	/**
 	 * @see net.sf.hajdbc.dialect.StandardDialect#currentDatePattern()
 	 */
@@ -134,4 +143,40 @@ public class IngresDialect extends StandardDialect
 	{
 		return "(?<=\\W)RANDOMF\\s*\\(\\s*\\)";
 	}
+
+	/**
+	 * @see net.sf.hajdbc.dialect.StandardDialect#currentDateKeywords()
+	 */
+	@Override
+	protected String[] currentDateKeywords()
+	{
+		return new String[] { "CURRENT_DATE", "DATE" };
+	}
+
+	/**
+	 * @see net.sf.hajdbc.dialect.StandardDialect#currentTimeKeywords()
+	 */
+	@Override
+	protected String[] currentTimeKeywords()
+	{
+		return new String[] { "CURRENT_TIME", "LOCAL_TIME" };
+	}
+
+	/**
+	 * @see net.sf.hajdbc.dialect.StandardDialect#currentTimestampKeywords()
+	 */
+	@Override
+	protected String[] currentTimestampKeywords()
+	{
+		return new String[] { "CURRENT_TIMESTAMP", "LOCAL_TIMESTAMP", "DATE" };
+	}
+
+	/**
+	 * @see net.sf.hajdbc.dialect.StandardDialect#randomKeywords()
+	 */
+	@Override
+	protected String[] randomKeywords()
+	{
+		return new String[] { "RANDOMF" };
+	}
 }
@@ -57,6 +57,24 @@ public class MckoiDialect extends StandardDialect
 		return "(?:CURR|NEXT)VAL\\s*\\(\\s*'([^']+)'\\s*\\)";
 	}
 
+	/**
+	 * @see net.sf.hajdbc.dialect.StandardDialect#nextSequenceValuePattern()
+	 */
+	@Override
+	protected String nextSequenceValuePattern()
+	{
+		return "NEXTVAL\\s*\\(\\s*'([^']+)'\\s*\\)";
+	}
+
+	/**
+	 * @see net.sf.hajdbc.dialect.StandardDialect#sequenceKeywords()
+	 */
+	@Override
+	protected String[] sequenceKeywords()
+	{
+		return new String[] { "NEXTVAL", "CURRVAL" };
+	}
+
 	/**
 	 * @see net.sf.hajdbc.dialect.StandardDialect#currentTimestampPattern()
 	 */
@@ -65,4 +83,13 @@ public class MckoiDialect extends StandardDialect
 	{
 		return super.currentTimestampPattern() + "|(?<=\\W)DATEOB\\s*\\(\\s*\\)";
 	}
+
+	/**
+	 * @see net.sf.hajdbc.dialect.StandardDialect#currentTimestampKeywords()
+	 */
+	@Override
+	protected String[] currentTimestampKeywords()
+	{
+		return new String[] { "CURRENT_TIMESTAMP", "LOCALTIMESTAMP", "DATEOB" };
+	}
 }
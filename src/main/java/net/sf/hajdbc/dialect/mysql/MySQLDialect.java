@@ -19,7 +19,9 @@ package net.sf.hajdbc.dialect.mysql;
 
 import java.io.File;
 import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
@@ -30,9 +32,11 @@ import net.sf.hajdbc.ConnectionProperties;
 import net.sf.hajdbc.DumpRestoreSupport;
 import net.sf.hajdbc.dialect.StandardDialect;
 import net.sf.hajdbc.util.Strings;
+import net.sf.hajdbc.util.SystemProperties;
 
 /**
  * Dialect for <a href="http://www.mysql.com/products/database/mysql/">MySQL</a>
+ * Row-by-row streaming of results, which blocks the connection until the results are closed, is disabled unless the ha-jdbc.mysql.row-streaming system property is true.
  * @author Paul Ferraro
  */
 @SuppressWarnings("nls")
@@ -67,6 +71,23 @@ public class MySQLDialect extends StandardDialect implements DumpRestoreSupport
 		"ZEROFILL",
 	};
 	private static final File PASSWORD_FILE = new File(String.format("%s%s.my.cnf", Strings.USER_HOME, Strings.FILE_SEPARATOR));
+	public static final String ROW_STREAMING = "ha-jdbc.mysql.row-streaming";
+	
+	private final boolean rowStreaming;
+	
+	public MySQLDialect()
+	{
+		this(Boolean.parseBoolean(SystemProperties.getSystemProperty(ROW_STREAMING)));
+	}
+	
+	/**
+	 * Creates a new MySQL dialect
+	 * @param rowStreaming indicates whether the results of streaming reads should be streamed one row at a time, in lieu of cursor fetching
+	 */
+	public MySQLDialect(boolean rowStreaming)
+	{
+		this.rowStreaming = rowStreaming;
+	}
 	
 	/**
 	 * {@inheritDoc}
@@ -165,6 +186,33 @@ public class MySQLDialect extends StandardDialect implements DumpRestoreSupport
 	{
 		return super.currentTimestampPattern() + "|(?<=\\W)NOW\\s*\\(\\s*\\)|(?<=\\W)SYSDATE\\s*\\(\\s*\\)";
 	}
+
+	/**
+	 * @see net.sf.hajdbc.dialect.StandardDialect#currentDateKeywords()
+	 */
+	@Override
+	protected String[] currentDateKeywords()
+	{
+		return new String[] { "CURRENT_DATE", "CURDATE" };
+	}
+
+	/**
+	 * @see net.sf.hajdbc.dialect.StandardDialect#currentTimeKeywords()
+	 */
+	@Override
+	protected String[] currentTimeKeywords()
+	{
+		return new String[] { "CURRENT_TIME", "LOCALTIME", "CURTIME" };
+	}
+
+	/**
+	 * @see net.sf.hajdbc.dialect.StandardDialect#currentTimestampKeywords()
+	 */
+	@Override
+	protected String[] currentTimestampKeywords()
+	{
+		return new String[] { "CURRENT_TIMESTAMP", "LOCALTIMESTAMP", "NOW", "SYSDATE" };
+	}
 	
 	/**
 	 * @see net.sf.hajdbc.dialect.StandardDialect#dateLiteralFormat()
@@ -232,4 +280,22 @@ public class MySQLDialect extends StandardDialect implements DumpRestoreSupport
 		
 		return builder;
 	}
+
+	/**
+	 * {@inheritDoc}
+	 * The MySQL driver only honors a positive fetch size if cursor fetching is enabled via the useCursorFetch connection property; otherwise, results are buffered in memory.
+	 * If row streaming is enabled, the driver instead streams the results of forward-only, read-only statements, one row at a time, via a fetch size of {@link Integer#MIN_VALUE}.
+	 * Caveat: while such results are open, no other statement may be executed on the same connection, e.g. by the application, or by a concurrent query of the same transaction, and any attempt to do so fails.
+	 * Thus row streaming must only be enabled if the application fully consumes, or closes, each streamed result set before using its connection again.
+	 * @see net.sf.hajdbc.dialect.StandardDialect#configureStreaming(java.sql.Statement, int)
+	 */
+	@Override
+	public boolean configureStreaming(Statement statement, int fetchSize) throws SQLException
+	{
+		if (!this.rowStreaming) return super.configureStreaming(statement, fetchSize);
+		
+		if (statement.getResultSetConcurrency() != ResultSet.CONCUR_READ_ONLY) return false;
+		
+		return super.configureStreaming(statement, Integer.MIN_VALUE);
+	}
 }
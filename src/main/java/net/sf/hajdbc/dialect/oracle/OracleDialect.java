@@ -113,6 +113,24 @@ public class OracleDialect extends StandardDialect
 		return "'?(\\w+)'?\\.(?:CURR|NEXT)VAL";
 	}
 
+	/**
+	 * @see net.sf.hajdbc.dialect.StandardDialect#nextSequenceValuePattern()
+	 */
+	@Override
+	protected String nextSequenceValuePattern()
+	{
+		return "'?((?:\\w+\\.)?\\w+)'?\\.NEXTVAL";
+	}
+
+	/**
+	 * @see net.sf.hajdbc.dialect.StandardDialect#sequenceKeywords()
+	 */
+	@Override
+	protected String[] sequenceKeywords()
+	{
+		return new String[] { "NEXTVAL", "CURRVAL" };
+	}
+
 	/**
 	 * @see net.sf.hajdbc.dialect.StandardDialect#nextSequenceValueFormat()
 	 */
@@ -177,6 +177,24 @@ public class PostgreSQLDialect extends StandardDialect implements DumpRestoreSup
 		return "(?:CURR|NEXT)VAL\\s*\\(\\s*'([^']+)'\\s*\\)";
 	}
 
+	/**
+	 * @see net.sf.hajdbc.dialect.StandardDialect#nextSequenceValuePattern()
+	 */
+	@Override
+	protected String nextSequenceValuePattern()
+	{
+		return "NEXTVAL\\s*\\(\\s*'([^']+)'\\s*\\)";
+	}
+
+	/**
+	 * @see net.sf.hajdbc.dialect.StandardDialect#sequenceKeywords()
+	 */
+	@Override
+	protected String[] sequenceKeywords()
+	{
+		return new String[] { "NEXTVAL", "CURRVAL" };
+	}
+
 	/**
 	 * @see net.sf.hajdbc.dialect.StandardDialect#nextSequenceValueFormat()
 	 */
@@ -204,6 +222,15 @@ public class PostgreSQLDialect extends StandardDialect implements DumpRestoreSup
 		return super.currentTimestampPattern() + "|(?<=\\W)NOW\\s*\\(\\s*\\)|(?<=\\W)TRANSACTION_TIMESTAMP\\s*\\(\\s*\\)|(?<=\\W)STATEMENT_TIMESTAMP\\s*\\(\\s*\\)|(?<=\\W)CLOCK_TIMESTAMP\\s*\\(\\s*\\)";
 	}
 
+	/**
+	 * @see net.sf.hajdbc.dialect.StandardDialect#currentTimestampKeywords()
+	 */
+	@Override
+	protected String[] currentTimestampKeywords()
+	{
+		return new String[] { "CURRENT_TIMESTAMP", "LOCALTIMESTAMP", "NOW", "TRANSACTION_TIMESTAMP", "STATEMENT_TIMESTAMP", "CLOCK_TIMESTAMP" };
+	}
+
 	/**
 	 * @see net.sf.hajdbc.dialect.StandardDialect#randomPattern()
 	 */
@@ -213,6 +240,15 @@ public class PostgreSQLDialect extends StandardDialect implements DumpRestoreSup
 		return "(?<=\\W)RANDOM\\s*\\(\\s*\\)";
 	}
 
+	/**
+	 * @see net.sf.hajdbc.dialect.StandardDialect#randomKeywords()
+	 */
+	@Override
+	protected String[] randomKeywords()
+	{
+		return new String[] { "RANDOM" };
+	}
+
 	/**
 	 * Recognizes FOR SHARE and FOR UPDATE.
 	 * @see net.sf.hajdbc.dialect.StandardDialect#selectForUpdatePattern()
@@ -292,4 +328,17 @@ public class PostgreSQLDialect extends StandardDialect implements DumpRestoreSup
 	{
 		return "DROP TRIGGER {0} ON {1}; DROP FUNCTION {0}_action()";
 	}
+
+	/**
+	 * {@inheritDoc}
+	 * The PostgreSQL driver only fetches results via a cursor outside of auto-commit mode, otherwise the fetch size is ignored.
+	 * @see net.sf.hajdbc.dialect.StandardDialect#configureStreaming(java.sql.Statement, int)
+	 */
+	@Override
+	public boolean configureStreaming(Statement statement, int fetchSize) throws SQLException
+	{
+		if (statement.getConnection().getAutoCommit()) return false;
+		
+		return super.configureStreaming(statement, fetchSize);
+	}
 }
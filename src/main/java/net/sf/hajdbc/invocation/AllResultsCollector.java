@@ -17,13 +17,11 @@
  */
 package net.sf.hajdbc.invocation;
 
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.SortedMap;
-import java.util.TreeMap;
-import java.util.AbstractMap;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -33,9 +31,13 @@ import net.sf.hajdbc.Database;
 import net.sf.hajdbc.DatabaseCluster;
 import net.sf.hajdbc.ExceptionFactory;
 import net.sf.hajdbc.Messages;
+import net.sf.hajdbc.balancer.Balancer;
 import net.sf.hajdbc.sql.ProxyFactory;
+import net.sf.hajdbc.util.ArraySortedMap;
 
 /**
+ * Collects the results of an invocation on all active databases.
+ * Results and exceptions are collected into arrays indexed by the position of each database within the {@link Balancer#snapshot()} of the cluster.
  * @author Paul Ferraro
  */
 public class AllResultsCollector implements InvokeOnManyInvocationStrategy.ResultsCollector
@@ -60,57 +62,51 @@ public class AllResultsCollector implements InvokeOnManyInvocationStrategy.Resul
 	{
 		DatabaseCluster<Z, D> cluster = map.getDatabaseCluster();
 		ExceptionFactory<E> exceptionFactory = map.getExceptionFactory();
-		Set<D> databaseSet = cluster.getBalancer();
+		Balancer<Z, D> balancer = cluster.getBalancer();
+		
+		map.getRoot().retain(balancer);
 		
-		map.getRoot().retain(databaseSet);
+		// Databases are indexed by their position within the balancer snapshot
+		List<D> databases = balancer.snapshot();
 		
-		if (databaseSet.isEmpty())
+		if (databases.isEmpty())
 		{
 			exceptionFactory.createException(Messages.NO_ACTIVE_DATABASES.getMessage(cluster));
 		}
 
-		int size = databaseSet.size();
+		int size = databases.size();
+		ExecutorService executor = this.provider.getExecutor(cluster);
+		List<Future<R>> futures = new ArrayList<>(size);
 		
-		List<Invocation<Z, D, T, R, E>> invocationList = new ArrayList<>(size);
-		
-		for (D database: databaseSet)
+		for (int i = 0; i < size; ++i)
 		{
-			invocationList.add(new Invocation<>(invoker, database, map.get(database)));
+			D database = databases.get(i);
+			
+			futures.add(executor.submit(new Invocation<>(invoker, database, map.get(database))));
 		}
 		
-		try
+		ArraySortedMap<D, R> resultMap = new ArraySortedMap<>(databases);
+		ArraySortedMap<D, E> exceptionMap = new ArraySortedMap<>(databases);
+		
+		for (int i = 0; i < size; ++i)
 		{
-			List<Future<R>> futureList = this.provider.getExecutor(cluster).invokeAll(invocationList);
-			
-			final SortedMap<D, R> resultMap = new TreeMap<>();
-			final SortedMap<D, E> exceptionMap = new TreeMap<>();
-			
-			for (int i = 0; i < invocationList.size(); ++i)
+			try
+			{
+				resultMap.set(i, futures.get(i).get());
+			}
+			catch (ExecutionException e)
 			{
-				D database = invocationList.get(i).getDatabase();
+				exceptionMap.set(i, exceptionFactory.createException(e.getCause()));
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
 				
-				try
-				{
-					resultMap.put(database, futureList.get(i).get());
-				}
-				catch (ExecutionException e)
-				{
-					exceptionMap.put(database, exceptionFactory.createException(e.getCause()));
-				}
-				catch (InterruptedException e)
-				{
-					Thread.currentThread().interrupt();
-					
-					exceptionMap.put(database, exceptionFactory.createException(e));
-				}
+				exceptionMap.set(i, exceptionFactory.createException(e));
 			}
-		
-			return new AbstractMap.SimpleImmutableEntry<>(resultMap, exceptionMap);
-		}
-		catch (InterruptedException e)
-		{
-			throw new IllegalStateException(e);
 		}
+		
+		return new AbstractMap.SimpleImmutableEntry<SortedMap<D, R>, SortedMap<D, E>>(resultMap, exceptionMap);
 	}
 	
 	private static class Invocation<Z, D extends Database<Z>, T, R, E extends Exception> implements Callable<R>
@@ -126,11 +122,6 @@ public class AllResultsCollector implements InvokeOnManyInvocationStrategy.Resul
 			this.object = object;
 		}
 		
-		D getDatabase()
-		{
-			return this.database;
-		}
-		
 		/**
 		 * {@inheritDoc}
 		 * @see java.util.concurrent.Callable#call()
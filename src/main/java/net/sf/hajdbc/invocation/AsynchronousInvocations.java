@@ -0,0 +1,128 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.invocation;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks the outstanding asynchronous invocations against the objects of a single connection,
+ * such that subsequent operations on those objects can wait for their completion.
+ * @author Paul Ferraro
+ */
+public class AsynchronousInvocations
+{
+	private final Queue<Future<?>> futures = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger writes = new AtomicInteger(0);
+	private final Queue<Runnable> writtenTasks = new ConcurrentLinkedQueue<>();
+	
+	/**
+	 * Adds the specified asynchronous invocation.
+	 * @param future the future of an asynchronous invocation
+	 */
+	public void add(Future<?> future)
+	{
+		this.futures.add(future);
+	}
+	
+	/**
+	 * Indicates the start of an asynchronous write, whose completion must be indicated via {@link #written()}.
+	 */
+	public void writing()
+	{
+		this.writes.incrementAndGet();
+	}
+	
+	/**
+	 * Indicates the completion of an asynchronous write.
+	 * If no other writes are outstanding, runs any tasks awaiting their completion.
+	 */
+	public void written()
+	{
+		if (this.writes.decrementAndGet() == 0)
+		{
+			this.runWrittenTasks();
+		}
+	}
+	
+	/**
+	 * Runs the specified task once all outstanding asynchronous writes have completed, i.e. immediately, if none are outstanding.
+	 * The task may run on the thread of the last asynchronous write.
+	 * @param task a task
+	 */
+	public void whenWritten(Runnable task)
+	{
+		this.writtenTasks.add(task);
+		
+		if (this.writes.get() == 0)
+		{
+			this.runWrittenTasks();
+		}
+	}
+	
+	private void runWrittenTasks()
+	{
+		// Each task is polled, thus run, exactly once, even if multiple threads run tasks concurrently
+		Runnable task = this.writtenTasks.poll();
+		
+		while (task != null)
+		{
+			task.run();
+			
+			task = this.writtenTasks.poll();
+		}
+	}
+	
+	/**
+	 * Indicates whether there are any outstanding asynchronous invocations.
+	 * @return true, if no invocations are outstanding, false otherwise
+	 */
+	public boolean isEmpty()
+	{
+		return this.futures.isEmpty();
+	}
+	
+	/**
+	 * Waits for all outstanding asynchronous invocations to complete.
+	 * The outcome of each invocation is handled by the invocation itself.
+	 * @throws InterruptedException if the current thread was interrupted while waiting
+	 */
+	public void await() throws InterruptedException
+	{
+		Future<?> future = this.futures.peek();
+		
+		while (future != null)
+		{
+			try
+			{
+				future.get();
+			}
+			catch (ExecutionException e)
+			{
+				// Already handled by the invocation
+			}
+			
+			this.futures.remove(future);
+			
+			future = this.futures.peek();
+		}
+	}
+}
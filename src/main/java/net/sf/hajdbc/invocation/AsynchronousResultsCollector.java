@@ -0,0 +1,260 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.invocation;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+
+import net.sf.hajdbc.Database;
+import net.sf.hajdbc.DatabaseCluster;
+import net.sf.hajdbc.ExceptionFactory;
+import net.sf.hajdbc.Messages;
+import net.sf.hajdbc.invocation.AllResultsCollector.ExecutorProvider;
+import net.sf.hajdbc.logging.Level;
+import net.sf.hajdbc.logging.Logger;
+import net.sf.hajdbc.logging.LoggerFactory;
+import net.sf.hajdbc.sql.InvocationResultFactory;
+import net.sf.hajdbc.sql.ProxyFactory;
+import net.sf.hajdbc.sql.SimpleInvocationResultFactory;
+import net.sf.hajdbc.state.StateManager;
+
+/**
+ * Results collector that returns as soon as the primary database, and optionally a majority of databases, have responded.
+ * The remaining databases complete the invocation asynchronously; their results are then verified against the result of the primary database,
+ * and any database that failed, or whose result differs, is deactivated.
+ * The futures of all invocations are registered with the specified {@link AsynchronousInvocations}, so that subsequent operations can wait for them,
+ * and each invocation is tracked as an asynchronous write, so that locks protecting the write can be held until it completes on every database.
+ * If the primary database fails, this collector waits for all databases, so that the failure can be reconciled synchronously.
+ * @author Paul Ferraro
+ */
+public class AsynchronousResultsCollector implements InvokeOnManyInvocationStrategy.ResultsCollector
+{
+	static final Logger logger = LoggerFactory.getLogger(AsynchronousResultsCollector.class);
+	
+	private final ExecutorProvider provider;
+	private final AsynchronousInvocations invocations;
+	private final boolean quorum;
+	
+	/**
+	 * Creates a new asynchronous results collector.
+	 * @param provider provides the executor on which to invoke each database
+	 * @param invocations tracks the outstanding invocations
+	 * @param quorum indicates whether to wait for a majority of databases, in addition to the primary database
+	 */
+	public AsynchronousResultsCollector(ExecutorProvider provider, AsynchronousInvocations invocations, boolean quorum)
+	{
+		this.provider = provider;
+		this.invocations = invocations;
+		this.quorum = quorum;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public <Z, D extends Database<Z>, T, R, E extends Exception> Map.Entry<SortedMap<D, R>, SortedMap<D, E>> collectResults(ProxyFactory<Z, D, T, E> map, Invoker<Z, D, T, R, E> invoker)
+	{
+		DatabaseCluster<Z, D> cluster = map.getDatabaseCluster();
+		ExceptionFactory<E> exceptionFactory = map.getExceptionFactory();
+		Set<D> databaseSet = cluster.getBalancer();
+		
+		map.getRoot().retain(databaseSet);
+		
+		List<D> databases = new ArrayList<>(databaseSet);
+		
+		if (databases.isEmpty())
+		{
+			return new AbstractMap.SimpleImmutableEntry<SortedMap<D, R>, SortedMap<D, E>>(new TreeMap<D, R>(), new TreeMap<D, E>());
+		}
+		
+		int size = databases.size();
+		// Balancers iterate over their databases in natural order, thus the first database is the primary database
+		Acknowledgements<Z, D, R, E> acknowledgements = new Acknowledgements<>(cluster, databases.get(0), this.quorum ? (size / 2) + 1 : 1, size);
+		ExecutorService executor = this.provider.getExecutor(cluster);
+		
+		for (D database: databases)
+		{
+			this.invocations.writing();
+			
+			try
+			{
+				this.invocations.add(executor.submit(new Invocation<>(invoker, database, map.get(database), exceptionFactory, acknowledgements, this.invocations)));
+			}
+			catch (RuntimeException e)
+			{
+				this.invocations.written();
+				throw e;
+			}
+		}
+		
+		try
+		{
+			return acknowledgements.await();
+		}
+		catch (InterruptedException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * Collects the responses of each database to a single invocation.
+	 * Responses received prior to acknowledgement are returned to the caller; responses received afterwards are verified against the result of the primary database.
+	 */
+	private static class Acknowledgements<Z, D extends Database<Z>, R, E extends Exception>
+	{
+		private final DatabaseCluster<Z, D> cluster;
+		private final D primary;
+		private final int required;
+		private final SortedMap<D, R> resultMap = new TreeMap<>();
+		private final SortedMap<D, E> exceptionMap = new TreeMap<>();
+		private final InvocationResultFactory<Z, D, R> factory = new SimpleInvocationResultFactory<>();
+		private int outstanding;
+		private boolean acknowledged = false;
+		private R primaryResult = null;
+		
+		Acknowledgements(DatabaseCluster<Z, D> cluster, D primary, int required, int outstanding)
+		{
+			this.cluster = cluster;
+			this.primary = primary;
+			this.required = required;
+			this.outstanding = outstanding;
+		}
+		
+		synchronized Map.Entry<SortedMap<D, R>, SortedMap<D, E>> await() throws InterruptedException
+		{
+			while (!this.isAcknowledged())
+			{
+				this.wait();
+			}
+			
+			this.acknowledged = true;
+			this.primaryResult = this.resultMap.get(this.primary);
+			
+			return new AbstractMap.SimpleImmutableEntry<>(this.resultMap, this.exceptionMap);
+		}
+		
+		private boolean isAcknowledged()
+		{
+			if (this.outstanding == 0) return true;
+			
+			// Wait for all databases if the primary database failed
+			return this.resultMap.containsKey(this.primary) && (this.resultMap.size() >= this.required);
+		}
+		
+		void completed(D database, R result, E exception)
+		{
+			R primaryResult = null;
+			
+			synchronized (this)
+			{
+				this.outstanding -= 1;
+				
+				if (!this.acknowledged)
+				{
+					if (exception != null)
+					{
+						this.exceptionMap.put(database, exception);
+					}
+					else
+					{
+						this.resultMap.put(database, result);
+					}
+					
+					this.notifyAll();
+					return;
+				}
+				
+				primaryResult = this.primaryResult;
+			}
+			
+			// Verify result of asynchronous invocation
+			StateManager stateManager = this.cluster.getStateManager();
+			
+			if (exception != null)
+			{
+				if (this.cluster.deactivate(database, stateManager))
+				{
+					logger.log(Level.ERROR, exception, Messages.DATABASE_DEACTIVATED.getMessage(), database, this.cluster);
+				}
+			}
+			else if (this.cluster.getResultVerifier().differs(this.factory, primaryResult, result))
+			{
+				if (this.cluster.deactivate(database, stateManager))
+				{
+					logger.log(Level.ERROR, Messages.DATABASE_INCONSISTENT.getMessage(), database, this.cluster, primaryResult, result);
+				}
+			}
+		}
+	}
+	
+	private static class Invocation<Z, D extends Database<Z>, T, R, E extends Exception> implements Runnable
+	{
+		private final Invoker<Z, D, T, R, E> invoker;
+		private final D database;
+		private final T object;
+		private final ExceptionFactory<E> exceptionFactory;
+		private final Acknowledgements<Z, D, R, E> acknowledgements;
+		private final AsynchronousInvocations invocations;
+		
+		Invocation(Invoker<Z, D, T, R, E> invoker, D database, T object, ExceptionFactory<E> exceptionFactory, Acknowledgements<Z, D, R, E> acknowledgements, AsynchronousInvocations invocations)
+		{
+			this.invoker = invoker;
+			this.database = database;
+			this.object = object;
+			this.exceptionFactory = exceptionFactory;
+			this.acknowledgements = acknowledgements;
+			this.invocations = invocations;
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 * @see java.lang.Runnable#run()
+		 */
+		@Override
+		public void run()
+		{
+			R result = null;
+			E exception = null;
+			
+			try
+			{
+				result = this.invoker.invoke(this.database, this.object);
+			}
+			catch (Throwable e)
+			{
+				exception = this.exceptionFactory.createException(e);
+			}
+			
+			try
+			{
+				this.acknowledgements.completed(this.database, result, exception);
+			}
+			finally
+			{
+				this.invocations.written();
+			}
+		}
+	}
+}
@@ -0,0 +1,349 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.invocation;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.sf.hajdbc.Database;
+import net.sf.hajdbc.DatabaseCluster;
+import net.sf.hajdbc.ExceptionFactory;
+import net.sf.hajdbc.Messages;
+import net.sf.hajdbc.balancer.Balancer;
+import net.sf.hajdbc.dialect.Dialect;
+import net.sf.hajdbc.logging.Level;
+import net.sf.hajdbc.logging.Logger;
+import net.sf.hajdbc.logging.LoggerFactory;
+import net.sf.hajdbc.sql.ProxyFactory;
+import net.sf.hajdbc.state.StateManager;
+
+/**
+ * Invokes a read against a single database, like {@link InvokeOnOneInvocationStrategy}, but hedges the read against a second database
+ * if the first has not responded within a percentile of recent read latencies.
+ * The result of whichever database responds first is returned; the other read is cancelled via {@link Statement#cancel()}, and any result it returns is closed.
+ * Until enough reads have completed to determine a hedging delay, reads are invoked inline.
+ * Abandoned reads are registered with the specified {@link AsynchronousInvocations}, so that subsequent operations on the same connection can wait for them.
+ * @author Paul Ferraro
+ */
+public class HedgedInvocationStrategy implements InvocationStrategy
+{
+	static final Logger logger = LoggerFactory.getLogger(HedgedInvocationStrategy.class);
+	
+	private final InvokeOnOneInvocationStrategy.DatabaseSelector selector;
+	private final InvocationStrategy strategy;
+	private final HedgedReadStatistics statistics;
+	private final AsynchronousInvocations invocations;
+	
+	public HedgedInvocationStrategy(InvokeOnOneInvocationStrategy.DatabaseSelector selector, HedgedReadStatistics statistics, AsynchronousInvocations invocations)
+	{
+		this.selector = selector;
+		this.strategy = new InvokeOnOneInvocationStrategy(selector);
+		this.statistics = statistics;
+		this.invocations = invocations;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public <Z, D extends Database<Z>, T, R, E extends Exception> SortedMap<D, R> invoke(ProxyFactory<Z, D, T, E> map, Invoker<Z, D, T, R, E> invoker) throws E
+	{
+		long delay = this.statistics.getDelay();
+		
+		if (delay < 0)
+		{
+			// No hedging delay known yet, so avoid the thread hand-off, but record the latency of the read
+			long start = System.nanoTime();
+			SortedMap<D, R> results = this.strategy.invoke(map, invoker);
+			this.statistics.read(System.nanoTime() - start);
+			return results;
+		}
+		
+		DatabaseCluster<Z, D> cluster = map.getRoot().getDatabaseCluster();
+		ExceptionFactory<E> exceptionFactory = map.getExceptionFactory();
+		Balancer<Z, D> balancer = cluster.getBalancer();
+		Dialect dialect = cluster.getDialect();
+		StateManager stateManager = cluster.getStateManager();
+		ExecutorService executor = cluster.getExecutor();
+		CompletionService<R> service = new ExecutorCompletionService<>(executor);
+		Map<Future<R>, Read<Z, D, T, R, E>> reads = new HashMap<>();
+		
+		D database = this.selector.selectDatabase(balancer);
+		
+		if (database == null)
+		{
+			throw exceptionFactory.createException(Messages.NO_ACTIVE_DATABASES.getMessage(cluster));
+		}
+		
+		long start = System.nanoTime();
+		boolean hedged = false;
+		// Non-failure exception of a hedge, thrown only if the original read does not succeed
+		E hedgeException = null;
+		
+		this.submit(service, reads, new Read<>(balancer, invoker, database, map.get(database)));
+		
+		try
+		{
+			while (true)
+			{
+				Future<R> future = hedged ? service.take() : service.poll(start + delay - System.nanoTime(), TimeUnit.NANOSECONDS);
+				
+				if (future == null)
+				{
+					// Read did not respond in time - hedge against another database
+					hedged = true;
+					
+					D hedgeDatabase = this.selectOtherDatabase(balancer, database);
+					
+					if (hedgeDatabase != null)
+					{
+						this.statistics.hedged();
+						this.submit(service, reads, new Read<>(balancer, invoker, hedgeDatabase, map.get(hedgeDatabase)));
+					}
+					continue;
+				}
+				
+				Read<Z, D, T, R, E> read = reads.remove(future);
+				
+				try
+				{
+					R result = future.get();
+					
+					this.statistics.read(System.nanoTime() - start);
+					
+					if (!read.getDatabase().equals(database))
+					{
+						this.statistics.won();
+					}
+					
+					this.abandon(executor, reads);
+					
+					SortedMap<D, R> resultMap = new TreeMap<>();
+					resultMap.put(read.getDatabase(), result);
+					return resultMap;
+				}
+				catch (ExecutionException e)
+				{
+					E exception = exceptionFactory.createException(e.getCause());
+					D failedDatabase = read.getDatabase();
+					
+					if (!exceptionFactory.indicatesFailure(exception, dialect))
+					{
+						if (!failedDatabase.equals(database) && !reads.isEmpty())
+						{
+							// The original read may yet succeed
+							hedgeException = exception;
+							continue;
+						}
+						
+						this.abandon(executor, reads);
+						
+						throw exception;
+					}
+					
+					if (cluster.deactivate(failedDatabase, stateManager))
+					{
+						logger.log(Level.ERROR, exception, Messages.DATABASE_DEACTIVATED.getMessage(), failedDatabase, cluster);
+					}
+					
+					if (reads.isEmpty())
+					{
+						if (hedgeException != null)
+						{
+							throw hedgeException;
+						}
+						
+						// Retry against another database
+						database = this.selector.selectDatabase(balancer);
+						
+						if (database == null)
+						{
+							throw exceptionFactory.createException(Messages.NO_ACTIVE_DATABASES.getMessage(cluster));
+						}
+						
+						start = System.nanoTime();
+						hedged = false;
+						
+						this.submit(service, reads, new Read<>(balancer, invoker, database, map.get(database)));
+					}
+				}
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			
+			this.abandon(executor, reads);
+			
+			throw exceptionFactory.createException(e);
+		}
+	}
+	
+	private <Z, D extends Database<Z>, T, R, E extends Exception> void submit(CompletionService<R> service, Map<Future<R>, Read<Z, D, T, R, E>> reads, Read<Z, D, T, R, E> read)
+	{
+		reads.put(service.submit(read), read);
+	}
+	
+	private <Z, D extends Database<Z>> D selectOtherDatabase(Balancer<Z, D> balancer, D database)
+	{
+		for (int i = 0; i < balancer.size(); ++i)
+		{
+			D other = this.selector.selectDatabase(balancer);
+			
+			if ((other != null) && !other.equals(database))
+			{
+				return other;
+			}
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Cancels the specified outstanding reads, such that their results, if any, are discarded.
+	 */
+	private <Z, D extends Database<Z>, T, R, E extends Exception> void abandon(ExecutorService executor, Map<Future<R>, Read<Z, D, T, R, E>> reads)
+	{
+		for (Map.Entry<Future<R>, Read<Z, D, T, R, E>> entry: reads.entrySet())
+		{
+			final Read<Z, D, T, R, E> read = entry.getValue();
+			
+			if (read.abandon())
+			{
+				// Statement.cancel() may block, so cancel asynchronously
+				this.invocations.add(executor.submit(new Runnable()
+				{
+					@Override
+					public void run()
+					{
+						read.cancel();
+					}
+				}));
+			}
+			
+			this.invocations.add(entry.getKey());
+		}
+		
+		reads.clear();
+	}
+	
+	private static class Read<Z, D extends Database<Z>, T, R, E extends Exception> implements Callable<R>
+	{
+		private static final int PENDING = 0;
+		private static final int COMPLETED = 1;
+		private static final int ABANDONED = 2;
+		
+		private final Balancer<Z, D> balancer;
+		private final Invoker<Z, D, T, R, E> invoker;
+		private final D database;
+		private final T object;
+		private final AtomicInteger state = new AtomicInteger(PENDING);
+		private volatile R result = null;
+		
+		Read(Balancer<Z, D> balancer, Invoker<Z, D, T, R, E> invoker, D database, T object)
+		{
+			this.balancer = balancer;
+			this.invoker = invoker;
+			this.database = database;
+			this.object = object;
+		}
+		
+		D getDatabase()
+		{
+			return this.database;
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 * @see java.util.concurrent.Callable#call()
+		 */
+		@Override
+		public R call() throws E
+		{
+			R result = this.balancer.invoke(this.invoker, this.database, this.object);
+			
+			this.result = result;
+			
+			if (!this.state.compareAndSet(PENDING, COMPLETED))
+			{
+				// Read was abandoned while in progress
+				this.close();
+			}
+			
+			return result;
+		}
+		
+		/**
+		 * Abandons this read, such that its result will be closed.
+		 * @return true, if this read is still in progress, false otherwise
+		 */
+		boolean abandon()
+		{
+			if (this.state.compareAndSet(PENDING, ABANDONED)) return true;
+			
+			// Read completed, but its result was never consumed
+			this.close();
+			
+			return false;
+		}
+		
+		void cancel()
+		{
+			if (this.object instanceof Statement)
+			{
+				try
+				{
+					((Statement) this.object).cancel();
+				}
+				catch (SQLException e)
+				{
+					logger.log(Level.DEBUG, e);
+				}
+			}
+		}
+		
+		private void close()
+		{
+			R result = this.result;
+			
+			if (result instanceof AutoCloseable)
+			{
+				try
+				{
+					((AutoCloseable) result).close();
+				}
+				catch (Exception e)
+				{
+					logger.log(Level.DEBUG, e);
+				}
+			}
+		}
+	}
+}
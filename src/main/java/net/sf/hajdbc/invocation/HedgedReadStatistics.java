@@ -0,0 +1,116 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.invocation;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Cluster-wide statistics of hedged reads.
+ * Tracks the latencies of recent reads, from which the delay before hedging a read is derived, as a percentile.
+ * @author Paul Ferraro
+ */
+public class HedgedReadStatistics
+{
+	// Number of recent read latencies retained, must be a power of 2
+	private static final int SAMPLES = 1024;
+	// Number of reads between recalculations of the hedging delay
+	private static final int INTERVAL = 64;
+	
+	private final int percentile;
+	private final AtomicLongArray latencies = new AtomicLongArray(SAMPLES);
+	private final AtomicLong reads = new AtomicLong(0);
+	private final AtomicLong hedges = new AtomicLong(0);
+	private final AtomicLong wins = new AtomicLong(0);
+	private volatile long delay = -1;
+	
+	/**
+	 * Creates new hedged read statistics.
+	 * @param percentile the percentile of read latencies after which a read is hedged
+	 */
+	public HedgedReadStatistics(int percentile)
+	{
+		this.percentile = percentile;
+	}
+	
+	/**
+	 * Records the latency of a completed read.
+	 * @param latency a duration in nanoseconds
+	 */
+	public void read(long latency)
+	{
+		long reads = this.reads.getAndIncrement();
+		
+		this.latencies.set((int) (reads & (SAMPLES - 1)), latency);
+		
+		if (((reads + 1) % INTERVAL) == 0)
+		{
+			this.delay = this.calculateDelay((int) Math.min(reads + 1, SAMPLES));
+		}
+	}
+	
+	private long calculateDelay(int samples)
+	{
+		long[] latencies = new long[samples];
+		
+		for (int i = 0; i < samples; ++i)
+		{
+			latencies[i] = this.latencies.get(i);
+		}
+		
+		Arrays.sort(latencies);
+		
+		return latencies[Math.min(samples - 1, (samples * this.percentile) / 100)];
+	}
+	
+	/**
+	 * Records that a read was hedged.
+	 */
+	public void hedged()
+	{
+		this.hedges.incrementAndGet();
+	}
+	
+	/**
+	 * Records that the hedge of a read returned before the original read.
+	 */
+	public void won()
+	{
+		this.wins.incrementAndGet();
+	}
+	
+	/**
+	 * Returns the delay after which an unanswered read should be hedged.
+	 * @return a duration in nanoseconds, or -1 if too few reads have completed to determine a delay
+	 */
+	public long getDelay()
+	{
+		return this.delay;
+	}
+	
+	public long getHedges()
+	{
+		return this.hedges.get();
+	}
+	
+	public long getWins()
+	{
+		return this.wins.get();
+	}
+}
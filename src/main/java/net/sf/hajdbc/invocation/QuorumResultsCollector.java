@@ -0,0 +1,367 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.invocation;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import net.sf.hajdbc.Database;
+import net.sf.hajdbc.DatabaseCluster;
+import net.sf.hajdbc.ExceptionFactory;
+import net.sf.hajdbc.Messages;
+import net.sf.hajdbc.invocation.AllResultsCollector.ExecutorProvider;
+import net.sf.hajdbc.logging.Level;
+import net.sf.hajdbc.logging.Logger;
+import net.sf.hajdbc.logging.LoggerFactory;
+import net.sf.hajdbc.sql.ProxyFactory;
+import net.sf.hajdbc.state.StateManager;
+import net.sf.hajdbc.util.Objects;
+
+/**
+ * Results collector that completes once the {@link DatabaseCluster#getWriteQuorum() write quorum} of databases have returned matching results.
+ * Databases whose results or exceptions disagree with the quorum are deactivated.
+ * The remaining databases complete in the background, and are deactivated if their results or exceptions disagree with the quorum.
+ * Each remaining database is tracked as an asynchronous write of the specified {@link AsynchronousInvocations}, so that subsequent operations on the connection,
+ * including the end of its transaction, wait for them, and such that locks protecting the write are held until it completes on every database.
+ * Consequently, this collector is only suitable for lock-free writes within a transaction.
+ * The statements of databases that have not responded within the {@link DatabaseCluster#getWriteQuorumTimeout() write quorum timeout} are cancelled, and their databases deactivated.
+ * Until a quorum is reached, this collector waits for all databases, and defers to the usual reconciliation of {@link InvokeOnManyInvocationStrategy}.
+ * If no write quorum is configured, this collector behaves like {@link AllResultsCollector}.
+ * @author Paul Ferraro
+ */
+public class QuorumResultsCollector implements InvokeOnManyInvocationStrategy.ResultsCollector
+{
+	private static final Logger logger = LoggerFactory.getLogger(QuorumResultsCollector.class);
+	
+	private final ExecutorProvider provider;
+	private final AsynchronousInvocations invocations;
+	private final InvokeOnManyInvocationStrategy.ResultsCollector collector;
+	
+	/**
+	 * Creates a new quorum results collector
+	 * @param provider provides the executor of the invocations
+	 * @param invocations tracks the invocations of databases outside of the quorum
+	 */
+	public QuorumResultsCollector(ExecutorProvider provider, AsynchronousInvocations invocations)
+	{
+		this.provider = provider;
+		this.invocations = invocations;
+		this.collector = new AllResultsCollector(provider);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public <Z, D extends Database<Z>, T, R, E extends Exception> Map.Entry<SortedMap<D, R>, SortedMap<D, E>> collectResults(ProxyFactory<Z, D, T, E> map, Invoker<Z, D, T, R, E> invoker)
+	{
+		DatabaseCluster<Z, D> cluster = map.getDatabaseCluster();
+		int quorum = cluster.getWriteQuorum();
+		Set<D> databaseSet = cluster.getBalancer();
+		
+		// A quorum is only meaningful if it excludes at least one database
+		if ((quorum <= 0) || (quorum >= databaseSet.size()))
+		{
+			return this.collector.collectResults(map, invoker);
+		}
+		
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(cluster.getWriteQuorumTimeout());
+		ExceptionFactory<E> exceptionFactory = map.getExceptionFactory();
+		
+		map.getRoot().retain(databaseSet);
+		
+		List<D> databases = new ArrayList<>(databaseSet);
+		CompletionService<R> service = new ExecutorCompletionService<>(this.provider.getExecutor(cluster));
+		Map<Future<R>, D> futures = new HashMap<>();
+		
+		for (D database: databases)
+		{
+			futures.put(service.submit(new Invocation<>(invoker, database, map.get(database))), database);
+		}
+		
+		SortedMap<D, R> resultMap = new TreeMap<>();
+		SortedMap<D, E> exceptionMap = new TreeMap<>();
+		SortedMap<D, R> quorumMap = null;
+		
+		try
+		{
+			while ((quorumMap == null) && !futures.isEmpty())
+			{
+				Future<R> future = service.take();
+				D database = futures.remove(future);
+				
+				try
+				{
+					resultMap.put(database, future.get());
+				}
+				catch (ExecutionException e)
+				{
+					exceptionMap.put(database, exceptionFactory.createException(e.getCause()));
+				}
+				
+				quorumMap = findQuorum(resultMap, quorum);
+			}
+		}
+		catch (InterruptedException e)
+		{
+			throw new IllegalStateException(e);
+		}
+		
+		if (quorumMap == null)
+		{
+			// No quorum, so let the invocation strategy reconcile the results
+			return new AbstractMap.SimpleImmutableEntry<>(resultMap, exceptionMap);
+		}
+		
+		StateManager stateManager = cluster.getStateManager();
+		R quorumResult = quorumMap.values().iterator().next();
+		
+		for (Map.Entry<D, R> entry: resultMap.entrySet())
+		{
+			D database = entry.getKey();
+			
+			if (!quorumMap.containsKey(database) && cluster.deactivate(database, stateManager))
+			{
+				logger.log(Level.ERROR, Messages.DATABASE_INCONSISTENT.getMessage(), database, cluster, quorumResult, entry.getValue());
+			}
+		}
+		
+		for (Map.Entry<D, E> entry: exceptionMap.entrySet())
+		{
+			D database = entry.getKey();
+			
+			if (cluster.deactivate(database, stateManager))
+			{
+				logger.log(Level.ERROR, entry.getValue(), Messages.DATABASE_DEACTIVATED.getMessage(), database, cluster);
+			}
+		}
+		
+		if (!futures.isEmpty())
+		{
+			int stragglers = futures.size();
+			
+			for (int i = 0; i < stragglers; ++i)
+			{
+				this.invocations.writing();
+			}
+			
+			try
+			{
+				this.invocations.add(cluster.getExecutor().submit(new Stragglers<>(map, service, futures, quorumResult, deadline, this.invocations)));
+			}
+			catch (RuntimeException e)
+			{
+				for (int i = 0; i < stragglers; ++i)
+				{
+					this.invocations.written();
+				}
+				throw e;
+			}
+		}
+		
+		return new AbstractMap.SimpleImmutableEntry<SortedMap<D, R>, SortedMap<D, E>>(quorumMap, new TreeMap<D, E>());
+	}
+	
+	/**
+	 * Finds the largest group of matching results, provided it constitutes a quorum.
+	 * @param results a map of results per database
+	 * @param quorum the number of matching results required
+	 * @return the results of the quorum, or null, if no quorum was reached
+	 */
+	private static <D, R> SortedMap<D, R> findQuorum(SortedMap<D, R> results, int quorum)
+	{
+		if (results.size() < quorum) return null;
+		
+		SortedMap<D, R> largest = null;
+		
+		for (R result: results.values())
+		{
+			SortedMap<D, R> matches = new TreeMap<>();
+			
+			for (Map.Entry<D, R> entry: results.entrySet())
+			{
+				if (Objects.equals(result, entry.getValue()))
+				{
+					matches.put(entry.getKey(), entry.getValue());
+				}
+			}
+			
+			if ((largest == null) || (matches.size() > largest.size()))
+			{
+				largest = matches;
+			}
+		}
+		
+		return (largest.size() >= quorum) ? largest : null;
+	}
+	
+	/**
+	 * Collects the responses of the databases that did not contribute to the quorum.
+	 * Each response completes an asynchronous write, only once it was verified against the quorum.
+	 */
+	private static class Stragglers<Z, D extends Database<Z>, T, R, E extends Exception> implements Runnable
+	{
+		private final ProxyFactory<Z, D, T, E> map;
+		private final CompletionService<R> service;
+		private final Map<Future<R>, D> futures;
+		private final R quorumResult;
+		private final long deadline;
+		private final AsynchronousInvocations invocations;
+		
+		/**
+		 * @param deadline the {@link System#nanoTime()} after which outstanding invocations are cancelled
+		 */
+		Stragglers(ProxyFactory<Z, D, T, E> map, CompletionService<R> service, Map<Future<R>, D> futures, R quorumResult, long deadline, AsynchronousInvocations invocations)
+		{
+			this.map = map;
+			this.service = service;
+			this.futures = futures;
+			this.quorumResult = quorumResult;
+			this.deadline = deadline;
+			this.invocations = invocations;
+		}
+		
+		@Override
+		public void run()
+		{
+			DatabaseCluster<Z, D> cluster = this.map.getDatabaseCluster();
+			StateManager stateManager = cluster.getStateManager();
+			boolean cancelled = false;
+			
+			try
+			{
+				while (!this.futures.isEmpty())
+				{
+					Future<R> future = cancelled ? this.service.take() : this.service.poll(this.deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+					
+					if (future == null)
+					{
+						// Remaining databases did not respond in time
+						for (D database: this.futures.values())
+						{
+							this.cancel(database);
+							
+							if (cluster.deactivate(database, stateManager))
+							{
+								logger.log(Level.ERROR, Messages.DATABASE_NOT_ALIVE.getMessage(), database, cluster);
+							}
+						}
+						
+						// Continue to wait for cancelled invocations, since a database must not be reused while its write is still in progress
+						cancelled = true;
+						continue;
+					}
+					
+					D database = this.futures.remove(future);
+					
+					try
+					{
+						R result = future.get();
+						
+						if (!Objects.equals(this.quorumResult, result) && cluster.deactivate(database, stateManager))
+						{
+							logger.log(Level.ERROR, Messages.DATABASE_INCONSISTENT.getMessage(), database, cluster, this.quorumResult, result);
+						}
+					}
+					catch (ExecutionException e)
+					{
+						if (cluster.deactivate(database, stateManager))
+						{
+							logger.log(Level.ERROR, this.map.getExceptionFactory().createException(e.getCause()), Messages.DATABASE_DEACTIVATED.getMessage(), database, cluster);
+						}
+					}
+					finally
+					{
+						this.invocations.written();
+					}
+				}
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+			finally
+			{
+				// Never leave locks held by abandoned invocations
+				for (int i = 0; i < this.futures.size(); ++i)
+				{
+					this.invocations.written();
+				}
+			}
+		}
+		
+		/**
+		 * Cancels the statement executing against the specified database, if possible.
+		 * Unlike interrupting its thread, this aborts the execution within the database.
+		 */
+		private void cancel(D database)
+		{
+			T object = this.map.get(database);
+			
+			if (object instanceof Statement)
+			{
+				try
+				{
+					((Statement) object).cancel();
+				}
+				catch (SQLException e)
+				{
+					logger.log(Level.WARN, e);
+				}
+			}
+		}
+	}
+	
+	private static class Invocation<Z, D extends Database<Z>, T, R, E extends Exception> implements Callable<R>
+	{
+		private final Invoker<Z, D, T, R, E> invoker;
+		private final D database;
+		private final T object;
+		
+		Invocation(Invoker<Z, D, T, R, E> invoker, D database, T object)
+		{
+			this.invoker = invoker;
+			this.database = database;
+			this.object = object;
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 * @see java.util.concurrent.Callable#call()
+		 */
+		@Override
+		public R call() throws E
+		{
+			return this.invoker.invoke(this.database, this.object);
+		}
+	}
+}
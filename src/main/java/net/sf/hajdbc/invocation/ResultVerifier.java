@@ -0,0 +1,124 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.invocation;
+
+import java.lang.reflect.Array;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.sf.hajdbc.Database;
+import net.sf.hajdbc.sql.InvocationResultFactory;
+import net.sf.hajdbc.util.Objects;
+
+/**
+ * Cluster-wide policy for verifying the result of a backup database against the result of the primary database.
+ * Scalar results, e.g. update counts, are always verified in full.
+ * Array results, e.g. the update counts of a batch, that are longer than the configured sample size are verified by comparing their lengths and a sample of their elements.
+ * Sampled positions are evenly spaced, and their offset rotates with each comparison, so that repeated batches eventually verify every position.
+ * Tracks the number of comparisons and mismatches.
+ * @author Paul Ferraro
+ */
+public class ResultVerifier
+{
+	private final int sampleSize;
+	private final AtomicLong comparisons = new AtomicLong(0);
+	private final AtomicLong sampledComparisons = new AtomicLong(0);
+	private final AtomicLong mismatches = new AtomicLong(0);
+	
+	/**
+	 * Creates a new result verifier.
+	 * @param sampleSize the number of elements of an array result to verify, or 0 to verify array results in full
+	 */
+	public ResultVerifier(int sampleSize)
+	{
+		this.sampleSize = sampleSize;
+	}
+	
+	/**
+	 * Indicates whether the specified backup result differs from the specified primary result.
+	 * @param factory the factory of the results, which determines how results are compared
+	 * @param primaryResult the result of the primary database
+	 * @param backupResult the result of a backup database
+	 * @return true, if the results differ, false otherwise
+	 */
+	public <Z, D extends Database<Z>, R> boolean differs(InvocationResultFactory<Z, D, R> factory, R primaryResult, R backupResult)
+	{
+		long comparison = this.comparisons.getAndIncrement();
+		
+		boolean differs = this.isSampled(primaryResult, backupResult) ? this.sampleDiffers(primaryResult, backupResult, comparison) : factory.differs(primaryResult, backupResult);
+		
+		if (differs)
+		{
+			this.mismatches.incrementAndGet();
+		}
+		
+		return differs;
+	}
+	
+	private boolean isSampled(Object primaryResult, Object backupResult)
+	{
+		return (this.sampleSize > 0) && (primaryResult != null) && (backupResult != null) && primaryResult.getClass().isArray() && (primaryResult.getClass() == backupResult.getClass()) && (Array.getLength(primaryResult) > this.sampleSize);
+	}
+	
+	private boolean sampleDiffers(Object primaryResult, Object backupResult, long comparison)
+	{
+		this.sampledComparisons.incrementAndGet();
+		
+		int length = Array.getLength(primaryResult);
+		
+		if (Array.getLength(backupResult) != length) return true;
+		
+		int stride = length / this.sampleSize;
+		int offset = (int) (comparison % stride);
+		
+		for (int i = 0; i < this.sampleSize; ++i)
+		{
+			int index = offset + (i * stride);
+			
+			if (!Objects.equals(Array.get(primaryResult, index), Array.get(backupResult, index))) return true;
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Returns the number of results verified.
+	 * @return a number of comparisons
+	 */
+	public long getComparisons()
+	{
+		return this.comparisons.get();
+	}
+	
+	/**
+	 * Returns the number of results verified by sampling.
+	 * @return a number of comparisons
+	 */
+	public long getSampledComparisons()
+	{
+		return this.sampledComparisons.get();
+	}
+	
+	/**
+	 * Returns the number of results found to differ from the result of the primary database.
+	 * @return a number of mismatches
+	 */
+	public long getMismatches()
+	{
+		return this.mismatches.get();
+	}
+}
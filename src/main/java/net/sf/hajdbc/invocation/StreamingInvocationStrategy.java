@@ -0,0 +1,110 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.invocation;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.SortedMap;
+
+import net.sf.hajdbc.Database;
+import net.sf.hajdbc.ExceptionFactory;
+import net.sf.hajdbc.dialect.Dialect;
+import net.sf.hajdbc.logging.Level;
+import net.sf.hajdbc.logging.Logger;
+import net.sf.hajdbc.logging.LoggerFactory;
+import net.sf.hajdbc.sql.ProxyFactory;
+
+/**
+ * Invocation strategy decorator for queries whose results should be streamed from the server.
+ * Prior to invocation, each statement is configured via {@link Dialect#configureStreaming(Statement, int)}, after which its previous fetch size is restored.
+ * Statements whose fetch size is already at least the streaming fetch size, or negative, e.g. as set by the application, are left as is;
+ * smaller fetch sizes, e.g. the default fetch size of the driver, such as 10 for Oracle, are raised to the streaming fetch size for the duration of the query.
+ * @author Paul Ferraro
+ */
+public class StreamingInvocationStrategy implements InvocationStrategy
+{
+	static final Logger logger = LoggerFactory.getLogger(StreamingInvocationStrategy.class);
+	
+	private final InvocationStrategy strategy;
+	private final int fetchSize;
+	
+	/**
+	 * @param strategy the strategy of the query
+	 * @param fetchSize the number of rows to fetch per round trip
+	 */
+	public StreamingInvocationStrategy(InvocationStrategy strategy, int fetchSize)
+	{
+		this.strategy = strategy;
+		this.fetchSize = fetchSize;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public <Z, D extends Database<Z>, T, R, E extends Exception> SortedMap<D, R> invoke(ProxyFactory<Z, D, T, E> proxy, final Invoker<Z, D, T, R, E> invoker) throws E
+	{
+		final Dialect dialect = proxy.getDatabaseCluster().getDialect();
+		final ExceptionFactory<E> exceptionFactory = proxy.getExceptionFactory();
+		final int fetchSize = this.fetchSize;
+		
+		Invoker<Z, D, T, R, E> streamingInvoker = new Invoker<Z, D, T, R, E>()
+		{
+			@Override
+			public R invoke(D database, T object) throws E
+			{
+				Statement statement = (Statement) object;
+				int previousFetchSize = 0;
+				boolean streaming = false;
+				
+				try
+				{
+					previousFetchSize = statement.getFetchSize();
+					// Respect a larger, or vendor-specific negative, fetch size, e.g. set by the application, but not a smaller driver default
+					streaming = (previousFetchSize >= 0) && (previousFetchSize < fetchSize) && dialect.configureStreaming(statement, fetchSize);
+				}
+				catch (SQLException e)
+				{
+					throw exceptionFactory.createException(e);
+				}
+				
+				try
+				{
+					return invoker.invoke(database, object);
+				}
+				finally
+				{
+					if (streaming)
+					{
+						// Fetch size is retained by the statement, e.g. MySQL would otherwise stream every subsequent query
+						try
+						{
+							statement.setFetchSize(previousFetchSize);
+						}
+						catch (SQLException e)
+						{
+							logger.log(Level.WARN, e);
+						}
+					}
+				}
+			}
+		};
+		
+		return this.strategy.invoke(proxy, streamingInvoker);
+	}
+}
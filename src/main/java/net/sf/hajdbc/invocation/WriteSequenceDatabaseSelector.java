@@ -0,0 +1,41 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.invocation;
+
+import net.sf.hajdbc.Database;
+import net.sf.hajdbc.balancer.Balancer;
+
+/**
+ * Selects the next database that has committed a given write sequence, i.e. read-your-writes.
+ * @author Paul Ferraro
+ */
+public class WriteSequenceDatabaseSelector implements InvokeOnOneInvocationStrategy.DatabaseSelector
+{
+	private final long sequence;
+	
+	public WriteSequenceDatabaseSelector(long sequence)
+	{
+		this.sequence = sequence;
+	}
+	
+	@Override
+	public <Z, D extends Database<Z>> D selectDatabase(Balancer<Z, D> balancer)
+	{
+		return balancer.next(this.sequence);
+	}
+}
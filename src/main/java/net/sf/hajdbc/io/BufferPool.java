@@ -0,0 +1,84 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.io;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of reusable transfer buffers.
+ * Buffers released to a full pool are discarded.
+ * @author Paul Ferraro
+ * @param <B> buffer type
+ */
+public abstract class BufferPool<B>
+{
+	private final Queue<B> buffers = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger size = new AtomicInteger(0);
+	private final int capacity;
+	
+	/**
+	 * Creates a new buffer pool
+	 * @param capacity the maximum number of buffers retained by this pool
+	 */
+	protected BufferPool(int capacity)
+	{
+		this.capacity = capacity;
+	}
+	
+	/**
+	 * Creates a new buffer, when this pool is empty.
+	 * @return a new buffer
+	 */
+	protected abstract B create();
+	
+	/**
+	 * Takes a buffer from this pool, creating one if necessary.
+	 * @return a buffer
+	 */
+	public B take()
+	{
+		B buffer = this.buffers.poll();
+		
+		if (buffer == null)
+		{
+			return this.create();
+		}
+		
+		this.size.decrementAndGet();
+		
+		return buffer;
+	}
+	
+	/**
+	 * Returns the specified buffer to this pool.
+	 * @param buffer a buffer previously taken from this pool
+	 */
+	public void release(B buffer)
+	{
+		if (this.size.incrementAndGet() <= this.capacity)
+		{
+			this.buffers.offer(buffer);
+		}
+		else
+		{
+			this.size.decrementAndGet();
+		}
+	}
+}
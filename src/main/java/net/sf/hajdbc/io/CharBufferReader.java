@@ -0,0 +1,99 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.io;
+
+import java.io.Reader;
+import java.nio.CharBuffer;
+
+/**
+ * Reader that reads directly from a character buffer, e.g. a view of a direct or memory-mapped buffer, without copying its content.
+ * The position of the buffer is advanced as characters are read; thus each reader should be given its own duplicate of a shared buffer.
+ * @author Paul Ferraro
+ */
+public class CharBufferReader extends Reader
+{
+	private final CharBuffer buffer;
+	private int mark = 0;
+	
+	public CharBufferReader(CharBuffer buffer)
+	{
+		this.buffer = buffer;
+	}
+
+	@Override
+	public int read()
+	{
+		return this.buffer.hasRemaining() ? this.buffer.get() : -1;
+	}
+
+	@Override
+	public int read(char[] chars, int offset, int length)
+	{
+		if (length == 0) return 0;
+		
+		int remaining = this.buffer.remaining();
+		
+		if (remaining == 0) return -1;
+		
+		int count = Math.min(length, remaining);
+		
+		this.buffer.get(chars, offset, count);
+		
+		return count;
+	}
+
+	@Override
+	public long skip(long count)
+	{
+		int skipped = (int) Math.min(Math.max(count, 0), this.buffer.remaining());
+		
+		this.buffer.position(this.buffer.position() + skipped);
+		
+		return skipped;
+	}
+
+	@Override
+	public boolean ready()
+	{
+		return true;
+	}
+
+	@Override
+	public boolean markSupported()
+	{
+		return true;
+	}
+
+	@Override
+	public void mark(int limit)
+	{
+		this.mark = this.buffer.position();
+	}
+
+	@Override
+	public void reset()
+	{
+		this.buffer.position(this.mark);
+	}
+
+	@Override
+	public void close()
+	{
+		// Do nothing
+	}
+}
@@ -31,5 +31,15 @@ public interface InputSinkChannel<I, S>
 	
 	S write(I input) throws IOException;
 	
+	/**
+	 * Writes the specified input to a new sink, using the specified length as a hint for sizing the sink.
+	 * As with {@link #write(Object)}, the input is consumed until its end, regardless of the hint.
+	 * @param input an input stream or reader
+	 * @param length the expected length of the input, in bytes or characters, or a negative value, if unknown
+	 * @return a sink
+	 * @throws IOException if the input could not be read, or the sink could not be written
+	 */
+	S write(I input, long length) throws IOException;
+	
 	I read(S sink) throws IOException;
 }
@@ -67,6 +67,12 @@ public class InputSinkRegistryImpl<S> implements InputSinkRegistry<S>
 				return InputSinkRegistryImpl.this.addInputSink(channel.write(input));
 			}
 
+			@Override
+			public S write(I input, long length) throws IOException
+			{
+				return InputSinkRegistryImpl.this.addInputSink(channel.write(input, length));
+			}
+
 			@Override
 			public I read(S sink) throws IOException
 			{
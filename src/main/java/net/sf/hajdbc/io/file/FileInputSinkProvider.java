@@ -17,19 +17,61 @@
  */
 package net.sf.hajdbc.io.file;
 
+import java.io.File;
+import java.util.zip.Deflater;
+
 import net.sf.hajdbc.io.InputSinkStrategy;
 import net.sf.hajdbc.io.InputSinkProvider;
+import net.sf.hajdbc.util.SystemProperties;
 
 /**
- * A file-based input sink provider
+ * A file-based input sink provider, configured via the following system properties:
+ * <table>
+ * 	<tr>
+ * 		<th>Property</th>
+ * 		<th>Default</th>
+ * 	</tr>
+ * 	<tr>
+ * 		<td>ha-jdbc.input-sink.directory</td>
+ * 		<td>${java.io.tmpdir}</td>
+ * 	</tr>
+ * 	<tr>
+ * 		<td>ha-jdbc.input-sink.pool-size</td>
+ * 		<td>16</td>
+ * 	</tr>
+ * 	<tr>
+ * 		<td>ha-jdbc.input-sink.max-size</td>
+ * 		<td>0 (unlimited)</td>
+ * 	</tr>
+ * 	<tr>
+ * 		<td>ha-jdbc.input-sink.timeout</td>
+ * 		<td>60000</td>
+ * 	</tr>
+ * 	<tr>
+ * 		<td>ha-jdbc.input-sink.compression-level</td>
+ * 		<td>0 (no compression)</td>
+ * 	</tr>
+ * </table>
  * @author Paul Ferraro
  */
 public class FileInputSinkProvider implements InputSinkProvider
 {
+	public static final String DIRECTORY = "ha-jdbc.input-sink.directory";
+	public static final String POOL_SIZE = "ha-jdbc.input-sink.pool-size";
+	public static final String MAX_SIZE = "ha-jdbc.input-sink.max-size";
+	public static final String TIMEOUT = "ha-jdbc.input-sink.timeout";
+	public static final String COMPRESSION_LEVEL = "ha-jdbc.input-sink.compression-level";
+	
 	@Override
 	public InputSinkStrategy<? extends Object> createInputSinkStrategy()
 	{
-		return new FileInputSinkStrategy();
+		String directory = SystemProperties.getSystemProperty(DIRECTORY);
+		int poolSize = Integer.parseInt(SystemProperties.getSystemProperty(POOL_SIZE, Integer.toString(FileInputSinkStrategy.DEFAULT_POOL_SIZE)));
+		long maxSize = Long.parseLong(SystemProperties.getSystemProperty(MAX_SIZE, "0"));
+		long timeout = Long.parseLong(SystemProperties.getSystemProperty(TIMEOUT, Long.toString(FileInputSinkStrategy.DEFAULT_TIMEOUT)));
+		int compressionLevel = Integer.parseInt(SystemProperties.getSystemProperty(COMPRESSION_LEVEL, Integer.toString(Deflater.NO_COMPRESSION)));
+		
+		return new FileInputSinkStrategy((directory != null) ? new File(directory) : null, poolSize, maxSize, timeout, compressionLevel);
 	}
 
 	@Override
@@ -20,34 +20,59 @@ package net.sf.hajdbc.io.file;
 import java.io.File;
 import java.io.InputStream;
 import java.io.Reader;
+import java.util.zip.Deflater;
 
 import net.sf.hajdbc.io.InputSinkChannel;
 import net.sf.hajdbc.io.InputSinkStrategy;
-import net.sf.hajdbc.util.Files;
 
 /**
- * A file-based input sink strategy
+ * A file-based input sink strategy, whose files are recycled via a {@link SpillFilePool}, and optionally compressed via a {@link SpillCodec}.
  * @author Paul Ferraro
  */
 public class FileInputSinkStrategy implements InputSinkStrategy<File>
 {
 	static final String TEMP_FILE_SUFFIX = ".lob";
 	
+	public static final int DEFAULT_POOL_SIZE = 16;
+	public static final long DEFAULT_TIMEOUT = 60000;
+	
+	private final SpillFilePool pool;
+	private final SpillCodec codec;
+	
+	public FileInputSinkStrategy()
+	{
+		this(null, DEFAULT_POOL_SIZE, 0, DEFAULT_TIMEOUT, Deflater.NO_COMPRESSION);
+	}
+	
+	/**
+	 * Creates a new file-based input sink strategy
+	 * @param directory the directory of spill files, or null, to use the default temporary file directory
+	 * @param poolSize the maximum number of idle spill files retained for reuse
+	 * @param maxSize the maximum total size, in bytes, of spill files in use, or 0, if unlimited
+	 * @param timeout the maximum time, in milliseconds, to wait for spill file disk space
+	 * @param compressionLevel the {@link Deflater} level used to compress spill files whose content compresses well, or {@link Deflater#NO_COMPRESSION}, to disable compression
+	 */
+	public FileInputSinkStrategy(File directory, int poolSize, long maxSize, long timeout, int compressionLevel)
+	{
+		this.pool = new SpillFilePool(directory, TEMP_FILE_SUFFIX, poolSize, maxSize, timeout);
+		this.codec = new SpillCodec(compressionLevel);
+	}
+	
 	@Override
 	public InputSinkChannel<InputStream, File> createInputStreamChannel()
 	{
-		return new FileInputStreamSinkChannel();
+		return new FileInputStreamSinkChannel(this.pool, this.codec);
 	}
 
 	@Override
 	public InputSinkChannel<Reader, File> createReaderChannel()
 	{
-		return new FileReaderSinkChannel();
+		return new FileReaderSinkChannel(this.pool, this.codec);
 	}
 
 	@Override
 	public void close(File file)
 	{
-		Files.delete(file);
+		this.pool.release(file);
 	}
 }
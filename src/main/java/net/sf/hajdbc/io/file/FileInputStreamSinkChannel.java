@@ -19,17 +19,13 @@ package net.sf.hajdbc.io.file;
 
 import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.ByteBuffer;
-import java.nio.channels.Channels;
+import java.io.OutputStream;
 import java.nio.channels.FileChannel;
-import java.nio.channels.ReadableByteChannel;
 
 import net.sf.hajdbc.io.InputSinkChannel;
-import net.sf.hajdbc.util.Files;
 
 /**
  * Input stream channel for writing to, and reading from, a file sink.
@@ -37,31 +33,79 @@ import net.sf.hajdbc.util.Files;
  */
 public class FileInputStreamSinkChannel implements InputSinkChannel<InputStream, File>
 {
+	private final SpillFilePool pool;
+	private final SpillCodec codec;
+	
+	public FileInputStreamSinkChannel(SpillFilePool pool, SpillCodec codec)
+	{
+		this.pool = pool;
+		this.codec = codec;
+	}
+	
+	@Override
+	public File write(InputStream input, long length) throws IOException
+	{
+		return this.write(input);
+	}
+
 	@Override
 	public File write(InputStream input) throws IOException
 	{
-		File file = Files.createTempFile(FileInputSinkStrategy.TEMP_FILE_SUFFIX);
-		try (FileOutputStream output = new FileOutputStream(file))
+		File file = this.pool.acquire();
+		try
 		{
-			FileChannel fileChannel = output.getChannel();
-			ReadableByteChannel inputChannel = Channels.newChannel(input);
-			
-			ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
-			
-			while (inputChannel.read(buffer) > 0)
+			try (FileOutputStream output = new FileOutputStream(file))
 			{
-				buffer.flip();
-				fileChannel.write(buffer);
-				buffer.compact();
+				FileChannel channel = output.getChannel();
+				byte[] buffer = new byte[BUFFER_SIZE];
+				// The first chunk decides whether the content is compressed
+				int count = read(input, buffer);
+				
+				try (OutputStream encoder = this.codec.encode(output, buffer, 0, count))
+				{
+					while (count > 0)
+					{
+						encoder.write(buffer, 0, count);
+						this.pool.reserve(file, channel.position());
+						count = read(input, buffer);
+					}
+				}
 			}
 			
+			// Account for content written on close, e.g. the remainder of compressed content
+			this.pool.reserve(file, file.length());
+			
 			return file;
 		}
+		catch (IOException e)
+		{
+			this.pool.release(file);
+			throw e;
+		}
+	}
+	
+	/**
+	 * Reads as many bytes as will fit into the specified buffer, until the end of the specified stream.
+	 */
+	private static int read(InputStream input, byte[] buffer) throws IOException
+	{
+		int offset = 0;
+		
+		while (offset < buffer.length)
+		{
+			int count = input.read(buffer, offset, buffer.length - offset);
+			
+			if (count < 0) break;
+			
+			offset += count;
+		}
+		
+		return offset;
 	}
 
 	@Override
 	public InputStream read(File sink) throws IOException
 	{
-		return new BufferedInputStream(new FileInputStream(sink), BUFFER_SIZE);
+		return new BufferedInputStream(this.codec.decode(this.pool.open(sink)), BUFFER_SIZE);
 	}
 }
@@ -19,15 +19,16 @@ package net.sf.hajdbc.io.file;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.Writer;
-import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 
 import net.sf.hajdbc.io.InputSinkChannel;
-import net.sf.hajdbc.util.Files;
 
 /**
  * Reader channel for writing to, and reading from, a file sink..
@@ -35,28 +36,82 @@ import net.sf.hajdbc.util.Files;
  */
 public class FileReaderSinkChannel implements InputSinkChannel<Reader, File>
 {
+	private final SpillFilePool pool;
+	private final SpillCodec codec;
+	
+	public FileReaderSinkChannel(SpillFilePool pool, SpillCodec codec)
+	{
+		this.pool = pool;
+		this.codec = codec;
+	}
+	
+	@Override
+	public File write(Reader reader, long length) throws IOException
+	{
+		return this.write(reader);
+	}
+
 	@Override
 	public File write(Reader reader) throws IOException
 	{
-		File file = Files.createTempFile(FileInputSinkStrategy.TEMP_FILE_SUFFIX);
-		try (Writer writer = new FileWriter(file))
+		File file = this.pool.acquire();
+		try
 		{
-			CharBuffer buffer = CharBuffer.allocate(BUFFER_SIZE);
-			
-			while (reader.read(buffer) > 0)
+			try (FileOutputStream output = new FileOutputStream(file))
 			{
-				buffer.flip();
-				writer.append(buffer);
-				buffer.clear();
+				FileChannel channel = output.getChannel();
+				char[] buffer = new char[BUFFER_SIZE];
+				// The encoded first chunk decides whether the content is compressed
+				int count = read(reader, buffer);
+				byte[] sample = new String(buffer, 0, count).getBytes(Charset.defaultCharset());
+				
+				try (Writer writer = new OutputStreamWriter(this.codec.encode(output, sample, 0, sample.length)))
+				{
+					while (count > 0)
+					{
+						writer.write(buffer, 0, count);
+						// Account for the encoded size
+						writer.flush();
+						this.pool.reserve(file, channel.position());
+						count = read(reader, buffer);
+					}
+				}
 			}
 			
+			// Account for content written on close, e.g. the remainder of compressed content
+			this.pool.reserve(file, file.length());
+			
 			return file;
 		}
+		catch (IOException e)
+		{
+			this.pool.release(file);
+			throw e;
+		}
+	}
+	
+	/**
+	 * Reads as many characters as will fit into the specified buffer, until the end of the specified reader.
+	 */
+	private static int read(Reader reader, char[] buffer) throws IOException
+	{
+		int offset = 0;
+		
+		while (offset < buffer.length)
+		{
+			int count = reader.read(buffer, offset, buffer.length - offset);
+			
+			if (count < 0) break;
+			
+			offset += count;
+		}
+		
+		return offset;
 	}
 
 	@Override
 	public Reader read(File sink) throws IOException
 	{
-		return new BufferedReader(new FileReader(sink), BUFFER_SIZE);
+		return new BufferedReader(new InputStreamReader(this.codec.decode(this.pool.open(sink))), BUFFER_SIZE);
 	}
 }
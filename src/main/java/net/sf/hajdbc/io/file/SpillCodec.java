@@ -0,0 +1,178 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.io.file;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import net.sf.hajdbc.io.InputSinkChannel;
+
+/**
+ * Encodes the content of spill files, optionally compressing it.
+ * Whether or not content is compressed is decided per spill file, based on the compression ratio observed for the first chunk of its content;
+ * thus payloads that compress well, e.g. XML or JSON, are compressed, while those that do not, e.g. images or already compressed data, are written as is.
+ * Each spill file is prefixed with a header byte indicating how its content was encoded.
+ * @author Paul Ferraro
+ */
+public class SpillCodec
+{
+	static final int RAW = 0;
+	static final int DEFLATED = 1;
+	
+	// Compress only if the sample shrinks to at most this fraction of its size
+	static final double MAX_COMPRESSION_RATIO = 0.75;
+	// Samples smaller than this are not worth compressing
+	static final int MIN_SAMPLE_SIZE = 512;
+	
+	private final int level;
+	
+	/**
+	 * Creates a new spill file codec
+	 * @param level a {@link Deflater} compression level, or {@link Deflater#NO_COMPRESSION}, to disable compression
+	 */
+	public SpillCodec(int level)
+	{
+		this.level = level;
+	}
+	
+	/**
+	 * Writes the header of a spill file, and returns the stream to which its content should be written.
+	 * @param output the output stream of a spill file
+	 * @param sample the first chunk of content to be written
+	 * @param offset the offset of the sample
+	 * @param length the length of the sample
+	 * @return a compressing stream, if the sample compresses well, otherwise the specified stream.  Closing the returned stream closes the specified stream.
+	 * @throws IOException if the header could not be written
+	 */
+	public OutputStream encode(OutputStream output, byte[] sample, int offset, int length) throws IOException
+	{
+		boolean compress = this.compressible(sample, offset, length);
+		
+		output.write(compress ? DEFLATED : RAW);
+		
+		return compress ? new DeflatingOutputStream(output, new Deflater(this.level)) : output;
+	}
+	
+	/**
+	 * Reads the header of a spill file, and returns the stream from which its content should be read.
+	 * @param input the input stream of a spill file
+	 * @return a decompressing stream, if the content was compressed, otherwise the specified stream.  Closing the returned stream closes the specified stream.
+	 * @throws IOException if the header could not be read
+	 */
+	public InputStream decode(InputStream input) throws IOException
+	{
+		int header = input.read();
+		
+		switch (header)
+		{
+			case RAW:
+			{
+				return input;
+			}
+			case DEFLATED:
+			{
+				return new InflatingInputStream(input, new Inflater());
+			}
+			default:
+			{
+				input.close();
+				throw new IOException(String.format("Invalid spill file header: %d", header));
+			}
+		}
+	}
+	
+	private boolean compressible(byte[] sample, int offset, int length)
+	{
+		if ((this.level == Deflater.NO_COMPRESSION) || (length < MIN_SAMPLE_SIZE)) return false;
+		
+		Deflater deflater = new Deflater(this.level);
+		try
+		{
+			deflater.setInput(sample, offset, length);
+			deflater.finish();
+			
+			// Deflate into a buffer no larger than the acceptable compressed size
+			byte[] buffer = new byte[(int) (length * MAX_COMPRESSION_RATIO)];
+			int size = 0;
+			
+			while (!deflater.finished() && (size < buffer.length))
+			{
+				size += deflater.deflate(buffer, size, buffer.length - size);
+			}
+			
+			return deflater.finished();
+		}
+		finally
+		{
+			deflater.end();
+		}
+	}
+	
+	/**
+	 * Deflater stream that releases the native resources of its deflater when closed.
+	 */
+	private static class DeflatingOutputStream extends DeflaterOutputStream
+	{
+		DeflatingOutputStream(OutputStream output, Deflater deflater)
+		{
+			super(output, deflater, InputSinkChannel.BUFFER_SIZE);
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			try
+			{
+				super.close();
+			}
+			finally
+			{
+				this.def.end();
+			}
+		}
+	}
+	
+	/**
+	 * Inflater stream that releases the native resources of its inflater when closed.
+	 */
+	private static class InflatingInputStream extends InflaterInputStream
+	{
+		InflatingInputStream(InputStream input, Inflater inflater)
+		{
+			super(input, inflater, InputSinkChannel.BUFFER_SIZE);
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			try
+			{
+				super.close();
+			}
+			finally
+			{
+				this.inf.end();
+			}
+		}
+	}
+}
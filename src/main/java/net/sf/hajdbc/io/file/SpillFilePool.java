@@ -0,0 +1,290 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.io.file;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.sf.hajdbc.io.InputSinkChannel;
+import net.sf.hajdbc.logging.Level;
+import net.sf.hajdbc.logging.Logger;
+import net.sf.hajdbc.logging.LoggerFactory;
+import net.sf.hajdbc.util.Files;
+
+/**
+ * Pool of reusable spill files, which keeps file creation and deletion off the request path.
+ * Released files are truncated, then either retained for reuse or deleted, by a background thread.
+ * Since readers, e.g. driver streams or stragglers, may outlive the release of a file, open readers are counted; a file that is still being read when released is deleted, rather than reused.
+ * The total disk space of files in use can be capped, in which case writers block until space is released, or until a timeout elapses.
+ * Space is reserved after it is written, thus a file may briefly exceed its reservation; only the reserved space of a file is released when the file is recycled.
+ * @author Paul Ferraro
+ */
+public class SpillFilePool
+{
+	// Disk space is accounted in blocks, so that it can be tracked via int permits
+	private static final int BLOCK_SIZE = InputSinkChannel.BUFFER_SIZE;
+	
+	private static final Logger logger = LoggerFactory.getLogger(SpillFilePool.class);
+	
+	private final Queue<File> files = new ConcurrentLinkedQueue<>();
+	// Number of blocks reserved per file in use
+	private final ConcurrentMap<File, Integer> reservations = new ConcurrentHashMap<>();
+	// Number of open readers per file in use, or -1, once recycled
+	private final ConcurrentMap<File, AtomicInteger> readers = new ConcurrentHashMap<>();
+	private final AtomicInteger size = new AtomicInteger(0);
+	private final File directory;
+	private final String suffix;
+	private final int capacity;
+	private final Semaphore blocks;
+	private final long timeout;
+	private final Executor executor;
+	
+	/**
+	 * Creates a new spill file pool
+	 * @param directory the directory of spill files, or null, to use the default temporary file directory
+	 * @param suffix the suffix of spill files
+	 * @param capacity the maximum number of idle files retained for reuse
+	 * @param maxSize the maximum total size, in bytes, of files in use, or 0, if unlimited
+	 * @param timeout the maximum time, in milliseconds, that a writer waits for disk space
+	 * @throws IllegalArgumentException if the maximum size is smaller than a single block
+	 */
+	public SpillFilePool(File directory, String suffix, int capacity, long maxSize, long timeout)
+	{
+		if ((maxSize > 0) && (maxSize < BLOCK_SIZE))
+		{
+			throw new IllegalArgumentException(String.format("Maximum spill file disk space must be at least %d bytes", BLOCK_SIZE));
+		}
+		
+		this.directory = directory;
+		this.suffix = suffix;
+		this.capacity = capacity;
+		this.blocks = (maxSize > 0) ? new Semaphore((int) Math.min(maxSize / BLOCK_SIZE, Integer.MAX_VALUE), true) : null;
+		this.timeout = timeout;
+		// The cleaner thread terminates when idle, since this pool has no lifecycle
+		this.executor = new ThreadPoolExecutor(0, 1, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory()
+		{
+			@Override
+			public Thread newThread(Runnable task)
+			{
+				Thread thread = new Thread(task, SpillFilePool.class.getSimpleName());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+	
+	/**
+	 * Acquires a spill file, reusing an idle file if possible.
+	 * @return an empty file
+	 * @throws IOException if a new file could not be created
+	 */
+	public File acquire() throws IOException
+	{
+		File file = this.files.poll();
+		
+		if (file == null)
+		{
+			file = Files.createTempFile(this.directory, this.suffix);
+		}
+		else
+		{
+			this.size.decrementAndGet();
+		}
+		
+		this.readers.put(file, new AtomicInteger(0));
+		
+		return file;
+	}
+	
+	/**
+	 * Opens a stream for reading the specified spill file, which prevents its reuse until closed.
+	 * @param file a spill file acquired from this pool
+	 * @return an input stream
+	 * @throws IOException if the file was already released, or could not be opened
+	 */
+	public InputStream open(File file) throws IOException
+	{
+		final AtomicInteger readers = this.readers.get(file);
+		int count = (readers != null) ? readers.get() : -1;
+		
+		while ((count >= 0) && !readers.compareAndSet(count, count + 1))
+		{
+			count = readers.get();
+		}
+		
+		if (count < 0)
+		{
+			throw new IOException(String.format("Spill file %s was already released", file));
+		}
+		
+		try
+		{
+			return new FilterInputStream(new FileInputStream(file))
+			{
+				private final AtomicBoolean closed = new AtomicBoolean(false);
+				
+				@Override
+				public void close() throws IOException
+				{
+					if (this.closed.compareAndSet(false, true))
+					{
+						try
+						{
+							super.close();
+						}
+						finally
+						{
+							readers.decrementAndGet();
+						}
+					}
+				}
+			};
+		}
+		catch (IOException e)
+		{
+			readers.decrementAndGet();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Reserves disk space for growing the specified spill file to the specified size, blocking while the total size of files in use exceeds the maximum.
+	 * @param file a spill file acquired from this pool
+	 * @param size the new size of the spill file
+	 * @throws IOException if disk space could not be reserved within the timeout, or if interrupted
+	 */
+	public void reserve(File file, long size) throws IOException
+	{
+		if (this.blocks == null) return;
+		
+		Integer reserved = this.reservations.get(file);
+		int reservedBlocks = (reserved != null) ? reserved.intValue() : 0;
+		int blocks = blocks(size) - reservedBlocks;
+		
+		if (blocks <= 0) return;
+		
+		try
+		{
+			if (!this.blocks.tryAcquire(blocks, this.timeout, TimeUnit.MILLISECONDS))
+			{
+				throw new IOException(String.format("Timed out after %d ms waiting for %d bytes of spill file disk space", this.timeout, blocks * (long) BLOCK_SIZE));
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		}
+		
+		// A file is only written, thus reserved, by a single thread
+		this.reservations.put(file, reservedBlocks + blocks);
+	}
+	
+	/**
+	 * Releases the specified spill file, and its reserved disk space, in the background.
+	 * @param file a spill file acquired from this pool
+	 */
+	public void release(final File file)
+	{
+		Runnable task = new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				SpillFilePool.this.recycle(file);
+			}
+		};
+		
+		try
+		{
+			this.executor.execute(task);
+		}
+		catch (RejectedExecutionException e)
+		{
+			task.run();
+		}
+	}
+	
+	void recycle(File file)
+	{
+		// Release only what was reserved, which may be less than the size of the file, e.g. if a reservation timed out
+		Integer blocks = this.reservations.remove(file);
+		AtomicInteger readers = this.readers.remove(file);
+		// Prevent any subsequent readers, and detect any that are still open
+		int openReaders = (readers != null) ? readers.getAndSet(-1) : 0;
+		
+		try
+		{
+			if (openReaders > 0)
+			{
+				// Truncating, or reusing, the file would corrupt the content of its open readers
+				logger.log(Level.DEBUG, "Deleting spill file {0}, which is still being read by {1} reader(s)", file, openReaders);
+				Files.delete(file);
+			}
+			else if (this.size.incrementAndGet() <= this.capacity)
+			{
+				try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+				{
+					raf.setLength(0);
+				}
+				
+				this.files.offer(file);
+			}
+			else
+			{
+				this.size.decrementAndGet();
+				Files.delete(file);
+			}
+		}
+		catch (IOException e)
+		{
+			this.size.decrementAndGet();
+			logger.log(Level.WARN, e);
+			Files.delete(file);
+		}
+		finally
+		{
+			if (blocks != null)
+			{
+				this.blocks.release(blocks);
+			}
+		}
+	}
+	
+	private static int blocks(long size)
+	{
+		return (int) Math.min((size + BLOCK_SIZE - 1) / BLOCK_SIZE, Integer.MAX_VALUE);
+	}
+}
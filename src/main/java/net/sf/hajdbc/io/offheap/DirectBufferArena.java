@@ -0,0 +1,136 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.io.offheap;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.sf.hajdbc.io.InputSinkChannel;
+
+/**
+ * Arena of recyclable direct buffers, grouped into power of 2 size classes, from {@link InputSinkChannel#BUFFER_SIZE} up to a maximum capacity.
+ * Since allocating direct memory is expensive, released buffers are retained for reuse, up to the maximum capacity in bytes per size class.
+ * @author Paul Ferraro
+ */
+public class DirectBufferArena
+{
+	private static final int MIN_CAPACITY = InputSinkChannel.BUFFER_SIZE;
+	
+	private final int maxCapacity;
+	private final List<Queue<ByteBuffer>> buffers;
+	private final List<AtomicInteger> counts;
+	
+	/**
+	 * Creates a new direct buffer arena
+	 * @param capacity the minimum capacity of the largest size class
+	 */
+	public DirectBufferArena(int capacity)
+	{
+		int classes = 1;
+		while ((MIN_CAPACITY << (classes - 1)) < capacity)
+		{
+			classes += 1;
+		}
+		this.maxCapacity = MIN_CAPACITY << (classes - 1);
+		this.buffers = new ArrayList<>(classes);
+		this.counts = new ArrayList<>(classes);
+		for (int i = 0; i < classes; ++i)
+		{
+			this.buffers.add(new ConcurrentLinkedQueue<ByteBuffer>());
+			this.counts.add(new AtomicInteger(0));
+		}
+	}
+	
+	/**
+	 * Returns the capacity of the largest buffers of this arena.
+	 * @return a capacity in bytes
+	 */
+	public int getMaxCapacity()
+	{
+		return this.maxCapacity;
+	}
+	
+	/**
+	 * Allocates a buffer of the smallest size class.
+	 * @return a cleared direct buffer
+	 */
+	public ByteBuffer allocate()
+	{
+		return this.allocate(0);
+	}
+	
+	private ByteBuffer allocate(int sizeClass)
+	{
+		ByteBuffer buffer = this.buffers.get(sizeClass).poll();
+		
+		if (buffer == null)
+		{
+			return ByteBuffer.allocateDirect(MIN_CAPACITY << sizeClass);
+		}
+		
+		this.counts.get(sizeClass).decrementAndGet();
+		
+		return buffer;
+	}
+	
+	/**
+	 * Copies the content of the specified full buffer into a buffer of the next size class, and releases the specified buffer.
+	 * @param buffer a buffer of this arena, whose capacity is less than {@link #getMaxCapacity()}
+	 * @return a direct buffer of twice the capacity, positioned after the copied content
+	 */
+	public ByteBuffer grow(ByteBuffer buffer)
+	{
+		ByteBuffer result = this.allocate(this.sizeClass(buffer) + 1);
+		
+		buffer.flip();
+		result.put(buffer);
+		
+		this.release(buffer);
+		
+		return result;
+	}
+	
+	/**
+	 * Returns the specified buffer to this arena for reuse.
+	 * @param buffer a buffer of this arena
+	 */
+	public void release(ByteBuffer buffer)
+	{
+		int sizeClass = this.sizeClass(buffer);
+		
+		// Retain at most the maximum capacity, in bytes, per size class
+		if (this.counts.get(sizeClass).incrementAndGet() <= (this.maxCapacity / buffer.capacity()))
+		{
+			buffer.clear();
+			this.buffers.get(sizeClass).offer(buffer);
+		}
+		else
+		{
+			this.counts.get(sizeClass).decrementAndGet();
+		}
+	}
+	
+	private int sizeClass(ByteBuffer buffer)
+	{
+		return Integer.numberOfTrailingZeros(buffer.capacity() / MIN_CAPACITY);
+	}
+}
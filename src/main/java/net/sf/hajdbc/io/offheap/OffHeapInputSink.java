@@ -0,0 +1,110 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.io.offheap;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sink of an off-heap input sink strategy.
+ * The content of the sink resides either within a direct buffer of an arena, or within a spill file.
+ * Since readers of a direct buffer may outlive the sink, the buffer is reference counted, and only returned to the arena once the sink and all of its readers are closed.
+ * @author Paul Ferraro
+ */
+public class OffHeapInputSink
+{
+	private final ByteBuffer buffer;
+	private final ByteBuffer arenaBuffer;
+	private final File file;
+	private final AtomicBoolean closed = new AtomicBoolean(false);
+	// Number of references to the arena buffer, i.e. the sink itself, plus its open readers
+	private final AtomicInteger references = new AtomicInteger(1);
+	
+	OffHeapInputSink(ByteBuffer buffer, ByteBuffer arenaBuffer, File file)
+	{
+		this.buffer = buffer;
+		this.arenaBuffer = arenaBuffer;
+		this.file = file;
+	}
+	
+	/**
+	 * Returns a read-only view of the content of this sink, with its own position.
+	 * @return a read-only buffer, or null, if the content of this sink resides in a spill file, or if this sink was closed
+	 */
+	public ByteBuffer getBuffer()
+	{
+		return ((this.buffer != null) && !this.closed.get()) ? this.buffer.duplicate() : null;
+	}
+	
+	/**
+	 * Returns the spill file of this sink.
+	 * @return a file, or null, if the content of this sink resides in memory, or if this sink was closed
+	 */
+	public File getFile()
+	{
+		return !this.closed.get() ? this.file : null;
+	}
+	
+	ByteBuffer getArenaBuffer()
+	{
+		return this.arenaBuffer;
+	}
+	
+	/**
+	 * Returns a read-only view of the content of this sink, with its own position, and retains the arena buffer until the view is released.
+	 * @return a read-only buffer, or null, if the content of this sink resides in a spill file, or if this sink was closed
+	 */
+	ByteBuffer retain()
+	{
+		if ((this.buffer == null) || this.closed.get()) return null;
+		
+		int count = this.references.get();
+		
+		while (count > 0)
+		{
+			if (this.references.compareAndSet(count, count + 1))
+			{
+				return this.buffer.duplicate();
+			}
+			
+			count = this.references.get();
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Drops a reference to the arena buffer of this sink.
+	 * @return true, if this was the last reference, and the arena buffer can be recycled, false otherwise
+	 */
+	boolean release()
+	{
+		return this.references.decrementAndGet() == 0;
+	}
+	
+	/**
+	 * Marks this sink as closed, such that subsequent reads fail.
+	 * @return true, if this sink was not already closed, false otherwise
+	 */
+	boolean close()
+	{
+		return this.closed.compareAndSet(false, true);
+	}
+}
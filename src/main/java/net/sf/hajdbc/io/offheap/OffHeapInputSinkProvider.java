@@ -0,0 +1,64 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.io.offheap;
+
+import java.io.File;
+
+import net.sf.hajdbc.io.InputSinkProvider;
+import net.sf.hajdbc.io.InputSinkStrategy;
+import net.sf.hajdbc.util.SystemProperties;
+
+/**
+ * Off-heap input sink provider, configured via the following system properties:
+ * <table>
+ * 	<tr>
+ * 		<th>Property</th>
+ * 		<th>Default</th>
+ * 	</tr>
+ * 	<tr>
+ * 		<td>ha-jdbc.input-sink.threshold</td>
+ * 		<td>1048576</td>
+ * 	</tr>
+ * 	<tr>
+ * 		<td>ha-jdbc.input-sink.directory</td>
+ * 		<td>${java.io.tmpdir}</td>
+ * 	</tr>
+ * </table>
+ * @author Paul Ferraro
+ */
+public class OffHeapInputSinkProvider implements InputSinkProvider
+{
+	public static final String THRESHOLD = "ha-jdbc.input-sink.threshold";
+	public static final String DIRECTORY = "ha-jdbc.input-sink.directory";
+	public static final int DEFAULT_THRESHOLD = 1 << 20;
+	
+	@Override
+	public String getId()
+	{
+		return "offheap";
+	}
+
+	@Override
+	public InputSinkStrategy<? extends Object> createInputSinkStrategy()
+	{
+		int threshold = Integer.parseInt(SystemProperties.getSystemProperty(THRESHOLD, Integer.toString(DEFAULT_THRESHOLD)));
+		String directory = SystemProperties.getSystemProperty(DIRECTORY);
+		
+		return new OffHeapInputSinkStrategy(threshold, (directory != null) ? new File(directory) : null);
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.io.offheap;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+
+import net.sf.hajdbc.io.InputSinkChannel;
+import net.sf.hajdbc.io.InputSinkStrategy;
+import net.sf.hajdbc.util.Files;
+
+/**
+ * Off-heap input sink strategy.
+ * Input no larger than a threshold is spooled into direct buffers, recycled via an arena; larger input is spilled into a file.
+ * Each read of an in-memory sink is a zero-copy, read-only view of the sink; thus a buffer is only recycled once its sink and all of its readers are closed.
+ * Spill files are read via a file channel, rather than memory-mapped, since a mapping cannot be released deterministically.
+ * A mapped file would retain its disk space until its mapping was garbage collected, and, on some platforms, could not be deleted at all while mapped.
+ * Consequently, spilled input is copied when read, as with {@link net.sf.hajdbc.io.file.FileInputSinkStrategy}.
+ * Character input is stored as UTF-16 code units.
+ * @author Paul Ferraro
+ */
+public class OffHeapInputSinkStrategy implements InputSinkStrategy<OffHeapInputSink>
+{
+	static final String TEMP_FILE_SUFFIX = ".lob";
+	
+	private final DirectBufferArena arena;
+	private final File directory;
+	
+	/**
+	 * Creates a new off-heap input sink strategy
+	 * @param threshold the size in bytes, rounded up to a power of 2, above which input is spilled to a file
+	 * @param directory the directory of spill files, or null, to use the default temporary file directory
+	 */
+	public OffHeapInputSinkStrategy(int threshold, File directory)
+	{
+		this.arena = new DirectBufferArena(threshold);
+		this.directory = directory;
+	}
+	
+	DirectBufferArena getArena()
+	{
+		return this.arena;
+	}
+	
+	File createFile() throws IOException
+	{
+		return Files.createTempFile(this.directory, TEMP_FILE_SUFFIX);
+	}
+	
+	/**
+	 * Creates a sink from the specified buffer of the arena.
+	 * @param buffer a flipped buffer of the arena
+	 * @return an in-memory sink
+	 */
+	OffHeapInputSink createSink(ByteBuffer buffer)
+	{
+		return new OffHeapInputSink(buffer.asReadOnlyBuffer(), buffer, null);
+	}
+	
+	/**
+	 * Creates a sink from the specified spill file.
+	 * @param file a spill file
+	 * @return a file sink
+	 */
+	OffHeapInputSink createSink(File file)
+	{
+		return new OffHeapInputSink(null, null, file);
+	}
+	
+	@Override
+	public InputSinkChannel<InputStream, OffHeapInputSink> createInputStreamChannel()
+	{
+		return new OffHeapInputStreamSinkChannel(this);
+	}
+
+	@Override
+	public InputSinkChannel<Reader, OffHeapInputSink> createReaderChannel()
+	{
+		return new OffHeapReaderSinkChannel(this);
+	}
+
+	@Override
+	public void close(OffHeapInputSink sink)
+	{
+		File file = sink.getFile();
+		
+		if (sink.close())
+		{
+			if (file != null)
+			{
+				Files.delete(file);
+			}
+			
+			this.release(sink);
+		}
+	}
+	
+	/**
+	 * Drops a reference to the buffer of the specified sink, returning the buffer to the arena, if no longer referenced.
+	 * @param sink an input sink
+	 */
+	void release(OffHeapInputSink sink)
+	{
+		ByteBuffer buffer = sink.getArenaBuffer();
+		
+		if (sink.release() && (buffer != null))
+		{
+			this.arena.release(buffer);
+		}
+	}
+}
@@ -0,0 +1,166 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.io.offheap;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import net.sf.hajdbc.io.ByteBufferInputStream;
+import net.sf.hajdbc.io.InputSinkChannel;
+import net.sf.hajdbc.util.Files;
+
+/**
+ * Input stream channel for writing to, and reading from, an off-heap sink.
+ * @author Paul Ferraro
+ */
+public class OffHeapInputStreamSinkChannel implements InputSinkChannel<InputStream, OffHeapInputSink>
+{
+	private final OffHeapInputSinkStrategy strategy;
+	
+	public OffHeapInputStreamSinkChannel(OffHeapInputSinkStrategy strategy)
+	{
+		this.strategy = strategy;
+	}
+	
+	@Override
+	public OffHeapInputSink write(InputStream input, long length) throws IOException
+	{
+		// Input known to exceed the threshold is spilled directly
+		return (length > this.strategy.getArena().getMaxCapacity()) ? this.spill(ByteBuffer.allocate(0), input, new byte[BUFFER_SIZE]) : this.write(input);
+	}
+
+	@Override
+	public OffHeapInputSink write(InputStream input) throws IOException
+	{
+		DirectBufferArena arena = this.strategy.getArena();
+		byte[] bytes = new byte[BUFFER_SIZE];
+		ByteBuffer buffer = arena.allocate();
+		boolean retained = false;
+		
+		try
+		{
+			int count = 0;
+			
+			while (count >= 0)
+			{
+				if (!buffer.hasRemaining())
+				{
+					if (buffer.capacity() == arena.getMaxCapacity()) break;
+					
+					buffer = arena.grow(buffer);
+				}
+				
+				count = input.read(bytes, 0, Math.min(bytes.length, buffer.remaining()));
+				
+				if (count > 0)
+				{
+					buffer.put(bytes, 0, count);
+				}
+			}
+			
+			if (count >= 0)
+			{
+				return this.spill(buffer, input, bytes);
+			}
+			
+			buffer.flip();
+			
+			OffHeapInputSink sink = this.strategy.createSink(buffer);
+			
+			retained = true;
+			
+			return sink;
+		}
+		finally
+		{
+			if (!retained)
+			{
+				arena.release(buffer);
+			}
+		}
+	}
+	
+	private OffHeapInputSink spill(ByteBuffer buffer, InputStream input, byte[] bytes) throws IOException
+	{
+		File file = this.strategy.createFile();
+		
+		try (RandomAccessFile output = new RandomAccessFile(file, "rw"))
+		{
+			FileChannel channel = output.getChannel();
+			
+			buffer.flip();
+			
+			while (buffer.hasRemaining())
+			{
+				channel.write(buffer);
+			}
+			
+			int count = input.read(bytes);
+			
+			while (count >= 0)
+			{
+				output.write(bytes, 0, count);
+				count = input.read(bytes);
+			}
+			
+			return this.strategy.createSink(file);
+		}
+		catch (IOException e)
+		{
+			Files.delete(file);
+			throw e;
+		}
+	}
+
+	@Override
+	public InputStream read(final OffHeapInputSink sink) throws IOException
+	{
+		ByteBuffer buffer = sink.retain();
+		
+		if (buffer != null)
+		{
+			// Buffer is retained until the stream is closed
+			return new ByteBufferInputStream(buffer)
+			{
+				private final AtomicBoolean closed = new AtomicBoolean(false);
+				
+				@Override
+				public void close()
+				{
+					if (this.closed.compareAndSet(false, true))
+					{
+						OffHeapInputStreamSinkChannel.this.strategy.release(sink);
+					}
+				}
+			};
+		}
+		
+		File file = sink.getFile();
+		
+		if (file == null) throw new IOException("Input sink is closed");
+		
+		return new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+	}
+}
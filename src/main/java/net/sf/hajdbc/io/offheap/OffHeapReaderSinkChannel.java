@@ -0,0 +1,180 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.io.offheap;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import net.sf.hajdbc.io.CharBufferReader;
+import net.sf.hajdbc.io.InputSinkChannel;
+import net.sf.hajdbc.util.Files;
+
+/**
+ * Reader channel for writing to, and reading from, an off-heap sink.
+ * Characters are stored as big-endian UTF-16 code units, such that the sink can be read via a character view of its buffer.
+ * @author Paul Ferraro
+ */
+public class OffHeapReaderSinkChannel implements InputSinkChannel<Reader, OffHeapInputSink>
+{
+	private final OffHeapInputSinkStrategy strategy;
+	
+	public OffHeapReaderSinkChannel(OffHeapInputSinkStrategy strategy)
+	{
+		this.strategy = strategy;
+	}
+	
+	@Override
+	public OffHeapInputSink write(Reader reader, long length) throws IOException
+	{
+		// Input known to exceed the threshold is spilled directly
+		return (length > this.strategy.getArena().getMaxCapacity()) ? this.spill(ByteBuffer.allocate(0), reader, new char[BUFFER_SIZE]) : this.write(reader);
+	}
+
+	@Override
+	public OffHeapInputSink write(Reader reader) throws IOException
+	{
+		DirectBufferArena arena = this.strategy.getArena();
+		char[] chars = new char[BUFFER_SIZE];
+		ByteBuffer buffer = arena.allocate();
+		CharBuffer view = buffer.asCharBuffer();
+		boolean retained = false;
+		
+		try
+		{
+			int count = 0;
+			
+			while (count >= 0)
+			{
+				if (!view.hasRemaining())
+				{
+					if (buffer.capacity() == arena.getMaxCapacity()) break;
+					
+					buffer.position(view.position() * 2);
+					buffer = arena.grow(buffer);
+					
+					int position = buffer.position();
+					buffer.rewind();
+					view = buffer.asCharBuffer();
+					view.position(position / 2);
+				}
+				
+				count = reader.read(chars, 0, Math.min(chars.length, view.remaining()));
+				
+				if (count > 0)
+				{
+					view.put(chars, 0, count);
+				}
+			}
+			
+			buffer.limit(view.position() * 2);
+			
+			if (count >= 0)
+			{
+				return this.spill(buffer, reader, chars);
+			}
+			
+			OffHeapInputSink sink = this.strategy.createSink(buffer);
+			
+			retained = true;
+			
+			return sink;
+		}
+		finally
+		{
+			if (!retained)
+			{
+				arena.release(buffer);
+			}
+		}
+	}
+	
+	private OffHeapInputSink spill(ByteBuffer buffer, Reader reader, char[] chars) throws IOException
+	{
+		File file = this.strategy.createFile();
+		
+		try (RandomAccessFile output = new RandomAccessFile(file, "rw"))
+		{
+			FileChannel channel = output.getChannel();
+			
+			while (buffer.hasRemaining())
+			{
+				channel.write(buffer);
+			}
+			
+			ByteBuffer bytes = ByteBuffer.allocate(chars.length * 2);
+			CharBuffer view = bytes.asCharBuffer();
+			
+			int count = reader.read(chars);
+			
+			while (count >= 0)
+			{
+				view.clear();
+				view.put(chars, 0, count);
+				output.write(bytes.array(), 0, count * 2);
+				count = reader.read(chars);
+			}
+			
+			return this.strategy.createSink(file);
+		}
+		catch (IOException e)
+		{
+			Files.delete(file);
+			throw e;
+		}
+	}
+
+	@Override
+	public Reader read(final OffHeapInputSink sink) throws IOException
+	{
+		ByteBuffer buffer = sink.retain();
+		
+		if (buffer != null)
+		{
+			// Buffer is retained until the reader is closed
+			return new CharBufferReader(buffer.asCharBuffer())
+			{
+				private final AtomicBoolean closed = new AtomicBoolean(false);
+				
+				@Override
+				public void close()
+				{
+					if (this.closed.compareAndSet(false, true))
+					{
+						OffHeapReaderSinkChannel.this.strategy.release(sink);
+					}
+				}
+			};
+		}
+		
+		File file = sink.getFile();
+		
+		if (file == null) throw new IOException("Input sink is closed");
+		
+		return new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_16BE), BUFFER_SIZE);
+	}
+}
@@ -17,9 +17,11 @@
  */
 package net.sf.hajdbc.io.simple;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 
+import net.sf.hajdbc.io.BufferPool;
 import net.sf.hajdbc.io.InputSinkChannel;
 import net.sf.hajdbc.io.InputSinkStrategy;
 
@@ -29,6 +31,20 @@ import net.sf.hajdbc.io.InputSinkStrategy;
  */
 public class SimpleInputSinkStrategy implements InputSinkStrategy<byte[]>
 {
+	// Some VMs reserve header words in an array
+	private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+	// Length hints are not trusted beyond this capacity, after which a sink grows as input arrives
+	private static final int MAX_INITIAL_CAPACITY = 4 * 1024 * 1024;
+	
+	private final BufferPool<char[]> pool = new BufferPool<char[]>(Runtime.getRuntime().availableProcessors())
+	{
+		@Override
+		protected char[] create()
+		{
+			return new char[InputSinkChannel.BUFFER_SIZE];
+		}
+	};
+	
 	@Override
 	public InputSinkChannel<InputStream, byte[]> createInputStreamChannel()
 	{
@@ -38,7 +54,7 @@ public class SimpleInputSinkStrategy implements InputSinkStrategy<byte[]>
 	@Override
 	public InputSinkChannel<Reader, byte[]> createReaderChannel()
 	{
-		return new SimpleReaderSinkChannel();
+		return new SimpleReaderSinkChannel(this.pool);
 	}
 
 	@Override
@@ -46,4 +62,33 @@ public class SimpleInputSinkStrategy implements InputSinkStrategy<byte[]>
 	{
 		// Do nothing
 	}
+	
+	/**
+	 * Computes the initial capacity of a sink, which never exceeds a few megabytes, regardless of the length hint.
+	 * @param length the length hint of the input, or a negative value, if unknown
+	 * @param defaultLength the length to assume, if the hint is unknown
+	 * @param unitSize the number of bytes per unit of input
+	 * @return a capacity in bytes
+	 */
+	static int initialCapacity(long length, int defaultLength, int unitSize)
+	{
+		// Clamp the number of units before multiplying, to avoid overflow
+		return (int) Math.min((length >= 0) ? length : defaultLength, MAX_INITIAL_CAPACITY / unitSize) * unitSize;
+	}
+	
+	/**
+	 * Computes the capacity to which a full sink should grow.
+	 * @param capacity the current capacity in bytes
+	 * @return an increased capacity in bytes
+	 * @throws IOException if the sink cannot grow any further
+	 */
+	static int grow(int capacity) throws IOException
+	{
+		if (capacity >= MAX_ARRAY_SIZE - 1)
+		{
+			throw new IOException("Input exceeds the maximum capacity of an in-memory sink");
+		}
+		
+		return (int) Math.min(Math.max(capacity * 2L, InputSinkChannel.BUFFER_SIZE), MAX_ARRAY_SIZE - 1);
+	}
 }
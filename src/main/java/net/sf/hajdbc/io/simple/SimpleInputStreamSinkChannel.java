@@ -18,14 +18,15 @@
 package net.sf.hajdbc.io.simple;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 
 import net.sf.hajdbc.io.InputSinkChannel;
 
 /**
  * Input stream channel for writing to, and reading from, an in-memory buffer sink.
+ * Input is read in bulk directly into the sink, which is pre-sized using the length hint, if available.
  * @author Paul Ferraro
  */
 public class SimpleInputStreamSinkChannel implements InputSinkChannel<InputStream, byte[]>
@@ -33,14 +34,36 @@ public class SimpleInputStreamSinkChannel implements InputSinkChannel<InputStrea
 	@Override
 	public byte[] write(InputStream input) throws IOException
 	{
-		ByteArrayOutputStream output = new ByteArrayOutputStream();
-		int b = input.read();
-		while (b >= 0)
+		return this.write(input, -1);
+	}
+
+	@Override
+	public byte[] write(InputStream input, long length) throws IOException
+	{
+		byte[] bytes = new byte[SimpleInputSinkStrategy.initialCapacity(length, BUFFER_SIZE, 1)];
+		int size = 0;
+		
+		while (true)
 		{
-			output.write(b);
-			b = input.read();
+			if (size == bytes.length)
+			{
+				// Only grow the sink if the input did not end, e.g. when the hint was exact
+				int b = input.read();
+				
+				if (b < 0) return bytes;
+				
+				bytes = Arrays.copyOf(bytes, SimpleInputSinkStrategy.grow(size));
+				bytes[size++] = (byte) b;
+			}
+			
+			int count = input.read(bytes, size, bytes.length - size);
+			
+			if (count < 0) break;
+			
+			size += count;
 		}
-		return output.toByteArray();
+		
+		return (size == bytes.length) ? bytes : Arrays.copyOf(bytes, size);
 	}
 
 	@Override
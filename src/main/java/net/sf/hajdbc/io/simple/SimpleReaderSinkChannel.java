@@ -17,39 +17,81 @@
  */
 package net.sf.hajdbc.io.simple;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
 
+import net.sf.hajdbc.io.BufferPool;
+import net.sf.hajdbc.io.CharBufferReader;
 import net.sf.hajdbc.io.InputSinkChannel;
 
 /**
  * Reader channel for writing to, and reading from, an in-memory buffer sink.
+ * Input is read in bulk via a pooled transfer buffer, and stored as big-endian UTF-16 code units within the sink, which is pre-sized using the length hint, if available.
  * @author Paul Ferraro
  */
 public class SimpleReaderSinkChannel implements InputSinkChannel<Reader, byte[]>
 {
+	private final BufferPool<char[]> pool;
+	
+	public SimpleReaderSinkChannel(BufferPool<char[]> pool)
+	{
+		this.pool = pool;
+	}
+	
 	@Override
 	public byte[] write(Reader reader) throws IOException
 	{
-		ByteArrayOutputStream output = new ByteArrayOutputStream();
-		OutputStreamWriter writer = new OutputStreamWriter(output);
-		int c = reader.read();
-		while (c >= 0)
+		return this.write(reader, -1);
+	}
+
+	@Override
+	public byte[] write(Reader reader, long length) throws IOException
+	{
+		byte[] bytes = new byte[SimpleInputSinkStrategy.initialCapacity(length, BUFFER_SIZE, 2)];
+		CharBuffer view = ByteBuffer.wrap(bytes).asCharBuffer();
+		char[] chars = this.pool.take();
+		
+		try
+		{
+			while (true)
+			{
+				if (!view.hasRemaining())
+				{
+					// Only grow the sink if the input did not end, e.g. when the hint was exact
+					int c = reader.read();
+					
+					if (c < 0) return bytes;
+					
+					int position = view.position();
+					bytes = Arrays.copyOf(bytes, SimpleInputSinkStrategy.grow(bytes.length));
+					view = ByteBuffer.wrap(bytes).asCharBuffer();
+					view.position(position);
+					view.put((char) c);
+				}
+				
+				int count = reader.read(chars, 0, Math.min(chars.length, view.remaining()));
+				
+				if (count < 0) break;
+				
+				view.put(chars, 0, count);
+			}
+		}
+		finally
 		{
-			writer.write(c);
-			c = reader.read();
+			this.pool.release(chars);
 		}
-		writer.flush();
-		return output.toByteArray();
+		
+		int size = view.position() * 2;
+		
+		return (size == bytes.length) ? bytes : Arrays.copyOf(bytes, size);
 	}
 
 	@Override
 	public Reader read(byte[] sink)
 	{
-		return new InputStreamReader(new ByteArrayInputStream(sink));
+		return new CharBufferReader(ByteBuffer.wrap(sink).asCharBuffer());
 	}
 }
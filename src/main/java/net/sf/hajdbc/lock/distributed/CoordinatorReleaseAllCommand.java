@@ -0,0 +1,60 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.lock.distributed;
+
+import java.util.List;
+
+import net.sf.hajdbc.distributed.Command;
+
+/**
+ * Release command for a batch of locks, for execution on group coordinator.
+ * @author Paul Ferraro
+ */
+public class CoordinatorReleaseAllCommand implements Command<Void, LockCommandContext>
+{
+	private static final long serialVersionUID = 4893018467293516270L;
+	
+	private final List<RemoteLockDescriptor> descriptors;
+	
+	public CoordinatorReleaseAllCommand(List<RemoteLockDescriptor> descriptors)
+	{
+		this.descriptors = descriptors;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.distributed.Command#execute(java.lang.Object)
+	 */
+	@Override
+	public Void execute(LockCommandContext context)
+	{
+		context.releaseDistibutedLocks(this.descriptors);
+		
+		return null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("%s(%s)", this.getClass().getSimpleName(), this.descriptors);
+	}
+}
@@ -22,11 +22,19 @@ import java.io.ObjectInput;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutput;
 import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
@@ -40,9 +48,16 @@ import net.sf.hajdbc.distributed.MembershipListener;
 import net.sf.hajdbc.distributed.Remote;
 import net.sf.hajdbc.distributed.Stateful;
 import net.sf.hajdbc.lock.LockManager;
+import net.sf.hajdbc.lock.semaphore.SemaphoreLock;
 import net.sf.hajdbc.util.Objects;
 
 /**
+ * Lock manager that coordinates write locks across the members of a group.
+ * Optionally, a member may lease write locks: once acquired, a write lock is retained by the member for the duration of the lease,
+ * such that subsequent local acquisitions of the same lock do not require any communication with the group coordinator.
+ * A lease is released once it expires, once it is left unused for longer than the period of the background sweep, or once another member attempts to acquire the same lock.
+ * Since leased locks hold the global read lock, acquiring the global write lock, e.g. for activation or synchronization, revokes all leases.
+ * Expired leases are released in batches, using a single command per batch.
  * @author Paul Ferraro
  */
 public class DistributedLockManager implements LockManager, LockCommandContext, Stateful, MembershipListener
@@ -51,10 +66,29 @@ public class DistributedLockManager implements LockManager, LockCommandContext,
 	
 	private final LockManager lockManager;
 	private final ConcurrentMap<Member, Map<LockDescriptor, Lock>> remoteLockDescriptorMap = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, Lease> leases = new ConcurrentHashMap<>();
+	final long leaseTime;
+	private final ThreadFactory threadFactory;
+	private volatile ScheduledExecutorService leaseExecutor;
 	
 	public <Z, D extends Database<Z>> DistributedLockManager(DatabaseCluster<Z, D> cluster, CommandDispatcherFactory dispatcherFactory) throws Exception
+	{
+		this(cluster, dispatcherFactory, 0, Executors.defaultThreadFactory());
+	}
+	
+	/**
+	 * Creates a new distributed lock manager.
+	 * @param cluster a database cluster
+	 * @param dispatcherFactory a command dispatcher factory
+	 * @param leaseTime the duration, in milliseconds, of write lock leases, or 0 to disable leasing
+	 * @param threadFactory the factory for the thread that releases expired leases
+	 * @throws Exception if the command dispatcher could not be created
+	 */
+	public <Z, D extends Database<Z>> DistributedLockManager(DatabaseCluster<Z, D> cluster, CommandDispatcherFactory dispatcherFactory, long leaseTime, ThreadFactory threadFactory) throws Exception
 	{
 		this.lockManager = cluster.getLockManager();
+		this.leaseTime = leaseTime;
+		this.threadFactory = threadFactory;
 		LockCommandContext context = this;
 		this.dispatcher = dispatcherFactory.createCommandDispatcher(cluster.getId() + ".lock", context, this, this);
 	}
@@ -76,7 +110,31 @@ public class DistributedLockManager implements LockManager, LockCommandContext,
 	@Override
 	public Lock writeLock(String id)
 	{
-		return this.getDistibutedLock(new RemoteLockDescriptorImpl(id, LockType.WRITE, this.dispatcher.getLocal()));
+		RemoteLockDescriptor descriptor = new RemoteLockDescriptorImpl(id, LockType.WRITE, this.dispatcher.getLocal());
+		
+		// Never lease the global write lock, since it blocks all transactions
+		return ((this.leaseTime > 0) && (id != null)) ? new LeasedLock(this.getLease(descriptor)) : this.getDistibutedLock(descriptor);
+	}
+	
+	private Lease getLease(RemoteLockDescriptor descriptor)
+	{
+		String id = descriptor.getId();
+		Lease lease = this.leases.get(id);
+		
+		if (lease == null)
+		{
+			long leaseNanos = TimeUnit.MILLISECONDS.toNanos(this.leaseTime);
+			Lease newLease = new Lease(descriptor, this.getDistibutedLock(descriptor), leaseNanos, sweepPeriod(leaseNanos));
+			
+			lease = this.leases.putIfAbsent(id, newLease);
+			
+			if (lease == null)
+			{
+				lease = newLease;
+			}
+		}
+		
+		return lease;
 	}
 
 	/**
@@ -112,7 +170,128 @@ public class DistributedLockManager implements LockManager, LockCommandContext,
 	@Override
 	public Lock getDistibutedLock(RemoteLockDescriptor descriptor)
 	{
-		return new DistributedLock(descriptor, this.getLock(descriptor), this.dispatcher);
+		// Only revoke leases if leasing is enabled
+		return new DistributedLock(descriptor, this.getLock(descriptor), this.dispatcher, (this.leaseTime > 0) ? this : null);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.lock.distributed.LockCommandContext#releaseDistibutedLocks(java.util.List)
+	 */
+	@Override
+	public void releaseDistibutedLocks(List<RemoteLockDescriptor> descriptors)
+	{
+		this.dispatcher.executeAll(new MemberReleaseAllLocksCommand(descriptors));
+		
+		for (RemoteLockDescriptor descriptor: descriptors)
+		{
+			this.getLock(descriptor).unlock();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.lock.distributed.LockCommandContext#revokeLease(net.sf.hajdbc.lock.distributed.LockDescriptor)
+	 */
+	@Override
+	public void revokeLease(LockDescriptor descriptor)
+	{
+		ScheduledExecutorService executor = this.leaseExecutor;
+		
+		if (executor == null) return;
+		
+		String id = descriptor.getId();
+		Collection<Lease> leases = Collections.emptyList();
+		
+		if (id == null)
+		{
+			// The global write lock conflicts with every leased lock
+			leases = this.leases.values();
+		}
+		// A member acquiring a lock does not revoke its own lease on it
+		else if (!(descriptor instanceof RemoteLockDescriptor) || !this.dispatcher.getLocal().equals(((RemoteLockDescriptor) descriptor).getMember()))
+		{
+			Lease lease = this.leases.get(id);
+			
+			if (lease != null)
+			{
+				leases = Collections.singleton(lease);
+			}
+		}
+		
+		if (!leases.isEmpty())
+		{
+			for (Lease lease: leases)
+			{
+				// If the lease is being acquired, the revocation applies to that acquisition
+				lease.revoked = true;
+			}
+			
+			// Release asynchronously, since we may be executing within a remote command
+			executor.execute(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					DistributedLockManager.this.releaseExpiredLeases();
+				}
+			});
+		}
+	}
+	
+	/**
+	 * Releases all leases that have expired, or were revoked, and are not currently locked, using a single command.
+	 */
+	void releaseExpiredLeases()
+	{
+		List<Lease> expiredLeases = new ArrayList<>();
+		long now = System.nanoTime();
+		
+		for (Lease lease: this.leases.values())
+		{
+			if (lease.localLock.tryLock())
+			{
+				if (lease.isExpired() || lease.isIdle(now))
+				{
+					lease.held = false;
+					lease.revoked = false;
+					expiredLeases.add(lease);
+				}
+				else
+				{
+					lease.localLock.unlock();
+				}
+			}
+		}
+		
+		if (!expiredLeases.isEmpty())
+		{
+			try
+			{
+				List<RemoteLockDescriptor> descriptors = new ArrayList<>(expiredLeases.size());
+				
+				for (Lease lease: expiredLeases)
+				{
+					descriptors.add(lease.descriptor);
+				}
+				
+				if (this.dispatcher.isCoordinator())
+				{
+					this.releaseDistibutedLocks(descriptors);
+				}
+				else
+				{
+					this.dispatcher.executeCoordinator(new CoordinatorReleaseAllCommand(descriptors));
+				}
+			}
+			finally
+			{
+				for (Lease lease: expiredLeases)
+				{
+					lease.localLock.unlock();
+				}
+			}
+		}
 	}
 
 	/**
@@ -124,6 +303,30 @@ public class DistributedLockManager implements LockManager, LockCommandContext,
 	{
 		this.lockManager.start();
 		this.dispatcher.start();
+		
+		if (this.leaseTime > 0)
+		{
+			this.leaseExecutor = Executors.newSingleThreadScheduledExecutor(this.threadFactory);
+			
+			long period = sweepPeriod(TimeUnit.MILLISECONDS.toNanos(this.leaseTime));
+			
+			this.leaseExecutor.scheduleWithFixedDelay(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					DistributedLockManager.this.releaseExpiredLeases();
+				}
+			}, period, period, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	/**
+	 * Returns the period of the sweep that releases expired and idle leases, which is also the time after which an unused lease is considered idle.
+	 */
+	static long sweepPeriod(long leaseNanos)
+	{
+		return Math.max(leaseNanos / 2, TimeUnit.MILLISECONDS.toNanos(1));
 	}
 
 	/**
@@ -133,6 +336,14 @@ public class DistributedLockManager implements LockManager, LockCommandContext,
 	@Override
 	public void stop()
 	{
+		ScheduledExecutorService executor = this.leaseExecutor;
+		
+		if (executor != null)
+		{
+			this.leaseExecutor = null;
+			executor.shutdownNow();
+		}
+		
 		this.dispatcher.stop();
 		this.lockManager.stop();
 	}
@@ -245,12 +456,26 @@ public class DistributedLockManager implements LockManager, LockCommandContext,
 		private final RemoteLockDescriptor descriptor;
 		private final Lock lock;
 		private final CommandDispatcher<LockCommandContext> dispatcher;
+		private final LockCommandContext leaseContext;
 		
-		DistributedLock(RemoteLockDescriptor descriptor, Lock lock, CommandDispatcher<LockCommandContext> dispatcher)
+		DistributedLock(RemoteLockDescriptor descriptor, Lock lock, CommandDispatcher<LockCommandContext> dispatcher, LockCommandContext leaseContext)
 		{
 			this.descriptor = descriptor;
 			this.lock = lock;
 			this.dispatcher = dispatcher;
+			this.leaseContext = leaseContext;
+		}
+		
+		/**
+		 * Revokes any lease on this lock, held by any member, so that a contended lock is released in a timely manner.
+		 */
+		private void revokeLeases()
+		{
+			if (this.leaseContext != null)
+			{
+				this.leaseContext.revokeLease(this.descriptor);
+				this.dispatcher.executeAll(new MemberRevokeLeaseCommand(this.descriptor));
+			}
 		}
 		
 		@Override
@@ -262,7 +487,11 @@ public class DistributedLockManager implements LockManager, LockCommandContext,
 			{
 				if (this.dispatcher.isCoordinator())
 				{
-					this.lock.lock();
+					if (!this.lock.tryLock())
+					{
+						this.revokeLeases();
+						this.lock.lock();
+					}
 					
 					try
 					{
@@ -297,7 +526,11 @@ public class DistributedLockManager implements LockManager, LockCommandContext,
 			{
 				if (this.dispatcher.isCoordinator())
 				{
-					this.lock.lockInterruptibly();
+					if (!this.lock.tryLock())
+					{
+						this.revokeLeases();
+						this.lock.lockInterruptibly();
+					}
 					
 					try
 					{
@@ -365,7 +598,7 @@ public class DistributedLockManager implements LockManager, LockCommandContext,
 			
 			if (this.dispatcher.isCoordinator())
 			{
-				if (this.lock.tryLock(time, unit))
+				if (this.tryLockLocal(time, unit))
 				{
 					try
 					{
@@ -388,6 +621,15 @@ public class DistributedLockManager implements LockManager, LockCommandContext,
 			return locked;
 		}
 
+		private boolean tryLockLocal(long time, TimeUnit unit) throws InterruptedException
+		{
+			if (this.lock.tryLock()) return true;
+			
+			this.revokeLeases();
+			
+			return this.lock.tryLock(time, unit);
+		}
+		
 		private boolean lockMembers()
 		{
 			boolean locked = true;
@@ -444,6 +686,237 @@ public class DistributedLockManager implements LockManager, LockCommandContext,
 		}
 	}
 	
+	/**
+	 * A member's lease on a distributed write lock.
+	 * The local lock serializes local use of the lease, and must be held to access the state of the lease.
+	 */
+	private static class Lease
+	{
+		final RemoteLockDescriptor descriptor;
+		final Lock lock;
+		// Allows unlocking from a thread other than the locking thread
+		final Lock localLock = new SemaphoreLock(new Semaphore(1));
+		private final long leaseNanos;
+		private final long idleNanos;
+		boolean held = false;
+		private long expiration;
+		private long lastUsed;
+		// Cleared only once the lease is released, so that a revocation received while acquiring the lease is not lost
+		volatile boolean revoked = false;
+		
+		Lease(RemoteLockDescriptor descriptor, Lock lock, long leaseNanos, long idleNanos)
+		{
+			this.descriptor = descriptor;
+			this.lock = lock;
+			this.leaseNanos = leaseNanos;
+			this.idleNanos = idleNanos;
+		}
+		
+		boolean isExpired()
+		{
+			return this.held && (this.revoked || (System.nanoTime() - this.expiration >= 0));
+		}
+		
+		/**
+		 * Indicates whether this lease has gone unused for long enough to be released, even though it has yet to expire.
+		 */
+		boolean isIdle(long now)
+		{
+			return this.held && (now - this.lastUsed >= this.idleNanos);
+		}
+		
+		void used()
+		{
+			this.lastUsed = System.nanoTime();
+		}
+		
+		/**
+		 * Indicates whether this lease is currently valid, releasing the distributed lock if it expired.
+		 * @return true, if the distributed lock is held via a valid lease, false otherwise.
+		 */
+		boolean renew()
+		{
+			if (!this.held) return false;
+			
+			if (!this.isExpired()) return true;
+			
+			this.release();
+			
+			return false;
+		}
+		
+		void acquired()
+		{
+			this.held = true;
+			this.expiration = System.nanoTime() + this.leaseNanos;
+		}
+		
+		void release()
+		{
+			this.held = false;
+			this.revoked = false;
+			this.lock.unlock();
+		}
+	}
+	
+	/**
+	 * Write lock that acquires the distributed lock only if the lease on it is not currently valid.
+	 */
+	private static class LeasedLock implements Lock
+	{
+		private final Lease lease;
+		
+		LeasedLock(Lease lease)
+		{
+			this.lease = lease;
+		}
+		
+		@Override
+		public void lock()
+		{
+			this.lease.localLock.lock();
+			
+			boolean locked = false;
+			
+			try
+			{
+				if (!this.lease.renew())
+				{
+					this.lease.lock.lock();
+					this.lease.acquired();
+				}
+				
+				locked = true;
+			}
+			finally
+			{
+				if (!locked)
+				{
+					this.lease.localLock.unlock();
+				}
+			}
+		}
+
+		@Override
+		public void lockInterruptibly() throws InterruptedException
+		{
+			this.lease.localLock.lockInterruptibly();
+			
+			boolean locked = false;
+			
+			try
+			{
+				if (!this.lease.renew())
+				{
+					this.lease.lock.lockInterruptibly();
+					this.lease.acquired();
+				}
+				
+				locked = true;
+			}
+			finally
+			{
+				if (!locked)
+				{
+					this.lease.localLock.unlock();
+				}
+			}
+		}
+
+		@Override
+		public boolean tryLock()
+		{
+			if (!this.lease.localLock.tryLock()) return false;
+			
+			boolean locked = false;
+			
+			try
+			{
+				locked = this.lease.renew();
+				
+				if (!locked)
+				{
+					locked = this.lease.lock.tryLock();
+					
+					if (locked)
+					{
+						this.lease.acquired();
+					}
+				}
+			}
+			finally
+			{
+				if (!locked)
+				{
+					this.lease.localLock.unlock();
+				}
+			}
+			
+			return locked;
+		}
+
+		@Override
+		public boolean tryLock(long time, TimeUnit unit) throws InterruptedException
+		{
+			long deadline = System.nanoTime() + unit.toNanos(time);
+			
+			if (!this.lease.localLock.tryLock(time, unit)) return false;
+			
+			boolean locked = false;
+			
+			try
+			{
+				locked = this.lease.renew();
+				
+				if (!locked)
+				{
+					locked = this.lease.lock.tryLock(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+					
+					if (locked)
+					{
+						this.lease.acquired();
+					}
+				}
+			}
+			finally
+			{
+				if (!locked)
+				{
+					this.lease.localLock.unlock();
+				}
+			}
+			
+			return locked;
+		}
+
+		@Override
+		public void unlock()
+		{
+			try
+			{
+				// Retain the distributed lock, unless our lease expired or was revoked
+				if (this.lease.isExpired())
+				{
+					this.lease.release();
+				}
+				else
+				{
+					this.lease.used();
+				}
+			}
+			finally
+			{
+				this.lease.localLock.unlock();
+			}
+		}
+
+		@Override
+		public Condition newCondition()
+		{
+			throw new UnsupportedOperationException();
+		}
+	}
+	
 	private static class RemoteLockDescriptorImpl implements RemoteLockDescriptor
 	{
 		private static final long serialVersionUID = 1950781245453120790L;
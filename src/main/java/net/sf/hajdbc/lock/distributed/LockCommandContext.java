@@ -17,6 +17,7 @@
  */
 package net.sf.hajdbc.lock.distributed;
 
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.locks.Lock;
 
@@ -33,4 +34,16 @@ public interface LockCommandContext
 	Lock getLock(LockDescriptor descriptor);
 	
 	Map<LockDescriptor, Lock> getRemoteLocks(Remote remote);
+	
+	/**
+	 * Releases the specified distributed locks, held on behalf of a remote member, using a single multicast.
+	 * @param descriptors a list of lock descriptors
+	 */
+	void releaseDistibutedLocks(List<RemoteLockDescriptor> descriptors);
+	
+	/**
+	 * Revokes the local lease, if any, on the specified lock.
+	 * @param descriptor a lock descriptor
+	 */
+	void revokeLease(LockDescriptor descriptor);
 }
@@ -0,0 +1,59 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.lock.distributed;
+
+import net.sf.hajdbc.distributed.Command;
+
+/**
+ * Revoke lease command for execution on group members.
+ * Instructs the member holding a lease on the lock, if any, to release it as soon as it is no longer held locally.
+ * @author Paul Ferraro
+ */
+public class MemberRevokeLeaseCommand implements Command<Void, LockCommandContext>
+{
+	private static final long serialVersionUID = -3526254427420386137L;
+
+	private final LockDescriptor descriptor;
+	
+	public MemberRevokeLeaseCommand(LockDescriptor descriptor)
+	{
+		this.descriptor = descriptor;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.distributed.Command#execute(java.lang.Object)
+	 */
+	@Override
+	public Void execute(LockCommandContext context)
+	{
+		context.revokeLease(this.descriptor);
+		
+		return null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("%s(%s)", this.getClass().getSimpleName(), this.descriptor);
+	}
+}
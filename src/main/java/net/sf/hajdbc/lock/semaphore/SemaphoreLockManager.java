@@ -21,6 +21,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -28,17 +29,32 @@ import java.util.concurrent.locks.ReadWriteLock;
 import net.sf.hajdbc.lock.LockManager;
 
 /**
+ * {@link LockManager} implementation using semaphore-based read/write locks.
+ * The global lock is created eagerly, while named locks are created on demand and evicted as soon as they are no longer referenced,
+ * i.e. not held by, or being acquired by, any thread.  This keeps the number of named locks bounded by the number of concurrent lock holders.
  * @author Paul Ferraro
  */
 public class SemaphoreLockManager implements LockManager
 {
-	private final ConcurrentMap<String, ReadWriteLock> lockMap = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, ReferenceCountedReadWriteLock> lockMap = new ConcurrentHashMap<>();
+	private final ReadWriteLock globalLock;
 
 	private final boolean fair;
 	
 	public SemaphoreLockManager(boolean fair)
+	{
+		this(fair, false);
+	}
+	
+	/**
+	 * Creates a new lock manager.
+	 * @param fair indicates whether locks should use a fair acquisition policy
+	 * @param readerBiased indicates whether the global lock should favor readers, via a {@link StripedReadWriteLock}.
+	 */
+	public SemaphoreLockManager(boolean fair, boolean readerBiased)
 	{
 		this.fair = fair;
+		this.globalLock = readerBiased ? new StripedReadWriteLock(fair) : this.createReadWriteLock();
 	}
 	
 	/**
@@ -47,9 +63,9 @@ public class SemaphoreLockManager implements LockManager
 	@Override
 	public Lock readLock(String object)
 	{
-		Lock lock = this.getReadWriteLock(null).readLock();
+		Lock lock = this.globalLock.readLock();
 		
-		return (object == null) ? lock : new GlobalLock(lock, this.getReadWriteLock(object).readLock());
+		return (object == null) ? lock : new GlobalLock(lock, new NamedLock(object, false));
 	}
 	
 	/**
@@ -58,31 +74,205 @@ public class SemaphoreLockManager implements LockManager
 	@Override
 	public Lock writeLock(String object)
 	{
-		ReadWriteLock readWriteLock = this.getReadWriteLock(null);
+		return (object == null) ? this.globalLock.writeLock() : new GlobalLock(this.globalLock.readLock(), new NamedLock(object, true));
+	}
+	
+	ReadWriteLock createReadWriteLock()
+	{
+		return new SemaphoreReadWriteLock(new Semaphore(Integer.MAX_VALUE, this.fair));
+	}
+	
+	/**
+	 * Returns a referenced read/write lock for the specified object, creating it if necessary.
+	 * Each invocation must be paired with a subsequent call to {@link #release(String, ReferenceCountedReadWriteLock)}.
+	 * @param object a lock name
+	 * @return a read/write lock
+	 */
+	ReferenceCountedReadWriteLock retain(String object)
+	{
+		while (true)
+		{
+			ReferenceCountedReadWriteLock lock = this.lockMap.get(object);
+			
+			if (lock == null)
+			{
+				ReferenceCountedReadWriteLock newLock = new ReferenceCountedReadWriteLock(this.createReadWriteLock());
+				
+				lock = this.lockMap.putIfAbsent(object, newLock);
+				
+				if (lock == null)
+				{
+					lock = newLock;
+				}
+			}
+			
+			if (lock.retain()) return lock;
+			
+			// Lock was concurrently evicted - remove it, if not already removed, and retry
+			this.lockMap.remove(object, lock);
+		}
+	}
+	
+	/**
+	 * Releases a reference to the specified lock, evicting it if no longer referenced.
+	 * @param object a lock name
+	 * @param lock a read/write lock
+	 */
+	void release(String object, ReferenceCountedReadWriteLock lock)
+	{
+		if (lock.release())
+		{
+			this.lockMap.remove(object, lock);
+		}
+	}
+	
+	/**
+	 * Returns the number of named locks currently referenced.
+	 * @return a number of locks
+	 */
+	int size()
+	{
+		return this.lockMap.size();
+	}
+	
+	/**
+	 * A read/write lock with a reference count.
+	 * Once its reference count drops to 0, the lock is considered evicted and can no longer be referenced.
+	 */
+	static class ReferenceCountedReadWriteLock
+	{
+		private static final int EVICTED = -1;
+		
+		private final ReadWriteLock lock;
+		private final AtomicInteger references = new AtomicInteger(0);
+		
+		ReferenceCountedReadWriteLock(ReadWriteLock lock)
+		{
+			this.lock = lock;
+		}
+		
+		Lock getLock(boolean write)
+		{
+			return write ? this.lock.writeLock() : this.lock.readLock();
+		}
+		
+		/**
+		 * Adds a reference to this lock.
+		 * @return true, if a reference was added, false if this lock was already evicted.
+		 */
+		boolean retain()
+		{
+			int references = this.references.get();
+			
+			while (references != EVICTED)
+			{
+				if (this.references.compareAndSet(references, references + 1)) return true;
+				
+				references = this.references.get();
+			}
+			
+			return false;
+		}
 		
-		return (object == null) ? readWriteLock.writeLock() : new GlobalLock(readWriteLock.readLock(), this.getReadWriteLock(object).writeLock());
+		/**
+		 * Removes a reference to this lock.
+		 * @return true, if this lock is no longer referenced, and should be evicted.
+		 */
+		boolean release()
+		{
+			return (this.references.decrementAndGet() == 0) && this.references.compareAndSet(0, EVICTED);
+		}
 	}
 	
-	private synchronized ReadWriteLock getReadWriteLock(String object)
+	/**
+	 * Lock for a named object, whose underlying read/write lock is referenced only while held or being acquired.
+	 */
+	private class NamedLock implements Lock
 	{
-		// CHM cannot use a null key
-		String key = (object != null) ? object : "";
+		private final String object;
+		private final boolean write;
 		
-		ReadWriteLock lock = this.lockMap.get(key);
+		NamedLock(String object, boolean write)
+		{
+			this.object = object;
+			this.write = write;
+		}
 		
-		if (lock == null)
+		@Override
+		public void lock()
 		{
-			lock = new SemaphoreReadWriteLock(new Semaphore(Integer.MAX_VALUE, this.fair));
+			SemaphoreLockManager.this.retain(this.object).getLock(this.write).lock();
+		}
+
+		@Override
+		public void lockInterruptibly() throws InterruptedException
+		{
+			ReferenceCountedReadWriteLock lock = SemaphoreLockManager.this.retain(this.object);
+			
+			try
+			{
+				lock.getLock(this.write).lockInterruptibly();
+			}
+			catch (InterruptedException e)
+			{
+				SemaphoreLockManager.this.release(this.object, lock);
+				throw e;
+			}
+		}
 
-			ReadWriteLock existing = this.lockMap.putIfAbsent(key, lock);
+		@Override
+		public boolean tryLock()
+		{
+			ReferenceCountedReadWriteLock lock = SemaphoreLockManager.this.retain(this.object);
+			
+			boolean locked = lock.getLock(this.write).tryLock();
 			
-			if (existing != null)
+			if (!locked)
 			{
-				lock = existing;
+				SemaphoreLockManager.this.release(this.object, lock);
 			}
+			
+			return locked;
+		}
+
+		@Override
+		public boolean tryLock(long time, TimeUnit unit) throws InterruptedException
+		{
+			ReferenceCountedReadWriteLock lock = SemaphoreLockManager.this.retain(this.object);
+			
+			boolean locked = false;
+			
+			try
+			{
+				locked = lock.getLock(this.write).tryLock(time, unit);
+			}
+			finally
+			{
+				if (!locked)
+				{
+					SemaphoreLockManager.this.release(this.object, lock);
+				}
+			}
+			
+			return locked;
+		}
+
+		@Override
+		public void unlock()
+		{
+			// Since we hold this lock, it cannot have been evicted
+			ReferenceCountedReadWriteLock lock = SemaphoreLockManager.this.lockMap.get(this.object);
+			
+			lock.getLock(this.write).unlock();
+			
+			SemaphoreLockManager.this.release(this.object, lock);
+		}
+
+		@Override
+		public Condition newCondition()
+		{
+			throw new UnsupportedOperationException();
 		}
-		
-		return lock;
 	}
 	
 	private static class GlobalLock implements Lock
@@ -25,6 +25,7 @@ public class SemaphoreLockManagerFactory implements LockManagerFactory
 	private static final long serialVersionUID = -1330668107554832289L;
 
 	private boolean fair;
+	private boolean readerBiased;
 	
 	public void setFair(boolean fair)
 	{
@@ -36,6 +37,21 @@ public class SemaphoreLockManagerFactory implements LockManagerFactory
 		return this.fair;
 	}
 
+	/**
+	 * Indicates whether the global lock, which is read locked by every transaction, should be biased towards readers.
+	 * If enabled, read lock acquisition does not contend with other readers, at the expense of more costly write lock acquisition (e.g. database activation).
+	 * @param readerBiased true, if the global lock should be reader biased, false otherwise.
+	 */
+	public void setReaderBiased(boolean readerBiased)
+	{
+		this.readerBiased = readerBiased;
+	}
+	
+	public boolean isReaderBiased()
+	{
+		return this.readerBiased;
+	}
+
 	@Override
 	public String getId()
 	{
@@ -45,6 +61,6 @@ public class SemaphoreLockManagerFactory implements LockManagerFactory
 	@Override
 	public LockManager createLockManager()
 	{
-		return new SemaphoreLockManager(this.fair);
+		return new SemaphoreLockManager(this.fair, this.readerBiased);
 	}
 }
@@ -0,0 +1,386 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.lock.semaphore;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * Reader-biased {@link java.util.concurrent.locks.ReadWriteLock} implementation, intended for locks that are read locked frequently, but write locked rarely.
+ * Readers are counted using a set of striped counters, where each thread updates only the counter of its own stripe; thus concurrent readers do not contend on a shared state.
+ * A writer, which is serialized via a semaphore, revokes the reader bias, then parks until the sum of all reader counts drains.
+ * Readers releasing their lock while a writer is pending unpark it; the writer also wakes periodically, with backoff, in case it missed a signal.
+ * While a writer is pending, readers block on the writer semaphore.
+ * Lock upgrading and downgrading is not supported; nor are conditions.
+ *
+ * @author Paul Ferraro
+ */
+public class StripedReadWriteLock implements ReadWriteLock
+{
+	// Pads each counter to its own cache line to avoid false sharing between stripes
+	private static final int PADDING = 8;
+	// Bounds of the interval for which a draining writer parks between checks
+	private static final long MIN_PARK_NANOS = 1000L;
+	private static final long MAX_PARK_NANOS = 1000000L;
+
+	final Semaphore writers;
+	final AtomicLongArray counters;
+	final int mask;
+	volatile boolean writing = false;
+	// The writer waiting for readers to drain, if any
+	volatile Thread drainingWriter = null;
+
+	private final Lock readLock = new StripedReadLock();
+	private final Lock writeLock = new StripedWriteLock();
+
+	public StripedReadWriteLock(boolean fair)
+	{
+		this(fair, Runtime.getRuntime().availableProcessors() * 2);
+	}
+
+	public StripedReadWriteLock(boolean fair, int concurrency)
+	{
+		int stripes = 1;
+		while (stripes < concurrency)
+		{
+			stripes <<= 1;
+		}
+		this.mask = stripes - 1;
+		this.counters = new AtomicLongArray(stripes * PADDING);
+		this.writers = new Semaphore(1, fair);
+	}
+
+	/**
+	 * @see java.util.concurrent.locks.ReadWriteLock#readLock()
+	 */
+	@Override
+	public Lock readLock()
+	{
+		return this.readLock;
+	}
+
+	/**
+	 * @see java.util.concurrent.locks.ReadWriteLock#writeLock()
+	 */
+	@Override
+	public Lock writeLock()
+	{
+		return this.writeLock;
+	}
+
+	/**
+	 * Returns the counter index of the stripe of the current thread.
+	 * @return a counter index
+	 */
+	int index()
+	{
+		long id = Thread.currentThread().getId();
+		// Spread thread ids, which are typically sequential, across stripes
+		int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+		return ((hash ^ (hash >>> 16)) & this.mask) * PADDING;
+	}
+
+	/**
+	 * Returns the number of read locks currently held.
+	 * Since read locks may be released by a different thread, and thus a different stripe, than the one that acquired them, only the sum of all stripes is meaningful.
+	 * @return the number of held read locks
+	 */
+	long readers()
+	{
+		long readers = 0;
+		for (int i = 0; i < this.counters.length(); i += PADDING)
+		{
+			readers += this.counters.get(i);
+		}
+		return readers;
+	}
+
+	private class StripedReadLock implements Lock
+	{
+		StripedReadLock()
+		{
+		}
+
+		/**
+		 * Attempts to acquire this lock via the stripe of the current thread.
+		 * @return true, if the lock was acquired, false if a writer is pending.
+		 */
+		private boolean tryAcquire()
+		{
+			if (StripedReadWriteLock.this.writing) return false;
+
+			int index = StripedReadWriteLock.this.index();
+
+			StripedReadWriteLock.this.counters.incrementAndGet(index);
+
+			if (!StripedReadWriteLock.this.writing) return true;
+
+			// A writer is pending - back off
+			StripedReadWriteLock.this.counters.decrementAndGet(index);
+
+			return false;
+		}
+
+		/**
+		 * @see java.util.concurrent.locks.Lock#lock()
+		 */
+		@Override
+		public void lock()
+		{
+			while (!this.tryAcquire())
+			{
+				// Wait for pending writer
+				StripedReadWriteLock.this.writers.acquireUninterruptibly();
+				StripedReadWriteLock.this.writers.release();
+			}
+		}
+
+		/**
+		 * @see java.util.concurrent.locks.Lock#lockInterruptibly()
+		 */
+		@Override
+		public void lockInterruptibly() throws InterruptedException
+		{
+			if (Thread.interrupted())
+			{
+				throw new InterruptedException();
+			}
+
+			while (!this.tryAcquire())
+			{
+				StripedReadWriteLock.this.writers.acquire();
+				StripedReadWriteLock.this.writers.release();
+			}
+		}
+
+		/**
+		 * @see java.util.concurrent.locks.Lock#tryLock()
+		 */
+		@Override
+		public boolean tryLock()
+		{
+			return this.tryAcquire();
+		}
+
+		/**
+		 * @see java.util.concurrent.locks.Lock#tryLock(long, java.util.concurrent.TimeUnit)
+		 */
+		@Override
+		public boolean tryLock(long time, TimeUnit unit) throws InterruptedException
+		{
+			long deadline = System.nanoTime() + unit.toNanos(time);
+
+			while (!this.tryAcquire())
+			{
+				if (!StripedReadWriteLock.this.writers.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS))
+				{
+					return false;
+				}
+				StripedReadWriteLock.this.writers.release();
+			}
+
+			return true;
+		}
+
+		/**
+		 * @see java.util.concurrent.locks.Lock#unlock()
+		 */
+		@Override
+		public void unlock()
+		{
+			StripedReadWriteLock.this.counters.decrementAndGet(StripedReadWriteLock.this.index());
+			
+			if (StripedReadWriteLock.this.writing)
+			{
+				// Let the pending writer recheck whether readers have drained
+				Thread writer = StripedReadWriteLock.this.drainingWriter;
+				
+				if (writer != null)
+				{
+					LockSupport.unpark(writer);
+				}
+			}
+		}
+
+		/**
+		 * @see java.util.concurrent.locks.Lock#newCondition()
+		 */
+		@Override
+		public Condition newCondition()
+		{
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	private class StripedWriteLock implements Lock
+	{
+		StripedWriteLock()
+		{
+		}
+
+		/**
+		 * Revokes the reader bias, and waits for existing readers to drain.
+		 * Must only be called while holding the writer semaphore.
+		 * @param deadline the nano time by which readers must have drained, or {@link Long#MAX_VALUE} to wait indefinitely
+		 * @param interruptible indicates whether waiting should abort if the current thread is interrupted
+		 * @return true, if readers were drained, false otherwise
+		 */
+		private boolean drainReaders(long deadline, boolean interruptible)
+		{
+			StripedReadWriteLock.this.drainingWriter = Thread.currentThread();
+			StripedReadWriteLock.this.writing = true;
+
+			try
+			{
+				long parkNanos = MIN_PARK_NANOS;
+				boolean interrupted = false;
+				
+				while (StripedReadWriteLock.this.readers() > 0)
+				{
+					if (Thread.interrupted())
+					{
+						if (interruptible)
+						{
+							Thread.currentThread().interrupt();
+							this.unlock();
+							return false;
+						}
+						interrupted = true;
+					}
+					
+					long nanos = parkNanos;
+					
+					if (deadline != Long.MAX_VALUE)
+					{
+						long remaining = deadline - System.nanoTime();
+						
+						if (remaining <= 0)
+						{
+							this.unlock();
+							return false;
+						}
+						
+						nanos = Math.min(nanos, remaining);
+					}
+					
+					LockSupport.parkNanos(this, nanos);
+					
+					parkNanos = Math.min(parkNanos * 2, MAX_PARK_NANOS);
+				}
+				
+				if (interrupted)
+				{
+					// Restore interrupt status swallowed while waiting uninterruptibly
+					Thread.currentThread().interrupt();
+				}
+				
+				return true;
+			}
+			finally
+			{
+				StripedReadWriteLock.this.drainingWriter = null;
+			}
+		}
+
+		/**
+		 * @see java.util.concurrent.locks.Lock#lock()
+		 */
+		@Override
+		public void lock()
+		{
+			StripedReadWriteLock.this.writers.acquireUninterruptibly();
+			this.drainReaders(Long.MAX_VALUE, false);
+		}
+
+		/**
+		 * @see java.util.concurrent.locks.Lock#lockInterruptibly()
+		 */
+		@Override
+		public void lockInterruptibly() throws InterruptedException
+		{
+			StripedReadWriteLock.this.writers.acquire();
+
+			if (!this.drainReaders(Long.MAX_VALUE, true))
+			{
+				Thread.interrupted();
+				throw new InterruptedException();
+			}
+		}
+
+		/**
+		 * @see java.util.concurrent.locks.Lock#tryLock()
+		 */
+		@Override
+		public boolean tryLock()
+		{
+			if (!StripedReadWriteLock.this.writers.tryAcquire()) return false;
+
+			StripedReadWriteLock.this.writing = true;
+
+			if (StripedReadWriteLock.this.readers() == 0) return true;
+
+			this.unlock();
+
+			return false;
+		}
+
+		/**
+		 * @see java.util.concurrent.locks.Lock#tryLock(long, java.util.concurrent.TimeUnit)
+		 */
+		@Override
+		public boolean tryLock(long time, TimeUnit unit) throws InterruptedException
+		{
+			long deadline = System.nanoTime() + unit.toNanos(time);
+
+			if (!StripedReadWriteLock.this.writers.tryAcquire(time, unit)) return false;
+
+			if (this.drainReaders(deadline, true)) return true;
+
+			if (Thread.interrupted())
+			{
+				throw new InterruptedException();
+			}
+
+			return false;
+		}
+
+		/**
+		 * @see java.util.concurrent.locks.Lock#unlock()
+		 */
+		@Override
+		public void unlock()
+		{
+			StripedReadWriteLock.this.writing = false;
+			StripedReadWriteLock.this.writers.release();
+		}
+
+		/**
+		 * @see java.util.concurrent.locks.Lock#newCondition()
+		 */
+		@Override
+		public Condition newCondition()
+		{
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -484,6 +484,156 @@ public abstract class AbstractDatabaseClusterConfiguration<Z, D extends Database
 		this.getNestedConfiguration().setRandEvaluationEnabled(enabled);
 	}
 	
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.DatabaseClusterConfiguration#isParameterizedEvaluationEnabled()
+	 */
+	@Override
+	public boolean isParameterizedEvaluationEnabled()
+	{
+		return this.getNestedConfiguration().isParameterizedEvaluationEnabled();
+	}
+
+	public void setParameterizedEvaluationEnabled(boolean enabled)
+	{
+		this.getNestedConfiguration().setParameterizedEvaluationEnabled(enabled);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.DatabaseClusterConfiguration#isParameterReplayEnabled()
+	 */
+	@Override
+	public boolean isParameterReplayEnabled()
+	{
+		return this.getNestedConfiguration().isParameterReplayEnabled();
+	}
+
+	public void setParameterReplayEnabled(boolean enabled)
+	{
+		this.getNestedConfiguration().setParameterReplayEnabled(enabled);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.DatabaseClusterConfiguration#isParameterBufferingEnabled()
+	 */
+	@Override
+	public boolean isParameterBufferingEnabled()
+	{
+		return this.getNestedConfiguration().isParameterBufferingEnabled();
+	}
+
+	public void setParameterBufferingEnabled(boolean enabled)
+	{
+		this.getNestedConfiguration().setParameterBufferingEnabled(enabled);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.DatabaseClusterConfiguration#isAsynchronousWriteEnabled()
+	 */
+	@Override
+	public boolean isAsynchronousWriteEnabled()
+	{
+		return this.getNestedConfiguration().isAsynchronousWriteEnabled();
+	}
+
+	public void setAsynchronousWriteEnabled(boolean enabled)
+	{
+		this.getNestedConfiguration().setAsynchronousWriteEnabled(enabled);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.DatabaseClusterConfiguration#isAsynchronousWriteQuorumEnabled()
+	 */
+	@Override
+	public boolean isAsynchronousWriteQuorumEnabled()
+	{
+		return this.getNestedConfiguration().isAsynchronousWriteQuorumEnabled();
+	}
+
+	public void setAsynchronousWriteQuorumEnabled(boolean enabled)
+	{
+		this.getNestedConfiguration().setAsynchronousWriteQuorumEnabled(enabled);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.DatabaseClusterConfiguration#getWriteQuorum()
+	 */
+	@Override
+	public int getWriteQuorum()
+	{
+		return this.getNestedConfiguration().getWriteQuorum();
+	}
+
+	public void setWriteQuorum(int quorum)
+	{
+		this.getNestedConfiguration().setWriteQuorum(quorum);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.DatabaseClusterConfiguration#getWriteQuorumTimeout()
+	 */
+	@Override
+	public long getWriteQuorumTimeout()
+	{
+		return this.getNestedConfiguration().getWriteQuorumTimeout();
+	}
+
+	public void setWriteQuorumTimeout(long timeout)
+	{
+		this.getNestedConfiguration().setWriteQuorumTimeout(timeout);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.DatabaseClusterConfiguration#getHedgedReadPercentile()
+	 */
+	@Override
+	public int getHedgedReadPercentile()
+	{
+		return this.getNestedConfiguration().getHedgedReadPercentile();
+	}
+
+	public void setHedgedReadPercentile(int percentile)
+	{
+		this.getNestedConfiguration().setHedgedReadPercentile(percentile);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.DatabaseClusterConfiguration#getResultVerificationSampleSize()
+	 */
+	@Override
+	public int getResultVerificationSampleSize()
+	{
+		return this.getNestedConfiguration().getResultVerificationSampleSize();
+	}
+
+	public void setResultVerificationSampleSize(int size)
+	{
+		this.getNestedConfiguration().setResultVerificationSampleSize(size);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.DatabaseClusterConfiguration#getStreamingFetchSize()
+	 */
+	@Override
+	public int getStreamingFetchSize()
+	{
+		return this.getNestedConfiguration().getStreamingFetchSize();
+	}
+
+	public void setStreamingFetchSize(int size)
+	{
+		this.getNestedConfiguration().setStreamingFetchSize(size);
+	}
+	
 	/**
 	 * {@inheritDoc}
 	 * @see net.sf.hajdbc.DatabaseClusterConfiguration#isSequenceDetectionEnabled()
@@ -549,6 +699,66 @@ public abstract class AbstractDatabaseClusterConfiguration<Z, D extends Database
 		this.getNestedConfiguration().setEmptyClusterAllowed(emptyClusterAllowed);
 	}
 	
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.DatabaseClusterConfiguration#getLockLeaseTime()
+	 */
+	@Override
+	public long getLockLeaseTime()
+	{
+		return this.getNestedConfiguration().getLockLeaseTime();
+	}
+
+	public void setLockLeaseTime(long leaseTime)
+	{
+		this.getNestedConfiguration().setLockLeaseTime(leaseTime);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.DatabaseClusterConfiguration#getSequenceAllocationSize()
+	 */
+	@Override
+	public int getSequenceAllocationSize()
+	{
+		return this.getNestedConfiguration().getSequenceAllocationSize();
+	}
+
+	public void setSequenceAllocationSize(int size)
+	{
+		this.getNestedConfiguration().setSequenceAllocationSize(size);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.DatabaseClusterConfiguration#getSQLAnalysisCacheSize()
+	 */
+	@Override
+	public int getSQLAnalysisCacheSize()
+	{
+		return this.getNestedConfiguration().getSQLAnalysisCacheSize();
+	}
+
+	public void setSQLAnalysisCacheSize(int size)
+	{
+		this.getNestedConfiguration().setSQLAnalysisCacheSize(size);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.DatabaseClusterConfiguration#getPreparedStatementCacheSize()
+	 */
+	@Override
+	public int getPreparedStatementCacheSize()
+	{
+		return this.getNestedConfiguration().getPreparedStatementCacheSize();
+	}
+
+	public void setPreparedStatementCacheSize(int size)
+	{
+		this.getNestedConfiguration().setPreparedStatementCacheSize(size);
+	}
+	
 	/**
 	 * {@inheritDoc}
 	 * @see net.sf.hajdbc.DatabaseClusterConfiguration#getTransactionIdentifierFactory()
@@ -608,15 +818,44 @@ public abstract class AbstractDatabaseClusterConfiguration<Z, D extends Database
 		private Boolean currentTimestampEvaluationEnabled = false;
 		@XmlAttribute(name = "eval-rand")
 		private Boolean randEvaluationEnabled = false;
+		@XmlAttribute(name = "eval-parameterized")
+		private Boolean parameterizedEvaluationEnabled = false;
+		@XmlAttribute(name = "replay-parameters")
+		private Boolean parameterReplayEnabled = true;
+		@XmlAttribute(name = "buffer-parameters")
+		private Boolean parameterBufferingEnabled = false;
+		@XmlAttribute(name = "async-writes")
+		private Boolean asynchronousWriteEnabled = false;
+		@XmlAttribute(name = "async-write-quorum")
+		private Boolean asynchronousWriteQuorumEnabled = false;
+		@XmlAttribute(name = "write-quorum")
+		private Integer writeQuorum = 0;
+		@XmlAttribute(name = "write-quorum-timeout")
+		private Long writeQuorumTimeout = 1000L;
+		@XmlAttribute(name = "hedged-read-percentile")
+		private Integer hedgedReadPercentile = 0;
+		@XmlAttribute(name = "result-verification-sample-size")
+		private Integer resultVerificationSampleSize = 0;
+		@XmlAttribute(name = "streaming-fetch-size")
+		private Integer streamingFetchSize = 0;
 		
 		@XmlAttribute(name = "detect-identity-columns")
 		private Boolean identityColumnDetectionEnabled = false;
 		@XmlAttribute(name = "detect-sequences")
 		private Boolean sequenceDetectionEnabled = false;
+		@XmlAttribute(name = "sequence-allocation-size")
+		private Integer sequenceAllocationSize = 0;
+		@XmlAttribute(name = "sql-analysis-cache-size")
+		private Integer sqlAnalysisCacheSize = 0;
+		@XmlAttribute(name = "prepared-statement-cache-size")
+		private Integer preparedStatementCacheSize = 0;
 
 		@XmlAttribute(name = "allow-empty-cluster")
 		private Boolean emptyClusterAllowed = false;
 		
+		@XmlAttribute(name = "lock-lease-time")
+		private Long lockLeaseTime = 0L;
+		
 		private String defaultSynchronizationStrategy;
 		
 		private ConcurrentMap<String, D> databases = new ConcurrentHashMap<>();
@@ -870,6 +1109,116 @@ public abstract class AbstractDatabaseClusterConfiguration<Z, D extends Database
 			this.randEvaluationEnabled = enabled;
 		}
 		
+		@Override
+		public boolean isParameterizedEvaluationEnabled()
+		{
+			return this.parameterizedEvaluationEnabled;
+		}
+
+		void setParameterizedEvaluationEnabled(boolean enabled)
+		{
+			this.parameterizedEvaluationEnabled = enabled;
+		}
+		
+		@Override
+		public boolean isParameterReplayEnabled()
+		{
+			return this.parameterReplayEnabled;
+		}
+
+		void setParameterReplayEnabled(boolean enabled)
+		{
+			this.parameterReplayEnabled = enabled;
+		}
+		
+		@Override
+		public boolean isParameterBufferingEnabled()
+		{
+			return this.parameterBufferingEnabled;
+		}
+
+		void setParameterBufferingEnabled(boolean enabled)
+		{
+			this.parameterBufferingEnabled = enabled;
+		}
+		
+		@Override
+		public boolean isAsynchronousWriteEnabled()
+		{
+			return this.asynchronousWriteEnabled;
+		}
+
+		void setAsynchronousWriteEnabled(boolean enabled)
+		{
+			this.asynchronousWriteEnabled = enabled;
+		}
+		
+		@Override
+		public boolean isAsynchronousWriteQuorumEnabled()
+		{
+			return this.asynchronousWriteQuorumEnabled;
+		}
+
+		void setAsynchronousWriteQuorumEnabled(boolean enabled)
+		{
+			this.asynchronousWriteQuorumEnabled = enabled;
+		}
+		
+		@Override
+		public int getWriteQuorum()
+		{
+			return this.writeQuorum;
+		}
+
+		void setWriteQuorum(int quorum)
+		{
+			this.writeQuorum = quorum;
+		}
+		
+		@Override
+		public long getWriteQuorumTimeout()
+		{
+			return this.writeQuorumTimeout;
+		}
+
+		void setWriteQuorumTimeout(long timeout)
+		{
+			this.writeQuorumTimeout = timeout;
+		}
+		
+		@Override
+		public int getHedgedReadPercentile()
+		{
+			return this.hedgedReadPercentile;
+		}
+
+		void setHedgedReadPercentile(int percentile)
+		{
+			this.hedgedReadPercentile = percentile;
+		}
+		
+		@Override
+		public int getResultVerificationSampleSize()
+		{
+			return this.resultVerificationSampleSize;
+		}
+
+		void setResultVerificationSampleSize(int size)
+		{
+			this.resultVerificationSampleSize = size;
+		}
+		
+		@Override
+		public int getStreamingFetchSize()
+		{
+			return this.streamingFetchSize;
+		}
+
+		void setStreamingFetchSize(int size)
+		{
+			this.streamingFetchSize = size;
+		}
+		
 		@Override
 		public boolean isSequenceDetectionEnabled()
 		{
@@ -900,6 +1249,62 @@ public abstract class AbstractDatabaseClusterConfiguration<Z, D extends Database
 		{
 			this.emptyClusterAllowed = emptyClusterAllowed;
 		}
+
+		/* (non-Javadoc)
+		 * @see net.sf.hajdbc.DatabaseClusterConfiguration#getLockLeaseTime()
+		 */
+		@Override
+		public long getLockLeaseTime()
+		{
+			return this.lockLeaseTime;
+		}
+		
+		void setLockLeaseTime(long leaseTime)
+		{
+			this.lockLeaseTime = leaseTime;
+		}
+
+		/* (non-Javadoc)
+		 * @see net.sf.hajdbc.DatabaseClusterConfiguration#getSequenceAllocationSize()
+		 */
+		@Override
+		public int getSequenceAllocationSize()
+		{
+			return this.sequenceAllocationSize;
+		}
+		
+		void setSequenceAllocationSize(int size)
+		{
+			this.sequenceAllocationSize = size;
+		}
+
+		/* (non-Javadoc)
+		 * @see net.sf.hajdbc.DatabaseClusterConfiguration#getSQLAnalysisCacheSize()
+		 */
+		@Override
+		public int getSQLAnalysisCacheSize()
+		{
+			return this.sqlAnalysisCacheSize;
+		}
+		
+		void setSQLAnalysisCacheSize(int size)
+		{
+			this.sqlAnalysisCacheSize = size;
+		}
+
+		/* (non-Javadoc)
+		 * @see net.sf.hajdbc.DatabaseClusterConfiguration#getPreparedStatementCacheSize()
+		 */
+		@Override
+		public int getPreparedStatementCacheSize()
+		{
+			return this.preparedStatementCacheSize;
+		}
+		
+		void setPreparedStatementCacheSize(int size)
+		{
+			this.preparedStatementCacheSize = size;
+		}
 	}
 
 	static class IdentifiableServiceAdapter<T extends Identifiable> extends XmlAdapter<String, T>
@@ -37,6 +37,7 @@ import net.sf.hajdbc.invocation.AllResultsCollector;
 import net.sf.hajdbc.invocation.InvocationStrategies;
 import net.sf.hajdbc.invocation.InvocationStrategy;
 import net.sf.hajdbc.invocation.Invoker;
+import net.sf.hajdbc.invocation.ResultVerifier;
 import net.sf.hajdbc.invocation.SimpleInvoker;
 import net.sf.hajdbc.logging.Level;
 import net.sf.hajdbc.logging.Logger;
@@ -82,6 +83,12 @@ public class AbstractInvocationHandler<Z, D extends Database<Z>, T, E extends Ex
 			throw new SQLException(Messages.CLUSTER_NOT_ACTIVE.getMessage(cluster));
 		}
 		
+		if (this.proxyFactory instanceof TransactionalProxyFactory)
+		{
+			// Objects of a connection must not be used while it still has outstanding asynchronous writes
+			((TransactionalProxyFactory<?, ?, ?, ?>) this.proxyFactory).getTransactionContext().await();
+		}
+		
 		return this.invokeOnProxy(this.proxyClass.cast(proxy), method, args);
 	}
 
@@ -181,18 +188,14 @@ public class AbstractInvocationHandler<Z, D extends Database<Z>, T, E extends Ex
 					};
 				}
 				
-				SerialLocatorFactory<X> factory = SerialLocatorFactories.find(parameterClass);
-				if (factory != null)
+				try
 				{
-					try
-					{
-						// Create a serial form of the parameter, so it can be used by each database
-						parameters[parameterIndex] = factory.createSerial(parameter);
-					}
-					catch (SQLException e)
-					{
-						throw exceptionFactory.createException(e);
-					}
+					// Create a serial form of the parameter, so it can be used by each database
+					parameters[parameterIndex] = this.createSerial(parameterClass, parameter);
+				}
+				catch (SQLException e)
+				{
+					throw exceptionFactory.createException(e);
 				}
 			}
 		}
@@ -200,6 +203,20 @@ public class AbstractInvocationHandler<Z, D extends Database<Z>, T, E extends Ex
 		return this.getInvoker(method, parameters);
 	}
 	
+	/**
+	 * Creates a form of the specified locator parameter, e.g. a {@link java.sql.Blob}, that can be read by each database.
+	 * @param parameterClass the parameter type
+	 * @param parameter a non-proxy parameter
+	 * @return a serial form of the parameter, or the parameter itself, if it is not a locator
+	 * @throws SQLException if the parameter could not be read
+	 */
+	protected <X> X createSerial(Class<X> parameterClass, X parameter) throws SQLException
+	{
+		SerialLocatorFactory<X> factory = SerialLocatorFactories.find(parameterClass);
+		
+		return (factory != null) ? factory.createSerial(parameter) : parameter;
+	}
+	
 	private <R> R createResult(InvocationResultFactory<Z, D, R> factory, SortedMap<D, R> resultMap) throws E
 	{
 		DatabaseCluster<Z, D> cluster = this.proxyFactory.getDatabaseCluster();
@@ -209,6 +226,7 @@ public class AbstractInvocationHandler<Z, D extends Database<Z>, T, E extends Ex
 			throw this.proxyFactory.getExceptionFactory().createException(Messages.NO_ACTIVE_DATABASES.getMessage(cluster));
 		}
 		
+		ResultVerifier verifier = cluster.getResultVerifier();
 		Iterator<Map.Entry<D, R>> results = resultMap.entrySet().iterator();
 		R primaryResult = results.next().getValue();
 		
@@ -217,7 +235,7 @@ public class AbstractInvocationHandler<Z, D extends Database<Z>, T, E extends Ex
 			Map.Entry<D, R> entry = results.next();
 			R result = entry.getValue();
 			
-			if (factory.differs(primaryResult, result))
+			if (verifier.differs(factory, primaryResult, result))
 			{
 				results.remove();
 				D database = entry.getKey();
@@ -22,15 +22,13 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.List;
+import java.sql.Statement;
 import java.util.Set;
-import java.util.concurrent.locks.Lock;
 
 import net.sf.hajdbc.Database;
 import net.sf.hajdbc.invocation.InvocationStrategies;
 import net.sf.hajdbc.invocation.InvocationStrategy;
 import net.sf.hajdbc.invocation.Invoker;
-import net.sf.hajdbc.invocation.LockingInvocationStrategy;
 import net.sf.hajdbc.util.reflect.Methods;
 
 /**
@@ -46,6 +44,7 @@ public abstract class AbstractPreparedStatementInvocationHandler<Z, D extends Da
 	private static final Method executeQueryMethod = Methods.getMethod(PreparedStatement.class, "executeQuery");
 	private static final Method clearParametersMethod = Methods.getMethod(PreparedStatement.class, "clearParameters");
 	private static final Method addBatchMethod = Methods.getMethod(PreparedStatement.class, "addBatch");
+	private static final Method executeBatchMethod = Methods.getMethod(Statement.class, "executeBatch");
 	
 	private final Set<Method> setMethods;
 	
@@ -82,29 +81,32 @@ public abstract class AbstractPreparedStatementInvocationHandler<Z, D extends Da
 			return InvocationStrategies.INVOKE_ON_EXISTING;
 		}
 		
+		if ((method.equals(executeMethod) || method.equals(executeUpdateMethod) || method.equals(executeQueryMethod) || method.equals(executeBatchMethod)) && this.getProxyFactory().isConnectionStateChange())
+		{
+			this.getProxyFactory().invalidateConnectionState();
+		}
+		
 		if (method.equals(executeMethod) || method.equals(executeUpdateMethod))
 		{
-			return this.getProxyFactory().getTransactionContext().start(new LockingInvocationStrategy(InvocationStrategies.TRANSACTION_INVOKE_ON_ALL, this.getProxyFactory().getLocks()), this.getProxyFactory().getParentProxy());
+			TransactionContext<Z, D> context = this.getProxyFactory().getTransactionContext();
+			InvocationStrategy strategy = this.getProxyFactory().getExecuteInvocationStrategy();
+			
+			// Locks must be held until all databases have completed the write, thus only lock-free writes may complete asynchronously
+			return this.getProxyFactory().getLocks().isEmpty() ? context.write(strategy, this.getProxyFactory().getParentProxy()) : context.start(strategy, this.getProxyFactory().getParentProxy());
 		}
 		
 		if (method.equals(executeQueryMethod))
 		{
-			List<Lock> locks = this.getProxyFactory().getLocks();
-			int concurrency = statement.getResultSetConcurrency();
 			boolean selectForUpdate = this.getProxyFactory().isSelectForUpdate();
 			
-			if (locks.isEmpty() && (concurrency == ResultSet.CONCUR_READ_ONLY) && !selectForUpdate)
+			if (this.getProxyFactory().getLocks().isEmpty() && !selectForUpdate && (this.getProxyFactory().getResultSetConcurrency(statement) == ResultSet.CONCUR_READ_ONLY))
 			{
-				boolean repeatableReadSelect = (statement.getConnection().getTransactionIsolation() >= Connection.TRANSACTION_REPEATABLE_READ);
+				boolean repeatableReadSelect = (this.getProxyFactory().getTransactionIsolation() >= Connection.TRANSACTION_REPEATABLE_READ);
 				
-				return repeatableReadSelect ? InvocationStrategies.INVOKE_ON_PRIMARY : InvocationStrategies.INVOKE_ON_NEXT;
+				return this.stream(repeatableReadSelect ? InvocationStrategies.INVOKE_ON_PRIMARY : this.getProxyFactory().getTransactionContext().read(InvocationStrategies.INVOKE_ON_NEXT));
 			}
 			
-			InvocationStrategy strategy = InvocationStrategies.TRANSACTION_INVOKE_ON_ALL;
-			if (!locks.isEmpty())
-			{
-				strategy = new LockingInvocationStrategy(strategy, locks);
-			}
+			InvocationStrategy strategy = this.getProxyFactory().getExecuteQueryInvocationStrategy();
 			
 			return selectForUpdate ? this.getProxyFactory().getTransactionContext().start(strategy, this.getProxyFactory().getParentProxy()) : strategy;
 		}
@@ -113,8 +115,47 @@ public abstract class AbstractPreparedStatementInvocationHandler<Z, D extends Da
 	}
 
 	@Override
-	protected <R> Invoker<Z, D, S, R, SQLException> getInvoker(S statement, final Method method, final Object... parameters) throws SQLException
+	protected <R> Invoker<Z, D, S, R, SQLException> getInvoker(S statement, Method method, Object... parameters) throws SQLException
+	{
+		Invoker<Z, D, S, R, SQLException> invoker = this.getParameterInvoker(statement, method, parameters);
+		
+		// Apply buffered parameters prior to binding any evaluated functions
+		if (this.getProxyFactory().isParameterBufferingEnabled() && (method.equals(executeMethod) || method.equals(executeUpdateMethod) || method.equals(executeQueryMethod)))
+		{
+			return this.flush(invoker, false);
+		}
+		
+		return invoker;
+	}
+	
+	private <R> Invoker<Z, D, S, R, SQLException> getParameterInvoker(S statement, final Method method, final Object... parameters) throws SQLException
 	{
+		final ParameterizedSQL parameterizedSQL = this.getProxyFactory().getParameterizedSQL();
+		
+		if (parameterizedSQL != null)
+		{
+			if (this.isSetParameterMethod(method) && (parameters[0] instanceof Integer))
+			{
+				parameters[0] = parameterizedSQL.getParameterIndex((Integer) parameters[0]);
+			}
+			else if (method.equals(executeMethod) || method.equals(executeUpdateMethod) || method.equals(executeQueryMethod) || method.equals(addBatchMethod))
+			{
+				final Invoker<Z, D, S, R, SQLException> invoker = super.getInvoker(statement, method, parameters);
+				// Evaluate once, such that each database binds identical values
+				final Object[] values = parameterizedSQL.evaluate(System.currentTimeMillis());
+				
+				return new Invoker<Z, D, S, R, SQLException>()
+				{
+					@Override
+					public R invoke(D database, S object) throws SQLException
+					{
+						parameterizedSQL.bind(object, values);
+						return invoker.invoke(database, object);
+					}
+				};
+			}
+		}
+		
 		if (this.isSetParameterMethod(method) && (parameters.length > 1))
 		{
 			return this.getInvoker(method.getParameterTypes()[1], 1, statement, method, parameters);
@@ -123,17 +164,46 @@ public abstract class AbstractPreparedStatementInvocationHandler<Z, D extends Da
 		return super.getInvoker(statement, method, parameters);
 	}
 	
+	@Override
+	protected <R> void postInvoke(Invoker<Z, D, S, R, SQLException> invoker, S proxy, Method method, Object... parameters)
+	{
+		if (method.equals(executeMethod) || method.equals(executeUpdateMethod) || method.equals(executeQueryMethod) || method.equals(executeBatchMethod))
+		{
+			this.getProxyFactory().getParameterReplayLog().executed();
+		}
+		
+		super.postInvoke(invoker, proxy, method, parameters);
+	}
+	
 	@Override
 	protected boolean isBatchMethod(Method method)
 	{
 		return method.equals(addBatchMethod) || method.equals(clearParametersMethod) || this.isSetParameterMethod(method) || super.isBatchMethod(method);
 	}
 
+	@Override
+	protected <R> void record(ParameterReplayLog<Z, D, S> log, Invoker<Z, D, S, R, SQLException> invoker, Method method, Object... parameters)
+	{
+		if (this.isSetParameterMethod(method))
+		{
+			log.setParameter(parameters[0], invoker);
+		}
+		else if (method.equals(clearParametersMethod))
+		{
+			log.clearParameters(invoker);
+		}
+		else
+		{
+			super.record(log, invoker, method, parameters);
+		}
+	}
+
 	private boolean isSetParameterMethod(Method method)
 	{
 		Class<?>[] types = method.getParameterTypes();
 		
-		return this.setMethods.contains(method) && (types.length > 0) && this.isIndexType(types[0]);
+		// Exclude inherited driver settings, e.g. setFetchSize(int), whose argument is not a parameter index
+		return this.setMethods.contains(method) && !method.getDeclaringClass().equals(Statement.class) && (types.length > 0) && this.isIndexType(types[0]);
 	}
 	
 	protected boolean isIndexType(Class<?> type)
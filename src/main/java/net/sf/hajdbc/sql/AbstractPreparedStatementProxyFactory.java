@@ -25,7 +25,10 @@ import java.util.Map;
 import java.util.concurrent.locks.Lock;
 
 import net.sf.hajdbc.Database;
+import net.sf.hajdbc.invocation.InvocationStrategies;
+import net.sf.hajdbc.invocation.InvocationStrategy;
 import net.sf.hajdbc.invocation.Invoker;
+import net.sf.hajdbc.invocation.LockingInvocationStrategy;
 
 /**
  * 
@@ -35,12 +38,26 @@ public abstract class AbstractPreparedStatementProxyFactory<Z, D extends Databas
 {
 	private final List<Lock> locks;
 	private final boolean selectForUpdate;
+	private final boolean connectionStateChange;
+	private final ParameterizedSQL parameterizedSQL;
+	private final InvocationStrategy executeStrategy;
+	private final InvocationStrategy executeQueryStrategy;
 	
-	protected AbstractPreparedStatementProxyFactory(Connection parent, ProxyFactory<Z, D, Connection, SQLException> parentFactory, Invoker<Z, D, Connection, S, SQLException> invoker, Map<D, S> map, TransactionContext<Z, D> context, List<Lock> locks, boolean selectForUpdate)
+	protected AbstractPreparedStatementProxyFactory(Connection parent, ProxyFactory<Z, D, Connection, SQLException> parentFactory, Invoker<Z, D, Connection, S, SQLException> invoker, Map<D, S> map, TransactionContext<Z, D> context, List<Lock> locks, boolean selectForUpdate, boolean connectionStateChange)
+	{
+		this(parent, parentFactory, invoker, map, context, locks, selectForUpdate, connectionStateChange, null);
+	}
+	
+	protected AbstractPreparedStatementProxyFactory(Connection parent, ProxyFactory<Z, D, Connection, SQLException> parentFactory, Invoker<Z, D, Connection, S, SQLException> invoker, Map<D, S> map, TransactionContext<Z, D> context, List<Lock> locks, boolean selectForUpdate, boolean connectionStateChange, ParameterizedSQL parameterizedSQL)
 	{
 		super(parent, parentFactory, invoker, map, context);
 		this.locks = locks;
 		this.selectForUpdate = selectForUpdate;
+		this.connectionStateChange = connectionStateChange;
+		this.parameterizedSQL = parameterizedSQL;
+		// Since the SQL of a prepared statement is fixed, its invocation strategies can be created up front
+		this.executeStrategy = new LockingInvocationStrategy(InvocationStrategies.TRANSACTION_INVOKE_ON_ALL, locks);
+		this.executeQueryStrategy = locks.isEmpty() ? InvocationStrategies.TRANSACTION_INVOKE_ON_ALL : this.executeStrategy;
 	}
 
 	public List<Lock> getLocks()
@@ -52,4 +69,41 @@ public abstract class AbstractPreparedStatementProxyFactory<Z, D extends Databas
 	{
 		return this.selectForUpdate;
 	}
+	
+	/**
+	 * Indicates whether executing this statement may change the transaction isolation level or auto-commit mode of its connection.
+	 * Since the SQL of a prepared statement is fixed, this is determined once, when the statement is prepared.
+	 * @return true, if the cached state of the connection must be discarded upon execution, false otherwise
+	 */
+	public boolean isConnectionStateChange()
+	{
+		return this.connectionStateChange;
+	}
+	
+	/**
+	 * Returns the strategy, prior to any transaction decoration, for executing this statement via {@link PreparedStatement#execute()} or {@link PreparedStatement#executeUpdate()}.
+	 * @return an invocation strategy
+	 */
+	public InvocationStrategy getExecuteInvocationStrategy()
+	{
+		return this.executeStrategy;
+	}
+	
+	/**
+	 * Returns the strategy, prior to any transaction decoration, for executing this statement via {@link PreparedStatement#executeQuery()}, when it cannot be routed to a single database.
+	 * @return an invocation strategy
+	 */
+	public InvocationStrategy getExecuteQueryInvocationStrategy()
+	{
+		return this.executeQueryStrategy;
+	}
+	
+	/**
+	 * Returns the parameterized form of this statement, if its non-deterministic functions were replaced by bind parameters.
+	 * @return a parameterized SQL statement, or null if this statement was not parameterized
+	 */
+	public ParameterizedSQL getParameterizedSQL()
+	{
+		return this.parameterizedSQL;
+	}
 }
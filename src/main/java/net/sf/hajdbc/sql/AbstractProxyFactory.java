@@ -87,6 +87,37 @@ public abstract class AbstractProxyFactory<Z, D extends Database<Z>, TE extends
 		}
 	}
 
+	/**
+	 * Closes the underlying objects of all children of this proxy factory, and removes them.
+	 */
+	protected final void closeChildren()
+	{
+		synchronized (this.children)
+		{
+			for (ProxyFactory<Z, D, ?, ? extends Exception> child: this.children.keySet())
+			{
+				this.closeChild(child);
+			}
+			
+			this.children.clear();
+		}
+	}
+	
+	private <C> void closeChild(ProxyFactory<Z, D, C, ? extends Exception> child)
+	{
+		for (Map.Entry<D, C> entry: child.entries())
+		{
+			try
+			{
+				child.close(entry.getKey(), entry.getValue());
+			}
+			catch (Exception e)
+			{
+				this.logger.log(Level.WARN, e);
+			}
+		}
+	}
+
 	@Override
 	public final void removeChildren()
 	{
@@ -137,6 +168,19 @@ public abstract class AbstractProxyFactory<Z, D extends Database<Z>, TE extends
 	
 	protected abstract T create(D database) throws TE;
 
+	/**
+	 * Adds the specified object, created on behalf of this proxy factory for the specified database.
+	 * @param database a database descriptor
+	 * @param object an underlying SQL object
+	 */
+	protected void put(D database, T object)
+	{
+		synchronized (this.map)
+		{
+			this.map.put(database, object);
+		}
+	}
+
 	@Override
 	public void record(Invoker<Z, D, T, ?, E> invoker)
 	{
@@ -148,6 +192,18 @@ public abstract class AbstractProxyFactory<Z, D extends Database<Z>, TE extends
 		}
 	}
 	
+	/**
+	 * Indicates whether any invocations were recorded for replay against newly activated databases.
+	 * @return true, if invocations were recorded, false otherwise
+	 */
+	protected boolean isRecorded()
+	{
+		synchronized (this.invokers)
+		{
+			return !this.invokers.isEmpty();
+		}
+	}
+	
 	/**
 	 * @throws E  
 	 */
@@ -21,6 +21,7 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -32,9 +33,15 @@ import net.sf.hajdbc.DatabaseCluster;
 import net.sf.hajdbc.DatabaseProperties;
 import net.sf.hajdbc.IdentityColumnSupport;
 import net.sf.hajdbc.Messages;
+import net.sf.hajdbc.SequenceAllocator;
 import net.sf.hajdbc.SequenceSupport;
 import net.sf.hajdbc.TableProperties;
+import net.sf.hajdbc.cache.SQLAnalysis;
+import net.sf.hajdbc.cache.SQLAnalysisCache;
 import net.sf.hajdbc.dialect.Dialect;
+import net.sf.hajdbc.dialect.SQLFeature;
+import net.sf.hajdbc.dialect.SQLFunctionCall;
+import net.sf.hajdbc.dialect.SQLLexer;
 import net.sf.hajdbc.invocation.Invoker;
 import net.sf.hajdbc.lock.LockManager;
 
@@ -50,31 +57,50 @@ public abstract class AbstractSQLProxyFactory<Z, D extends Database<Z>, P, T> ex
 	}
 
 	@Override
-	public String evaluate(final String rawSQL)
+	public String evaluate(String sql) throws SQLException
 	{
+		return this.evaluate(sql, false);
+	}
+	
+	@Override
+	public String evaluate(EvaluatedSQL sql) throws SQLException
+	{
+		return this.evaluate(sql.getSQL(), sql.isRewritten());
+	}
+	
+	private String evaluate(final String rawSQL, boolean rewritten) throws SQLException
+	{
+		SQLAnalysis analysis = this.analyze(rawSQL, rewritten);
+		
+		if (analysis != null)
+		{
+			return this.evaluate(rawSQL, analysis.getFunctionCalls());
+		}
+		
 		String sql = rawSQL;
 		
 		long now = System.currentTimeMillis();
 		
 		DatabaseCluster<Z, D> cluster = this.getDatabaseCluster();
 		Dialect dialect = cluster.getDialect();
+		Set<SQLFeature> features = dialect.scan(sql);
 		
-		if (cluster.isCurrentTimestampEvaluationEnabled())
+		if (cluster.isCurrentTimestampEvaluationEnabled() && features.contains(SQLFeature.CURRENT_TIMESTAMP))
 		{
 			sql = dialect.evaluateCurrentTimestamp(sql, new java.sql.Timestamp(now));
 		}
 		
-		if (cluster.isCurrentDateEvaluationEnabled())
+		if (cluster.isCurrentDateEvaluationEnabled() && features.contains(SQLFeature.CURRENT_DATE))
 		{
 			sql = dialect.evaluateCurrentDate(sql, new java.sql.Date(now));
 		}
 		
-		if (cluster.isCurrentTimeEvaluationEnabled())
+		if (cluster.isCurrentTimeEvaluationEnabled() && features.contains(SQLFeature.CURRENT_TIME))
 		{
 			sql = dialect.evaluateCurrentTime(sql, new java.sql.Time(now));
 		}
 		
-		if (cluster.isRandEvaluationEnabled())
+		if (cluster.isRandEvaluationEnabled() && features.contains(SQLFeature.RAND))
 		{
 			sql = dialect.evaluateRand(sql);
 		}
@@ -82,57 +108,78 @@ public abstract class AbstractSQLProxyFactory<Z, D extends Database<Z>, P, T> ex
 		return sql;
 	}
 	
+	private String evaluate(String sql, List<SQLFunctionCall> calls)
+	{
+		if (calls.isEmpty()) return sql;
+		
+		long now = System.currentTimeMillis();
+		Dialect dialect = this.getDatabaseCluster().getDialect();
+		StringBuilder builder = new StringBuilder(sql.length() + (calls.size() * 32));
+		int index = 0;
+		
+		for (SQLFunctionCall call: calls)
+		{
+			builder.append(sql, index, call.getStart()).append(dialect.evaluateFunction(call.getFunction(), now));
+			index = call.getEnd();
+		}
+		
+		return builder.append(sql, index, sql.length()).toString();
+	}
+	
+	@Override
+	public EvaluatedSQL evaluateNextSequenceValues(String sql) throws SQLException
+	{
+		EvaluatedSQL unchanged = new EvaluatedSQL(sql, false);
+		DatabaseCluster<Z, D> cluster = this.getDatabaseCluster();
+		SequenceAllocator allocator = cluster.getSequenceAllocator();
+		
+		if (allocator == null) return unchanged;
+		
+		Dialect dialect = cluster.getDialect();
+		SQLAnalysis analysis = this.analyze(sql, false);
+		Set<SQLFeature> features = (analysis != null) ? analysis.getFeatures() : dialect.scan(sql);
+		
+		if (!features.contains(SQLFeature.SEQUENCE)) return unchanged;
+		
+		SequenceSupport support = dialect.getSequenceSupport();
+		
+		if (support == null) return unchanged;
+		
+		String result = support.evaluateNextSequenceValues(sql, allocator);
+		
+		return result.equals(sql) ? unchanged : new EvaluatedSQL(result, true);
+	}
+	
 	@Override
 	public List<Lock> extractLocks(String sql) throws SQLException
+	{
+		return this.extractLocks(new EvaluatedSQL(sql, false));
+	}
+	
+	@Override
+	public List<Lock> extractLocks(EvaluatedSQL sql) throws SQLException
 	{
 		return this.extractLocks(Collections.singleton(sql));
 	}
 	
-	protected List<Lock> extractLocks(Collection<String> statements) throws SQLException
+	protected List<Lock> extractLocks(Collection<EvaluatedSQL> statements) throws SQLException
 	{
 		Set<String> identifierSet = new TreeSet<>();
 		DatabaseCluster<Z, D> cluster = this.getDatabaseCluster();
+		Dialect dialect = cluster.getDialect();
 		
-		for (String sql: statements)
+		for (EvaluatedSQL statement: statements)
 		{
-			if (cluster.isSequenceDetectionEnabled())
+			String sql = statement.getSQL();
+			SQLAnalysis analysis = this.analyze(sql, statement.isRewritten());
+			
+			if (analysis != null)
 			{
-				SequenceSupport support = cluster.getDialect().getSequenceSupport();
-				
-				if (support != null)
-				{
-					String sequence = support.parseSequence(sql);
-					
-					if (sequence != null)
-					{
-						identifierSet.add(sequence);
-					}
-				}
+				identifierSet.addAll(analysis.getLockIdentifiers());
 			}
-			
-			if (cluster.isIdentityColumnDetectionEnabled())
+			else
 			{
-				IdentityColumnSupport support = cluster.getDialect().getIdentityColumnSupport();
-				
-				if (support != null)
-				{
-					String table = support.parseInsertTable(sql);
-					
-					if (table != null)
-					{
-						TableProperties tableProperties = this.getDatabaseProperties().findTable(table);
-						
-						if (tableProperties == null)
-						{
-							throw new SQLException(Messages.SCHEMA_LOOKUP_FAILED.getMessage(table, cluster, cluster.getDialect().getClass().getName() + ".getDefaultSchemas()"));
-						}
-						
-						if (!tableProperties.getIdentityColumns().isEmpty())
-						{
-							identifierSet.add(tableProperties.getName().getDMLName());
-						}
-					}
-				}
+				this.extractLockIdentifiers(sql, dialect.scan(sql), identifierSet);
 			}
 		}
 		
@@ -151,6 +198,52 @@ public abstract class AbstractSQLProxyFactory<Z, D extends Database<Z>, P, T> ex
 		return lockList;
 	}
 
+	private void extractLockIdentifiers(String sql, Set<SQLFeature> features, Set<String> identifierSet) throws SQLException
+	{
+		DatabaseCluster<Z, D> cluster = this.getDatabaseCluster();
+		Dialect dialect = cluster.getDialect();
+		
+		if (cluster.isSequenceDetectionEnabled() && features.contains(SQLFeature.SEQUENCE))
+		{
+			SequenceSupport support = dialect.getSequenceSupport();
+			
+			if (support != null)
+			{
+				String sequence = support.parseSequence(sql);
+				
+				if (sequence != null)
+				{
+					identifierSet.add(sequence);
+				}
+			}
+		}
+		
+		if (cluster.isIdentityColumnDetectionEnabled() && features.contains(SQLFeature.INSERT))
+		{
+			IdentityColumnSupport support = dialect.getIdentityColumnSupport();
+			
+			if (support != null)
+			{
+				String table = support.parseInsertTable(sql);
+				
+				if (table != null)
+				{
+					TableProperties tableProperties = this.getDatabaseProperties().findTable(table);
+					
+					if (tableProperties == null)
+					{
+						throw new SQLException(Messages.SCHEMA_LOOKUP_FAILED.getMessage(table, cluster, dialect.getClass().getName() + ".getDefaultSchemas()"));
+					}
+					
+					if (!tableProperties.getIdentityColumns().isEmpty())
+					{
+						identifierSet.add(tableProperties.getName().getDMLName());
+					}
+				}
+			}
+		}
+	}
+	
 	private DatabaseProperties getDatabaseProperties() throws SQLException
 	{
 		DatabaseCluster<Z, D> cluster = this.getDatabaseCluster();
@@ -161,7 +254,107 @@ public abstract class AbstractSQLProxyFactory<Z, D extends Database<Z>, P, T> ex
 	@Override
 	public boolean isSelectForUpdate(String sql) throws SQLException
 	{
-		return this.getDatabaseProperties().supportsSelectForUpdate() ? this.getDatabaseCluster().getDialect().isSelectForUpdate(sql) : false;
+		return this.isSelectForUpdate(new EvaluatedSQL(sql, false));
+	}
+	
+	@Override
+	public boolean isSelectForUpdate(EvaluatedSQL statement) throws SQLException
+	{
+		String sql = statement.getSQL();
+		SQLAnalysis analysis = this.analyze(sql, statement.isRewritten());
+		
+		return (analysis != null) ? analysis.isSelectForUpdate() : this.isSelectForUpdate(sql, this.getDatabaseCluster().getDialect().scan(sql));
+	}
+	
+	private boolean isSelectForUpdate(String sql, Set<SQLFeature> features) throws SQLException
+	{
+		return features.contains(SQLFeature.SELECT_FOR_UPDATE) && this.getDatabaseProperties().supportsSelectForUpdate() && this.getDatabaseCluster().getDialect().isSelectForUpdate(sql);
+	}
+	
+	private List<SQLFunctionCall> locateFunctionCalls(String sql, Set<SQLFeature> features)
+	{
+		DatabaseCluster<Z, D> cluster = this.getDatabaseCluster();
+		Set<SQLFeature> functions = EnumSet.noneOf(SQLFeature.class);
+		
+		if (cluster.isCurrentTimestampEvaluationEnabled() && features.contains(SQLFeature.CURRENT_TIMESTAMP))
+		{
+			functions.add(SQLFeature.CURRENT_TIMESTAMP);
+		}
+		if (cluster.isCurrentDateEvaluationEnabled() && features.contains(SQLFeature.CURRENT_DATE))
+		{
+			functions.add(SQLFeature.CURRENT_DATE);
+		}
+		if (cluster.isCurrentTimeEvaluationEnabled() && features.contains(SQLFeature.CURRENT_TIME))
+		{
+			functions.add(SQLFeature.CURRENT_TIME);
+		}
+		if (cluster.isRandEvaluationEnabled() && features.contains(SQLFeature.RAND))
+		{
+			functions.add(SQLFeature.RAND);
+		}
+		
+		return functions.isEmpty() ? Collections.<SQLFunctionCall>emptyList() : cluster.getDialect().locateFunctionCalls(sql, functions);
+	}
+	
+	@Override
+	public ParameterizedSQL parameterize(String sql) throws SQLException
+	{
+		SQLAnalysis analysis = this.analyze(sql, false);
+		List<SQLFunctionCall> calls = (analysis != null) ? analysis.getFunctionCalls() : this.locateFunctionCalls(sql, this.getDatabaseCluster().getDialect().scan(sql));
+		
+		if (calls.isEmpty()) return null;
+		
+		List<Integer> markers = SQLLexer.locateParameterMarkers(sql);
+		
+		if (markers == null) return null;
+		
+		List<SQLFunctionCall> parameterizableCalls = new ArrayList<>(calls.size());
+		
+		for (SQLFunctionCall call: calls)
+		{
+			// Patterns may match within string literals, which must be left intact
+			if (!SQLLexer.isQuoted(sql, call.getStart()))
+			{
+				parameterizableCalls.add(call);
+			}
+		}
+		
+		return !parameterizableCalls.isEmpty() ? new ParameterizedSQL(sql, parameterizableCalls, markers) : null;
+	}
+	
+	/**
+	 * Returns the analysis of the specified SQL statement, analyzing it if not already cached.
+	 * Statements containing pre-allocated sequence values bypass the cache, since their literals would otherwise flood it with single-use entries.
+	 * @param sql a SQL statement
+	 * @param rewritten indicates whether the statement contains pre-allocated sequence values
+	 * @return a SQL analysis, or null if analysis caching is disabled, or does not apply to the specified statement
+	 * @throws SQLException if the statement could not be analyzed
+	 */
+	private SQLAnalysis analyze(String sql, boolean rewritten) throws SQLException
+	{
+		DatabaseCluster<Z, D> cluster = this.getDatabaseCluster();
+		SQLAnalysisCache cache = cluster.getSQLAnalysisCache();
+		
+		if ((cache == null) || rewritten) return null;
+		
+		SQLAnalysis analysis = cache.get(sql);
+		
+		if (analysis == null)
+		{
+			Dialect dialect = cluster.getDialect();
+			Set<SQLFeature> features = dialect.scan(sql);
+			Set<String> identifierSet = new TreeSet<>();
+			
+			this.extractLockIdentifiers(sql, features, identifierSet);
+			
+			List<SQLFunctionCall> calls = this.locateFunctionCalls(sql, features);
+			
+			analysis = new SQLAnalysis(features, new ArrayList<>(identifierSet), this.isSelectForUpdate(sql, features), calls);
+			
+			cache.put(sql, analysis);
+		}
+		
+		return analysis;
 	}
 
 	@Override
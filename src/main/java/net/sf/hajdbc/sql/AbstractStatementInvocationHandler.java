@@ -32,6 +32,7 @@ import net.sf.hajdbc.invocation.InvocationStrategies;
 import net.sf.hajdbc.invocation.InvocationStrategy;
 import net.sf.hajdbc.invocation.Invoker;
 import net.sf.hajdbc.invocation.LockingInvocationStrategy;
+import net.sf.hajdbc.invocation.StreamingInvocationStrategy;
 import net.sf.hajdbc.logging.Level;
 import net.sf.hajdbc.util.reflect.Methods;
 
@@ -61,6 +62,24 @@ public abstract class AbstractStatementInvocationHandler<Z, D extends Database<Z
 		super(statementClass, proxyFactory, getConnectionMethod);
 	}
 
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+	{
+		if (this.getProxyFactory().isParameterBufferingEnabled() && this.isBatchMethod(method) && this.getProxyFactory().getDatabaseCluster().isActive())
+		{
+			// Buffer, rather than invoke, until the statement is executed
+			this.getProxyFactory().getTransactionContext().await();
+			@SuppressWarnings("unchecked")
+			S statement = (S) proxy;
+			Object[] parameters = (args != null) ? args : new Object[0];
+			Invoker<Z, D, S, Object, SQLException> invoker = this.getInvoker(statement, method, parameters);
+			this.postInvoke(invoker, statement, method, parameters);
+			return null;
+		}
+		
+		return super.invoke(proxy, method, args);
+	}
+
 	@Override
 	protected ProxyFactoryFactory<Z, D, S, SQLException, ?, ? extends Exception> getProxyFactoryFactory(S object, Method method, Object... parameters) throws SQLException
 	{
@@ -87,24 +106,37 @@ public abstract class AbstractStatementInvocationHandler<Z, D extends Database<Z
 		
 		if (executeMethodSet.contains(method))
 		{
-			List<Lock> locks = this.getProxyFactory().extractLocks((String) parameters[0]);
+			// Replace sequence expressions prior to extracting locks, since pre-allocated sequence values do not require locking
+			EvaluatedSQL sql = this.getProxyFactory().evaluateNextSequenceValues((String) parameters[0]);
+			
+			this.getProxyFactory().invalidateConnectionState(sql.getSQL());
+			
+			List<Lock> locks = this.getProxyFactory().extractLocks(sql);
+			parameters[0] = this.getProxyFactory().evaluate(sql);
+			
+			TransactionContext<Z, D> context = this.getProxyFactory().getTransactionContext();
+			InvocationStrategy strategy = new LockingInvocationStrategy(InvocationStrategies.TRANSACTION_INVOKE_ON_ALL, locks);
 			
-			return this.getProxyFactory().getTransactionContext().start(new LockingInvocationStrategy(InvocationStrategies.TRANSACTION_INVOKE_ON_ALL, locks), this.getProxyFactory().getParentProxy());
+			// Locks must be held until all databases have completed the write, thus only lock-free writes may complete asynchronously
+			return locks.isEmpty() ? context.write(strategy, this.getProxyFactory().getParentProxy()) : context.start(strategy, this.getProxyFactory().getParentProxy());
 		}
 		
 		if (method.equals(executeQueryMethod))
 		{
-			String sql = (String) parameters[0];
+			EvaluatedSQL sql = this.getProxyFactory().evaluateNextSequenceValues((String) parameters[0]);
+			
+			this.getProxyFactory().invalidateConnectionState(sql.getSQL());
 			
 			List<Lock> locks = this.getProxyFactory().extractLocks(sql);
-			int concurrency = statement.getResultSetConcurrency();
+			int concurrency = this.getProxyFactory().getResultSetConcurrency(statement);
 			boolean selectForUpdate = this.getProxyFactory().isSelectForUpdate(sql);
+			parameters[0] = this.getProxyFactory().evaluate(sql);
 			
 			if (locks.isEmpty() && (concurrency == ResultSet.CONCUR_READ_ONLY) && !selectForUpdate)
 			{
-				boolean repeatableReadSelect = (statement.getConnection().getTransactionIsolation() >= Connection.TRANSACTION_REPEATABLE_READ);
+				boolean repeatableReadSelect = (this.getProxyFactory().getTransactionIsolation() >= Connection.TRANSACTION_REPEATABLE_READ);
 				
-				return repeatableReadSelect ? InvocationStrategies.INVOKE_ON_PRIMARY : InvocationStrategies.INVOKE_ON_NEXT;
+				return this.stream(repeatableReadSelect ? InvocationStrategies.INVOKE_ON_PRIMARY : this.getProxyFactory().getTransactionContext().read(InvocationStrategies.INVOKE_ON_NEXT));
 			}
 			
 			InvocationStrategy strategy = InvocationStrategies.TRANSACTION_INVOKE_ON_ALL;
@@ -118,6 +150,11 @@ public abstract class AbstractStatementInvocationHandler<Z, D extends Database<Z
 		
 		if (method.equals(executeBatchMethod))
 		{
+			for (EvaluatedSQL sql: this.getProxyFactory().getBatch())
+			{
+				this.getProxyFactory().invalidateConnectionState(sql.getSQL());
+			}
+			
 			return this.getProxyFactory().getTransactionContext().start(new LockingInvocationStrategy(InvocationStrategies.TRANSACTION_INVOKE_ON_ALL, this.getProxyFactory().getBatchLocks()), this.getProxyFactory().getParentProxy());
 		}
 		
@@ -131,7 +168,7 @@ public abstract class AbstractStatementInvocationHandler<Z, D extends Database<Z
 		
 		if (method.equals(getResultSetMethod))
 		{
-			if (statement.getResultSetConcurrency() == ResultSet.CONCUR_READ_ONLY)
+			if (this.getProxyFactory().getResultSetConcurrency(statement) == ResultSet.CONCUR_READ_ONLY)
 			{
 				return InvocationStrategies.INVOKE_ON_EXISTING;
 			}
@@ -142,15 +179,60 @@ public abstract class AbstractStatementInvocationHandler<Z, D extends Database<Z
 		return super.getInvocationStrategy(statement, method, parameters);
 	}
 
+	/**
+	 * Decorates the specified strategy of a read-only query against a single database, such that its results are streamed, if enabled.
+	 * @param strategy the invocation strategy of a read-only query
+	 * @return an invocation strategy
+	 */
+	protected InvocationStrategy stream(InvocationStrategy strategy)
+	{
+		int fetchSize = this.getProxyFactory().getDatabaseCluster().getStreamingFetchSize();
+		
+		return (fetchSize > 0) ? new StreamingInvocationStrategy(strategy, fetchSize) : strategy;
+	}
+
 	@Override
 	protected <R> Invoker<Z, D, S, R, SQLException> getInvoker(S proxy, Method method, Object... parameters) throws SQLException
 	{
-		if (method.equals(addBatchMethod) || method.equals(executeQueryMethod) || executeMethodSet.contains(method))
+		// The SQL of execute methods was already evaluated by getInvocationStrategy(...)
+		if (method.equals(addBatchMethod))
 		{
-			parameters[0] = this.getProxyFactory().evaluate((String) parameters[0]);
+			EvaluatedSQL sql = this.getProxyFactory().evaluateNextSequenceValues((String) parameters[0]);
+			parameters[0] = this.getProxyFactory().evaluate(sql);
+			
+			return new BatchInvoker<>(super.<R>getInvoker(proxy, method, parameters), sql);
 		}
 		
-		return super.getInvoker(proxy, method, parameters);
+		Invoker<Z, D, S, R, SQLException> invoker = super.getInvoker(proxy, method, parameters);
+		
+		if (this.getProxyFactory().isParameterBufferingEnabled() && (method.equals(executeQueryMethod) || method.equals(executeBatchMethod) || executeMethodSet.contains(method)))
+		{
+			return this.flush(invoker, method.equals(executeBatchMethod));
+		}
+		
+		return invoker;
+	}
+	
+	/**
+	 * Decorates the specified execution invoker, such that buffered parameters, and optionally batches, are applied to each statement prior to execution.
+	 * Since invokers execute concurrently, each database binds its buffered parameters on its own thread.
+	 * @param invoker an invoker of an execute method
+	 * @param batches indicates whether buffered batches should be applied
+	 * @return a decorated invoker
+	 */
+	protected <R> Invoker<Z, D, S, R, SQLException> flush(final Invoker<Z, D, S, R, SQLException> invoker, final boolean batches)
+	{
+		final ParameterReplayLog<Z, D, S> log = this.getProxyFactory().getParameterReplayLog();
+		
+		return new Invoker<Z, D, S, R, SQLException>()
+		{
+			@Override
+			public R invoke(D database, S statement) throws SQLException
+			{
+				log.flush(database, statement, batches);
+				return invoker.invoke(database, statement);
+			}
+		};
 	}
 
 	@Override
@@ -158,13 +240,13 @@ public abstract class AbstractStatementInvocationHandler<Z, D extends Database<Z
 	{
 		if (method.equals(addBatchMethod))
 		{
-			this.getProxyFactory().addBatchSQL((String) parameters[0]);
+			this.getProxyFactory().addBatchSQL(((BatchInvoker<Z, D, S, R>) invoker).getSQL());
 		}
 		else if (method.equals(clearBatchMethod) || method.equals(executeBatchMethod))
 		{
 			this.getProxyFactory().clearBatch();
 			this.logger.log(Level.TRACE, "Clearing recorded batch methods");
-			this.getProxyFactory().clearBatchInvokers();
+			this.getProxyFactory().getParameterReplayLog().clearBatches();
 		}
 		else if (method.equals(closeMethod))
 		{
@@ -182,7 +264,7 @@ public abstract class AbstractStatementInvocationHandler<Z, D extends Database<Z
 		if (this.isBatchMethod(method))
 		{
 			this.logger.log(Level.TRACE, "Recording batch method: {0}", invoker);
-			this.getProxyFactory().addBatchInvoker(invoker);
+			this.record(this.getProxyFactory().getParameterReplayLog(), invoker, method, parameters);
 		}
 		else if (driverWriteMethodSet.contains(method))
 		{
@@ -190,8 +272,46 @@ public abstract class AbstractStatementInvocationHandler<Z, D extends Database<Z
 		}
 	}
 
+	/**
+	 * Invoker of {@link Statement#addBatch(String)}, which retains the evaluated SQL to be added to the batch of its statement.
+	 */
+	private static class BatchInvoker<Z, D extends Database<Z>, S, R> implements Invoker<Z, D, S, R, SQLException>
+	{
+		private final Invoker<Z, D, S, R, SQLException> invoker;
+		private final EvaluatedSQL sql;
+		
+		BatchInvoker(Invoker<Z, D, S, R, SQLException> invoker, EvaluatedSQL sql)
+		{
+			this.invoker = invoker;
+			this.sql = sql;
+		}
+		
+		EvaluatedSQL getSQL()
+		{
+			return this.sql;
+		}
+		
+		@Override
+		public R invoke(D database, S statement) throws SQLException
+		{
+			return this.invoker.invoke(database, statement);
+		}
+	}
+	
 	protected boolean isBatchMethod(Method method)
 	{
 		return method.equals(addBatchMethod);
 	}
+
+	/**
+	 * Records the specified invocation of a batch method in the specified replay log.
+	 * @param log a replay log
+	 * @param invoker the invoker of a batch method
+	 * @param method a batch method
+	 * @param parameters the method invocation parameters
+	 */
+	protected <R> void record(ParameterReplayLog<Z, D, S> log, Invoker<Z, D, S, R, SQLException> invoker, Method method, Object... parameters)
+	{
+		log.addBatch(invoker);
+	}
 }
@@ -20,16 +20,17 @@ package net.sf.hajdbc.sql;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.locks.Lock;
+import java.util.regex.Pattern;
 
 import net.sf.hajdbc.Database;
+import net.sf.hajdbc.DatabaseCluster;
 import net.sf.hajdbc.invocation.Invoker;
 import net.sf.hajdbc.io.InputSinkRegistryImpl;
 import net.sf.hajdbc.io.InputSinkStrategy;
-import net.sf.hajdbc.logging.Level;
 
 /**
  * 
@@ -37,12 +38,23 @@ import net.sf.hajdbc.logging.Level;
  */
 public abstract class AbstractStatementProxyFactory<Z, D extends Database<Z>, S extends Statement> extends AbstractInputSinkRegistryProxyFactory<Z, D, Connection, S>
 {
-	private final List<Invoker<Z, D, S, ?, SQLException>> batchInvokers = new LinkedList<>();
-	private final List<String> batch = new LinkedList<>();
+	// e.g. SET TRANSACTION ISOLATION LEVEL ..., or MySQL's SET tx_isolation = ...
+	private static final Pattern ISOLATION_PATTERN = Pattern.compile("ISOLATION", Pattern.CASE_INSENSITIVE);
+	// e.g. MySQL's SET autocommit = ..., or Sybase's SET CHAINED ...
+	private static final Pattern AUTOCOMMIT_PATTERN = Pattern.compile("AUTOCOMMIT|CHAINED", Pattern.CASE_INSENSITIVE);
+	
+	private final ParameterReplayLog<Z, D, S> replayLog;
+	private final boolean parameterBuffering;
+	private final List<EvaluatedSQL> batch = new ArrayList<>();
+	private volatile Integer resultSetConcurrency = null;
 	
 	protected AbstractStatementProxyFactory(Connection parent, ProxyFactory<Z, D, Connection, SQLException> parentFactory, Invoker<Z, D, Connection, S, SQLException> invoker, Map<D, S> map, TransactionContext<Z, D> context)
 	{
 		super(parent, parentFactory, invoker, map, context, new InputSinkRegistryImpl<>((InputSinkStrategy<Object>) parentFactory.getDatabaseCluster().getInputSinkStrategy()));
+		DatabaseCluster<Z, D> cluster = parentFactory.getDatabaseCluster();
+		this.parameterBuffering = cluster.isParameterBufferingEnabled();
+		// Buffered parameters must be recorded, regardless of whether replay is enabled
+		this.replayLog = new ParameterReplayLog<>(this.getExceptionFactory(), cluster.isParameterReplayEnabled() || this.parameterBuffering);
 	}
 
 	@Override
@@ -51,17 +63,112 @@ public abstract class AbstractStatementProxyFactory<Z, D extends Database<Z>, S
 		return this.get(database).getConnection();
 	}
 
+	/**
+	 * Returns the transaction isolation level of the parent connection, as cached by its proxy factory.
+	 * @return a transaction isolation level
+	 * @throws SQLException if the transaction isolation level could not be read
+	 */
+	public int getTransactionIsolation() throws SQLException
+	{
+		ProxyFactory<Z, D, Connection, SQLException> parent = this.getParent();
+		
+		return (parent instanceof ConnectionProxyFactory) ? ((ConnectionProxyFactory<Z, D, ?>) parent).getTransactionIsolation(this.getParentProxy()) : this.getParentProxy().getTransactionIsolation();
+	}
+	
+	/**
+	 * Returns the auto-commit mode of the parent connection, as cached by its proxy factory.
+	 * @return true, if the parent connection is in auto-commit mode, false otherwise
+	 * @throws SQLException if the auto-commit mode could not be read
+	 */
+	public boolean getAutoCommit() throws SQLException
+	{
+		ProxyFactory<Z, D, Connection, SQLException> parent = this.getParent();
+		
+		return (parent instanceof ConnectionProxyFactory) ? ((ConnectionProxyFactory<Z, D, ?>) parent).getAutoCommit(this.getParentProxy()) : this.getParentProxy().getAutoCommit();
+	}
+	
+	/**
+	 * Indicates whether the specified SQL statement may change the transaction isolation level or auto-commit mode of its connection.
+	 * Detection is conservative, i.e. a statement may be reported as a change unnecessarily, but a change is never missed.
+	 * @param sql a SQL statement
+	 * @return true, if the statement may change the state of its connection, false otherwise
+	 */
+	static boolean changesConnectionState(String sql)
+	{
+		return ISOLATION_PATTERN.matcher(sql).find() || AUTOCOMMIT_PATTERN.matcher(sql).find();
+	}
+	
+	/**
+	 * Discards the transaction isolation level and auto-commit mode cached by the proxy factory of the parent connection.
+	 */
+	public void invalidateConnectionState()
+	{
+		ProxyFactory<Z, D, Connection, SQLException> parent = this.getParent();
+		
+		if (parent instanceof ConnectionProxyFactory)
+		{
+			ConnectionProxyFactory<Z, D, ?> factory = (ConnectionProxyFactory<Z, D, ?>) parent;
+			
+			factory.setTransactionIsolation(null);
+			factory.setAutoCommit(null);
+		}
+	}
+	
+	/**
+	 * Discards the transaction isolation level and auto-commit mode cached by the proxy factory of the parent connection, if the specified SQL statement may change them.
+	 * Detection is conservative, i.e. a cached value may be discarded unnecessarily, but never retained after a change.
+	 * @param sql a SQL statement
+	 */
+	public void invalidateConnectionState(String sql)
+	{
+		ProxyFactory<Z, D, Connection, SQLException> parent = this.getParent();
+		
+		if (parent instanceof ConnectionProxyFactory)
+		{
+			ConnectionProxyFactory<Z, D, ?> factory = (ConnectionProxyFactory<Z, D, ?>) parent;
+			
+			if (ISOLATION_PATTERN.matcher(sql).find())
+			{
+				factory.setTransactionIsolation(null);
+			}
+			if (AUTOCOMMIT_PATTERN.matcher(sql).find())
+			{
+				factory.setAutoCommit(null);
+			}
+		}
+	}
+	
+	/**
+	 * Returns the result set concurrency of the specified statement proxy.
+	 * Since the concurrency of a statement is fixed at creation, it is read only once.
+	 * @param statement the statement proxy created by this factory
+	 * @return a result set concurrency
+	 * @throws SQLException if the result set concurrency could not be read
+	 */
+	public int getResultSetConcurrency(S statement) throws SQLException
+	{
+		Integer concurrency = this.resultSetConcurrency;
+		
+		if (concurrency == null)
+		{
+			concurrency = statement.getResultSetConcurrency();
+			this.resultSetConcurrency = concurrency;
+		}
+		
+		return concurrency;
+	}
+	
 	public List<Lock> getBatchLocks() throws SQLException
 	{
 		return this.extractLocks(this.batch);
 	}
 	
-	public void addBatchSQL(String sql)
+	public void addBatchSQL(EvaluatedSQL sql)
 	{
 		this.batch.add(sql);
 	}
 
-	public List<String> getBatch()
+	public List<EvaluatedSQL> getBatch()
 	{
 		return this.batch;
 	}
@@ -71,14 +178,22 @@ public abstract class AbstractStatementProxyFactory<Z, D extends Database<Z>, S
 		this.batch.clear();
 	}
 	
-	public void addBatchInvoker(Invoker<Z, D, S, ?, SQLException> invoker)
+	/**
+	 * Returns the log of parameter and batch invocations to replay against newly activated databases.
+	 * @return a replay log
+	 */
+	public ParameterReplayLog<Z, D, S> getParameterReplayLog()
 	{
-		this.batchInvokers.add(invoker);
+		return this.replayLog;
 	}
 	
-	public void clearBatchInvokers()
+	/**
+	 * Indicates whether the batch methods of this statement are buffered in the replay log, rather than invoked, until the statement is executed.
+	 * @return true, if parameter buffering is enabled, false otherwise
+	 */
+	public boolean isParameterBufferingEnabled()
 	{
-		this.batchInvokers.clear();
+		return this.parameterBuffering;
 	}
 	
 	@Override
@@ -86,18 +201,10 @@ public abstract class AbstractStatementProxyFactory<Z, D extends Database<Z>, S
 	{
 		super.replay(database, object);
 		
-		for (Invoker<Z, D, S, ?, SQLException> invoker: this.batchInvokers)
+		// Buffered parameters and batches are applied to all databases upon execution
+		if (!this.parameterBuffering)
 		{
-			this.logger.log(Level.TRACE, "Replaying {1}.{2} against database {0}", database, object.getClass().getName(), invoker);
-
-			try
-			{
-				invoker.invoke(database, object);
-			}
-			catch (Throwable e)
-			{
-				this.getExceptionFactory().createException(e);
-			}
+			this.replayLog.replay(database, object);
 		}
 	}
 
@@ -21,11 +21,13 @@ import java.lang.reflect.Method;
 import java.sql.CallableStatement;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.Set;
 
 import net.sf.hajdbc.Database;
 import net.sf.hajdbc.invocation.InvocationStrategies;
 import net.sf.hajdbc.invocation.InvocationStrategy;
+import net.sf.hajdbc.invocation.Invoker;
 import net.sf.hajdbc.util.reflect.Methods;
 
 /**
@@ -75,6 +77,23 @@ public class CallableStatementInvocationHandler<Z, D extends Database<Z>> extend
 		return registerOutParameterMethods.contains(method) || super.isBatchMethod(method);
 	}
 
+	/**
+	 * @see net.sf.hajdbc.sql.AbstractPreparedStatementInvocationHandler#record(net.sf.hajdbc.sql.ParameterReplayLog, net.sf.hajdbc.invocation.Invoker, java.lang.reflect.Method, java.lang.Object[])
+	 */
+	@Override
+	protected <R> void record(ParameterReplayLog<Z, D, CallableStatement> log, Invoker<Z, D, CallableStatement, R, SQLException> invoker, Method method, Object... parameters)
+	{
+		if (registerOutParameterMethods.contains(method))
+		{
+			// Distinguish the registration of a parameter from its value
+			log.registerParameter(Arrays.asList(method.getName(), parameters[0]), invoker);
+		}
+		else
+		{
+			super.record(log, invoker, method, parameters);
+		}
+	}
+
 	/**
 	 * @see net.sf.hajdbc.sql.AbstractPreparedStatementInvocationHandler#isIndexType(java.lang.Class)
 	 */
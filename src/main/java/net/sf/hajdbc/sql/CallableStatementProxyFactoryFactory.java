@@ -35,16 +35,18 @@ public class CallableStatementProxyFactoryFactory<Z, D extends Database<Z>> impl
 {
 	private final TransactionContext<Z, D> context;
 	private final List<Lock> locks;
+	private final boolean connectionStateChange;
 	
-	public CallableStatementProxyFactoryFactory(TransactionContext<Z, D> context, List<Lock> locks)
+	public CallableStatementProxyFactoryFactory(TransactionContext<Z, D> context, List<Lock> locks, boolean connectionStateChange)
 	{
 		this.context = context;
 		this.locks = locks;
+		this.connectionStateChange = connectionStateChange;
 	}
 
 	@Override
 	public ProxyFactory<Z, D, CallableStatement, SQLException> createProxyFactory(Connection connection, ProxyFactory<Z, D, Connection, SQLException> parent, Invoker<Z, D, Connection, CallableStatement, SQLException> invoker, Map<D, CallableStatement> statements)
 	{
-		return new CallableStatementProxyFactory<>(connection, parent, invoker, statements, this.context, this.locks);
+		return new CallableStatementProxyFactory<>(connection, parent, invoker, statements, this.context, this.locks, this.connectionStateChange);
 	}
 }
@@ -22,6 +22,7 @@ import java.lang.reflect.Proxy;
 import java.sql.Clob;
 import java.sql.Connection;
 import java.sql.NClob;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Savepoint;
 import java.util.Arrays;
@@ -51,6 +52,7 @@ public class ConnectionInvocationHandler<Z, D extends Database<Z>, P> extends Ch
 	private static final Set<Method> prepareCallMethodSet = Methods.findMethods(Connection.class, "prepareCall");
 	private static final Set<Method> setSavepointMethodSet = Methods.findMethods(Connection.class, "setSavepoint");
 
+	private static final Method setTransactionIsolationMethod = Methods.getMethod(Connection.class, "setTransactionIsolation", Integer.TYPE);
 	private static final Method setAutoCommitMethod = Methods.getMethod(Connection.class, "setAutoCommit", Boolean.TYPE);
 	private static final Method commitMethod = Methods.getMethod(Connection.class, "commit");
 	private static final Method rollbackMethod = Methods.getMethod(Connection.class, "rollback");
@@ -78,6 +80,39 @@ public class ConnectionInvocationHandler<Z, D extends Database<Z>, P> extends Ch
 		super(Connection.class, proxyFactory, null);
 	}
 	
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+	{
+		PreparedStatementCache<Z, D> cache = this.getProxyFactory().getPreparedStatementCache();
+		
+		if ((cache != null) && prepareStatementMethodSet.contains(method) && this.getProxyFactory().getDatabaseCluster().isActive())
+		{
+			PreparedStatementCache.Key key = new PreparedStatementCache.Key(method, args);
+			PreparedStatementProxyFactory<Z, D> factory = cache.take(key);
+			
+			if (factory != null)
+			{
+				return factory.createProxy();
+			}
+			
+			String sql = (String) args[0];
+			PreparedStatement statement = (PreparedStatement) super.invoke(proxy, method, args);
+			
+			// Statements whose SQL was altered by evaluation of non-deterministic functions are specific to this invocation
+			if (sql.equals(args[0]))
+			{
+				// Prepared statement proxies of this connection are always created with a handler of the same cluster, i.e. the same Z and D
+				@SuppressWarnings("unchecked")
+				PreparedStatementInvocationHandler<Z, D> handler = (PreparedStatementInvocationHandler<Z, D>) Proxy.getInvocationHandler(statement);
+				handler.getProxyFactory().setCache(cache, key);
+			}
+			
+			return statement;
+		}
+		
+		return super.invoke(proxy, method, args);
+	}
+	
 	@Override
 	protected ProxyFactoryFactory<Z, D, Connection, SQLException, ?, ? extends Exception> getProxyFactoryFactory(Connection connection, Method method, Object... parameters) throws SQLException
 	{
@@ -88,12 +123,12 @@ public class ConnectionInvocationHandler<Z, D extends Database<Z>, P> extends Ch
 		if (prepareStatementMethodSet.contains(method))
 		{
 			String sql = (String) parameters[0];
-			return new PreparedStatementProxyFactoryFactory<>(this.getProxyFactory().getTransactionContext(), this.getProxyFactory().extractLocks(sql), this.getProxyFactory().isSelectForUpdate(sql));
+			return new PreparedStatementProxyFactoryFactory<>(this.getProxyFactory().getTransactionContext(), this.getProxyFactory().extractLocks(sql), this.getProxyFactory().isSelectForUpdate(sql), AbstractStatementProxyFactory.changesConnectionState(sql));
 		}
 		if (prepareCallMethodSet.contains(method))
 		{
 			String sql = (String) parameters[0];
-			return new CallableStatementProxyFactoryFactory<>(this.getProxyFactory().getTransactionContext(), this.getProxyFactory().extractLocks(sql));
+			return new CallableStatementProxyFactoryFactory<>(this.getProxyFactory().getTransactionContext(), this.getProxyFactory().extractLocks(sql), AbstractStatementProxyFactory.changesConnectionState(sql));
 		}
 		
 		if (setSavepointMethodSet.contains(method))
@@ -185,6 +220,32 @@ public class ConnectionInvocationHandler<Z, D extends Database<Z>, P> extends Ch
 			return this.getInvoker(Savepoint.class, 0, connection, method, parameters);
 		}
 		
+		if (method.equals(setTransactionIsolationMethod))
+		{
+			// The isolation level is unknown if the invocation fails on some databases
+			this.getProxyFactory().setTransactionIsolation(null);
+		}
+		else if (method.equals(setAutoCommitMethod))
+		{
+			// Likewise, for the auto-commit mode
+			this.getProxyFactory().setAutoCommit(null);
+		}
+		
+		if (prepareStatementMethodSet.contains(method))
+		{
+			ParameterizedSQL parameterizedSQL = this.getProxyFactory().getDatabaseCluster().isParameterizedEvaluationEnabled() ? this.getProxyFactory().parameterize((String) parameters[0]) : null;
+			
+			if (parameterizedSQL != null)
+			{
+				// Retain the original SQL, from which getProxyFactoryFactory(...) will extract locks
+				Object[] arguments = parameters.clone();
+				arguments[0] = parameterizedSQL.getSQL();
+				Invoker<Z, D, Connection, R, SQLException> invoker = super.getInvoker(connection, method, arguments);
+				// The resulting proxy factory obtains the parameterized SQL from its invoker
+				return new ParameterizedSQLInvoker<>(invoker, parameterizedSQL);
+			}
+		}
+		
 		if (prepareStatementMethodSet.contains(method) || prepareCallMethodSet.contains(method))
 		{
 			parameters[0] = this.getProxyFactory().evaluate((String) parameters[0]);
@@ -206,11 +267,27 @@ public class ConnectionInvocationHandler<Z, D extends Database<Z>, P> extends Ch
 		if (driverWriterMethodSet.contains(method) || method.equals(setAutoCommitMethod))
 		{
 			this.getProxyFactory().record(invoker);
+			
+			if (method.equals(setAutoCommitMethod))
+			{
+				this.getProxyFactory().setAutoCommit((Boolean) parameters[0]);
+			}
+		}
+		else if (method.equals(setTransactionIsolationMethod))
+		{
+			this.getProxyFactory().setTransactionIsolation((Integer) parameters[0]);
 		}
 		else if (method.equals(closeMethod))
 		{
 			this.getProxyFactory().getTransactionContext().close();
 			this.getProxyFactory().remove();
+			
+			PreparedStatementCache<Z, D> cache = this.getProxyFactory().getPreparedStatementCache();
+			if (cache != null)
+			{
+				// Cached statements were closed along with the connection
+				cache.clear();
+			}
 		}
 		else if (method.equals(releaseSavepointMethod))
 		{
@@ -22,6 +22,7 @@ import java.sql.SQLException;
 import java.util.Map;
 
 import net.sf.hajdbc.Database;
+import net.sf.hajdbc.cache.PreparedStatementCacheStatistics;
 import net.sf.hajdbc.invocation.Invoker;
 import net.sf.hajdbc.util.reflect.Proxies;
 
@@ -31,9 +32,83 @@ import net.sf.hajdbc.util.reflect.Proxies;
  */
 public class ConnectionProxyFactory<Z, D extends Database<Z>, P> extends AbstractSQLProxyFactory<Z, D, P, Connection>
 {
+	private final PreparedStatementCache<Z, D> preparedStatementCache;
+	private volatile Integer transactionIsolation = null;
+	private volatile Boolean autoCommit = null;
+	
 	public ConnectionProxyFactory(P parentProxy, ProxyFactory<Z, D, P, SQLException> parent, Invoker<Z, D, P, Connection, SQLException> invoker, Map<D, Connection> map, TransactionContext<Z, D> context)
 	{
 		super(parentProxy, parent, invoker, map, context);
+		
+		PreparedStatementCacheStatistics statistics = this.getDatabaseCluster().getPreparedStatementCacheStatistics();
+		this.preparedStatementCache = (statistics != null) ? new PreparedStatementCache<Z, D>(this.getDatabaseCluster().getPreparedStatementCacheSize(), statistics) : null;
+	}
+	
+	/**
+	 * Returns the cache of closed prepared statements of this connection.
+	 * @return a prepared statement cache, or null if prepared statement caching is disabled
+	 */
+	public PreparedStatementCache<Z, D> getPreparedStatementCache()
+	{
+		return this.preparedStatementCache;
+	}
+
+	/**
+	 * Returns the transaction isolation level of the specified connection proxy.
+	 * The level is read from the databases only once, and cached until changed via {@link Connection#setTransactionIsolation(int)}, or via SQL executed by a {@link java.sql.Statement} of this connection.
+	 * @param connection the connection proxy created by this factory
+	 * @return a transaction isolation level
+	 * @throws SQLException if the transaction isolation level could not be read
+	 */
+	public int getTransactionIsolation(Connection connection) throws SQLException
+	{
+		Integer isolation = this.transactionIsolation;
+		
+		if (isolation == null)
+		{
+			isolation = connection.getTransactionIsolation();
+			this.transactionIsolation = isolation;
+		}
+		
+		return isolation;
+	}
+	
+	/**
+	 * Updates the cached transaction isolation level of this connection.
+	 * @param isolation a transaction isolation level, or null, if the level is unknown
+	 */
+	void setTransactionIsolation(Integer isolation)
+	{
+		this.transactionIsolation = isolation;
+	}
+
+	/**
+	 * Returns the auto-commit mode of the specified connection proxy.
+	 * The mode is read from the databases only once, and cached until changed via {@link Connection#setAutoCommit(boolean)}, or via SQL executed by a {@link java.sql.Statement} of this connection.
+	 * @param connection the connection proxy created by this factory
+	 * @return true, if the connection is in auto-commit mode, false otherwise
+	 * @throws SQLException if the auto-commit mode could not be read
+	 */
+	public boolean getAutoCommit(Connection connection) throws SQLException
+	{
+		Boolean autoCommit = this.autoCommit;
+		
+		if (autoCommit == null)
+		{
+			autoCommit = connection.getAutoCommit();
+			this.autoCommit = autoCommit;
+		}
+		
+		return autoCommit;
+	}
+	
+	/**
+	 * Updates the cached auto-commit mode of this connection.
+	 * @param autoCommit an auto-commit mode, or null, if the mode is unknown
+	 */
+	void setAutoCommit(Boolean autoCommit)
+	{
+		this.autoCommit = autoCommit;
 	}
 
 	@Override
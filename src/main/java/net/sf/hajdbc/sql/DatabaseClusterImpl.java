@@ -37,18 +37,23 @@ import net.sf.hajdbc.DatabaseClusterConfiguration;
 import net.sf.hajdbc.DatabaseClusterConfigurationListener;
 import net.sf.hajdbc.DatabaseClusterListener;
 import net.sf.hajdbc.Messages;
+import net.sf.hajdbc.SequenceAllocator;
 import net.sf.hajdbc.SynchronizationListener;
 import net.sf.hajdbc.SynchronizationStrategy;
 import net.sf.hajdbc.TransactionMode;
 import net.sf.hajdbc.Version;
 import net.sf.hajdbc.balancer.Balancer;
 import net.sf.hajdbc.cache.DatabaseMetaDataCache;
+import net.sf.hajdbc.cache.PreparedStatementCacheStatistics;
+import net.sf.hajdbc.cache.SQLAnalysisCache;
 import net.sf.hajdbc.codec.Decoder;
 import net.sf.hajdbc.dialect.Dialect;
 import net.sf.hajdbc.distributed.CommandDispatcherFactory;
 import net.sf.hajdbc.durability.Durability;
 import net.sf.hajdbc.durability.InvocationEvent;
 import net.sf.hajdbc.durability.InvokerEvent;
+import net.sf.hajdbc.invocation.HedgedReadStatistics;
+import net.sf.hajdbc.invocation.ResultVerifier;
 import net.sf.hajdbc.io.InputSinkStrategy;
 import net.sf.hajdbc.lock.LockManager;
 import net.sf.hajdbc.lock.distributed.DistributedLockManager;
@@ -91,6 +96,11 @@ public class DatabaseClusterImpl<Z, D extends Database<Z>> implements DatabaseCl
 	private LockManager lockManager;
 	private StateManager stateManager;
 	private InputSinkStrategy<? extends Object> sinkSourceFactory;
+	private SequenceAllocator sequenceAllocator;
+	private SQLAnalysisCache sqlAnalysisCache;
+	private PreparedStatementCacheStatistics preparedStatementCacheStatistics;
+	private HedgedReadStatistics hedgedReadStatistics;
+	private ResultVerifier resultVerifier;
 	
 	private boolean active = false;
 	
@@ -341,6 +351,105 @@ public class DatabaseClusterImpl<Z, D extends Database<Z>> implements DatabaseCl
 		{
 			throw new IllegalStateException(e.toString(), e);
 		}
+		finally
+		{
+			// Analysis depends on meta data, e.g. identity columns
+			if (this.sqlAnalysisCache != null)
+			{
+				this.sqlAnalysisCache.clear();
+			}
+		}
+	}
+
+	@ManagedAttribute
+	@Description("Number of SQL statement analysis cache hits")
+	public long getSQLAnalysisCacheHits()
+	{
+		return (this.sqlAnalysisCache != null) ? this.sqlAnalysisCache.getHits() : 0;
+	}
+
+	@ManagedAttribute
+	@Description("Number of SQL statement analysis cache misses")
+	public long getSQLAnalysisCacheMisses()
+	{
+		return (this.sqlAnalysisCache != null) ? this.sqlAnalysisCache.getMisses() : 0;
+	}
+
+	@ManagedAttribute
+	@Description("Number of SQL statements evicted from the analysis cache")
+	public long getSQLAnalysisCacheEvictions()
+	{
+		return (this.sqlAnalysisCache != null) ? this.sqlAnalysisCache.getEvictions() : 0;
+	}
+
+	@ManagedAttribute
+	@Description("Number of SQL statements in the analysis cache")
+	public int getSQLAnalysisCacheSize()
+	{
+		return (this.sqlAnalysisCache != null) ? this.sqlAnalysisCache.size() : 0;
+	}
+
+	@ManagedAttribute
+	@Description("Number of prepared statements reused from connection statement caches")
+	public long getPreparedStatementCacheHits()
+	{
+		return (this.preparedStatementCacheStatistics != null) ? this.preparedStatementCacheStatistics.getHits() : 0;
+	}
+
+	@ManagedAttribute
+	@Description("Number of prepared statements not found in connection statement caches")
+	public long getPreparedStatementCacheMisses()
+	{
+		return (this.preparedStatementCacheStatistics != null) ? this.preparedStatementCacheStatistics.getMisses() : 0;
+	}
+
+	@ManagedAttribute
+	@Description("Number of prepared statements evicted from connection statement caches")
+	public long getPreparedStatementCacheEvictions()
+	{
+		return (this.preparedStatementCacheStatistics != null) ? this.preparedStatementCacheStatistics.getEvictions() : 0;
+	}
+
+	@ManagedAttribute
+	@Description("Number of prepared statements in connection statement caches")
+	public int getPreparedStatementCacheCount()
+	{
+		return (this.preparedStatementCacheStatistics != null) ? this.preparedStatementCacheStatistics.size() : 0;
+	}
+
+	@ManagedAttribute
+	@Description("Number of reads hedged against a second database")
+	public long getHedgedReads()
+	{
+		return (this.hedgedReadStatistics != null) ? this.hedgedReadStatistics.getHedges() : 0;
+	}
+
+	@ManagedAttribute
+	@Description("Number of hedged reads answered first by the second database")
+	public long getHedgedReadWins()
+	{
+		return (this.hedgedReadStatistics != null) ? this.hedgedReadStatistics.getWins() : 0;
+	}
+
+	@ManagedAttribute
+	@Description("Number of results of backup databases verified against the primary database")
+	public long getResultVerifications()
+	{
+		return (this.resultVerifier != null) ? this.resultVerifier.getComparisons() : 0;
+	}
+
+	@ManagedAttribute
+	@Description("Number of array results verified by sampling")
+	public long getSampledResultVerifications()
+	{
+		return (this.resultVerifier != null) ? this.resultVerifier.getSampledComparisons() : 0;
+	}
+
+	@ManagedAttribute
+	@Description("Number of results of backup databases that did not match the primary database")
+	public long getResultMismatches()
+	{
+		return (this.resultVerifier != null) ? this.resultVerifier.getMismatches() : 0;
 	}
 
 	/**
@@ -420,6 +529,9 @@ public class DatabaseClusterImpl<Z, D extends Database<Z>> implements DatabaseCl
 		
 		if (added)
 		{
+			// A newly activated database was synchronized, so it has caught up with all prior writes
+			this.balancer.getWriteSequenceTracker().reset(database);
+			
 			database.setActive(true);
 			
 			if (database.isDirty())
@@ -641,6 +753,106 @@ public class DatabaseClusterImpl<Z, D extends Database<Z>> implements DatabaseCl
 		return this.configuration.isRandEvaluationEnabled();
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.DatabaseCluster#isParameterizedEvaluationEnabled()
+	 */
+	@Override
+	public boolean isParameterizedEvaluationEnabled()
+	{
+		return this.configuration.isParameterizedEvaluationEnabled();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.DatabaseCluster#isParameterReplayEnabled()
+	 */
+	@Override
+	public boolean isParameterReplayEnabled()
+	{
+		return this.configuration.isParameterReplayEnabled();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.DatabaseCluster#isParameterBufferingEnabled()
+	 */
+	@Override
+	public boolean isParameterBufferingEnabled()
+	{
+		return this.configuration.isParameterBufferingEnabled();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.DatabaseCluster#isAsynchronousWriteEnabled()
+	 */
+	@Override
+	public boolean isAsynchronousWriteEnabled()
+	{
+		return this.configuration.isAsynchronousWriteEnabled();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.DatabaseCluster#isAsynchronousWriteQuorumEnabled()
+	 */
+	@Override
+	public boolean isAsynchronousWriteQuorumEnabled()
+	{
+		return this.configuration.isAsynchronousWriteQuorumEnabled();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.DatabaseCluster#getWriteQuorum()
+	 */
+	@Override
+	public int getWriteQuorum()
+	{
+		return this.configuration.getWriteQuorum();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.DatabaseCluster#getWriteQuorumTimeout()
+	 */
+	@Override
+	public long getWriteQuorumTimeout()
+	{
+		return this.configuration.getWriteQuorumTimeout();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.DatabaseCluster#getHedgedReadPercentile()
+	 */
+	@Override
+	public int getHedgedReadPercentile()
+	{
+		return this.configuration.getHedgedReadPercentile();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.DatabaseCluster#getResultVerificationSampleSize()
+	 */
+	@Override
+	public int getResultVerificationSampleSize()
+	{
+		return this.configuration.getResultVerificationSampleSize();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.DatabaseCluster#getStreamingFetchSize()
+	 */
+	@Override
+	public int getStreamingFetchSize()
+	{
+		return this.configuration.getStreamingFetchSize();
+	}
+
 	/**
 	 * {@inheritDoc}
 	 * @see net.sf.hajdbc.DatabaseCluster#isSequenceDetectionEnabled()
@@ -651,6 +863,68 @@ public class DatabaseClusterImpl<Z, D extends Database<Z>> implements DatabaseCl
 		return this.configuration.isSequenceDetectionEnabled();
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.DatabaseCluster#getSequenceAllocator()
+	 */
+	@Override
+	public SequenceAllocator getSequenceAllocator()
+	{
+		return this.sequenceAllocator;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.DatabaseCluster#getSQLAnalysisCache()
+	 */
+	@Override
+	public SQLAnalysisCache getSQLAnalysisCache()
+	{
+		return this.sqlAnalysisCache;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.DatabaseCluster#getPreparedStatementCacheSize()
+	 */
+	@ManagedAttribute
+	@Description("Maximum number of closed prepared statements retained for reuse, per connection")
+	@Override
+	public int getPreparedStatementCacheSize()
+	{
+		return this.configuration.getPreparedStatementCacheSize();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.DatabaseCluster#getPreparedStatementCacheStatistics()
+	 */
+	@Override
+	public PreparedStatementCacheStatistics getPreparedStatementCacheStatistics()
+	{
+		return this.preparedStatementCacheStatistics;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.DatabaseCluster#getHedgedReadStatistics()
+	 */
+	@Override
+	public HedgedReadStatistics getHedgedReadStatistics()
+	{
+		return this.hedgedReadStatistics;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.DatabaseCluster#getResultVerifier()
+	 */
+	@Override
+	public ResultVerifier getResultVerifier()
+	{
+		return this.resultVerifier;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 * @see net.sf.hajdbc.Lifecycle#start()
@@ -668,7 +942,7 @@ public class DatabaseClusterImpl<Z, D extends Database<Z>> implements DatabaseCl
 		
 		if (dispatcherFactory != null)
 		{
-			this.lockManager = new DistributedLockManager(this, dispatcherFactory);
+			this.lockManager = new DistributedLockManager(this, dispatcherFactory, this.configuration.getLockLeaseTime(), this.configuration.getThreadFactory());
 			this.stateManager = new DistributedStateManager<>(this, dispatcherFactory);
 		}
 		
@@ -678,6 +952,17 @@ public class DatabaseClusterImpl<Z, D extends Database<Z>> implements DatabaseCl
 		this.executor = this.configuration.getExecutorProvider().getExecutor(this.configuration.getThreadFactory());
 		this.sinkSourceFactory = this.configuration.getInputSinkProvider().createInputSinkStrategy();
 		
+		int sequenceAllocationSize = this.configuration.getSequenceAllocationSize();
+		this.sequenceAllocator = (sequenceAllocationSize > 0) ? new SequenceAllocatorImpl<>(this, sequenceAllocationSize) : null;
+		
+		int sqlAnalysisCacheSize = this.configuration.getSQLAnalysisCacheSize();
+		this.sqlAnalysisCache = (sqlAnalysisCacheSize > 0) ? new SQLAnalysisCache(sqlAnalysisCacheSize) : null;
+		
+		this.preparedStatementCacheStatistics = (this.configuration.getPreparedStatementCacheSize() > 0) ? new PreparedStatementCacheStatistics() : null;
+		int hedgedReadPercentile = this.configuration.getHedgedReadPercentile();
+		this.hedgedReadStatistics = (hedgedReadPercentile > 0) ? new HedgedReadStatistics(hedgedReadPercentile) : null;
+		this.resultVerifier = new ResultVerifier(this.configuration.getResultVerificationSampleSize());
+		
 		this.lockManager.start();
 		this.stateManager.start();
 		
@@ -0,0 +1,56 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.sql;
+
+/**
+ * A SQL statement whose next sequence value expressions were evaluated.
+ * A statement rewritten with pre-allocated sequence values is unique per execution, and thus not worth analyzing via the SQL analysis cache.
+ * @author Paul Ferraro
+ */
+public class EvaluatedSQL
+{
+	private final String sql;
+	private final boolean rewritten;
+	
+	/**
+	 * Creates a new evaluated SQL statement
+	 * @param sql a SQL statement
+	 * @param rewritten indicates whether the statement contains pre-allocated sequence values
+	 */
+	public EvaluatedSQL(String sql, boolean rewritten)
+	{
+		this.sql = sql;
+		this.rewritten = rewritten;
+	}
+	
+	public String getSQL()
+	{
+		return this.sql;
+	}
+	
+	public boolean isRewritten()
+	{
+		return this.rewritten;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return this.sql;
+	}
+}
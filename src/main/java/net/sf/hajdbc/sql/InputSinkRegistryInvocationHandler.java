@@ -18,7 +18,12 @@
 package net.sf.hajdbc.sql;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
 import java.lang.reflect.Method;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.NClob;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -28,6 +33,10 @@ import net.sf.hajdbc.Database;
 import net.sf.hajdbc.ExceptionFactory;
 import net.sf.hajdbc.invocation.Invoker;
 import net.sf.hajdbc.io.InputSinkChannel;
+import net.sf.hajdbc.io.InputSinkRegistry;
+import net.sf.hajdbc.io.simple.SimpleInputSinkStrategy;
+import net.sf.hajdbc.sql.serial.InputSinkBlob;
+import net.sf.hajdbc.sql.serial.InputSinkClob;
 import net.sf.hajdbc.util.reflect.Methods;
 
 /**
@@ -57,7 +66,7 @@ public class InputSinkRegistryInvocationHandler<Z, D extends Database<Z>, P, T,
 					final ExceptionFactory<SQLException> exceptionFactory = this.getProxyFactory().getExceptionFactory();
 					try
 					{
-						final Object sink = channel.write(parameter);
+						final Object sink = channel.write(parameter, getLength(method, parameterIndex, parameters));
 						
 						return new Invoker<Z, D, T, R, SQLException>()
 						{
@@ -89,4 +98,70 @@ public class InputSinkRegistryInvocationHandler<Z, D extends Database<Z>, P, T,
 		
 		return super.getInvoker(parameterClass, parameterIndex, proxy, method, parameters);
 	}
+	
+	/**
+	 * {@inheritDoc}
+	 * Spools LOB parameters once, in bulk, into an input sink, from which each database reads its own stream, rather than materializing them in the heap.
+	 * An in-memory input sink would materialize the LOB in the heap regardless, so LOB parameters retain their serial form when using the simple input sink strategy.
+	 */
+	@Override
+	protected <X> X createSerial(Class<X> parameterClass, X parameter) throws SQLException
+	{
+		if (this.getProxyFactory().getDatabaseCluster().getInputSinkStrategy() instanceof SimpleInputSinkStrategy)
+		{
+			return super.createSerial(parameterClass, parameter);
+		}
+		
+		InputSinkRegistry<Object> registry = this.getProxyFactory().getInputSinkRegistry();
+		
+		try
+		{
+			if (parameterClass.equals(Blob.class))
+			{
+				Blob blob = (Blob) parameter;
+				long length = blob.length();
+				InputSinkChannel<InputStream, Object> channel = registry.get(InputStream.class);
+				
+				try (InputStream input = blob.getBinaryStream())
+				{
+					return parameterClass.cast(new InputSinkBlob<>(channel, channel.write(input, length), length));
+				}
+			}
+			
+			if (parameterClass.equals(Clob.class) || parameterClass.equals(NClob.class))
+			{
+				Clob clob = (Clob) parameter;
+				long length = clob.length();
+				InputSinkChannel<Reader, Object> channel = registry.get(Reader.class);
+				
+				try (Reader reader = clob.getCharacterStream())
+				{
+					return parameterClass.cast(new InputSinkClob<>(channel, channel.write(reader, length), length));
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			throw new SQLException(e);
+		}
+		
+		return super.createSerial(parameterClass, parameter);
+	}
+	
+	/**
+	 * Returns the length of the input stream or reader parameter at the specified index, as specified by methods like {@link java.sql.PreparedStatement#setBinaryStream(int, java.io.InputStream, long)}.
+	 * @return the length of the input, or -1, if unspecified
+	 */
+	private static long getLength(Method method, int parameterIndex, Object... parameters)
+	{
+		Class<?>[] types = method.getParameterTypes();
+		int index = parameterIndex + 1;
+		
+		if ((index < types.length) && (types[index].equals(Integer.TYPE) || types[index].equals(Long.TYPE)))
+		{
+			return ((Number) parameters[index]).longValue();
+		}
+		
+		return -1;
+	}
 }
@@ -17,17 +17,30 @@
  */
 package net.sf.hajdbc.sql;
 
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.concurrent.locks.Lock;
 
 import net.sf.hajdbc.Database;
 import net.sf.hajdbc.DatabaseCluster;
 import net.sf.hajdbc.ExceptionType;
+import net.sf.hajdbc.balancer.WriteSequenceTracker;
 import net.sf.hajdbc.durability.Durability;
+import net.sf.hajdbc.invocation.AsynchronousInvocations;
+import net.sf.hajdbc.invocation.AsynchronousResultsCollector;
+import net.sf.hajdbc.invocation.HedgedInvocationStrategy;
+import net.sf.hajdbc.invocation.HedgedReadStatistics;
 import net.sf.hajdbc.invocation.InvocationStrategy;
+import net.sf.hajdbc.invocation.InvokeOnManyInvocationStrategy;
+import net.sf.hajdbc.invocation.InvokeOnOneInvocationStrategy;
+import net.sf.hajdbc.invocation.NextDatabaseSelector;
 import net.sf.hajdbc.invocation.Invoker;
+import net.sf.hajdbc.invocation.QuorumResultsCollector;
+import net.sf.hajdbc.invocation.TransactionalExecutorProvider;
+import net.sf.hajdbc.invocation.WriteSequenceDatabaseSelector;
 import net.sf.hajdbc.tx.TransactionIdentifierFactory;
 
 /**
@@ -40,7 +53,25 @@ public class LocalTransactionContext<Z, D extends Database<Z>> implements Transa
 	final Durability<Z, D> durability;
 	private final Lock lock;
 	private final TransactionIdentifierFactory<? extends Object> transactionIdFactory;
+	private final WriteSequenceTracker<D> tracker;
+	private final AsynchronousInvocations invocations = new AsynchronousInvocations();
+	private final InvocationStrategy asynchronousWriteStrategy;
+	private final InvocationStrategy quorumWriteStrategy;
+	private final Runnable unlockTask = new Runnable()
+	{
+		@Override
+		public void run()
+		{
+			LocalTransactionContext.this.lock.unlock();
+		}
+	};
+	private final HedgedReadStatistics hedgedReadStatistics;
+	private final InvocationStrategy hedgedReadStrategy;
 	volatile Object transactionId;
+	// Write sequence of the current transaction
+	volatile long writeSequence = 0;
+	// Write sequence of the last committed transaction
+	private volatile long committedWriteSequence = 0;
 	
 	/**
 	 * @param cluster
@@ -50,6 +81,11 @@ public class LocalTransactionContext<Z, D extends Database<Z>> implements Transa
 		this.lock = cluster.getLockManager().readLock(null);
 		this.durability = cluster.getDurability();
 		this.transactionIdFactory = cluster.getTransactionIdentifierFactory();
+		this.tracker = cluster.getBalancer().getWriteSequenceTracker();
+		this.asynchronousWriteStrategy = cluster.isAsynchronousWriteEnabled() ? new InvokeOnManyInvocationStrategy(new AsynchronousResultsCollector(new TransactionalExecutorProvider(false), this.invocations, cluster.isAsynchronousWriteQuorumEnabled())) : null;
+		this.quorumWriteStrategy = (cluster.getWriteQuorum() > 0) ? new InvokeOnManyInvocationStrategy(new QuorumResultsCollector(new TransactionalExecutorProvider(false), this.invocations)) : null;
+		this.hedgedReadStatistics = cluster.getHedgedReadStatistics();
+		this.hedgedReadStrategy = (this.hedgedReadStatistics != null) ? new HedgedInvocationStrategy(new NextDatabaseSelector(), this.hedgedReadStatistics, this.invocations) : null;
 	}
 	
 	/**
@@ -61,7 +97,7 @@ public class LocalTransactionContext<Z, D extends Database<Z>> implements Transa
 	{
 		if (this.transactionId != null) return strategy;
 		
-		if (connection.getAutoCommit())
+		if (autoCommit(connection))
 		{
 			return new InvocationStrategy()
 			{
@@ -69,16 +105,22 @@ public class LocalTransactionContext<Z, D extends Database<Z>> implements Transa
 				public <ZZ, DD extends Database<ZZ>, T, R, E extends Exception> SortedMap<DD, R> invoke(ProxyFactory<ZZ, DD, T, E> proxy, Invoker<ZZ, DD, T, R, E> invoker) throws E
 				{
 					LocalTransactionContext.this.lock();
+					LocalTransactionContext.this.begin();
 					
 					try
 					{
 						InvocationStrategy durabilityStrategy = LocalTransactionContext.this.durability.getInvocationStrategy(strategy, Durability.Phase.COMMIT, LocalTransactionContext.this.transactionId);
 						
-						return durabilityStrategy.invoke(proxy, invoker);
+						SortedMap<DD, R> results = durabilityStrategy.invoke(proxy, invoker);
+						
+						LocalTransactionContext.this.committed(proxy.getDatabaseCluster().getBalancer().getWriteSequenceTracker(), results.keySet());
+						
+						return results;
 					}
 					finally
 					{
 						LocalTransactionContext.this.unlock();
+						LocalTransactionContext.this.completed();
 					}
 				}
 			};
@@ -90,6 +132,8 @@ public class LocalTransactionContext<Z, D extends Database<Z>> implements Transa
 			public <ZZ, DD extends Database<ZZ>, T, R, E extends Exception> SortedMap<DD, R> invoke(ProxyFactory<ZZ, DD, T, E> proxy, Invoker<ZZ, DD, T, R, E> invoker) throws E
 			{
 				LocalTransactionContext.this.lock();
+				// The write sequence of the transaction is retained until the transaction ends
+				LocalTransactionContext.this.begin();
 				
 				try
 				{
@@ -101,7 +145,8 @@ public class LocalTransactionContext<Z, D extends Database<Z>> implements Transa
 				} 
 				finally 
 				{
-					LocalTransactionContext.this.unlock();
+					// Asynchronous writes must complete on every database before the lock is released
+					LocalTransactionContext.this.release();
 				}
 			}
 		};
@@ -114,7 +159,7 @@ public class LocalTransactionContext<Z, D extends Database<Z>> implements Transa
 	@Override
 	public <T, R> Invoker<Z, D, T, R, SQLException> start(final Invoker<Z, D, T, R, SQLException> invoker, Connection connection) throws SQLException
 	{
-		if ((this.transactionId == null) || !connection.getAutoCommit()) return invoker;
+		if ((this.transactionId == null) || !autoCommit(connection)) return invoker;
 
 		return new Invoker<Z, D, T, R, SQLException>()
 		{
@@ -126,6 +171,41 @@ public class LocalTransactionContext<Z, D extends Database<Z>> implements Transa
 		};
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.sql.TransactionContext#write(net.sf.hajdbc.invocation.InvocationStrategy, java.sql.Connection)
+	 */
+	@Override
+	public InvocationStrategy write(InvocationStrategy strategy, Connection connection) throws SQLException
+	{
+		InvocationStrategy writeStrategy = (this.asynchronousWriteStrategy != null) ? this.asynchronousWriteStrategy : this.quorumWriteStrategy;
+		
+		// Auto-committed writes are durable upon return, thus must complete synchronously
+		if ((writeStrategy == null) || autoCommit(connection)) return this.start(strategy, connection);
+		
+		return this.start(writeStrategy, connection);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.sql.TransactionContext#await()
+	 */
+	@Override
+	public void await() throws SQLException
+	{
+		if (this.invocations.isEmpty()) return;
+		
+		try
+		{
+			this.invocations.await();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new SQLException(e);
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 * @see net.sf.hajdbc.sql.TransactionContext#end(net.sf.hajdbc.invocation.InvocationStrategy, net.sf.hajdbc.durability.Durability.Phase)
@@ -133,22 +213,34 @@ public class LocalTransactionContext<Z, D extends Database<Z>> implements Transa
 	@Override
 	public InvocationStrategy end(final InvocationStrategy strategy, final Durability.Phase phase)
 	{
-		if (this.transactionId == null) return strategy;
+		if ((this.transactionId == null) && (this.writeSequence == 0)) return strategy;
 
 		return new InvocationStrategy()
 		{
 			@Override
 			public <ZZ, DD extends Database<ZZ>, T, R, E extends Exception> SortedMap<DD, R> invoke(ProxyFactory<ZZ, DD, T, E> proxy, Invoker<ZZ, DD, T, R, E> invoker) throws E
 			{
-				InvocationStrategy durabilityStrategy = LocalTransactionContext.this.durability.getInvocationStrategy(strategy, phase, LocalTransactionContext.this.transactionId);
+				Object transactionId = LocalTransactionContext.this.transactionId;
+				InvocationStrategy durabilityStrategy = (transactionId != null) ? LocalTransactionContext.this.durability.getInvocationStrategy(strategy, phase, transactionId) : strategy;
 				
 				try
 				{
-					return durabilityStrategy.invoke(proxy, invoker);
+					SortedMap<DD, R> results = durabilityStrategy.invoke(proxy, invoker);
+					
+					if (phase == Durability.Phase.COMMIT)
+					{
+						LocalTransactionContext.this.committed(proxy.getDatabaseCluster().getBalancer().getWriteSequenceTracker(), results.keySet());
+					}
+					
+					return results;
 				}
 				finally
 				{
-					LocalTransactionContext.this.unlock();
+					if (transactionId != null)
+					{
+						LocalTransactionContext.this.unlock();
+					}
+					LocalTransactionContext.this.completed();
 				}
 			}
 		};
@@ -166,6 +258,23 @@ public class LocalTransactionContext<Z, D extends Database<Z>> implements Transa
 		return this.durability.getInvoker(invoker, phase, this.transactionId, ExceptionType.SQL.<SQLException>getExceptionFactory());
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.sql.TransactionContext#read(net.sf.hajdbc.invocation.InvocationStrategy)
+	 */
+	@Override
+	public InvocationStrategy read(InvocationStrategy strategy)
+	{
+		long sequence = this.committedWriteSequence;
+		
+		if (this.hedgedReadStatistics != null)
+		{
+			return (sequence > 0) ? new HedgedInvocationStrategy(new WriteSequenceDatabaseSelector(sequence), this.hedgedReadStatistics, this.invocations) : this.hedgedReadStrategy;
+		}
+		
+		return (sequence > 0) ? new InvokeOnOneInvocationStrategy(new WriteSequenceDatabaseSelector(sequence)) : strategy;
+	}
+
 	/**
 	 * @see net.sf.hajdbc.sql.TransactionContext#close()
 	 */
@@ -177,6 +286,7 @@ public class LocalTransactionContext<Z, D extends Database<Z>> implements Transa
 		{
 			this.unlock();
 		}
+		this.completed();
 	}
 
 	void lock()
@@ -190,4 +300,65 @@ public class LocalTransactionContext<Z, D extends Database<Z>> implements Transa
 		this.lock.unlock();
 		this.transactionId = null;
 	}
+	
+	/**
+	 * Like {@link #unlock()}, but defers the release of the lock until any outstanding asynchronous writes have completed.
+	 */
+	void release()
+	{
+		this.transactionId = null;
+		this.invocations.whenWritten(this.unlockTask);
+	}
+	
+	/**
+	 * Allocates the write sequence of the current transaction, unless already allocated by a previous write.
+	 */
+	void begin()
+	{
+		if (this.writeSequence == 0)
+		{
+			this.writeSequence = this.tracker.next();
+		}
+	}
+	
+	/**
+	 * Completes the write sequence of the current transaction, if any.
+	 */
+	void completed()
+	{
+		long sequence = this.writeSequence;
+		
+		if (sequence != 0)
+		{
+			this.writeSequence = 0;
+			this.tracker.completed(sequence);
+		}
+	}
+	
+	/**
+	 * Returns the auto-commit mode of the specified connection, as cached by its proxy factory, if possible, to avoid a proxied invocation.
+	 */
+	private static boolean autoCommit(Connection connection) throws SQLException
+	{
+		if (Proxy.isProxyClass(connection.getClass()) && (Proxy.getInvocationHandler(connection) instanceof ConnectionInvocationHandler))
+		{
+			ConnectionInvocationHandler<?, ?, ?> handler = (ConnectionInvocationHandler<?, ?, ?>) Proxy.getInvocationHandler(connection);
+			
+			return handler.getProxyFactory().getAutoCommit(connection);
+		}
+		
+		return connection.getAutoCommit();
+	}
+	
+	<DD extends Database<?>> void committed(WriteSequenceTracker<DD> tracker, Set<DD> databases)
+	{
+		long sequence = this.writeSequence;
+		
+		for (DD database: databases)
+		{
+			tracker.committed(database, sequence);
+		}
+		
+		this.committedWriteSequence = sequence;
+	}
 }
@@ -0,0 +1,378 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.sql;
+
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.hajdbc.Database;
+import net.sf.hajdbc.ExceptionFactory;
+import net.sf.hajdbc.invocation.Invoker;
+import net.sf.hajdbc.invocation.SimpleInvoker;
+import net.sf.hajdbc.logging.Level;
+import net.sf.hajdbc.logging.Logger;
+import net.sf.hajdbc.logging.LoggerFactory;
+import net.sf.hajdbc.util.reflect.Methods;
+
+/**
+ * Records the parameters and batches of a statement, such that they can be replayed against a statement of a newly activated database.
+ * Rather than retaining each set*(...) invocation, the log retains only the current value of each parameter, and, for each batch, a snapshot of those values.
+ * Values are stored in columnar form, i.e. one array per parameter, indexed by batch, thus a batch costs one array slot per parameter, rather than one invoker per parameter.
+ * If replay is disabled, only the existence of pending parameters or batches is tracked.
+ * This object is not thread-safe.
+ * @author Paul Ferraro
+ * @param <S> the statement type
+ */
+public class ParameterReplayLog<Z, D extends Database<Z>, S extends Statement>
+{
+	private static final Logger logger = LoggerFactory.getLogger(ParameterReplayLog.class);
+	private static final int INITIAL_CAPACITY = 16;
+	
+	private final ExceptionFactory<SQLException> exceptionFactory;
+	private final boolean enabled;
+	private final List<Column> columns = new ArrayList<>();
+	private final Map<Object, Column> columnMap = new HashMap<>();
+	// Indicates, for each batch (and for the current parameters, at index = batches), whether parameters were cleared beforehand
+	private final BitSet cleared = new BitSet();
+	private Invoker<Z, D, S, ?, SQLException> clearInvoker = null;
+	private Object[] batchInvokers = null;
+	private int batches = 0;
+	private boolean parametersPending = false;
+	private boolean batchesPending = false;
+	
+	/**
+	 * Creates a new replay log
+	 * @param exceptionFactory a factory for SQL exceptions
+	 * @param enabled indicates whether parameters and batches are recorded
+	 */
+	public ParameterReplayLog(ExceptionFactory<SQLException> exceptionFactory, boolean enabled)
+	{
+		this.exceptionFactory = exceptionFactory;
+		this.enabled = enabled;
+	}
+	
+	/**
+	 * Records the invocation of a set*(...) method.
+	 * @param key the parameter index or name
+	 * @param invoker the invoker of the set*(...) method
+	 */
+	public void setParameter(Object key, Invoker<Z, D, S, ?, SQLException> invoker)
+	{
+		this.set(key, invoker, false);
+	}
+	
+	/**
+	 * Records the invocation of a parameter registration method, e.g. {@link java.sql.CallableStatement#registerOutParameter(int, int)}.
+	 * Unlike parameter values, registrations are retained by {@link #clearParameters(Invoker)}.
+	 * @param key a key distinct from that of any parameter value
+	 * @param invoker the invoker of the registration method
+	 */
+	public void registerParameter(Object key, Invoker<Z, D, S, ?, SQLException> invoker)
+	{
+		this.set(key, invoker, true);
+	}
+	
+	private void set(Object key, Invoker<Z, D, S, ?, SQLException> invoker, boolean registration)
+	{
+		this.parametersPending = true;
+		
+		if (!this.enabled) return;
+		
+		Column column = this.columnMap.get(key);
+		
+		if (column == null)
+		{
+			column = new Column(registration, (this.batchInvokers != null) ? this.batchInvokers.length : 0);
+			this.columnMap.put(key, column);
+			this.columns.add(column);
+		}
+		
+		if (invoker instanceof SimpleInvoker)
+		{
+			// A SimpleInvoker is generic only in its result type
+			@SuppressWarnings("unchecked")
+			SimpleInvoker<Z, D, S, ?, SQLException> simpleInvoker = (SimpleInvoker<Z, D, S, ?, SQLException>) invoker;
+			Object[] parameters = simpleInvoker.getParameters();
+			
+			// Most set*(...) methods accept only an index/name and a value
+			if (parameters.length == 2)
+			{
+				column.argument = parameters[0];
+				column.method = simpleInvoker.getMethod();
+				column.value = parameters[1];
+				return;
+			}
+		}
+		
+		column.method = null;
+		column.value = invoker;
+	}
+	
+	/**
+	 * Records the invocation of {@link java.sql.PreparedStatement#clearParameters()}.
+	 * @param invoker the invoker of the clearParameters() method
+	 */
+	public void clearParameters(Invoker<Z, D, S, ?, SQLException> invoker)
+	{
+		this.parametersPending = false;
+		
+		if (!this.enabled) return;
+		
+		this.clearInvoker = invoker;
+		this.cleared.set(this.batches);
+		
+		for (Column column: this.columns)
+		{
+			if (!column.registration)
+			{
+				column.method = null;
+				column.value = null;
+			}
+		}
+	}
+	
+	/**
+	 * Records the invocation of an addBatch(...) method, along with the current parameters.
+	 * @param invoker the invoker of the addBatch(...) method
+	 */
+	public void addBatch(Invoker<Z, D, S, ?, SQLException> invoker)
+	{
+		this.batchesPending = true;
+		
+		if (!this.enabled) return;
+		
+		if (this.batchInvokers == null)
+		{
+			this.resize(INITIAL_CAPACITY);
+		}
+		else if (this.batches == this.batchInvokers.length)
+		{
+			this.resize(this.batches * 2);
+		}
+		
+		for (Column column: this.columns)
+		{
+			column.methods[this.batches] = column.method;
+			column.values[this.batches] = column.value;
+		}
+		
+		this.batchInvokers[this.batches] = invoker;
+		this.batches += 1;
+	}
+	
+	private void resize(int capacity)
+	{
+		this.batchInvokers = (this.batchInvokers != null) ? Arrays.copyOf(this.batchInvokers, capacity) : new Object[capacity];
+		
+		for (Column column: this.columns)
+		{
+			column.methods = Arrays.copyOf(column.methods, capacity);
+			column.values = Arrays.copyOf(column.values, capacity);
+		}
+	}
+	
+	/**
+	 * Discards all recorded parameters and batches.
+	 */
+	public void clear()
+	{
+		this.columns.clear();
+		this.columnMap.clear();
+		this.cleared.clear();
+		this.clearInvoker = null;
+		this.batchInvokers = null;
+		this.batches = 0;
+		this.parametersPending = false;
+		this.batchesPending = false;
+	}
+	
+	/**
+	 * Discards the recorded batches, but retains the current parameters, e.g. following the execution or clearing of the batch.
+	 */
+	public void clearBatches()
+	{
+		boolean cleared = this.cleared.get(this.batches);
+		
+		this.cleared.clear();
+		if (cleared)
+		{
+			this.cleared.set(0);
+		}
+		
+		for (Column column: this.columns)
+		{
+			column.methods = new Method[0];
+			column.values = new Object[0];
+		}
+		
+		this.batchInvokers = null;
+		this.batches = 0;
+		this.batchesPending = false;
+	}
+	
+	/**
+	 * Records the execution of the statement.
+	 * If recording is disabled, executed parameters are no longer considered pending, since applications typically set each parameter prior to every execution.
+	 * Consequently, a database activated thereafter is not deactivated on account of parameters it will likely never need.
+	 */
+	public void executed()
+	{
+		if (!this.enabled)
+		{
+			this.parametersPending = false;
+		}
+	}
+	
+	/**
+	 * Replays the recorded batches, followed by the current parameters, against the specified statement.
+	 * Failures of individual invocations are logged and ignored.
+	 * @param database a database
+	 * @param statement a statement of the specified database
+	 * @throws SQLException if recording is disabled, but parameters or batches are pending
+	 */
+	public void replay(D database, S statement) throws SQLException
+	{
+		if (!this.enabled)
+		{
+			if (this.parametersPending || this.batchesPending)
+			{
+				throw new SQLException(String.format("Cannot replay pending parameters and batches of %s against database %s, since parameter replay is disabled", statement.getClass().getName(), database));
+			}
+			return;
+		}
+		
+		this.apply(database, statement, true, false);
+	}
+	
+	/**
+	 * Applies the current parameters, optionally preceded by the recorded batches, to the specified statement, whose parameters were buffered rather than invoked.
+	 * @param database a database
+	 * @param statement a statement of the specified database
+	 * @param batches indicates whether recorded batches should be applied
+	 * @throws SQLException if any invocation failed
+	 */
+	public void flush(D database, S statement, boolean batches) throws SQLException
+	{
+		this.apply(database, statement, batches, true);
+	}
+	
+	private void apply(D database, S statement, boolean batches, boolean strict) throws SQLException
+	{
+		if (batches)
+		{
+			for (int i = 0; i < this.batches; ++i)
+			{
+				if (this.cleared.get(i))
+				{
+					this.apply(database, statement, this.clearInvoker, strict);
+				}
+				
+				for (Column column: this.columns)
+				{
+					this.apply(database, statement, column.argument, column.methods[i], column.values[i], strict);
+				}
+				
+				this.apply(database, statement, this.invoker(this.batchInvokers[i]), strict);
+			}
+		}
+		
+		if (this.cleared.get(this.batches))
+		{
+			this.apply(database, statement, this.clearInvoker, strict);
+		}
+		
+		for (Column column: this.columns)
+		{
+			this.apply(database, statement, column.argument, column.method, column.value, strict);
+		}
+	}
+	
+	private void apply(D database, S statement, Object argument, Method method, Object value, boolean strict) throws SQLException
+	{
+		if (method != null)
+		{
+			logger.log(Level.TRACE, "Replaying {1}.{2} against database {0}", database, statement.getClass().getName(), method);
+			
+			try
+			{
+				Methods.<Object, SQLException>invoke(method, this.exceptionFactory, statement, argument, value);
+			}
+			catch (Throwable e)
+			{
+				if (strict) throw this.exceptionFactory.createException(e);
+				
+				logger.log(Level.DEBUG, e);
+			}
+		}
+		else if (value != null)
+		{
+			this.apply(database, statement, this.invoker(value), strict);
+		}
+	}
+	
+	private void apply(D database, S statement, Invoker<Z, D, S, ?, SQLException> invoker, boolean strict) throws SQLException
+	{
+		logger.log(Level.TRACE, "Replaying {1}.{2} against database {0}", database, statement.getClass().getName(), invoker);
+		
+		try
+		{
+			invoker.invoke(database, statement);
+		}
+		catch (Throwable e)
+		{
+			if (strict) throw this.exceptionFactory.createException(e);
+			
+			logger.log(Level.DEBUG, e);
+		}
+	}
+	
+	// Batch invokers and opaque values are stored as objects, but are only ever recorded as invokers of this log's statement type
+	@SuppressWarnings("unchecked")
+	private Invoker<Z, D, S, ?, SQLException> invoker(Object value)
+	{
+		return (Invoker<Z, D, S, ?, SQLException>) value;
+	}
+	
+	/**
+	 * The current value, and the value of each batch, of a single parameter.
+	 * A null method indicates that the value is either null, i.e. not set, or an opaque invoker.
+	 */
+	private static class Column
+	{
+		final boolean registration;
+		Object argument = null;
+		Method method = null;
+		Object value = null;
+		Method[] methods;
+		Object[] values;
+		
+		Column(boolean registration, int capacity)
+		{
+			this.registration = registration;
+			this.methods = new Method[capacity];
+			this.values = new Object[capacity];
+		}
+	}
+}
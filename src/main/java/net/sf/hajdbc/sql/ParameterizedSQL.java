@@ -0,0 +1,186 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.sql;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+
+import net.sf.hajdbc.dialect.SQLFeature;
+import net.sf.hajdbc.dialect.SQLFunctionCall;
+
+/**
+ * A prepared SQL statement whose non-deterministic function calls were replaced by additional bind parameters.
+ * The values of these parameters are evaluated once per execution and bound identically on each database.
+ * Since the additional parameters shift the indexes of the application's parameters, these must be mapped via {@link #getParameterIndex(int)}.
+ * @author Paul Ferraro
+ */
+public class ParameterizedSQL
+{
+	private final String sql;
+	// Indexed by application parameter index - 1
+	private final int[] parameterIndexes;
+	private final SQLFeature[] functions;
+	private final int[] functionIndexes;
+	
+	/**
+	 * Creates a new parameterized SQL statement.
+	 * @param sql a SQL statement
+	 * @param calls the non-deterministic function calls to replace, ordered by position
+	 * @param markers the positions of the existing parameter markers, in ascending order
+	 */
+	public ParameterizedSQL(String sql, List<SQLFunctionCall> calls, List<Integer> markers)
+	{
+		StringBuilder builder = new StringBuilder(sql.length());
+		this.parameterIndexes = new int[markers.size()];
+		this.functions = new SQLFeature[calls.size()];
+		this.functionIndexes = new int[calls.size()];
+		
+		Iterator<Integer> markerIterator = markers.iterator();
+		Integer marker = markerIterator.hasNext() ? markerIterator.next() : null;
+		int parameterIndex = 0;
+		int position = 0;
+		int index = 0;
+		
+		for (SQLFunctionCall call: calls)
+		{
+			while ((marker != null) && (marker.intValue() < call.getStart()))
+			{
+				this.parameterIndexes[parameterIndex++] = ++position;
+				marker = markerIterator.hasNext() ? markerIterator.next() : null;
+			}
+			
+			builder.append(sql, index, call.getStart()).append('?');
+			index = call.getEnd();
+			
+			int function = position - parameterIndex;
+			this.functions[function] = call.getFunction();
+			this.functionIndexes[function] = ++position;
+		}
+		
+		while (marker != null)
+		{
+			this.parameterIndexes[parameterIndex++] = ++position;
+			marker = markerIterator.hasNext() ? markerIterator.next() : null;
+		}
+		
+		this.sql = builder.append(sql, index, sql.length()).toString();
+	}
+	
+	/**
+	 * Returns the parameterized SQL statement to prepare.
+	 * @return a SQL statement
+	 */
+	public String getSQL()
+	{
+		return this.sql;
+	}
+	
+	/**
+	 * Maps the specified application parameter index to its index within the parameterized statement.
+	 * @param index a 1-based parameter index of the original statement
+	 * @return a 1-based parameter index of the parameterized statement
+	 */
+	public int getParameterIndex(int index)
+	{
+		// Let the driver reject invalid indexes
+		return ((index > 0) && (index <= this.parameterIndexes.length)) ? this.parameterIndexes[index - 1] : index + this.functions.length;
+	}
+	
+	/**
+	 * Evaluates the replaced functions at the specified time.
+	 * @param time a time in milliseconds
+	 * @return the parameter values, in the order of the replaced functions
+	 */
+	public Object[] evaluate(long time)
+	{
+		Object[] values = new Object[this.functions.length];
+		
+		for (int i = 0; i < this.functions.length; ++i)
+		{
+			values[i] = evaluate(this.functions[i], time);
+		}
+		
+		return values;
+	}
+	
+	private static Object evaluate(SQLFeature function, long time)
+	{
+		switch (function)
+		{
+			case CURRENT_DATE:
+			{
+				return new java.sql.Date(time);
+			}
+			case CURRENT_TIME:
+			{
+				return new java.sql.Time(time);
+			}
+			case CURRENT_TIMESTAMP:
+			{
+				return new java.sql.Timestamp(time);
+			}
+			case RAND:
+			{
+				return Math.random();
+			}
+			default:
+			{
+				throw new IllegalArgumentException(function.name());
+			}
+		}
+	}
+	
+	/**
+	 * Binds the specified function values to the specified statement.
+	 * @param statement a statement prepared from {@link #getSQL()}
+	 * @param values the values returned by {@link #evaluate(long)}
+	 * @throws SQLException if a parameter could not be bound
+	 */
+	public void bind(PreparedStatement statement, Object[] values) throws SQLException
+	{
+		for (int i = 0; i < this.functions.length; ++i)
+		{
+			int index = this.functionIndexes[i];
+			
+			switch (this.functions[i])
+			{
+				case CURRENT_DATE:
+				{
+					statement.setDate(index, (java.sql.Date) values[i]);
+					break;
+				}
+				case CURRENT_TIME:
+				{
+					statement.setTime(index, (java.sql.Time) values[i]);
+					break;
+				}
+				case CURRENT_TIMESTAMP:
+				{
+					statement.setTimestamp(index, (java.sql.Timestamp) values[i]);
+					break;
+				}
+				default:
+				{
+					statement.setDouble(index, (Double) values[i]);
+				}
+			}
+		}
+	}
+}
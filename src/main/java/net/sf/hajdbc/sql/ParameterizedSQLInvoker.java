@@ -0,0 +1,55 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.sql;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import net.sf.hajdbc.Database;
+import net.sf.hajdbc.invocation.Invoker;
+
+/**
+ * Invoker of a prepareStatement(...) method whose SQL was parameterized.
+ * Carries the parameterized SQL to the factory of the resulting prepared statement proxy.
+ * @author Paul Ferraro
+ * @param <Z>
+ * @param <D>
+ * @param <R>
+ */
+public class ParameterizedSQLInvoker<Z, D extends Database<Z>, R> implements Invoker<Z, D, Connection, R, SQLException>
+{
+	private final Invoker<Z, D, Connection, R, SQLException> invoker;
+	private final ParameterizedSQL parameterizedSQL;
+	
+	public ParameterizedSQLInvoker(Invoker<Z, D, Connection, R, SQLException> invoker, ParameterizedSQL parameterizedSQL)
+	{
+		this.invoker = invoker;
+		this.parameterizedSQL = parameterizedSQL;
+	}
+	
+	public ParameterizedSQL getParameterizedSQL()
+	{
+		return this.parameterizedSQL;
+	}
+	
+	@Override
+	public R invoke(D database, Connection connection) throws SQLException
+	{
+		return this.invoker.invoke(database, connection);
+	}
+}
@@ -0,0 +1,154 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.sql;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import net.sf.hajdbc.Database;
+import net.sf.hajdbc.cache.PreparedStatementCacheStatistics;
+
+/**
+ * Least-recently-used cache of the closed prepared statements of a single connection, keyed by the arguments of {@link java.sql.Connection#prepareStatement(String)}, et al.
+ * A cached proxy factory retains the prepared statement of each database, along with its analysis, e.g. locks.
+ * A proxy factory is removed from the cache while in use, thus is never shared by concurrent statement proxies.
+ * @author Paul Ferraro
+ */
+public class PreparedStatementCache<Z, D extends Database<Z>>
+{
+	private final Map<Key, PreparedStatementProxyFactory<Z, D>> factories = new LinkedHashMap<>();
+	private final int capacity;
+	private final PreparedStatementCacheStatistics statistics;
+	
+	/**
+	 * Creates a new prepared statement cache
+	 * @param capacity the maximum number of prepared statements to cache
+	 * @param statistics the cluster-wide statistics to update
+	 */
+	public PreparedStatementCache(int capacity, PreparedStatementCacheStatistics statistics)
+	{
+		this.capacity = capacity;
+		this.statistics = statistics;
+	}
+	
+	/**
+	 * Removes the cached proxy factory for the specified key, for reuse.
+	 * @param key a cache key
+	 * @return a prepared statement proxy factory, or null if no such prepared statement is cached
+	 */
+	public synchronized PreparedStatementProxyFactory<Z, D> take(Key key)
+	{
+		PreparedStatementProxyFactory<Z, D> factory = this.factories.remove(key);
+		
+		if (factory != null)
+		{
+			this.statistics.hit();
+		}
+		else
+		{
+			this.statistics.miss();
+		}
+		
+		return factory;
+	}
+	
+	/**
+	 * Adds the specified proxy factory, whose proxy was closed, to this cache, evicting the least recently closed prepared statement if necessary.
+	 * @param key a cache key
+	 * @param factory a prepared statement proxy factory
+	 * @return true, if the prepared statement was cached, false if a prepared statement with the same key is already cached
+	 */
+	public boolean offer(Key key, PreparedStatementProxyFactory<Z, D> factory)
+	{
+		PreparedStatementProxyFactory<Z, D> evicted = null;
+		
+		synchronized (this)
+		{
+			if (this.factories.containsKey(key)) return false;
+			
+			this.factories.put(key, factory);
+			this.statistics.added();
+			
+			if (this.factories.size() > this.capacity)
+			{
+				Iterator<PreparedStatementProxyFactory<Z, D>> factories = this.factories.values().iterator();
+				evicted = factories.next();
+				factories.remove();
+				this.statistics.evicted();
+			}
+		}
+		
+		// Close outside of monitor
+		if (evicted != null)
+		{
+			evicted.discard();
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Removes all cached prepared statements, without closing them.
+	 * Used when the connection, and thus its statements, were closed.
+	 */
+	public synchronized void clear()
+	{
+		this.statistics.removed(this.factories.size());
+		this.factories.clear();
+	}
+	
+	/**
+	 * Cache key for a prepared statement.
+	 */
+	public static class Key
+	{
+		private final Method method;
+		private final Object[] arguments;
+		
+		/**
+		 * Creates a new cache key
+		 * @param method a prepareStatement(...) method
+		 * @param arguments the arguments of the method, i.e. the SQL, and any result set type, concurrency, holdability, or generated key arguments.
+		 */
+		public Key(Method method, Object[] arguments)
+		{
+			this.method = method;
+			// Copy, since SQL arguments may be replaced during invocation
+			this.arguments = arguments.clone();
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return Arrays.deepHashCode(this.arguments);
+		}
+
+		@Override
+		public boolean equals(Object object)
+		{
+			if (!(object instanceof Key)) return false;
+			
+			Key key = (Key) object;
+			
+			return this.method.equals(key.method) && Arrays.deepEquals(this.arguments, key.arguments);
+		}
+	}
+}
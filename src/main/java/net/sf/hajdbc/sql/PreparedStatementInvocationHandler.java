@@ -19,9 +19,11 @@ package net.sf.hajdbc.sql;
 
 import java.lang.reflect.Method;
 import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.util.Set;
 
 import net.sf.hajdbc.Database;
+import net.sf.hajdbc.Messages;
 import net.sf.hajdbc.util.reflect.Methods;
 
 /**
@@ -31,9 +33,40 @@ import net.sf.hajdbc.util.reflect.Methods;
 public class PreparedStatementInvocationHandler<Z, D extends Database<Z>> extends AbstractPreparedStatementInvocationHandler<Z, D, PreparedStatement, PreparedStatementProxyFactory<Z, D>>
 {
 	private static final Set<Method> setMethods = Methods.findMethods(PreparedStatement.class, "set\\w+");
+	private static final Method closeMethod = Methods.getMethod(PreparedStatement.class, "close");
+	private static final Method isClosedMethod = Methods.getMethod(PreparedStatement.class, "isClosed");
+	
+	private volatile boolean released = false;
 	
 	public PreparedStatementInvocationHandler(PreparedStatementProxyFactory<Z, D> proxyFactory)
 	{
 		super(PreparedStatement.class, proxyFactory, setMethods);
 	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+	{
+		if (this.released && !method.getDeclaringClass().equals(Object.class))
+		{
+			// The statements of this proxy were returned to the statement cache of its connection, and may now belong to another proxy
+			if (method.equals(isClosedMethod)) return Boolean.TRUE;
+			if (method.equals(closeMethod)) return null;
+			
+			throw new SQLException(Messages.STATEMENT_CLOSED.getMessage());
+		}
+		
+		if (method.equals(closeMethod))
+		{
+			// Resetting the statements for reuse must not race with outstanding asynchronous writes
+			this.getProxyFactory().getTransactionContext().await();
+			
+			if (this.getProxyFactory().release())
+			{
+				this.released = true;
+				return null;
+			}
+		}
+		
+		return super.invoke(proxy, method, args);
+	}
 }
@@ -17,6 +17,7 @@
  */
 package net.sf.hajdbc.sql;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
@@ -26,6 +27,7 @@ import java.util.concurrent.locks.Lock;
 
 import net.sf.hajdbc.Database;
 import net.sf.hajdbc.invocation.Invoker;
+import net.sf.hajdbc.logging.Level;
 import net.sf.hajdbc.util.reflect.Proxies;
 
 /**
@@ -34,9 +36,101 @@ import net.sf.hajdbc.util.reflect.Proxies;
  */
 public class PreparedStatementProxyFactory<Z, D extends Database<Z>> extends AbstractPreparedStatementProxyFactory<Z, D, PreparedStatement>
 {
-	protected PreparedStatementProxyFactory(Connection parent, ProxyFactory<Z, D, Connection, SQLException> parentFactory, Invoker<Z, D, Connection, PreparedStatement, SQLException> invoker, Map<D, PreparedStatement> map, TransactionContext<Z, D> context, List<Lock> locks, boolean selectForUpdate)
+	private volatile PreparedStatementCache<Z, D> cache;
+	private volatile PreparedStatementCache.Key key;
+	
+	protected PreparedStatementProxyFactory(Connection parent, ProxyFactory<Z, D, Connection, SQLException> parentFactory, Invoker<Z, D, Connection, PreparedStatement, SQLException> invoker, Map<D, PreparedStatement> map, TransactionContext<Z, D> context, List<Lock> locks, boolean selectForUpdate, boolean connectionStateChange)
 	{
-		super(parent, parentFactory, invoker, map, context, locks, selectForUpdate);
+		this(parent, parentFactory, invoker, map, context, locks, selectForUpdate, connectionStateChange, null);
+	}
+
+	protected PreparedStatementProxyFactory(Connection parent, ProxyFactory<Z, D, Connection, SQLException> parentFactory, Invoker<Z, D, Connection, PreparedStatement, SQLException> invoker, Map<D, PreparedStatement> map, TransactionContext<Z, D> context, List<Lock> locks, boolean selectForUpdate, boolean connectionStateChange, ParameterizedSQL parameterizedSQL)
+	{
+		super(parent, parentFactory, invoker, map, context, locks, selectForUpdate, connectionStateChange, parameterizedSQL);
+	}
+
+	/**
+	 * Makes the statements of this factory eligible for reuse via the specified cache, once the proxy is closed.
+	 * @param cache the prepared statement cache of the parent connection
+	 * @param key the cache key of this prepared statement
+	 */
+	void setCache(PreparedStatementCache<Z, D> cache, PreparedStatementCache.Key key)
+	{
+		this.cache = cache;
+		this.key = key;
+	}
+	
+	/**
+	 * Returns the statements of this factory to the statement cache of the parent connection, in lieu of closing them.
+	 * @return true, if the statements were cached, false if they must be closed
+	 */
+	boolean release()
+	{
+		PreparedStatementCache<Z, D> cache = this.cache;
+		
+		return (cache != null) && this.reset() && cache.offer(this.key, this);
+	}
+	
+	/**
+	 * Resets the state of the statements of this factory, such that they are indistinguishable from newly prepared statements.
+	 * @return true, if the statements were reset, false otherwise
+	 */
+	private boolean reset()
+	{
+		// Recorded driver settings (e.g. max rows) would otherwise leak to the next user
+		if (this.isRecorded()) return false;
+		
+		for (Map.Entry<D, PreparedStatement> entry: this.entries())
+		{
+			PreparedStatement statement = entry.getValue();
+			
+			try
+			{
+				statement.clearParameters();
+				statement.clearBatch();
+				statement.clearWarnings();
+			}
+			catch (SQLException e)
+			{
+				this.logger.log(Level.DEBUG, e);
+				return false;
+			}
+		}
+		
+		this.closeChildren();
+		this.clearBatch();
+		this.getParameterReplayLog().clear();
+		
+		try
+		{
+			this.getInputSinkRegistry().close();
+		}
+		catch (IOException e)
+		{
+			this.logger.log(Level.WARN, e);
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Closes the statements of this factory, following their eviction from the statement cache.
+	 */
+	void discard()
+	{
+		for (Map.Entry<D, PreparedStatement> entry: this.entries())
+		{
+			try
+			{
+				this.close(entry.getKey(), entry.getValue());
+			}
+			catch (SQLException e)
+			{
+				this.logger.log(Level.WARN, e);
+			}
+		}
+		
+		this.remove();
 	}
 
 	@Override
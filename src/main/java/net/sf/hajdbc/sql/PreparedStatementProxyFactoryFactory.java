@@ -38,17 +38,20 @@ public class PreparedStatementProxyFactoryFactory<Z, D extends Database<Z>> impl
 	private final TransactionContext<Z, D> context;
 	private final List<Lock> locks;
 	private final boolean selectForUpdate;
+	private final boolean connectionStateChange;
 	
-	public PreparedStatementProxyFactoryFactory(TransactionContext<Z, D> context, List<Lock> locks, boolean selectForUpdate)
+	public PreparedStatementProxyFactoryFactory(TransactionContext<Z, D> context, List<Lock> locks, boolean selectForUpdate, boolean connectionStateChange)
 	{
 		this.context = context;
 		this.locks = locks;
 		this.selectForUpdate = selectForUpdate;
+		this.connectionStateChange = connectionStateChange;
 	}
 	
 	@Override
 	public ProxyFactory<Z, D, PreparedStatement, SQLException> createProxyFactory(Connection connection, ProxyFactory<Z, D, Connection, SQLException> parent, Invoker<Z, D, Connection, PreparedStatement, SQLException> invoker, Map<D, PreparedStatement> statements)
 	{
-		return new PreparedStatementProxyFactory<>(connection, parent, invoker, statements, this.context, this.locks, this.selectForUpdate);
+		ParameterizedSQL parameterizedSQL = (invoker instanceof ParameterizedSQLInvoker) ? ((ParameterizedSQLInvoker<Z, D, PreparedStatement>) invoker).getParameterizedSQL() : null;
+		return new PreparedStatementProxyFactory<>(connection, parent, invoker, statements, this.context, this.locks, this.selectForUpdate, this.connectionStateChange, parameterizedSQL);
 	}
 }
@@ -41,6 +41,7 @@ public class ResultSetInvocationHandler<Z, D extends Database<Z>, S extends Stat
 {
 	private static final Set<Method> driverReadMethodSet = Methods.findMethods(ResultSet.class, "findColumn", "getConcurrency", "getCursorName", "getFetchDirection", "getFetchSize", "getHoldability", "getMetaData", "getRow", "getType", "getWarnings", "isAfterLast", "isBeforeFirst", "isClosed", "isFirst", "isLast", "row(Deleted|Inserted|Updated)", "wasNull");
 	private static final Set<Method> driverWriteMethodSet = Methods.findMethods(ResultSet.class, "absolute", "afterLast", "beforeFirst", "cancelRowUpdates", "clearWarnings", "first", "last", "moveTo(Current|Insert)Row", "next", "previous", "relative", "setFetchDirection", "setFetchSize");
+	private static final Set<Method> cursorMethodSet = Methods.findMethods(ResultSet.class, "absolute", "afterLast", "beforeFirst", "first", "last", "next", "previous", "relative");
 	private static final Set<Method> transactionalWriteMethodSet = Methods.findMethods(ResultSet.class, "(delete|insert|update)Row");
 	private static final Set<Method> getArrayMethodSet = Methods.findMethods(ResultSet.class, "getArray");
 	private static final Set<Method> getBlobMethodSet = Methods.findMethods(ResultSet.class, "getBlob");
@@ -51,6 +52,7 @@ public class ResultSetInvocationHandler<Z, D extends Database<Z>, S extends Stat
 
 	private static final Method closeMethod = Methods.getMethod(ResultSet.class, "close");
 	private static final Method getStatementMethod = Methods.getMethod(ResultSet.class, "getStatement");
+	private static final Method nextMethod = Methods.getMethod(ResultSet.class, "next");
 	
 	/**
 	 * @param factory a factory for creating result set proxies
@@ -60,6 +62,28 @@ public class ResultSetInvocationHandler<Z, D extends Database<Z>, S extends Stat
 		super(ResultSet.class, factory, getStatementMethod);
 	}
 
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+	{
+		if (!method.equals(nextMethod))
+		{
+			return super.invoke(proxy, method, args);
+		}
+		
+		// Until the first row is consumed, the query can be re-executed against another database
+		while (true)
+		{
+			try
+			{
+				return super.invoke(proxy, method, args);
+			}
+			catch (SQLException e)
+			{
+				if (this.getProxyFactory().failover(e) == null) throw e;
+			}
+		}
+	}
+
 	@Override
 	protected ProxyFactoryFactory<Z, D, ResultSet, SQLException, ?, ? extends Exception> getProxyFactoryFactory(ResultSet object, Method method, Object... parameters) throws SQLException
 	{
@@ -145,6 +169,11 @@ public class ResultSetInvocationHandler<Z, D extends Database<Z>, S extends Stat
 		{
 			this.getProxyFactory().addInvoker(invoker);
 		}
+		
+		if (cursorMethodSet.contains(method))
+		{
+			this.getProxyFactory().moved();
+		}
 	}
 	
 	private static boolean isGetMethod(Method method)
@@ -24,10 +24,18 @@ import java.sql.Statement;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
 
 import net.sf.hajdbc.Database;
+import net.sf.hajdbc.DatabaseCluster;
+import net.sf.hajdbc.Messages;
+import net.sf.hajdbc.invocation.InvocationStrategies;
+import net.sf.hajdbc.invocation.InvocationStrategy;
 import net.sf.hajdbc.invocation.Invoker;
+import net.sf.hajdbc.invocation.StreamingInvocationStrategy;
 import net.sf.hajdbc.io.InputSinkRegistry;
+import net.sf.hajdbc.logging.Level;
 import net.sf.hajdbc.util.reflect.Proxies;
 
 /**
@@ -37,10 +45,13 @@ import net.sf.hajdbc.util.reflect.Proxies;
 public class ResultSetProxyFactory<Z, D extends Database<Z>, S extends Statement> extends AbstractInputSinkRegistryProxyFactory<Z, D, S, ResultSet>
 {
 	private List<Invoker<Z, D, ResultSet, ?, SQLException>> invokers = new LinkedList<>();
+	private final Invoker<Z, D, S, ResultSet, SQLException> queryInvoker;
+	private volatile boolean moved = false;
 	
 	public ResultSetProxyFactory(S statementProxy, ProxyFactory<Z, D, S, SQLException> statementFactory, Invoker<Z, D, S, ResultSet, SQLException> invoker, Map<D, ResultSet> map, TransactionContext<Z, D> context, InputSinkRegistry<Object> sinkRegistry)
 	{
 		super(statementProxy, statementFactory, invoker, map, context, sinkRegistry);
+		this.queryInvoker = invoker;
 	}
 
 	public void addInvoker(Invoker<Z, D, ResultSet, ?, SQLException> invoker)
@@ -53,6 +64,72 @@ public class ResultSetProxyFactory<Z, D extends Database<Z>, S extends Statement
 		this.invokers.clear();
 	}
 
+	/**
+	 * Records that the cursor of this result set moved, after which its rows can no longer be transparently re-read from another database.
+	 */
+	public void moved()
+	{
+		this.moved = true;
+	}
+
+	/**
+	 * Re-executes the query of this result set against another database, following a failure of the only database from which it reads.
+	 * This is only possible while no rows were consumed, and while the connection is in auto-commit mode, since neither the position of the cursor nor the snapshot of a transaction can be reproduced.
+	 * The failed database is deactivated, and its result set is replaced by the result set of the next database.
+	 * @param exception the exception thrown by the result set of the failed database
+	 * @return the result set of another database, or null, if the query cannot be re-executed
+	 * @throws SQLException if the query failed against all remaining databases
+	 */
+	public ResultSet failover(SQLException exception) throws SQLException
+	{
+		if (this.moved) return null;
+		
+		Set<Map.Entry<D, ResultSet>> entries = this.entries();
+		
+		if (entries.size() != 1) return null;
+		
+		DatabaseCluster<Z, D> cluster = this.getDatabaseCluster();
+		
+		if (!this.getExceptionFactory().indicatesFailure(exception, cluster.getDialect())) return null;
+		
+		if (!this.getAutoCommit()) return null;
+		
+		D database = entries.iterator().next().getKey();
+		
+		if (cluster.deactivate(database, cluster.getStateManager()))
+		{
+			this.logger.log(Level.ERROR, exception, Messages.DATABASE_DEACTIVATED.getMessage(), database, cluster);
+		}
+		
+		if (cluster.getBalancer().contains(database)) return null;
+		
+		// Closes the result set of the failed database
+		this.retain(cluster.getBalancer());
+		
+		int fetchSize = cluster.getStreamingFetchSize();
+		InvocationStrategy strategy = (fetchSize > 0) ? new StreamingInvocationStrategy(InvocationStrategies.INVOKE_ON_NEXT, fetchSize) : InvocationStrategies.INVOKE_ON_NEXT;
+		
+		// Re-executes the query using a statement created from the recorded state of the statement proxy
+		SortedMap<D, ResultSet> results = strategy.invoke(this.getParent(), this.queryInvoker);
+		
+		D next = results.firstKey();
+		ResultSet result = results.get(next);
+		
+		this.put(next, result);
+		
+		return result;
+	}
+
+	/**
+	 * Returns the auto-commit mode of the connection of this result set, preferably as cached by the proxy factory of the connection, thus avoiding a round trip.
+	 */
+	private boolean getAutoCommit() throws SQLException
+	{
+		ProxyFactory<Z, D, S, SQLException> parent = this.getParent();
+		
+		return (parent instanceof AbstractStatementProxyFactory) ? ((AbstractStatementProxyFactory<Z, D, ?>) parent).getAutoCommit() : this.getParentProxy().getConnection().getAutoCommit();
+	}
+
 	@Override
 	public Connection getConnection(D database) throws SQLException
 	{
@@ -79,6 +156,31 @@ public class ResultSetProxyFactory<Z, D extends Database<Z>, S extends Statement
 	@Override
 	public ResultSet createProxy()
 	{
-		return Proxies.createProxy(ResultSet.class, new ResultSetInvocationHandler<>(this));
+		ResultSet proxy = Proxies.createProxy(ResultSet.class, new ResultSetInvocationHandler<>(this));
+		
+		if (this.getDatabaseCluster().getStreamingFetchSize() > 0)
+		{
+			Set<Map.Entry<D, ResultSet>> entries = this.entries();
+			
+			// Only the forward-only, read-only results of a single database are streamed
+			if (entries.size() == 1)
+			{
+				ResultSet results = entries.iterator().next().getValue();
+				
+				try
+				{
+					if ((results.getType() == ResultSet.TYPE_FORWARD_ONLY) && (results.getConcurrency() == ResultSet.CONCUR_READ_ONLY))
+					{
+						return new StreamingResultSet<>(this, proxy, results);
+					}
+				}
+				catch (SQLException e)
+				{
+					this.logger.log(Level.WARN, e);
+				}
+			}
+		}
+		
+		return proxy;
 	}
 }
@@ -30,12 +30,34 @@ import net.sf.hajdbc.Database;
  */
 public interface SQLProxyFactory<Z, D extends Database<Z>, P, T> extends TransactionalProxyFactory<Z, D, P, T>
 {
-	String evaluate(final String sql);
+	String evaluate(final String sql) throws SQLException;
+	
+	String evaluate(EvaluatedSQL sql) throws SQLException;
+	
+	/**
+	 * Replaces next sequence value expressions within the specified SQL with pre-allocated sequence values, if sequence pre-allocation is enabled.
+	 * @param sql a SQL statement
+	 * @return the evaluated SQL statement, indicating whether it was rewritten
+	 * @throws SQLException if sequence values could not be allocated
+	 */
+	EvaluatedSQL evaluateNextSequenceValues(String sql) throws SQLException;
+	
+	/**
+	 * Replaces the evaluable non-deterministic function calls within the specified SQL with bind parameters.
+	 * @param sql a SQL statement to be prepared
+	 * @return a parameterized SQL statement, or null if the statement contains no evaluable function calls, or if they cannot be reliably replaced
+	 * @throws SQLException if the statement could not be analyzed
+	 */
+	ParameterizedSQL parameterize(String sql) throws SQLException;
 	
 	List<Lock> extractLocks(String sql) throws SQLException;
 	
+	List<Lock> extractLocks(EvaluatedSQL sql) throws SQLException;
+	
 	boolean isSelectForUpdate(String sql) throws SQLException;
 	
+	boolean isSelectForUpdate(EvaluatedSQL sql) throws SQLException;
+	
 	Connection getConnection(D database) throws SQLException;
 
 	boolean locatorsUpdateCopy() throws SQLException;
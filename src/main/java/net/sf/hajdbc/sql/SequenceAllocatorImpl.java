@@ -0,0 +1,216 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.sql;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+
+import net.sf.hajdbc.Database;
+import net.sf.hajdbc.DatabaseCluster;
+import net.sf.hajdbc.Messages;
+import net.sf.hajdbc.SequenceAllocator;
+import net.sf.hajdbc.SequenceProperties;
+import net.sf.hajdbc.SequenceSupport;
+import net.sf.hajdbc.balancer.Balancer;
+import net.sf.hajdbc.logging.Level;
+import net.sf.hajdbc.logging.Logger;
+import net.sf.hajdbc.logging.LoggerFactory;
+
+/**
+ * Sequence allocator that reserves blocks of sequence values, and hands them out locally.
+ * A block is reserved, while holding the write lock for the sequence, by obtaining the next value of the sequence from the primary database,
+ * then advancing the sequence on every database past the end of the block.
+ * Consequently, the sequence need only be locked once per block, rather than once per value.
+ * @author Paul Ferraro
+ */
+public class SequenceAllocatorImpl<Z, D extends Database<Z>> implements SequenceAllocator
+{
+	private static final Logger logger = LoggerFactory.getLogger(SequenceAllocatorImpl.class);
+	
+	private final DatabaseCluster<Z, D> cluster;
+	private final int size;
+	private final ConcurrentMap<String, SequenceBlock> blocks = new ConcurrentHashMap<>();
+	
+	public SequenceAllocatorImpl(DatabaseCluster<Z, D> cluster, int size)
+	{
+		this.cluster = cluster;
+		this.size = size;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.SequenceAllocator#next(java.lang.String)
+	 */
+	@Override
+	public long next(String sequence) throws SQLException
+	{
+		SequenceBlock block = this.blocks.get(sequence);
+		
+		if (block == null)
+		{
+			SequenceBlock newBlock = new SequenceBlock();
+			
+			block = this.blocks.putIfAbsent(sequence, newBlock);
+			
+			if (block == null)
+			{
+				block = newBlock;
+			}
+		}
+		
+		synchronized (block)
+		{
+			if (block.remaining == 0)
+			{
+				this.allocate(sequence, block);
+			}
+			
+			long value = block.next;
+			
+			block.next += block.increment;
+			block.remaining -= 1;
+			
+			return value;
+		}
+	}
+	
+	private void allocate(String sequence, SequenceBlock block) throws SQLException
+	{
+		SequenceSupport support = this.cluster.getDialect().getSequenceSupport();
+		Balancer<Z, D> balancer = this.cluster.getBalancer();
+		Lock lock = this.cluster.getLockManager().writeLock(sequence);
+		
+		lock.lock();
+		
+		try
+		{
+			D primary = balancer.primary();
+			Map<D, Connection> connections = new TreeMap<>();
+			
+			try
+			{
+				for (D database: balancer)
+				{
+					try
+					{
+						connections.put(database, database.connect(database.createConnectionSource(), database.decodePassword(this.cluster.getDecoder())));
+					}
+					catch (SQLException e)
+					{
+						if (database.equals(primary)) throw e;
+						
+						this.deactivate(database, e);
+					}
+				}
+				
+				Connection connection = connections.get(primary);
+				
+				SequenceProperties properties = this.cluster.getDatabaseMetaDataCache().getDatabaseProperties(primary, connection).findSequence(sequence);
+				
+				if (properties == null)
+				{
+					throw new SQLException(Messages.SCHEMA_LOOKUP_FAILED.getMessage(sequence, this.cluster, this.cluster.getDialect().getClass().getName() + ".getDefaultSchemas()"));
+				}
+				
+				long first = 0;
+				
+				try (Statement statement = connection.createStatement())
+				{
+					try (ResultSet resultSet = statement.executeQuery(support.getNextSequenceValueSQL(properties)))
+					{
+						resultSet.next();
+						
+						first = resultSet.getLong(1);
+					}
+				}
+				
+				int increment = properties.getIncrement();
+				String sql = support.getAlterSequenceSQL(properties, first + ((long) this.size * increment));
+				
+				logger.log(Level.DEBUG, "Allocating {0} values of sequence {1} via: {2}", this.size, sequence, sql);
+				
+				for (Map.Entry<D, Connection> entry: connections.entrySet())
+				{
+					D database = entry.getKey();
+					
+					try (Statement statement = entry.getValue().createStatement())
+					{
+						statement.execute(sql);
+					}
+					catch (SQLException e)
+					{
+						if (database.equals(primary)) throw e;
+						
+						this.deactivate(database, e);
+					}
+				}
+				
+				block.next = first;
+				block.increment = increment;
+				block.remaining = this.size;
+			}
+			finally
+			{
+				for (Connection connection: connections.values())
+				{
+					try
+					{
+						connection.close();
+					}
+					catch (SQLException e)
+					{
+						logger.log(Level.WARN, e);
+					}
+				}
+			}
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+	
+	private void deactivate(D database, SQLException e)
+	{
+		if (this.cluster.deactivate(database, this.cluster.getStateManager()))
+		{
+			logger.log(Level.ERROR, e, Messages.DATABASE_DEACTIVATED.getMessage(), database, this.cluster);
+		}
+	}
+	
+	/**
+	 * A block of pre-allocated sequence values, guarded by its own monitor.
+	 */
+	private static class SequenceBlock
+	{
+		long next;
+		int increment;
+		int remaining = 0;
+		
+		SequenceBlock()
+		{
+		}
+	}
+}
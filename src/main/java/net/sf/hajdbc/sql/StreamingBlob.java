@@ -0,0 +1,202 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.sql;
+
+import java.io.BufferedInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Lightweight {@link Blob} returned by a {@link StreamingResultSet}, which wraps the blob of the single database that executed the query.
+ * Unlike a blob proxy, no state is tracked across databases; instead, content is read from the database on demand, a chunk at a time.
+ * Small sequential reads via {@link #getBytes(long, int)} are served from the current chunk; streams are buffered using the chunk size.
+ * Since streaming result sets require a positive streaming fetch size, blobs are otherwise returned as locator proxies.
+ * @author Paul Ferraro
+ */
+public class StreamingBlob implements Blob
+{
+	private final Blob blob;
+	private final int chunkSize;
+	private byte[] chunk = null;
+	// 1-based position of the first byte of the chunk
+	private long chunkPosition = 0;
+	private long length = -1;
+	
+	/**
+	 * Creates a new streaming blob.
+	 * @param blob the blob of the database
+	 * @param chunkSize the number of bytes to read ahead
+	 */
+	public StreamingBlob(Blob blob, int chunkSize)
+	{
+		this.blob = blob;
+		this.chunkSize = chunkSize;
+	}
+
+	@Override
+	public long length() throws SQLException
+	{
+		if (this.length < 0)
+		{
+			this.length = this.blob.length();
+		}
+		return this.length;
+	}
+
+	@Override
+	public byte[] getBytes(long position, int length) throws SQLException
+	{
+		if (length >= this.chunkSize)
+		{
+			return this.blob.getBytes(position, length);
+		}
+		
+		if (!this.cached(position, length))
+		{
+			this.chunk = this.blob.getBytes(position, this.chunkSize);
+			this.chunkPosition = position;
+		}
+		
+		int offset = (int) (position - this.chunkPosition);
+		
+		return Arrays.copyOfRange(this.chunk, offset, offset + Math.min(length, this.chunk.length - offset));
+	}
+	
+	/**
+	 * Indicates whether the specified range is served by the current chunk.
+	 * A chunk shorter than the chunk size extends to the end of the blob.
+	 */
+	private boolean cached(long position, int length)
+	{
+		if ((this.chunk == null) || (position < this.chunkPosition)) return false;
+		
+		long end = this.chunkPosition + this.chunk.length;
+		
+		return (position + length <= end) || ((this.chunk.length < this.chunkSize) && (position <= end));
+	}
+
+	@Override
+	public InputStream getBinaryStream() throws SQLException
+	{
+		return new BufferedInputStream(this.blob.getBinaryStream(), this.chunkSize);
+	}
+
+	@Override
+	public InputStream getBinaryStream(long position, long length) throws SQLException
+	{
+		return new BufferedInputStream(this.blob.getBinaryStream(position, length), this.chunkSize);
+	}
+
+	@Override
+	public long position(byte[] pattern, long start) throws SQLException
+	{
+		return this.blob.position(pattern, start);
+	}
+
+	@Override
+	public long position(Blob pattern, long start) throws SQLException
+	{
+		return this.blob.position((pattern instanceof StreamingBlob) ? ((StreamingBlob) pattern).blob : pattern, start);
+	}
+
+	@Override
+	public int setBytes(long position, byte[] bytes) throws SQLException
+	{
+		this.reset();
+		return this.blob.setBytes(position, bytes);
+	}
+
+	@Override
+	public int setBytes(long position, byte[] bytes, int offset, int length) throws SQLException
+	{
+		this.reset();
+		return this.blob.setBytes(position, bytes, offset, length);
+	}
+
+	@Override
+	public OutputStream setBinaryStream(long position) throws SQLException
+	{
+		this.reset();
+		return new InvalidatingOutputStream(this.blob.setBinaryStream(position));
+	}
+
+	@Override
+	public void truncate(long length) throws SQLException
+	{
+		this.reset();
+		this.blob.truncate(length);
+	}
+
+	@Override
+	public void free() throws SQLException
+	{
+		this.reset();
+		this.blob.free();
+	}
+	
+	private void reset()
+	{
+		this.chunk = null;
+		this.length = -1;
+	}
+	
+	/**
+	 * Output stream that invalidates the chunk after each write, since the content written may overlap it.
+	 */
+	private class InvalidatingOutputStream extends FilterOutputStream
+	{
+		InvalidatingOutputStream(OutputStream output)
+		{
+			super(output);
+		}
+
+		@Override
+		public void write(int b) throws IOException
+		{
+			this.out.write(b);
+			StreamingBlob.this.reset();
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) throws IOException
+		{
+			this.out.write(bytes, offset, length);
+			StreamingBlob.this.reset();
+		}
+
+		@Override
+		public void flush() throws IOException
+		{
+			this.out.flush();
+			StreamingBlob.this.reset();
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			// Drivers may defer writes until the stream is closed
+			super.close();
+			StreamingBlob.this.reset();
+		}
+	}
+}
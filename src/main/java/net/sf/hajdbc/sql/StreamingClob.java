@@ -0,0 +1,266 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.sql;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.FilterOutputStream;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.sql.Clob;
+import java.sql.NClob;
+import java.sql.SQLException;
+
+/**
+ * Lightweight {@link Clob}, or {@link NClob}, returned by a {@link StreamingResultSet}, which wraps the clob of the single database that executed the query.
+ * Unlike a clob proxy, no state is tracked across databases; instead, content is read from the database on demand, a chunk at a time.
+ * Small sequential reads via {@link #getSubString(long, int)} are served from the current chunk; streams are buffered using the chunk size.
+ * Clobs of result sets not streamed, i.e. when the streaming fetch size is 0, are returned as locator proxies instead.
+ * @author Paul Ferraro
+ */
+public class StreamingClob implements NClob
+{
+	private final Clob clob;
+	private final int chunkSize;
+	private String chunk = null;
+	// 1-based position of the first character of the chunk
+	private long chunkPosition = 0;
+	private long length = -1;
+	
+	/**
+	 * Creates a new streaming clob.
+	 * @param clob the clob of the database
+	 * @param chunkSize the number of characters to read ahead
+	 */
+	public StreamingClob(Clob clob, int chunkSize)
+	{
+		this.clob = clob;
+		this.chunkSize = chunkSize;
+	}
+
+	@Override
+	public long length() throws SQLException
+	{
+		if (this.length < 0)
+		{
+			this.length = this.clob.length();
+		}
+		return this.length;
+	}
+
+	@Override
+	public String getSubString(long position, int length) throws SQLException
+	{
+		if (length >= this.chunkSize)
+		{
+			return this.clob.getSubString(position, length);
+		}
+		
+		if (!this.cached(position, length))
+		{
+			this.chunk = this.clob.getSubString(position, this.chunkSize);
+			this.chunkPosition = position;
+		}
+		
+		int offset = (int) (position - this.chunkPosition);
+		
+		return this.chunk.substring(offset, offset + Math.min(length, this.chunk.length() - offset));
+	}
+	
+	/**
+	 * Indicates whether the specified range is served by the current chunk.
+	 * A chunk shorter than the chunk size extends to the end of the clob.
+	 */
+	private boolean cached(long position, int length)
+	{
+		if ((this.chunk == null) || (position < this.chunkPosition)) return false;
+		
+		long end = this.chunkPosition + this.chunk.length();
+		
+		return (position + length <= end) || ((this.chunk.length() < this.chunkSize) && (position <= end));
+	}
+
+	@Override
+	public Reader getCharacterStream() throws SQLException
+	{
+		return new BufferedReader(this.clob.getCharacterStream(), this.chunkSize);
+	}
+
+	@Override
+	public Reader getCharacterStream(long position, long length) throws SQLException
+	{
+		return new BufferedReader(this.clob.getCharacterStream(position, length), this.chunkSize);
+	}
+
+	@Override
+	public InputStream getAsciiStream() throws SQLException
+	{
+		return new BufferedInputStream(this.clob.getAsciiStream(), this.chunkSize);
+	}
+
+	@Override
+	public long position(String pattern, long start) throws SQLException
+	{
+		return this.clob.position(pattern, start);
+	}
+
+	@Override
+	public long position(Clob pattern, long start) throws SQLException
+	{
+		return this.clob.position((pattern instanceof StreamingClob) ? ((StreamingClob) pattern).clob : pattern, start);
+	}
+
+	@Override
+	public int setString(long position, String value) throws SQLException
+	{
+		this.reset();
+		return this.clob.setString(position, value);
+	}
+
+	@Override
+	public int setString(long position, String value, int offset, int length) throws SQLException
+	{
+		this.reset();
+		return this.clob.setString(position, value, offset, length);
+	}
+
+	@Override
+	public OutputStream setAsciiStream(long position) throws SQLException
+	{
+		this.reset();
+		return new InvalidatingOutputStream(this.clob.setAsciiStream(position));
+	}
+
+	@Override
+	public Writer setCharacterStream(long position) throws SQLException
+	{
+		this.reset();
+		return new InvalidatingWriter(this.clob.setCharacterStream(position));
+	}
+
+	@Override
+	public void truncate(long length) throws SQLException
+	{
+		this.reset();
+		this.clob.truncate(length);
+	}
+
+	@Override
+	public void free() throws SQLException
+	{
+		this.reset();
+		this.clob.free();
+	}
+	
+	private void reset()
+	{
+		this.chunk = null;
+		this.length = -1;
+	}
+	
+	/**
+	 * Output stream that invalidates the chunk after each write, since the content written may overlap it.
+	 */
+	private class InvalidatingOutputStream extends FilterOutputStream
+	{
+		InvalidatingOutputStream(OutputStream output)
+		{
+			super(output);
+		}
+
+		@Override
+		public void write(int b) throws IOException
+		{
+			this.out.write(b);
+			StreamingClob.this.reset();
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) throws IOException
+		{
+			this.out.write(bytes, offset, length);
+			StreamingClob.this.reset();
+		}
+
+		@Override
+		public void flush() throws IOException
+		{
+			this.out.flush();
+			StreamingClob.this.reset();
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			// Drivers may defer writes until the stream is closed
+			super.close();
+			StreamingClob.this.reset();
+		}
+	}
+	
+	/**
+	 * Writer that invalidates the chunk after each write, since the content written may overlap it.
+	 */
+	private class InvalidatingWriter extends FilterWriter
+	{
+		InvalidatingWriter(Writer writer)
+		{
+			super(writer);
+		}
+
+		@Override
+		public void write(int c) throws IOException
+		{
+			this.out.write(c);
+			StreamingClob.this.reset();
+		}
+
+		@Override
+		public void write(char[] chars, int offset, int length) throws IOException
+		{
+			this.out.write(chars, offset, length);
+			StreamingClob.this.reset();
+		}
+
+		@Override
+		public void write(String value, int offset, int length) throws IOException
+		{
+			this.out.write(value, offset, length);
+			StreamingClob.this.reset();
+		}
+
+		@Override
+		public void flush() throws IOException
+		{
+			this.out.flush();
+			StreamingClob.this.reset();
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			// Drivers may defer writes until the writer is closed
+			this.out.close();
+			StreamingClob.this.reset();
+		}
+	}
+}
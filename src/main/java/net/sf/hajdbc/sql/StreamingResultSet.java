@@ -0,0 +1,1873 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.sql;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.Map;
+
+import net.sf.hajdbc.Database;
+import net.sf.hajdbc.DatabaseCluster;
+import net.sf.hajdbc.Messages;
+import net.sf.hajdbc.logging.Level;
+
+/**
+ * Result set of a streaming read, i.e. a forward-only, read-only query executed against a single database.
+ * Rather than dispatching each call reflectively through {@link ResultSetInvocationHandler}, which also records every cursor movement for replay, cursor movement and column access is forwarded directly to the result set of the database.
+ * Exceptions indicating the failure of the database deactivate it, as they would via the result set proxy.
+ * Blobs and clobs are wrapped by lightweight locators that read from the database on demand, in chunks, rather than by locator proxies.
+ * Streaming result sets, and hence these locators, are only used when streaming reads are enabled via {@link DatabaseCluster#getStreamingFetchSize()}; otherwise, all results are accessed via the result set proxy.
+ * All other methods, e.g. {@link #close()}, or those returning other locators, are delegated to the result set proxy, thus retaining their usual semantics.
+ * @author Paul Ferraro
+ * @param <Z> the connection source
+ * @param <D> the database descriptor
+ */
+public class StreamingResultSet<Z, D extends Database<Z>> implements ResultSet
+{
+	// Number of bytes, or characters, read ahead by blobs and clobs
+	private static final int LOB_CHUNK_SIZE = 32768;
+	
+	private final ResultSetProxyFactory<Z, D, ?> factory;
+	private final DatabaseCluster<Z, D> cluster;
+	private final TransactionContext<Z, D> context;
+	private final ResultSet proxy;
+	private ResultSet results;
+	private boolean moved = false;
+	
+	/**
+	 * Creates a new streaming result set.
+	 * @param factory the factory of the result set proxy
+	 * @param proxy the result set proxy
+	 * @param results the result set of the database that executed the query
+	 */
+	public StreamingResultSet(ResultSetProxyFactory<Z, D, ?> factory, ResultSet proxy, ResultSet results)
+	{
+		this.factory = factory;
+		this.cluster = factory.getDatabaseCluster();
+		this.context = factory.getTransactionContext();
+		this.proxy = proxy;
+		this.results = results;
+	}
+	
+	private ResultSet results() throws SQLException
+	{
+		if (!this.cluster.isActive())
+		{
+			throw new SQLException(Messages.CLUSTER_NOT_ACTIVE.getMessage(this.cluster));
+		}
+		
+		// Results must not be read while the connection still has outstanding asynchronous writes
+		this.context.await();
+		
+		return this.results;
+	}
+	
+	/**
+	 * Deactivates the database of this result set if the specified exception indicates its failure, as would the invocation strategy of the result set proxy.
+	 * Since rows cannot be re-read from another database, the exception is thrown regardless.
+	 * @param exception an exception thrown by the result set of the database
+	 * @return the exception to throw
+	 */
+	private SQLException failure(SQLException exception)
+	{
+		if (this.factory.getExceptionFactory().indicatesFailure(exception, this.cluster.getDialect()))
+		{
+			for (Map.Entry<D, ResultSet> entry: this.factory.entries())
+			{
+				D database = entry.getKey();
+				
+				if (this.cluster.deactivate(database, this.cluster.getStateManager()))
+				{
+					this.factory.logger.log(Level.ERROR, exception, Messages.DATABASE_DEACTIVATED.getMessage(), database, this.cluster);
+				}
+			}
+		}
+		
+		return exception;
+	}
+
+	@Override
+	public boolean absolute(int row) throws SQLException
+	{
+		return this.proxy.absolute(row);
+	}
+
+	@Override
+	public void afterLast() throws SQLException
+	{
+		this.proxy.afterLast();
+	}
+
+	@Override
+	public void beforeFirst() throws SQLException
+	{
+		this.proxy.beforeFirst();
+	}
+
+	@Override
+	public void cancelRowUpdates() throws SQLException
+	{
+		this.proxy.cancelRowUpdates();
+	}
+
+	@Override
+	public void clearWarnings() throws SQLException
+	{
+		this.proxy.clearWarnings();
+	}
+
+	@Override
+	public void close() throws SQLException
+	{
+		this.proxy.close();
+	}
+
+	@Override
+	public void deleteRow() throws SQLException
+	{
+		this.proxy.deleteRow();
+	}
+
+	@Override
+	public int findColumn(String columnLabel) throws SQLException
+	{
+		try
+		{
+			return this.results().findColumn(columnLabel);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public boolean first() throws SQLException
+	{
+		return this.proxy.first();
+	}
+
+	@Override
+	public Array getArray(String columnLabel) throws SQLException
+	{
+		return this.proxy.getArray(columnLabel);
+	}
+
+	@Override
+	public Array getArray(int columnIndex) throws SQLException
+	{
+		return this.proxy.getArray(columnIndex);
+	}
+
+	@Override
+	public InputStream getAsciiStream(String columnLabel) throws SQLException
+	{
+		try
+		{
+			return this.results().getAsciiStream(columnLabel);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public InputStream getAsciiStream(int columnIndex) throws SQLException
+	{
+		try
+		{
+			return this.results().getAsciiStream(columnIndex);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public BigDecimal getBigDecimal(String columnLabel) throws SQLException
+	{
+		try
+		{
+			return this.results().getBigDecimal(columnLabel);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public BigDecimal getBigDecimal(int columnIndex) throws SQLException
+	{
+		try
+		{
+			return this.results().getBigDecimal(columnIndex);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Deprecated
+	@Override
+	public BigDecimal getBigDecimal(String columnLabel, int scale) throws SQLException
+	{
+		try
+		{
+			return this.results().getBigDecimal(columnLabel, scale);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Deprecated
+	@Override
+	public BigDecimal getBigDecimal(int columnIndex, int scale) throws SQLException
+	{
+		try
+		{
+			return this.results().getBigDecimal(columnIndex, scale);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public InputStream getBinaryStream(String columnLabel) throws SQLException
+	{
+		try
+		{
+			return this.results().getBinaryStream(columnLabel);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public InputStream getBinaryStream(int columnIndex) throws SQLException
+	{
+		try
+		{
+			return this.results().getBinaryStream(columnIndex);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public Blob getBlob(String columnLabel) throws SQLException
+	{
+		try
+		{
+			Blob blob = this.results().getBlob(columnLabel);
+			return (blob != null) ? new StreamingBlob(blob, LOB_CHUNK_SIZE) : null;
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public Blob getBlob(int columnIndex) throws SQLException
+	{
+		try
+		{
+			Blob blob = this.results().getBlob(columnIndex);
+			return (blob != null) ? new StreamingBlob(blob, LOB_CHUNK_SIZE) : null;
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public boolean getBoolean(String columnLabel) throws SQLException
+	{
+		try
+		{
+			return this.results().getBoolean(columnLabel);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public boolean getBoolean(int columnIndex) throws SQLException
+	{
+		try
+		{
+			return this.results().getBoolean(columnIndex);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public byte getByte(String columnLabel) throws SQLException
+	{
+		try
+		{
+			return this.results().getByte(columnLabel);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public byte getByte(int columnIndex) throws SQLException
+	{
+		try
+		{
+			return this.results().getByte(columnIndex);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public byte[] getBytes(String columnLabel) throws SQLException
+	{
+		try
+		{
+			return this.results().getBytes(columnLabel);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public byte[] getBytes(int columnIndex) throws SQLException
+	{
+		try
+		{
+			return this.results().getBytes(columnIndex);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public Reader getCharacterStream(String columnLabel) throws SQLException
+	{
+		try
+		{
+			return this.results().getCharacterStream(columnLabel);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public Reader getCharacterStream(int columnIndex) throws SQLException
+	{
+		try
+		{
+			return this.results().getCharacterStream(columnIndex);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public Clob getClob(String columnLabel) throws SQLException
+	{
+		try
+		{
+			Clob clob = this.results().getClob(columnLabel);
+			return (clob != null) ? new StreamingClob(clob, LOB_CHUNK_SIZE) : null;
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public Clob getClob(int columnIndex) throws SQLException
+	{
+		try
+		{
+			Clob clob = this.results().getClob(columnIndex);
+			return (clob != null) ? new StreamingClob(clob, LOB_CHUNK_SIZE) : null;
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public int getConcurrency() throws SQLException
+	{
+		try
+		{
+			return this.results().getConcurrency();
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public String getCursorName() throws SQLException
+	{
+		try
+		{
+			return this.results().getCursorName();
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public Date getDate(String columnLabel) throws SQLException
+	{
+		try
+		{
+			return this.results().getDate(columnLabel);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public Date getDate(int columnIndex) throws SQLException
+	{
+		try
+		{
+			return this.results().getDate(columnIndex);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public Date getDate(String columnLabel, Calendar calendar) throws SQLException
+	{
+		try
+		{
+			return this.results().getDate(columnLabel, calendar);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public Date getDate(int columnIndex, Calendar calendar) throws SQLException
+	{
+		try
+		{
+			return this.results().getDate(columnIndex, calendar);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public double getDouble(String columnLabel) throws SQLException
+	{
+		try
+		{
+			return this.results().getDouble(columnLabel);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public double getDouble(int columnIndex) throws SQLException
+	{
+		try
+		{
+			return this.results().getDouble(columnIndex);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public int getFetchDirection() throws SQLException
+	{
+		try
+		{
+			return this.results().getFetchDirection();
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public int getFetchSize() throws SQLException
+	{
+		try
+		{
+			return this.results().getFetchSize();
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public float getFloat(String columnLabel) throws SQLException
+	{
+		try
+		{
+			return this.results().getFloat(columnLabel);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public float getFloat(int columnIndex) throws SQLException
+	{
+		try
+		{
+			return this.results().getFloat(columnIndex);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public int getHoldability() throws SQLException
+	{
+		try
+		{
+			return this.results().getHoldability();
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public int getInt(String columnLabel) throws SQLException
+	{
+		try
+		{
+			return this.results().getInt(columnLabel);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public int getInt(int columnIndex) throws SQLException
+	{
+		try
+		{
+			return this.results().getInt(columnIndex);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public long getLong(String columnLabel) throws SQLException
+	{
+		try
+		{
+			return this.results().getLong(columnLabel);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public long getLong(int columnIndex) throws SQLException
+	{
+		try
+		{
+			return this.results().getLong(columnIndex);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public ResultSetMetaData getMetaData() throws SQLException
+	{
+		try
+		{
+			return this.results().getMetaData();
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public Reader getNCharacterStream(String columnLabel) throws SQLException
+	{
+		try
+		{
+			return this.results().getNCharacterStream(columnLabel);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public Reader getNCharacterStream(int columnIndex) throws SQLException
+	{
+		try
+		{
+			return this.results().getNCharacterStream(columnIndex);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public NClob getNClob(String columnLabel) throws SQLException
+	{
+		try
+		{
+			NClob clob = this.results().getNClob(columnLabel);
+			return (clob != null) ? new StreamingClob(clob, LOB_CHUNK_SIZE) : null;
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public NClob getNClob(int columnIndex) throws SQLException
+	{
+		try
+		{
+			NClob clob = this.results().getNClob(columnIndex);
+			return (clob != null) ? new StreamingClob(clob, LOB_CHUNK_SIZE) : null;
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public String getNString(String columnLabel) throws SQLException
+	{
+		try
+		{
+			return this.results().getNString(columnLabel);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public String getNString(int columnIndex) throws SQLException
+	{
+		try
+		{
+			return this.results().getNString(columnIndex);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public Object getObject(String columnLabel) throws SQLException
+	{
+		try
+		{
+			return this.results().getObject(columnLabel);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public Object getObject(int columnIndex) throws SQLException
+	{
+		try
+		{
+			return this.results().getObject(columnIndex);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public <T> T getObject(String columnLabel, Class<T> targetClass) throws SQLException
+	{
+		try
+		{
+			return this.results().getObject(columnLabel, targetClass);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public Object getObject(String columnLabel, Map<String, Class<?>> typeMap) throws SQLException
+	{
+		try
+		{
+			return this.results().getObject(columnLabel, typeMap);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public <T> T getObject(int columnIndex, Class<T> targetClass) throws SQLException
+	{
+		try
+		{
+			return this.results().getObject(columnIndex, targetClass);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public Object getObject(int columnIndex, Map<String, Class<?>> typeMap) throws SQLException
+	{
+		try
+		{
+			return this.results().getObject(columnIndex, typeMap);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public Ref getRef(String columnLabel) throws SQLException
+	{
+		return this.proxy.getRef(columnLabel);
+	}
+
+	@Override
+	public Ref getRef(int columnIndex) throws SQLException
+	{
+		return this.proxy.getRef(columnIndex);
+	}
+
+	@Override
+	public int getRow() throws SQLException
+	{
+		try
+		{
+			return this.results().getRow();
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public RowId getRowId(String columnLabel) throws SQLException
+	{
+		try
+		{
+			return this.results().getRowId(columnLabel);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public RowId getRowId(int columnIndex) throws SQLException
+	{
+		try
+		{
+			return this.results().getRowId(columnIndex);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public SQLXML getSQLXML(String columnLabel) throws SQLException
+	{
+		return this.proxy.getSQLXML(columnLabel);
+	}
+
+	@Override
+	public SQLXML getSQLXML(int columnIndex) throws SQLException
+	{
+		return this.proxy.getSQLXML(columnIndex);
+	}
+
+	@Override
+	public short getShort(String columnLabel) throws SQLException
+	{
+		try
+		{
+			return this.results().getShort(columnLabel);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public short getShort(int columnIndex) throws SQLException
+	{
+		try
+		{
+			return this.results().getShort(columnIndex);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public Statement getStatement() throws SQLException
+	{
+		return this.proxy.getStatement();
+	}
+
+	@Override
+	public String getString(String columnLabel) throws SQLException
+	{
+		try
+		{
+			return this.results().getString(columnLabel);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public String getString(int columnIndex) throws SQLException
+	{
+		try
+		{
+			return this.results().getString(columnIndex);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public Time getTime(String columnLabel) throws SQLException
+	{
+		try
+		{
+			return this.results().getTime(columnLabel);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public Time getTime(int columnIndex) throws SQLException
+	{
+		try
+		{
+			return this.results().getTime(columnIndex);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public Time getTime(String columnLabel, Calendar calendar) throws SQLException
+	{
+		try
+		{
+			return this.results().getTime(columnLabel, calendar);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public Time getTime(int columnIndex, Calendar calendar) throws SQLException
+	{
+		try
+		{
+			return this.results().getTime(columnIndex, calendar);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public Timestamp getTimestamp(String columnLabel) throws SQLException
+	{
+		try
+		{
+			return this.results().getTimestamp(columnLabel);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public Timestamp getTimestamp(int columnIndex) throws SQLException
+	{
+		try
+		{
+			return this.results().getTimestamp(columnIndex);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public Timestamp getTimestamp(String columnLabel, Calendar calendar) throws SQLException
+	{
+		try
+		{
+			return this.results().getTimestamp(columnLabel, calendar);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public Timestamp getTimestamp(int columnIndex, Calendar calendar) throws SQLException
+	{
+		try
+		{
+			return this.results().getTimestamp(columnIndex, calendar);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public int getType() throws SQLException
+	{
+		try
+		{
+			return this.results().getType();
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public URL getURL(String columnLabel) throws SQLException
+	{
+		try
+		{
+			return this.results().getURL(columnLabel);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public URL getURL(int columnIndex) throws SQLException
+	{
+		try
+		{
+			return this.results().getURL(columnIndex);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Deprecated
+	@Override
+	public InputStream getUnicodeStream(String columnLabel) throws SQLException
+	{
+		try
+		{
+			return this.results().getUnicodeStream(columnLabel);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Deprecated
+	@Override
+	public InputStream getUnicodeStream(int columnIndex) throws SQLException
+	{
+		try
+		{
+			return this.results().getUnicodeStream(columnIndex);
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public SQLWarning getWarnings() throws SQLException
+	{
+		try
+		{
+			return this.results().getWarnings();
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public void insertRow() throws SQLException
+	{
+		this.proxy.insertRow();
+	}
+
+	@Override
+	public boolean isAfterLast() throws SQLException
+	{
+		try
+		{
+			return this.results().isAfterLast();
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public boolean isBeforeFirst() throws SQLException
+	{
+		try
+		{
+			return this.results().isBeforeFirst();
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public boolean isClosed() throws SQLException
+	{
+		try
+		{
+			return this.results().isClosed();
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public boolean isFirst() throws SQLException
+	{
+		try
+		{
+			return this.results().isFirst();
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public boolean isLast() throws SQLException
+	{
+		try
+		{
+			return this.results().isLast();
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> targetClass) throws SQLException
+	{
+		return this.proxy.isWrapperFor(targetClass);
+	}
+
+	@Override
+	public boolean last() throws SQLException
+	{
+		return this.proxy.last();
+	}
+
+	@Override
+	public void moveToCurrentRow() throws SQLException
+	{
+		this.proxy.moveToCurrentRow();
+	}
+
+	@Override
+	public void moveToInsertRow() throws SQLException
+	{
+		this.proxy.moveToInsertRow();
+	}
+
+	@Override
+	public boolean next() throws SQLException
+	{
+		if (this.moved)
+		{
+			try
+			{
+				return this.results().next();
+			}
+			catch (SQLException e)
+			{
+				throw this.failure(e);
+			}
+		}
+		
+		// Until the first row is consumed, the query can be re-executed against another database
+		while (true)
+		{
+			try
+			{
+				boolean next = this.results().next();
+				this.moved = true;
+				return next;
+			}
+			catch (SQLException e)
+			{
+				ResultSet results = this.factory.failover(e);
+				
+				if (results == null) throw this.failure(e);
+				
+				this.results = results;
+			}
+		}
+	}
+
+	@Override
+	public boolean previous() throws SQLException
+	{
+		return this.proxy.previous();
+	}
+
+	@Override
+	public void refreshRow() throws SQLException
+	{
+		this.proxy.refreshRow();
+	}
+
+	@Override
+	public boolean relative(int rows) throws SQLException
+	{
+		return this.proxy.relative(rows);
+	}
+
+	@Override
+	public boolean rowDeleted() throws SQLException
+	{
+		try
+		{
+			return this.results().rowDeleted();
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public boolean rowInserted() throws SQLException
+	{
+		try
+		{
+			return this.results().rowInserted();
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public boolean rowUpdated() throws SQLException
+	{
+		try
+		{
+			return this.results().rowUpdated();
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+
+	@Override
+	public void setFetchDirection(int direction) throws SQLException
+	{
+		this.proxy.setFetchDirection(direction);
+	}
+
+	@Override
+	public void setFetchSize(int rows) throws SQLException
+	{
+		this.proxy.setFetchSize(rows);
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> targetClass) throws SQLException
+	{
+		return this.proxy.unwrap(targetClass);
+	}
+
+	@Override
+	public void updateArray(String columnLabel, Array value) throws SQLException
+	{
+		this.proxy.updateArray(columnLabel, value);
+	}
+
+	@Override
+	public void updateArray(int columnIndex, Array value) throws SQLException
+	{
+		this.proxy.updateArray(columnIndex, value);
+	}
+
+	@Override
+	public void updateAsciiStream(String columnLabel, InputStream value) throws SQLException
+	{
+		this.proxy.updateAsciiStream(columnLabel, value);
+	}
+
+	@Override
+	public void updateAsciiStream(int columnIndex, InputStream value) throws SQLException
+	{
+		this.proxy.updateAsciiStream(columnIndex, value);
+	}
+
+	@Override
+	public void updateAsciiStream(String columnLabel, InputStream value, int length) throws SQLException
+	{
+		this.proxy.updateAsciiStream(columnLabel, value, length);
+	}
+
+	@Override
+	public void updateAsciiStream(String columnLabel, InputStream value, long length) throws SQLException
+	{
+		this.proxy.updateAsciiStream(columnLabel, value, length);
+	}
+
+	@Override
+	public void updateAsciiStream(int columnIndex, InputStream value, int length) throws SQLException
+	{
+		this.proxy.updateAsciiStream(columnIndex, value, length);
+	}
+
+	@Override
+	public void updateAsciiStream(int columnIndex, InputStream value, long length) throws SQLException
+	{
+		this.proxy.updateAsciiStream(columnIndex, value, length);
+	}
+
+	@Override
+	public void updateBigDecimal(String columnLabel, BigDecimal value) throws SQLException
+	{
+		this.proxy.updateBigDecimal(columnLabel, value);
+	}
+
+	@Override
+	public void updateBigDecimal(int columnIndex, BigDecimal value) throws SQLException
+	{
+		this.proxy.updateBigDecimal(columnIndex, value);
+	}
+
+	@Override
+	public void updateBinaryStream(String columnLabel, InputStream value) throws SQLException
+	{
+		this.proxy.updateBinaryStream(columnLabel, value);
+	}
+
+	@Override
+	public void updateBinaryStream(int columnIndex, InputStream value) throws SQLException
+	{
+		this.proxy.updateBinaryStream(columnIndex, value);
+	}
+
+	@Override
+	public void updateBinaryStream(String columnLabel, InputStream value, int length) throws SQLException
+	{
+		this.proxy.updateBinaryStream(columnLabel, value, length);
+	}
+
+	@Override
+	public void updateBinaryStream(String columnLabel, InputStream value, long length) throws SQLException
+	{
+		this.proxy.updateBinaryStream(columnLabel, value, length);
+	}
+
+	@Override
+	public void updateBinaryStream(int columnIndex, InputStream value, int length) throws SQLException
+	{
+		this.proxy.updateBinaryStream(columnIndex, value, length);
+	}
+
+	@Override
+	public void updateBinaryStream(int columnIndex, InputStream value, long length) throws SQLException
+	{
+		this.proxy.updateBinaryStream(columnIndex, value, length);
+	}
+
+	@Override
+	public void updateBlob(String columnLabel, InputStream value) throws SQLException
+	{
+		this.proxy.updateBlob(columnLabel, value);
+	}
+
+	@Override
+	public void updateBlob(String columnLabel, Blob value) throws SQLException
+	{
+		this.proxy.updateBlob(columnLabel, value);
+	}
+
+	@Override
+	public void updateBlob(int columnIndex, InputStream value) throws SQLException
+	{
+		this.proxy.updateBlob(columnIndex, value);
+	}
+
+	@Override
+	public void updateBlob(int columnIndex, Blob value) throws SQLException
+	{
+		this.proxy.updateBlob(columnIndex, value);
+	}
+
+	@Override
+	public void updateBlob(String columnLabel, InputStream value, long length) throws SQLException
+	{
+		this.proxy.updateBlob(columnLabel, value, length);
+	}
+
+	@Override
+	public void updateBlob(int columnIndex, InputStream value, long length) throws SQLException
+	{
+		this.proxy.updateBlob(columnIndex, value, length);
+	}
+
+	@Override
+	public void updateBoolean(String columnLabel, boolean value) throws SQLException
+	{
+		this.proxy.updateBoolean(columnLabel, value);
+	}
+
+	@Override
+	public void updateBoolean(int columnIndex, boolean value) throws SQLException
+	{
+		this.proxy.updateBoolean(columnIndex, value);
+	}
+
+	@Override
+	public void updateByte(String columnLabel, byte value) throws SQLException
+	{
+		this.proxy.updateByte(columnLabel, value);
+	}
+
+	@Override
+	public void updateByte(int columnIndex, byte value) throws SQLException
+	{
+		this.proxy.updateByte(columnIndex, value);
+	}
+
+	@Override
+	public void updateBytes(String columnLabel, byte[] value) throws SQLException
+	{
+		this.proxy.updateBytes(columnLabel, value);
+	}
+
+	@Override
+	public void updateBytes(int columnIndex, byte[] value) throws SQLException
+	{
+		this.proxy.updateBytes(columnIndex, value);
+	}
+
+	@Override
+	public void updateCharacterStream(String columnLabel, Reader value) throws SQLException
+	{
+		this.proxy.updateCharacterStream(columnLabel, value);
+	}
+
+	@Override
+	public void updateCharacterStream(int columnIndex, Reader value) throws SQLException
+	{
+		this.proxy.updateCharacterStream(columnIndex, value);
+	}
+
+	@Override
+	public void updateCharacterStream(String columnLabel, Reader value, int length) throws SQLException
+	{
+		this.proxy.updateCharacterStream(columnLabel, value, length);
+	}
+
+	@Override
+	public void updateCharacterStream(String columnLabel, Reader value, long length) throws SQLException
+	{
+		this.proxy.updateCharacterStream(columnLabel, value, length);
+	}
+
+	@Override
+	public void updateCharacterStream(int columnIndex, Reader value, int length) throws SQLException
+	{
+		this.proxy.updateCharacterStream(columnIndex, value, length);
+	}
+
+	@Override
+	public void updateCharacterStream(int columnIndex, Reader value, long length) throws SQLException
+	{
+		this.proxy.updateCharacterStream(columnIndex, value, length);
+	}
+
+	@Override
+	public void updateClob(String columnLabel, Reader value) throws SQLException
+	{
+		this.proxy.updateClob(columnLabel, value);
+	}
+
+	@Override
+	public void updateClob(String columnLabel, Clob value) throws SQLException
+	{
+		this.proxy.updateClob(columnLabel, value);
+	}
+
+	@Override
+	public void updateClob(int columnIndex, Reader value) throws SQLException
+	{
+		this.proxy.updateClob(columnIndex, value);
+	}
+
+	@Override
+	public void updateClob(int columnIndex, Clob value) throws SQLException
+	{
+		this.proxy.updateClob(columnIndex, value);
+	}
+
+	@Override
+	public void updateClob(String columnLabel, Reader value, long length) throws SQLException
+	{
+		this.proxy.updateClob(columnLabel, value, length);
+	}
+
+	@Override
+	public void updateClob(int columnIndex, Reader value, long length) throws SQLException
+	{
+		this.proxy.updateClob(columnIndex, value, length);
+	}
+
+	@Override
+	public void updateDate(String columnLabel, Date value) throws SQLException
+	{
+		this.proxy.updateDate(columnLabel, value);
+	}
+
+	@Override
+	public void updateDate(int columnIndex, Date value) throws SQLException
+	{
+		this.proxy.updateDate(columnIndex, value);
+	}
+
+	@Override
+	public void updateDouble(String columnLabel, double value) throws SQLException
+	{
+		this.proxy.updateDouble(columnLabel, value);
+	}
+
+	@Override
+	public void updateDouble(int columnIndex, double value) throws SQLException
+	{
+		this.proxy.updateDouble(columnIndex, value);
+	}
+
+	@Override
+	public void updateFloat(String columnLabel, float value) throws SQLException
+	{
+		this.proxy.updateFloat(columnLabel, value);
+	}
+
+	@Override
+	public void updateFloat(int columnIndex, float value) throws SQLException
+	{
+		this.proxy.updateFloat(columnIndex, value);
+	}
+
+	@Override
+	public void updateInt(String columnLabel, int value) throws SQLException
+	{
+		this.proxy.updateInt(columnLabel, value);
+	}
+
+	@Override
+	public void updateInt(int columnIndex, int value) throws SQLException
+	{
+		this.proxy.updateInt(columnIndex, value);
+	}
+
+	@Override
+	public void updateLong(String columnLabel, long value) throws SQLException
+	{
+		this.proxy.updateLong(columnLabel, value);
+	}
+
+	@Override
+	public void updateLong(int columnIndex, long value) throws SQLException
+	{
+		this.proxy.updateLong(columnIndex, value);
+	}
+
+	@Override
+	public void updateNCharacterStream(String columnLabel, Reader value) throws SQLException
+	{
+		this.proxy.updateNCharacterStream(columnLabel, value);
+	}
+
+	@Override
+	public void updateNCharacterStream(int columnIndex, Reader value) throws SQLException
+	{
+		this.proxy.updateNCharacterStream(columnIndex, value);
+	}
+
+	@Override
+	public void updateNCharacterStream(String columnLabel, Reader value, long length) throws SQLException
+	{
+		this.proxy.updateNCharacterStream(columnLabel, value, length);
+	}
+
+	@Override
+	public void updateNCharacterStream(int columnIndex, Reader value, long length) throws SQLException
+	{
+		this.proxy.updateNCharacterStream(columnIndex, value, length);
+	}
+
+	@Override
+	public void updateNClob(String columnLabel, Reader value) throws SQLException
+	{
+		this.proxy.updateNClob(columnLabel, value);
+	}
+
+	@Override
+	public void updateNClob(String columnLabel, NClob value) throws SQLException
+	{
+		this.proxy.updateNClob(columnLabel, value);
+	}
+
+	@Override
+	public void updateNClob(int columnIndex, Reader value) throws SQLException
+	{
+		this.proxy.updateNClob(columnIndex, value);
+	}
+
+	@Override
+	public void updateNClob(int columnIndex, NClob value) throws SQLException
+	{
+		this.proxy.updateNClob(columnIndex, value);
+	}
+
+	@Override
+	public void updateNClob(String columnLabel, Reader value, long length) throws SQLException
+	{
+		this.proxy.updateNClob(columnLabel, value, length);
+	}
+
+	@Override
+	public void updateNClob(int columnIndex, Reader value, long length) throws SQLException
+	{
+		this.proxy.updateNClob(columnIndex, value, length);
+	}
+
+	@Override
+	public void updateNString(String columnLabel, String value) throws SQLException
+	{
+		this.proxy.updateNString(columnLabel, value);
+	}
+
+	@Override
+	public void updateNString(int columnIndex, String value) throws SQLException
+	{
+		this.proxy.updateNString(columnIndex, value);
+	}
+
+	@Override
+	public void updateNull(String columnLabel) throws SQLException
+	{
+		this.proxy.updateNull(columnLabel);
+	}
+
+	@Override
+	public void updateNull(int columnIndex) throws SQLException
+	{
+		this.proxy.updateNull(columnIndex);
+	}
+
+	@Override
+	public void updateObject(String columnLabel, Object value) throws SQLException
+	{
+		this.proxy.updateObject(columnLabel, value);
+	}
+
+	@Override
+	public void updateObject(int columnIndex, Object value) throws SQLException
+	{
+		this.proxy.updateObject(columnIndex, value);
+	}
+
+	@Override
+	public void updateObject(String columnLabel, Object value, int scaleOrLength) throws SQLException
+	{
+		this.proxy.updateObject(columnLabel, value, scaleOrLength);
+	}
+
+	@Override
+	public void updateObject(int columnIndex, Object value, int scaleOrLength) throws SQLException
+	{
+		this.proxy.updateObject(columnIndex, value, scaleOrLength);
+	}
+
+	@Override
+	public void updateRef(String columnLabel, Ref value) throws SQLException
+	{
+		this.proxy.updateRef(columnLabel, value);
+	}
+
+	@Override
+	public void updateRef(int columnIndex, Ref value) throws SQLException
+	{
+		this.proxy.updateRef(columnIndex, value);
+	}
+
+	@Override
+	public void updateRow() throws SQLException
+	{
+		this.proxy.updateRow();
+	}
+
+	@Override
+	public void updateRowId(String columnLabel, RowId value) throws SQLException
+	{
+		this.proxy.updateRowId(columnLabel, value);
+	}
+
+	@Override
+	public void updateRowId(int columnIndex, RowId value) throws SQLException
+	{
+		this.proxy.updateRowId(columnIndex, value);
+	}
+
+	@Override
+	public void updateSQLXML(String columnLabel, SQLXML value) throws SQLException
+	{
+		this.proxy.updateSQLXML(columnLabel, value);
+	}
+
+	@Override
+	public void updateSQLXML(int columnIndex, SQLXML value) throws SQLException
+	{
+		this.proxy.updateSQLXML(columnIndex, value);
+	}
+
+	@Override
+	public void updateShort(String columnLabel, short value) throws SQLException
+	{
+		this.proxy.updateShort(columnLabel, value);
+	}
+
+	@Override
+	public void updateShort(int columnIndex, short value) throws SQLException
+	{
+		this.proxy.updateShort(columnIndex, value);
+	}
+
+	@Override
+	public void updateString(String columnLabel, String value) throws SQLException
+	{
+		this.proxy.updateString(columnLabel, value);
+	}
+
+	@Override
+	public void updateString(int columnIndex, String value) throws SQLException
+	{
+		this.proxy.updateString(columnIndex, value);
+	}
+
+	@Override
+	public void updateTime(String columnLabel, Time value) throws SQLException
+	{
+		this.proxy.updateTime(columnLabel, value);
+	}
+
+	@Override
+	public void updateTime(int columnIndex, Time value) throws SQLException
+	{
+		this.proxy.updateTime(columnIndex, value);
+	}
+
+	@Override
+	public void updateTimestamp(String columnLabel, Timestamp value) throws SQLException
+	{
+		this.proxy.updateTimestamp(columnLabel, value);
+	}
+
+	@Override
+	public void updateTimestamp(int columnIndex, Timestamp value) throws SQLException
+	{
+		this.proxy.updateTimestamp(columnIndex, value);
+	}
+
+	@Override
+	public boolean wasNull() throws SQLException
+	{
+		try
+		{
+			return this.results().wasNull();
+		}
+		catch (SQLException e)
+		{
+			throw this.failure(e);
+		}
+	}
+}
@@ -53,6 +53,24 @@ public interface TransactionContext<Z, D extends Database<Z>> extends AutoClosea
 	 */
 	<T, R> Invoker<Z, D, T, R, SQLException> start(Invoker<Z, D, T, R, SQLException> invoker, Connection connection) throws SQLException;
 
+	/**
+	 * Decorates the invocation strategy of a lock-free write with start transaction logic.
+	 * If asynchronous writes are enabled, and the connection is not in auto-commit mode,
+	 * the specified strategy is replaced by one that returns as soon as the primary database has responded.
+	 * Otherwise, if a write quorum is configured, it is replaced by one that returns as soon as the quorum of databases have responded.
+	 * @param strategy the invocation strategy to use for a synchronous write
+	 * @param connection
+	 * @return the decorated invocation strategy
+	 * @throws SQLException
+	 */
+	InvocationStrategy write(InvocationStrategy strategy, Connection connection) throws SQLException;
+
+	/**
+	 * Waits for any outstanding asynchronous writes of this context to complete.
+	 * @throws SQLException if interrupted while waiting
+	 */
+	void await() throws SQLException;
+
 	/**
 	 * Decorates the specified invocation strategy with end transaction logic.
 	 * @param strategy
@@ -72,6 +90,15 @@ public interface TransactionContext<Z, D extends Database<Z>> extends AutoClosea
 	 * @throws SQLException
 	 */
 	<T, R> Invoker<Z, D, T, R, SQLException> end(Invoker<Z, D, T, R, SQLException> invoker, Durability.Phase phase) throws SQLException;
+
+	/**
+	 * Returns the invocation strategy to use for a read that would otherwise use the specified strategy,
+	 * such that the read is only routed to databases that have committed the last write of this context.
+	 * If hedged reads are enabled, a read that is slow to respond is also sent to a second database.
+	 * @param strategy an invocation strategy for reads against a single database
+	 * @return an invocation strategy
+	 */
+	InvocationStrategy read(InvocationStrategy strategy);
 	
 	/**
 	 * Closes this transaction context.
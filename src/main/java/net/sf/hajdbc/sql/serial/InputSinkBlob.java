@@ -0,0 +1,221 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.sql.serial;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+
+import net.sf.hajdbc.io.InputSinkChannel;
+
+/**
+ * Read-only {@link Blob}, whose content was spooled once into an input sink, from which each database reads its own stream.
+ * Unlike {@link javax.sql.rowset.serial.SerialBlob}, the content need not reside in the heap, depending on the input sink strategy.
+ * @author Paul Ferraro
+ * @param <S> sink type
+ */
+public class InputSinkBlob<S> implements Blob
+{
+	private final InputSinkChannel<InputStream, S> channel;
+	private final S sink;
+	private final long length;
+	
+	public InputSinkBlob(InputSinkChannel<InputStream, S> channel, S sink, long length)
+	{
+		this.channel = channel;
+		this.sink = sink;
+		this.length = length;
+	}
+
+	@Override
+	public long length()
+	{
+		return this.length;
+	}
+
+	@Override
+	public byte[] getBytes(long position, int length) throws SQLException
+	{
+		byte[] bytes = new byte[(int) Math.min(length, Math.max(this.length - position + 1, 0))];
+		
+		try (InputStream input = this.getBinaryStream(position, bytes.length))
+		{
+			int offset = 0;
+			
+			while (offset < bytes.length)
+			{
+				int count = input.read(bytes, offset, bytes.length - offset);
+				
+				if (count < 0) break;
+				
+				offset += count;
+			}
+			
+			return bytes;
+		}
+		catch (IOException e)
+		{
+			throw new SQLException(e);
+		}
+	}
+
+	@Override
+	public InputStream getBinaryStream() throws SQLException
+	{
+		try
+		{
+			return this.channel.read(this.sink);
+		}
+		catch (IOException e)
+		{
+			throw new SQLException(e);
+		}
+	}
+
+	@Override
+	public InputStream getBinaryStream(long position, final long length) throws SQLException
+	{
+		if ((position < 1) || (position > this.length + 1) || (length < 0))
+		{
+			throw new SQLException(String.format("Invalid position %d or length %d", position, length));
+		}
+		
+		InputStream input = this.getBinaryStream();
+		
+		try
+		{
+			long skip = position - 1;
+			
+			while (skip > 0)
+			{
+				long skipped = input.skip(skip);
+				
+				if (skipped <= 0) break;
+				
+				skip -= skipped;
+			}
+		}
+		catch (IOException e)
+		{
+			throw new SQLException(e);
+		}
+		
+		return new FilterInputStream(input)
+		{
+			private long remaining = length;
+			
+			@Override
+			public int read() throws IOException
+			{
+				if (this.remaining <= 0) return -1;
+				
+				int result = super.read();
+				
+				if (result >= 0)
+				{
+					this.remaining -= 1;
+				}
+				
+				return result;
+			}
+
+			@Override
+			public int read(byte[] bytes, int offset, int length) throws IOException
+			{
+				if (this.remaining <= 0) return -1;
+				
+				int result = super.read(bytes, offset, (int) Math.min(length, this.remaining));
+				
+				if (result > 0)
+				{
+					this.remaining -= result;
+				}
+				
+				return result;
+			}
+
+			@Override
+			public long skip(long count) throws IOException
+			{
+				long result = super.skip(Math.min(count, this.remaining));
+				
+				this.remaining -= result;
+				
+				return result;
+			}
+
+			@Override
+			public int available() throws IOException
+			{
+				return (int) Math.min(super.available(), this.remaining);
+			}
+
+			@Override
+			public boolean markSupported()
+			{
+				return false;
+			}
+		};
+	}
+
+	@Override
+	public long position(byte[] pattern, long start) throws SQLException
+	{
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public long position(Blob pattern, long start) throws SQLException
+	{
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public int setBytes(long position, byte[] bytes) throws SQLException
+	{
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public int setBytes(long position, byte[] bytes, int offset, int length) throws SQLException
+	{
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public OutputStream setBinaryStream(long position) throws SQLException
+	{
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public void truncate(long length) throws SQLException
+	{
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public void free()
+	{
+		// The sink is closed along with its statement
+	}
+}
@@ -0,0 +1,230 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.sql.serial;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.sql.Clob;
+import java.sql.NClob;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+
+import net.sf.hajdbc.io.InputSinkChannel;
+
+/**
+ * Read-only {@link Clob}, or {@link NClob}, whose content was spooled once into an input sink, from which each database reads its own reader.
+ * Unlike {@link javax.sql.rowset.serial.SerialClob}, the content need not reside in the heap, depending on the input sink strategy.
+ * @author Paul Ferraro
+ * @param <S> sink type
+ */
+public class InputSinkClob<S> implements NClob
+{
+	private final InputSinkChannel<Reader, S> channel;
+	private final S sink;
+	private final long length;
+	
+	public InputSinkClob(InputSinkChannel<Reader, S> channel, S sink, long length)
+	{
+		this.channel = channel;
+		this.sink = sink;
+		this.length = length;
+	}
+
+	@Override
+	public long length()
+	{
+		return this.length;
+	}
+
+	@Override
+	public String getSubString(long position, int length) throws SQLException
+	{
+		char[] chars = new char[(int) Math.min(length, Math.max(this.length - position + 1, 0))];
+		
+		try (Reader reader = this.getCharacterStream(position, chars.length))
+		{
+			int offset = 0;
+			
+			while (offset < chars.length)
+			{
+				int count = reader.read(chars, offset, chars.length - offset);
+				
+				if (count < 0) break;
+				
+				offset += count;
+			}
+			
+			return new String(chars, 0, offset);
+		}
+		catch (IOException e)
+		{
+			throw new SQLException(e);
+		}
+	}
+
+	@Override
+	public Reader getCharacterStream() throws SQLException
+	{
+		try
+		{
+			return this.channel.read(this.sink);
+		}
+		catch (IOException e)
+		{
+			throw new SQLException(e);
+		}
+	}
+
+	@Override
+	public Reader getCharacterStream(long position, final long length) throws SQLException
+	{
+		if ((position < 1) || (position > this.length + 1) || (length < 0))
+		{
+			throw new SQLException(String.format("Invalid position %d or length %d", position, length));
+		}
+		
+		Reader reader = this.getCharacterStream();
+		
+		try
+		{
+			long skip = position - 1;
+			
+			while (skip > 0)
+			{
+				long skipped = reader.skip(skip);
+				
+				if (skipped <= 0) break;
+				
+				skip -= skipped;
+			}
+		}
+		catch (IOException e)
+		{
+			throw new SQLException(e);
+		}
+		
+		return new FilterReader(reader)
+		{
+			private long remaining = length;
+			
+			@Override
+			public int read() throws IOException
+			{
+				if (this.remaining <= 0) return -1;
+				
+				int result = super.read();
+				
+				if (result >= 0)
+				{
+					this.remaining -= 1;
+				}
+				
+				return result;
+			}
+
+			@Override
+			public int read(char[] chars, int offset, int length) throws IOException
+			{
+				if (this.remaining <= 0) return -1;
+				
+				int result = super.read(chars, offset, (int) Math.min(length, this.remaining));
+				
+				if (result > 0)
+				{
+					this.remaining -= result;
+				}
+				
+				return result;
+			}
+
+			@Override
+			public long skip(long count) throws IOException
+			{
+				long result = super.skip(Math.min(count, this.remaining));
+				
+				this.remaining -= result;
+				
+				return result;
+			}
+
+			@Override
+			public boolean markSupported()
+			{
+				return false;
+			}
+		};
+	}
+
+	@Override
+	public InputStream getAsciiStream() throws SQLException
+	{
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public long position(String pattern, long start) throws SQLException
+	{
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public long position(Clob pattern, long start) throws SQLException
+	{
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public int setString(long position, String value) throws SQLException
+	{
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public int setString(long position, String value, int offset, int length) throws SQLException
+	{
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public OutputStream setAsciiStream(long position) throws SQLException
+	{
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public Writer setCharacterStream(long position) throws SQLException
+	{
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public void truncate(long length) throws SQLException
+	{
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public void free()
+	{
+		// The sink is closed along with its statement
+	}
+}
@@ -0,0 +1,433 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+
+/**
+ * Sorted map over a fixed, naturally ordered list of keys, whose values are stored in an array indexed by the position of the key.
+ * Intended for collecting per-database results, where the keys are a snapshot of the active databases.
+ * Lookups are linear, and thus only suitable for small key lists.
+ * Sub map views share the value array of their parent map, and can only map keys of the key list.
+ * Putting any other key, e.g. a newly activated database, into the whole map inserts it into a copy of the key list and value array, after which previously created views no longer write through.
+ * @author Paul Ferraro
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class ArraySortedMap<K, V> extends AbstractMap<K, V> implements SortedMap<K, V>
+{
+	// Distinguishes unmapped keys from keys mapped to null
+	private static final Object ABSENT = new Object();
+
+	private List<K> keys;
+	private Object[] values;
+	private final int from;
+	private int to;
+
+	/**
+	 * Creates a new empty map for the specified keys.
+	 * @param keys a list of unique keys, in natural order
+	 */
+	public ArraySortedMap(List<K> keys)
+	{
+		this(keys, new Object[keys.size()], 0, keys.size());
+
+		Arrays.fill(this.values, ABSENT);
+	}
+
+	private ArraySortedMap(List<K> keys, Object[] values, int from, int to)
+	{
+		this.keys = keys;
+		this.values = values;
+		this.from = from;
+		this.to = to;
+	}
+
+	/**
+	 * Maps the key at the specified index of the key list to the specified value.
+	 * @param index an index of the key list
+	 * @param value a value
+	 */
+	public void set(int index, V value)
+	{
+		if ((index < this.from) || (index >= this.to))
+		{
+			throw new IndexOutOfBoundsException(Integer.toString(index));
+		}
+		this.values[index] = value;
+	}
+
+	private int indexOf(Object key)
+	{
+		for (int i = this.from; i < this.to; ++i)
+		{
+			if (this.keys.get(i).equals(key)) return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the index of the first key in this map's range that is not less than the specified key.
+	 */
+	private int lowerBound(K key)
+	{
+		@SuppressWarnings("unchecked")
+		Comparable<? super K> comparable = (Comparable<? super K>) key;
+
+		for (int i = this.from; i < this.to; ++i)
+		{
+			if (comparable.compareTo(this.keys.get(i)) <= 0) return i;
+		}
+		return this.to;
+	}
+
+	@SuppressWarnings("unchecked")
+	V value(int index)
+	{
+		return (V) this.values[index];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see java.util.AbstractMap#size()
+	 */
+	@Override
+	public int size()
+	{
+		int size = 0;
+		for (int i = this.from; i < this.to; ++i)
+		{
+			if (this.values[i] != ABSENT)
+			{
+				size += 1;
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see java.util.AbstractMap#isEmpty()
+	 */
+	@Override
+	public boolean isEmpty()
+	{
+		for (int i = this.from; i < this.to; ++i)
+		{
+			if (this.values[i] != ABSENT) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see java.util.AbstractMap#containsKey(java.lang.Object)
+	 */
+	@Override
+	public boolean containsKey(Object key)
+	{
+		int index = this.indexOf(key);
+		return (index >= 0) && (this.values[index] != ABSENT);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see java.util.AbstractMap#get(java.lang.Object)
+	 */
+	@Override
+	public V get(Object key)
+	{
+		int index = this.indexOf(key);
+		return ((index >= 0) && (this.values[index] != ABSENT)) ? this.value(index) : null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @throws IllegalArgumentException if this map is a view, and the specified key is not within its key list
+	 * @see java.util.AbstractMap#put(java.lang.Object, java.lang.Object)
+	 */
+	@Override
+	public V put(K key, V value)
+	{
+		int index = this.indexOf(key);
+		if (index < 0)
+		{
+			if ((this.from != 0) || (this.to != this.keys.size()))
+			{
+				throw new IllegalArgumentException(String.valueOf(key));
+			}
+			index = this.insert(key);
+		}
+		V old = (this.values[index] != ABSENT) ? this.value(index) : null;
+		this.values[index] = value;
+		return old;
+	}
+
+	/**
+	 * Inserts the specified key into copies of the key list and value array of this map.
+	 * @return the index of the inserted key
+	 */
+	private int insert(K key)
+	{
+		int index = this.lowerBound(key);
+		List<K> keys = new ArrayList<>(this.keys.size() + 1);
+		keys.addAll(this.keys);
+		keys.add(index, key);
+		Object[] values = new Object[this.values.length + 1];
+		System.arraycopy(this.values, 0, values, 0, index);
+		values[index] = ABSENT;
+		System.arraycopy(this.values, index, values, index + 1, this.values.length - index);
+		this.keys = keys;
+		this.values = values;
+		this.to += 1;
+		return index;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see java.util.AbstractMap#remove(java.lang.Object)
+	 */
+	@Override
+	public V remove(Object key)
+	{
+		int index = this.indexOf(key);
+		if ((index < 0) || (this.values[index] == ABSENT)) return null;
+		V old = this.value(index);
+		this.values[index] = ABSENT;
+		return old;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see java.util.AbstractMap#clear()
+	 */
+	@Override
+	public void clear()
+	{
+		Arrays.fill(this.values, this.from, this.to, ABSENT);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see java.util.SortedMap#comparator()
+	 */
+	@Override
+	public Comparator<? super K> comparator()
+	{
+		return null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see java.util.SortedMap#subMap(java.lang.Object, java.lang.Object)
+	 */
+	@Override
+	public SortedMap<K, V> subMap(K fromKey, K toKey)
+	{
+		int from = this.lowerBound(fromKey);
+		return new ArraySortedMap<>(this.keys, this.values, from, Math.max(from, this.lowerBound(toKey)));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see java.util.SortedMap#headMap(java.lang.Object)
+	 */
+	@Override
+	public SortedMap<K, V> headMap(K toKey)
+	{
+		return new ArraySortedMap<>(this.keys, this.values, this.from, this.lowerBound(toKey));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see java.util.SortedMap#tailMap(java.lang.Object)
+	 */
+	@Override
+	public SortedMap<K, V> tailMap(K fromKey)
+	{
+		return new ArraySortedMap<>(this.keys, this.values, this.lowerBound(fromKey), this.to);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see java.util.SortedMap#firstKey()
+	 */
+	@Override
+	public K firstKey()
+	{
+		for (int i = this.from; i < this.to; ++i)
+		{
+			if (this.values[i] != ABSENT) return this.keys.get(i);
+		}
+		throw new NoSuchElementException();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see java.util.SortedMap#lastKey()
+	 */
+	@Override
+	public K lastKey()
+	{
+		for (int i = this.to - 1; i >= this.from; --i)
+		{
+			if (this.values[i] != ABSENT) return this.keys.get(i);
+		}
+		throw new NoSuchElementException();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see java.util.AbstractMap#entrySet()
+	 */
+	@Override
+	public Set<Map.Entry<K, V>> entrySet()
+	{
+		return new AbstractSet<Map.Entry<K, V>>()
+		{
+			@Override
+			public Iterator<Map.Entry<K, V>> iterator()
+			{
+				return new EntryIterator();
+			}
+
+			@Override
+			public int size()
+			{
+				return ArraySortedMap.this.size();
+			}
+
+			@Override
+			public boolean isEmpty()
+			{
+				return ArraySortedMap.this.isEmpty();
+			}
+		};
+	}
+
+	private class EntryIterator implements Iterator<Map.Entry<K, V>>
+	{
+		private int next;
+		private int current = -1;
+
+		EntryIterator()
+		{
+			this.next = this.advance(ArraySortedMap.this.from);
+		}
+
+		private int advance(int index)
+		{
+			int i = index;
+			while ((i < ArraySortedMap.this.to) && (ArraySortedMap.this.values[i] == ABSENT))
+			{
+				i += 1;
+			}
+			return i;
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			return this.next < ArraySortedMap.this.to;
+		}
+
+		@Override
+		public Map.Entry<K, V> next()
+		{
+			if (!this.hasNext())
+			{
+				throw new NoSuchElementException();
+			}
+			this.current = this.next;
+			this.next = this.advance(this.next + 1);
+			return new Entry(this.current);
+		}
+
+		@Override
+		public void remove()
+		{
+			if (this.current < 0)
+			{
+				throw new IllegalStateException();
+			}
+			ArraySortedMap.this.values[this.current] = ABSENT;
+			this.current = -1;
+		}
+	}
+
+	private class Entry implements Map.Entry<K, V>
+	{
+		private final int index;
+
+		Entry(int index)
+		{
+			this.index = index;
+		}
+
+		@Override
+		public K getKey()
+		{
+			return ArraySortedMap.this.keys.get(this.index);
+		}
+
+		@Override
+		public V getValue()
+		{
+			return ArraySortedMap.this.value(this.index);
+		}
+
+		@Override
+		public V setValue(V value)
+		{
+			V old = this.getValue();
+			ArraySortedMap.this.values[this.index] = value;
+			return old;
+		}
+
+		@Override
+		public boolean equals(Object object)
+		{
+			if (!(object instanceof Map.Entry)) return false;
+			Map.Entry<?, ?> entry = (Map.Entry<?, ?>) object;
+			return this.getKey().equals(entry.getKey()) && Objects.equals(this.getValue(), entry.getValue());
+		}
+
+		@Override
+		public int hashCode()
+		{
+			V value = this.getValue();
+			return this.getKey().hashCode() ^ ((value != null) ? value.hashCode() : 0);
+		}
+
+		@Override
+		public String toString()
+		{
+			return this.getKey() + "=" + this.getValue();
+		}
+	}
+}
@@ -26,14 +26,19 @@ public class Files
 {
 	public static String TEMP_FILE_PREFIX = "ha-jdbc_";
 	
-	public static File createTempFile(final String suffix) throws IOException
+	public static File createTempFile(String suffix) throws IOException
+	{
+		return createTempFile(null, suffix);
+	}
+	
+	public static File createTempFile(final File directory, final String suffix) throws IOException
 	{
 		PrivilegedExceptionAction<File> action = new PrivilegedExceptionAction<File>()
 		{
 			@Override
 			public File run() throws IOException
 			{
-				return File.createTempFile(TEMP_FILE_PREFIX, suffix);
+				return File.createTempFile(TEMP_FILE_PREFIX, suffix, directory);
 			}
 		};
 		
@@ -125,6 +125,69 @@ public abstract class AbstractBalancerTest
 		}
 	}
 	
+	@Test
+	public void nextWriteSequence()
+	{
+		Balancer<Void, MockDatabase> balancer = this.factory.createBalancer(new HashSet<>(Arrays.asList(this.databases)));
+		WriteSequenceTracker<MockDatabase> tracker = balancer.getWriteSequenceTracker();
+		
+		long sequence = tracker.next();
+		
+		// Databases without recorded writes are considered current
+		assertTrue(balancer.contains(balancer.next(sequence)));
+		
+		for (MockDatabase database: this.databases)
+		{
+			tracker.committed(database, sequence - 1);
+		}
+		
+		// If no database has caught up, fall back to the primary
+		assertSame(this.databases[0], balancer.next(sequence));
+		
+		tracker.committed(this.databases[2], sequence);
+		
+		assertSame(this.databases[2], balancer.next(sequence));
+		
+		// Committed sequences never regress
+		tracker.committed(this.databases[2], sequence - 1);
+		
+		assertSame(this.databases[2], balancer.next(sequence));
+		
+		tracker.reset(this.databases[1]);
+		
+		MockDatabase next = balancer.next(sequence);
+		assertTrue(next == this.databases[1] || next == this.databases[2]);
+	}
+	
+	@Test
+	public void nextBehind()
+	{
+		Balancer<Void, MockDatabase> balancer = this.factory.createBalancer(new HashSet<>(Arrays.asList(this.databases)));
+		WriteSequenceTracker<MockDatabase> tracker = balancer.getWriteSequenceTracker();
+		
+		// An earlier transaction that has yet to complete holds back the global watermark
+		long pending = tracker.next();
+		long sequence = tracker.next();
+		
+		// The second database has yet to commit the write
+		tracker.committed(this.databases[0], sequence);
+		tracker.committed(this.databases[2], sequence);
+		
+		for (int i = 0; i < 100; ++i)
+		{
+			assertNotSame(this.databases[1], balancer.next(sequence));
+		}
+		
+		tracker.committed(this.databases[1], sequence);
+		
+		assertTrue(tracker.isCommitted(this.databases[1], sequence));
+		
+		tracker.completed(pending);
+		tracker.completed(sequence);
+		
+		assertTrue(tracker.isCommitted(this.databases[1], sequence));
+	}
+	
 	@Test
 	public void primary()
 	{
@@ -0,0 +1,203 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.balancer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import net.sf.hajdbc.MockDatabase;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class WriteSequenceTrackerTest
+{
+	private final MockDatabase db0 = new MockDatabase("0");
+	private final MockDatabase db1 = new MockDatabase("1");
+	
+	@Test
+	public void outOfOrder()
+	{
+		WriteSequenceTracker<MockDatabase> tracker = new WriteSequenceTracker<>();
+		
+		long first = tracker.next();
+		long second = tracker.next();
+		
+		// The later transaction commits first
+		tracker.committed(this.db0, second);
+		tracker.completed(second);
+		
+		Assert.assertTrue(tracker.isCommitted(this.db0, second));
+		Assert.assertFalse(tracker.isCommitted(this.db0, first));
+		Assert.assertFalse(tracker.isCommitted(this.db1, first));
+		Assert.assertFalse(tracker.isCommitted(this.db1, second));
+		
+		tracker.committed(this.db1, first);
+		
+		Assert.assertFalse(tracker.isCommitted(this.db0, first));
+		Assert.assertTrue(tracker.isCommitted(this.db1, first));
+		
+		tracker.committed(this.db0, first);
+		tracker.completed(first);
+		
+		// All sequences have completed
+		Assert.assertTrue(tracker.isCommitted(this.db0, first));
+		Assert.assertTrue(tracker.isCommitted(this.db0, second));
+		Assert.assertTrue(tracker.isCommitted(this.db1, second));
+	}
+	
+	@Test
+	public void rollback()
+	{
+		WriteSequenceTracker<MockDatabase> tracker = new WriteSequenceTracker<>();
+		
+		long first = tracker.next();
+		long second = tracker.next();
+		
+		tracker.committed(this.db0, second);
+		
+		// A rolled back sequence must not hold back the watermark
+		tracker.completed(first);
+		
+		Assert.assertTrue(tracker.isCommitted(this.db0, first));
+		Assert.assertTrue(tracker.isCommitted(this.db1, first));
+		Assert.assertTrue(tracker.isCommitted(this.db0, second));
+		Assert.assertFalse(tracker.isCommitted(this.db1, second));
+		
+		tracker.completed(second);
+		
+		Assert.assertTrue(tracker.isCommitted(this.db1, second));
+	}
+	
+	@Test
+	public void reset()
+	{
+		WriteSequenceTracker<MockDatabase> tracker = new WriteSequenceTracker<>();
+		
+		long first = tracker.next();
+		
+		tracker.committed(this.db0, first);
+		
+		Assert.assertFalse(tracker.isCommitted(this.db1, first));
+		
+		// e.g. following synchronization
+		tracker.reset(this.db1);
+		
+		Assert.assertTrue(tracker.isCommitted(this.db1, first));
+		
+		long second = tracker.next();
+		
+		Assert.assertFalse(tracker.isCommitted(this.db1, second));
+	}
+	
+	@Test
+	public void contiguous()
+	{
+		WriteSequenceTracker<MockDatabase> tracker = new WriteSequenceTracker<>();
+		
+		long first = tracker.next();
+		long second = tracker.next();
+		long third = tracker.next();
+		
+		tracker.committed(this.db0, third);
+		tracker.committed(this.db0, second);
+		
+		Assert.assertFalse(tracker.isCommitted(this.db0, first));
+		Assert.assertTrue(tracker.isCommitted(this.db0, second));
+		Assert.assertTrue(tracker.isCommitted(this.db0, third));
+		
+		// Committing the missing sequence advances the watermark of the database past those committed out of order
+		tracker.committed(this.db0, first);
+		
+		Assert.assertTrue(tracker.isCommitted(this.db0, first));
+		Assert.assertTrue(tracker.isCommitted(this.db0, second));
+		Assert.assertTrue(tracker.isCommitted(this.db0, third));
+		Assert.assertFalse(tracker.isCommitted(this.db1, first));
+		
+		long fourth = tracker.next();
+		
+		Assert.assertFalse(tracker.isCommitted(this.db0, fourth));
+	}
+	
+	@Test
+	public void concurrent() throws Exception
+	{
+		final WriteSequenceTracker<MockDatabase> tracker = new WriteSequenceTracker<>();
+		final int transactions = 1000;
+		int threads = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		
+		try
+		{
+			List<Future<Void>> futures = new ArrayList<>(threads);
+			
+			for (int i = 0; i < threads; ++i)
+			{
+				futures.add(executor.submit(new Callable<Void>()
+				{
+					@Override
+					public Void call()
+					{
+						for (int j = 0; j < transactions; ++j)
+						{
+							long sequence = tracker.next();
+							
+							tracker.committed(WriteSequenceTrackerTest.this.db0, sequence);
+							Assert.assertTrue(tracker.isCommitted(WriteSequenceTrackerTest.this.db0, sequence));
+							
+							// Every other transaction is rolled back on db1
+							if ((sequence % 2) == 0)
+							{
+								tracker.committed(WriteSequenceTrackerTest.this.db1, sequence);
+								Assert.assertTrue(tracker.isCommitted(WriteSequenceTrackerTest.this.db1, sequence));
+							}
+							
+							tracker.completed(sequence);
+							Assert.assertTrue(tracker.isCommitted(WriteSequenceTrackerTest.this.db0, sequence));
+						}
+						return null;
+					}
+				}));
+			}
+			
+			for (Future<Void> future: futures)
+			{
+				future.get();
+			}
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+		
+		long sequence = tracker.next();
+		
+		// All previously allocated sequences completed
+		Assert.assertEquals(threads * transactions + 1, sequence);
+		for (long i = 1; i < sequence; ++i)
+		{
+			Assert.assertTrue(tracker.isCommitted(this.db1, i));
+		}
+		Assert.assertFalse(tracker.isCommitted(this.db0, sequence));
+		Assert.assertFalse(tracker.isCommitted(this.db1, sequence));
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.cache;
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+
+import net.sf.hajdbc.dialect.SQLFeature;
+import net.sf.hajdbc.dialect.SQLFunctionCall;
+
+import org.junit.Test;
+
+public class SQLAnalysisCacheTest
+{
+	private final SQLAnalysisCache cache = new SQLAnalysisCache(2);
+	
+	@Test
+	public void get()
+	{
+		SQLAnalysis analysis = createAnalysis();
+		
+		assertNull(this.cache.get("SELECT 1"));
+		
+		this.cache.put("SELECT 1", analysis);
+		
+		assertSame(analysis, this.cache.get("SELECT 1"));
+		assertEquals(1, this.cache.getHits());
+		assertEquals(1, this.cache.getMisses());
+		assertEquals(1, this.cache.size());
+	}
+	
+	@Test
+	public void evict()
+	{
+		this.cache.put("SELECT 1", createAnalysis());
+		this.cache.put("SELECT 2", createAnalysis());
+		
+		// Reference the first entry, so that it survives eviction
+		assertNotNull(this.cache.get("SELECT 1"));
+		
+		this.cache.put("SELECT 3", createAnalysis());
+		
+		assertEquals(2, this.cache.size());
+		assertEquals(1, this.cache.getEvictions());
+		assertNotNull(this.cache.get("SELECT 1"));
+		assertNull(this.cache.get("SELECT 2"));
+		assertNotNull(this.cache.get("SELECT 3"));
+	}
+	
+	@Test
+	public void clear()
+	{
+		this.cache.put("SELECT 1", createAnalysis());
+		this.cache.put("SELECT 2", createAnalysis());
+		
+		this.cache.clear();
+		
+		assertEquals(0, this.cache.size());
+		assertNull(this.cache.get("SELECT 1"));
+		assertNull(this.cache.get("SELECT 2"));
+	}
+	
+	@Test
+	public void concurrentClear() throws InterruptedException
+	{
+		final SQLAnalysisCache cache = new SQLAnalysisCache(Integer.MAX_VALUE);
+		final int count = 10000;
+		Thread[] threads = new Thread[4];
+		
+		for (int i = 0; i < threads.length; ++i)
+		{
+			final int thread = i;
+			threads[i] = new Thread()
+			{
+				@Override
+				public void run()
+				{
+					for (int j = 0; j < count; ++j)
+					{
+						cache.put(String.format("SELECT %d, %d", thread, j), createAnalysis());
+					}
+				}
+			};
+			threads[i].start();
+		}
+		
+		for (int i = 0; i < 100; ++i)
+		{
+			cache.clear();
+		}
+		
+		for (Thread thread: threads)
+		{
+			thread.join();
+		}
+		
+		// Every surviving entry must be accounted for, such that a subsequent clear removes it
+		int entries = 0;
+		for (int i = 0; i < threads.length; ++i)
+		{
+			for (int j = 0; j < count; ++j)
+			{
+				if (cache.get(String.format("SELECT %d, %d", i, j)) != null)
+				{
+					entries += 1;
+				}
+			}
+		}
+		assertEquals(entries, cache.size());
+		
+		cache.clear();
+		
+		for (int i = 0; i < threads.length; ++i)
+		{
+			for (int j = 0; j < count; ++j)
+			{
+				assertNull(cache.get(String.format("SELECT %d, %d", i, j)));
+			}
+		}
+	}
+	
+	private static SQLAnalysis createAnalysis()
+	{
+		return new SQLAnalysis(Collections.<SQLFeature>emptySet(), Collections.<String>emptyList(), false, Collections.<SQLFunctionCall>emptyList());
+	}
+}
@@ -35,6 +35,7 @@ import java.util.Iterator;
 
 import net.sf.hajdbc.ForeignKeyConstraint;
 import net.sf.hajdbc.QualifiedName;
+import net.sf.hajdbc.SequenceAllocator;
 import net.sf.hajdbc.SequenceProperties;
 import net.sf.hajdbc.SequencePropertiesFactory;
 import net.sf.hajdbc.SequenceSupport;
@@ -181,4 +182,24 @@ public class MaxDBDialectTest extends StandardDialectTest
 
 		assertEquals("SELECT sequence.NEXTVAL FROM DUAL", result);
 	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.dialect.StandardDialectTest#evaluateNextSequenceValues()
+	 */
+	@Override
+	public void evaluateNextSequenceValues() throws SQLException
+	{
+		SequenceSupport support = this.dialect.getSequenceSupport();
+		SequenceAllocator allocator = mock(SequenceAllocator.class);
+		
+		when(allocator.next("sequence")).thenReturn(1L);
+		when(allocator.next("schema.sequence")).thenReturn(2L);
+		
+		assertEquals("INSERT INTO table VALUES (1, 0)", support.evaluateNextSequenceValues("INSERT INTO table VALUES (sequence.nextval, 0)", allocator));
+		assertEquals("INSERT INTO schema.table VALUES (2, 0)", support.evaluateNextSequenceValues("INSERT INTO schema.table VALUES (schema.sequence.NEXTVAL, 0)", allocator));
+		
+		String sql = "SELECT sequence.currval";
+		assertSame(sql, support.evaluateNextSequenceValues(sql, allocator));
+	}
 }
@@ -18,6 +18,8 @@
 package net.sf.hajdbc.dialect;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -33,6 +35,7 @@ import java.util.List;
 import net.sf.hajdbc.ForeignKeyConstraint;
 import net.sf.hajdbc.QualifiedName;
 import net.sf.hajdbc.UniqueConstraint;
+import net.sf.hajdbc.dialect.mysql.MySQLDialect;
 import net.sf.hajdbc.dialect.mysql.MySQLDialectFactory;
 
 /**
@@ -226,4 +229,29 @@ public class MySQLDialectTest extends StandardDialectTest
 		assertEquals("SELECT LOCALTIME FROM test", this.dialect.evaluateCurrentTimestamp("SELECT LOCALTIME FROM test", timestamp));
 		assertEquals("SELECT 1 FROM test", this.dialect.evaluateCurrentTimestamp("SELECT 1 FROM test", timestamp));
 	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.dialect.StandardDialectTest#configureStreaming()
+	 */
+	@Override
+	public void configureStreaming() throws SQLException
+	{
+		// Row streaming is disabled by default
+		super.configureStreaming();
+		
+		Dialect dialect = new MySQLDialect(true);
+		Statement statement = mock(Statement.class);
+		
+		when(statement.getResultSetType()).thenReturn(ResultSet.TYPE_FORWARD_ONLY);
+		when(statement.getResultSetConcurrency()).thenReturn(ResultSet.CONCUR_UPDATABLE);
+		
+		assertFalse(dialect.configureStreaming(statement, 100));
+		
+		when(statement.getResultSetConcurrency()).thenReturn(ResultSet.CONCUR_READ_ONLY);
+		
+		assertTrue(dialect.configureStreaming(statement, 100));
+		
+		verify(statement).setFetchSize(Integer.MIN_VALUE);
+	}
 }
@@ -37,6 +37,7 @@ import java.util.Iterator;
 
 import net.sf.hajdbc.ForeignKeyConstraint;
 import net.sf.hajdbc.QualifiedName;
+import net.sf.hajdbc.SequenceAllocator;
 import net.sf.hajdbc.SequenceProperties;
 import net.sf.hajdbc.SequencePropertiesFactory;
 import net.sf.hajdbc.SequenceSupport;
@@ -182,6 +183,27 @@ public class OracleDialectTest extends StandardDialectTest
 		assertEquals("sequence", support.parseSequence("UPDATE table SET id = sequence.nextval"));
 		assertNull(support.parseSequence("SELECT NEXT VALUE FOR sequence"));
 	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.dialect.StandardDialectTest#evaluateNextSequenceValues()
+	 */
+	@Override
+	public void evaluateNextSequenceValues() throws SQLException
+	{
+		SequenceSupport support = this.dialect.getSequenceSupport();
+		SequenceAllocator allocator = mock(SequenceAllocator.class);
+		
+		when(allocator.next("sequence")).thenReturn(1L).thenReturn(2L);
+		when(allocator.next("schema.sequence")).thenReturn(3L);
+		
+		assertEquals("INSERT INTO table VALUES (1, 0)", support.evaluateNextSequenceValues("INSERT INTO table VALUES (sequence.nextval, 0)", allocator));
+		assertEquals("UPDATE table SET id = 2", support.evaluateNextSequenceValues("UPDATE table SET id = sequence.NEXTVAL", allocator));
+		assertEquals("INSERT INTO schema.table VALUES (3, 0)", support.evaluateNextSequenceValues("INSERT INTO schema.table VALUES (schema.sequence.NEXTVAL, 0)", allocator));
+		
+		String sql = "SELECT sequence.currval";
+		assertSame(sql, support.evaluateNextSequenceValues(sql, allocator));
+	}
 	
 	/**
 	 * {@inheritDoc}
@@ -28,6 +28,7 @@ import java.util.regex.Pattern;
 
 import net.sf.hajdbc.ColumnProperties;
 import net.sf.hajdbc.QualifiedName;
+import net.sf.hajdbc.SequenceAllocator;
 import net.sf.hajdbc.SequenceProperties;
 import net.sf.hajdbc.SequenceSupport;
 import net.sf.hajdbc.TableProperties;
@@ -142,6 +143,25 @@ public class PostgreSQLDialectTest extends StandardDialectTest
 		assertNull(support.parseSequence("SELECT NEXT VALUE FOR sequence"));
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.dialect.StandardDialectTest#evaluateNextSequenceValues()
+	 */
+	@Override
+	public void evaluateNextSequenceValues() throws SQLException
+	{
+		SequenceSupport support = this.dialect.getSequenceSupport();
+		SequenceAllocator allocator = mock(SequenceAllocator.class);
+		
+		when(allocator.next("sequence")).thenReturn(1L).thenReturn(2L);
+		
+		assertEquals("INSERT INTO table VALUES (1, 0)", support.evaluateNextSequenceValues("INSERT INTO table VALUES (NEXTVAL('sequence'), 0)", allocator));
+		assertEquals("UPDATE table SET id = 2", support.evaluateNextSequenceValues("UPDATE table SET id = nextval( 'sequence' )", allocator));
+		
+		String sql = "SELECT CURRVAL('sequence')";
+		assertSame(sql, support.evaluateNextSequenceValues(sql, allocator));
+	}
+
 	/**
 	 * {@inheritDoc}
 	 * @see net.sf.hajdbc.dialect.StandardDialectTest#getDefaultSchemas()
@@ -205,4 +225,29 @@ public class PostgreSQLDialectTest extends StandardDialectTest
 		assertEquals("SELECT RAND() FROM test", this.dialect.evaluateRand("SELECT RAND() FROM test"));
 		assertEquals("SELECT OPERANDOM() FROM test", this.dialect.evaluateRand("SELECT OPERANDOM() FROM test"));
 	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see net.sf.hajdbc.dialect.StandardDialectTest#configureStreaming()
+	 */
+	@Override
+	public void configureStreaming() throws SQLException
+	{
+		Statement statement = mock(Statement.class);
+		Connection connection = mock(Connection.class);
+		
+		when(statement.getConnection()).thenReturn(connection);
+		when(statement.getResultSetType()).thenReturn(ResultSet.TYPE_FORWARD_ONLY);
+		when(connection.getAutoCommit()).thenReturn(true);
+		
+		assertFalse(this.dialect.configureStreaming(statement, 100));
+		
+		verify(statement, never()).setFetchSize(100);
+		
+		when(connection.getAutoCommit()).thenReturn(false);
+		
+		assertTrue(this.dialect.configureStreaming(statement, 100));
+		
+		verify(statement).setFetchSize(100);
+	}
 }
@@ -0,0 +1,105 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.dialect;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the feature detection of long generated SQL statements via the per-feature regular expressions of {@link StandardDialect}, as previously done prior to evaluating and extracting locks from a statement, against a single pass of the {@link SQLLexer}.
+ * The generated statements contain string literals and comments, but none of the detected features.
+ * Run via {@link #main(String[])}.
+ * @author Paul Ferraro
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SQLLexerBenchmark
+{
+	@Param({ "10", "100", "1000" })
+	public int columns;
+
+	private final PatternDialect dialect = new PatternDialect();
+	private List<Pattern> patterns;
+	private String sql;
+
+	@Setup
+	public void setup()
+	{
+		StringBuilder builder = new StringBuilder("SELECT ");
+		for (int i = 0; i < this.columns; ++i)
+		{
+			builder.append("t.column").append(i).append(", 'literal ").append(i).append("' AS alias").append(i).append(", ");
+		}
+		builder.append("1 FROM success t /* comment */ WHERE t.id = ? -- comment\nAND t.name = 'name'");
+		this.sql = builder.toString();
+		this.patterns = this.dialect.patterns();
+	}
+
+	@Benchmark
+	public void patterns(Blackhole blackhole)
+	{
+		for (Pattern pattern: this.patterns)
+		{
+			blackhole.consume(pattern.matcher(this.sql).find());
+		}
+	}
+
+	@Benchmark
+	public void lexer(Blackhole blackhole)
+	{
+		blackhole.consume(this.dialect.scan(this.sql));
+	}
+
+	public static void main(String... args) throws RunnerException
+	{
+		new Runner(new OptionsBuilder().include(SQLLexerBenchmark.class.getSimpleName()).forks(1).build()).run();
+	}
+
+	/**
+	 * Exposes the per-feature patterns of the standard dialect.
+	 */
+	static class PatternDialect extends StandardDialect
+	{
+		List<Pattern> patterns()
+		{
+			String[] patterns = new String[] { this.currentTimestampPattern(), this.currentDatePattern(), this.currentTimePattern(), this.randomPattern(), this.sequencePattern(), this.insertIntoTablePattern(), this.selectForUpdatePattern() };
+			List<Pattern> result = new ArrayList<>(patterns.length);
+			for (String pattern: patterns)
+			{
+				result.add(Pattern.compile(pattern, Pattern.CASE_INSENSITIVE));
+			}
+			return result;
+		}
+	}
+}
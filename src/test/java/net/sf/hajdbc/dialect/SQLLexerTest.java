@@ -0,0 +1,123 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.dialect;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class SQLLexerTest
+{
+	private final SQLLexer lexer;
+	
+	public SQLLexerTest()
+	{
+		Map<SQLFeature, String[]> keywords = new EnumMap<>(SQLFeature.class);
+		keywords.put(SQLFeature.SELECT_FOR_UPDATE, new String[] { "FOR" });
+		keywords.put(SQLFeature.INSERT, new String[] { "INSERT" });
+		keywords.put(SQLFeature.SEQUENCE, new String[] { "NEXT", "NEXTVAL" });
+		keywords.put(SQLFeature.CURRENT_DATE, new String[] { "CURRENT_DATE", "CURRENT" });
+		keywords.put(SQLFeature.CURRENT_TIME, new String[] { "CURRENT_TIME", "CURRENT" });
+		keywords.put(SQLFeature.CURRENT_TIMESTAMP, new String[] { "CURRENT_TIMESTAMP", "CURRENT" });
+		keywords.put(SQLFeature.RAND, new String[] { "RAND" });
+		this.lexer = new SQLLexer(keywords);
+	}
+	
+	@Test
+	public void keywords()
+	{
+		assertEquals(EnumSet.noneOf(SQLFeature.class), this.lexer.scan("SELECT * FROM success"));
+		assertEquals(EnumSet.of(SQLFeature.SELECT_FOR_UPDATE), this.lexer.scan("SELECT * FROM success FOR UPDATE"));
+		assertEquals(EnumSet.of(SQLFeature.INSERT, SQLFeature.SEQUENCE), this.lexer.scan("insert into success (id) values (nextval('seq'))"));
+		assertEquals(EnumSet.of(SQLFeature.SEQUENCE), this.lexer.scan("SELECT nextval('seq')"));
+		assertEquals(EnumSet.of(SQLFeature.CURRENT_DATE, SQLFeature.CURRENT_TIME, SQLFeature.CURRENT_TIMESTAMP), this.lexer.scan("SELECT CURRENT TIMESTAMP FROM success"));
+		assertEquals(EnumSet.of(SQLFeature.RAND), this.lexer.scan("SELECT RAND() FROM success"));
+	}
+	
+	@Test
+	public void identifiers()
+	{
+		// Keywords must match an entire token
+		assertEquals(EnumSet.noneOf(SQLFeature.class), this.lexer.scan("SELECT rand_value, next_id, format FROM inserted"));
+		assertEquals(EnumSet.noneOf(SQLFeature.class), this.lexer.scan("SELECT s.fornext FROM success s"));
+	}
+	
+	@Test
+	public void literals()
+	{
+		assertEquals(EnumSet.noneOf(SQLFeature.class), this.lexer.scan("SELECT 'CURRENT_DATE', 'RAND()' FROM success"));
+		assertEquals(EnumSet.noneOf(SQLFeature.class), this.lexer.scan("SELECT 'it''s for update' FROM success"));
+		assertEquals(EnumSet.noneOf(SQLFeature.class), this.lexer.scan("SELECT \"for\", `next` FROM success"));
+		assertEquals(EnumSet.of(SQLFeature.RAND), this.lexer.scan("SELECT 'CURRENT_DATE', RAND() FROM success"));
+	}
+	
+	@Test
+	public void dollarQuotes()
+	{
+		// PostgreSQL dollar-quoted strings
+		assertEquals(EnumSet.noneOf(SQLFeature.class), this.lexer.scan("SELECT $$it's for update$$ FROM success"));
+		assertEquals(EnumSet.noneOf(SQLFeature.class), this.lexer.scan("SELECT $body$ insert $$rand()$$ 'next $body$ FROM success"));
+		assertEquals(EnumSet.of(SQLFeature.RAND), this.lexer.scan("SELECT $a$ for update $a$, RAND() FROM success"));
+		assertEquals(EnumSet.allOf(SQLFeature.class), this.lexer.scan("SELECT $tag$unterminated$$ FROM success"));
+		assertEquals(Arrays.asList(42), SQLLexer.locateParameterMarkers("SELECT $$?$$, $q$ ? $q$ FROM t WHERE id = ?"));
+		assertTrue(SQLLexer.isQuoted("SELECT $$?$$ FROM success", 9));
+		
+		// Neither positional parameters, nor identifiers containing $
+		assertEquals(Arrays.asList(27), SQLLexer.locateParameterMarkers("SELECT $1, v$a$b FROM t, $2?"));
+		assertEquals(EnumSet.of(SQLFeature.SELECT_FOR_UPDATE), this.lexer.scan("SELECT $1 FROM v$session$ FOR UPDATE"));
+	}
+	
+	@Test
+	public void comments()
+	{
+		assertEquals(EnumSet.noneOf(SQLFeature.class), this.lexer.scan("SELECT * FROM success -- for update\nWHERE id = 1"));
+		assertEquals(EnumSet.noneOf(SQLFeature.class), this.lexer.scan("SELECT * /* insert rand() */ FROM success"));
+		assertEquals(EnumSet.of(SQLFeature.SELECT_FOR_UPDATE), this.lexer.scan("SELECT * FROM success -- comment\nFOR UPDATE"));
+	}
+	
+	@Test
+	public void ambiguous()
+	{
+		// Unterminated literals and comments, or literals containing escapes, cannot be reliably skipped
+		assertEquals(EnumSet.allOf(SQLFeature.class), this.lexer.scan("SELECT 'unterminated FROM success"));
+		assertEquals(EnumSet.allOf(SQLFeature.class), this.lexer.scan("SELECT * FROM success /* unterminated"));
+		assertEquals(EnumSet.allOf(SQLFeature.class), this.lexer.scan("SELECT 'it\\'s' FROM success"));
+		assertEquals(EnumSet.allOf(SQLFeature.class), this.lexer.scan("SELECT \"a\\\"b\" RAND() FROM success"));
+		assertNull(SQLLexer.locateParameterMarkers("SELECT \"a\\\"b\", ? FROM success"));
+	}
+	
+	@Test
+	public void longStatement()
+	{
+		StringBuilder builder = new StringBuilder("SELECT ");
+		for (int i = 0; i < 10000; ++i)
+		{
+			builder.append("column").append(i).append(", 'literal ").append(i).append(" for update', ");
+		}
+		builder.append("1 FROM success /* next value for seq */ WHERE id = 1");
+		String sql = builder.toString();
+		
+		assertEquals(EnumSet.noneOf(SQLFeature.class), this.lexer.scan(sql));
+		assertEquals(EnumSet.of(SQLFeature.SELECT_FOR_UPDATE), this.lexer.scan(sql + " FOR UPDATE"));
+	}
+}
@@ -25,6 +25,7 @@ import static org.junit.Assert.assertTrue;
 import static org.mockito.AdditionalMatchers.aryEq;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -48,9 +49,11 @@ import java.sql.SQLTransactionRollbackException;
 import java.sql.SQLTransientConnectionException;
 import java.sql.SQLTransientException;
 import java.sql.SQLWarning;
+import java.sql.Statement;
 import java.sql.Types;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.regex.Matcher;
@@ -66,6 +69,7 @@ import net.sf.hajdbc.ColumnProperties;
 import net.sf.hajdbc.ForeignKeyConstraint;
 import net.sf.hajdbc.IdentityColumnSupport;
 import net.sf.hajdbc.QualifiedName;
+import net.sf.hajdbc.SequenceAllocator;
 import net.sf.hajdbc.SequenceProperties;
 import net.sf.hajdbc.SequencePropertiesFactory;
 import net.sf.hajdbc.SequenceSupport;
@@ -306,6 +310,25 @@ public class StandardDialectTest
 		}
 	}
 
+	@Test
+	public void evaluateNextSequenceValues() throws SQLException
+	{
+		SequenceSupport support = this.dialect.getSequenceSupport();
+		
+		if (support != null)
+		{
+			SequenceAllocator allocator = mock(SequenceAllocator.class);
+			
+			when(allocator.next("test")).thenReturn(1L).thenReturn(2L);
+			
+			assertEquals("INSERT INTO table VALUES (1, 0)", support.evaluateNextSequenceValues("INSERT INTO table VALUES (NEXT VALUE FOR test, 0)", allocator));
+			assertEquals("INSERT INTO table VALUES (2, 0)", support.evaluateNextSequenceValues("INSERT INTO table VALUES (next value for test, 0)", allocator));
+			
+			String sql = "SELECT * FROM table";
+			assertSame(sql, support.evaluateNextSequenceValues(sql, allocator));
+		}
+	}
+
 	@Test
 	public void getDefaultSchemas() throws SQLException
 	{
@@ -399,6 +422,40 @@ public class StandardDialectTest
 		assertEquals("SELECT 1 FROM test", this.dialect.evaluateRand("SELECT 1 FROM test"));
 	}
 
+	@Test
+	public void locateFunctionCalls()
+	{
+		long now = System.currentTimeMillis();
+		String sql = "SELECT CURRENT_DATE, CURRENT_TIME, CURRENT_TIMESTAMP, LOCALTIME(2), LOCALTIMESTAMP, CURRENT DATE, CURRENT TIME, CURRENT TIMESTAMP, CURDATE(), CURTIME(), NOW(), GETDATE(), RAND() FROM test";
+		
+		// Substituting located calls must be equivalent to the corresponding evaluate method
+		assertEquals(this.dialect.evaluateCurrentDate(sql, new java.sql.Date(now)), this.evaluate(sql, SQLFeature.CURRENT_DATE, now));
+		assertEquals(this.dialect.evaluateCurrentTime(sql, new java.sql.Time(now)), this.evaluate(sql, SQLFeature.CURRENT_TIME, now));
+		assertEquals(this.dialect.evaluateCurrentTimestamp(sql, new java.sql.Timestamp(now)), this.evaluate(sql, SQLFeature.CURRENT_TIMESTAMP, now));
+		
+		List<SQLFunctionCall> calls = this.dialect.locateFunctionCalls(sql, EnumSet.of(SQLFeature.CURRENT_DATE, SQLFeature.CURRENT_TIME, SQLFeature.CURRENT_TIMESTAMP, SQLFeature.RAND));
+		int end = 0;
+		for (SQLFunctionCall call: calls)
+		{
+			assertTrue(call.getStart() >= end);
+			end = call.getEnd();
+		}
+		
+		assertTrue(this.dialect.locateFunctionCalls("SELECT 1 FROM test", EnumSet.of(SQLFeature.CURRENT_DATE, SQLFeature.CURRENT_TIME, SQLFeature.CURRENT_TIMESTAMP, SQLFeature.RAND)).isEmpty());
+	}
+	
+	private String evaluate(String sql, SQLFeature function, long time)
+	{
+		StringBuilder builder = new StringBuilder();
+		int index = 0;
+		for (SQLFunctionCall call: this.dialect.locateFunctionCalls(sql, EnumSet.of(function)))
+		{
+			builder.append(sql, index, call.getStart()).append(this.dialect.evaluateFunction(function, time));
+			index = call.getEnd();
+		}
+		return builder.append(sql, index, sql.length()).toString();
+	}
+
 	@Test
 	public void getAlterIdentityColumnSQL() throws SQLException
 	{
@@ -520,6 +577,24 @@ public class StandardDialectTest
 		assertTrue(result);
 	}
 
+	@Test
+	public void configureStreaming() throws SQLException
+	{
+		Statement statement = mock(Statement.class);
+		
+		when(statement.getResultSetType()).thenReturn(ResultSet.TYPE_SCROLL_INSENSITIVE);
+		
+		assertFalse(this.dialect.configureStreaming(statement, 100));
+		
+		verify(statement, never()).setFetchSize(100);
+		
+		when(statement.getResultSetType()).thenReturn(ResultSet.TYPE_FORWARD_ONLY);
+		
+		assertTrue(this.dialect.configureStreaming(statement, 100));
+		
+		verify(statement).setFetchSize(100);
+	}
+
 	@Test
 	public void getUrlPattern()
 	{
@@ -0,0 +1,216 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.invocation;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import net.sf.hajdbc.DatabaseCluster;
+import net.sf.hajdbc.ExceptionType;
+import net.sf.hajdbc.MockDatabase;
+import net.sf.hajdbc.balancer.Balancer;
+import net.sf.hajdbc.balancer.simple.SimpleBalancerFactory;
+import net.sf.hajdbc.dialect.StandardDialectFactory;
+import net.sf.hajdbc.sql.ProxyFactory;
+import net.sf.hajdbc.sql.RootProxyFactory;
+import net.sf.hajdbc.sql.TransactionModeEnum;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Paul Ferraro
+ */
+public class AsynchronousResultsCollectorTest
+{
+	final MockDatabase db0 = new MockDatabase("0");
+	final MockDatabase db1 = new MockDatabase("1");
+	final Balancer<Void, MockDatabase> balancer = new SimpleBalancerFactory().createBalancer(new HashSet<>(Arrays.asList(this.db0, this.db1)));
+	final ExecutorService executor = Executors.newCachedThreadPool();
+	final List<MockDatabase> deactivated = new CopyOnWriteArrayList<>();
+	final CountDownLatch latch = new CountDownLatch(1);
+	final AsynchronousInvocations invocations = new AsynchronousInvocations();
+	final InvokeOnManyInvocationStrategy.ResultsCollector collector = new AsynchronousResultsCollector(new TransactionalExecutorProvider(false), this.invocations, false);
+	final DatabaseCluster<Void, MockDatabase> cluster = proxy(DatabaseCluster.class, new java.lang.reflect.InvocationHandler()
+	{
+		private final ResultVerifier verifier = new ResultVerifier(0);
+		
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Exception
+		{
+			switch (method.getName())
+			{
+				case "getBalancer": return AsynchronousResultsCollectorTest.this.balancer;
+				case "getExecutor": return AsynchronousResultsCollectorTest.this.executor;
+				case "getTransactionMode": return TransactionModeEnum.PARALLEL;
+				case "getDialect": return new StandardDialectFactory().createDialect();
+				case "getResultVerifier": return this.verifier;
+				case "deactivate":
+				{
+					MockDatabase database = (MockDatabase) args[0];
+					AsynchronousResultsCollectorTest.this.balancer.remove(database);
+					return AsynchronousResultsCollectorTest.this.deactivated.add(database);
+				}
+			}
+			return (method.getReturnType() == Boolean.TYPE) ? Boolean.FALSE : null;
+		}
+	});
+	final ProxyFactory<Void, MockDatabase, Object, SQLException> factory = proxy(RootProxyFactory.class, new java.lang.reflect.InvocationHandler()
+	{
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args)
+		{
+			switch (method.getName())
+			{
+				case "getDatabaseCluster": return AsynchronousResultsCollectorTest.this.cluster;
+				case "getExceptionFactory": return ExceptionType.SQL.getExceptionFactory();
+				case "getRoot": return proxy;
+			}
+			return null;
+		}
+	});
+	
+	@After
+	public void destroy()
+	{
+		this.executor.shutdownNow();
+	}
+	
+	@Test
+	public void acknowledgedByPrimary() throws Exception
+	{
+		final AtomicBoolean written = new AtomicBoolean(false);
+		
+		Map.Entry<SortedMap<MockDatabase, Object>, SortedMap<MockDatabase, SQLException>> results = this.collector.collectResults(this.factory, this.backup("result"));
+		
+		// Returns without waiting for the backup database
+		Assert.assertEquals(Collections.singleton(this.db0), results.getKey().keySet());
+		Assert.assertTrue(results.getValue().isEmpty());
+		Assert.assertFalse(this.invocations.isEmpty());
+		
+		this.invocations.whenWritten(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				written.set(true);
+			}
+		});
+		Assert.assertFalse(written.get());
+		
+		this.latch.countDown();
+		this.invocations.await();
+		
+		Assert.assertTrue(written.get());
+		Assert.assertTrue(this.deactivated.isEmpty());
+	}
+	
+	@Test
+	public void backupFailure() throws Exception
+	{
+		Map.Entry<SortedMap<MockDatabase, Object>, SortedMap<MockDatabase, SQLException>> results = this.collector.collectResults(this.factory, this.backup(new SQLException()));
+		
+		Assert.assertEquals(Collections.singleton(this.db0), results.getKey().keySet());
+		Assert.assertTrue(this.deactivated.isEmpty());
+		
+		this.latch.countDown();
+		this.invocations.await();
+		
+		// Failed asynchronously, thus deactivated asynchronously
+		Assert.assertEquals(Collections.singletonList(this.db1), this.deactivated);
+	}
+	
+	@Test
+	public void backupMismatch() throws Exception
+	{
+		this.collector.collectResults(this.factory, this.backup("other"));
+		
+		this.latch.countDown();
+		this.invocations.await();
+		
+		Assert.assertEquals(Collections.singletonList(this.db1), this.deactivated);
+	}
+	
+	@Test
+	public void primaryFailure() throws Exception
+	{
+		this.latch.countDown();
+		
+		Map.Entry<SortedMap<MockDatabase, Object>, SortedMap<MockDatabase, SQLException>> results = this.collector.collectResults(this.factory, new Invoker<Void, MockDatabase, Object, Object, SQLException>()
+		{
+			@Override
+			public Object invoke(MockDatabase database, Object object) throws SQLException
+			{
+				if (database.equals(AsynchronousResultsCollectorTest.this.db0)) throw new SQLException();
+				return "result";
+			}
+		});
+		
+		// Waits for all databases, such that the failure can be reconciled by the caller
+		Assert.assertEquals(Collections.singleton(this.db1), results.getKey().keySet());
+		Assert.assertEquals(Collections.singleton(this.db0), results.getValue().keySet());
+	}
+	
+	/**
+	 * Creates an invoker that returns "result" from the primary database, and, once the latch is released, the specified outcome from the backup database.
+	 */
+	private Invoker<Void, MockDatabase, Object, Object, SQLException> backup(final Object outcome)
+	{
+		return new Invoker<Void, MockDatabase, Object, Object, SQLException>()
+		{
+			@Override
+			public Object invoke(MockDatabase database, Object object) throws SQLException
+			{
+				if (database.equals(AsynchronousResultsCollectorTest.this.db0)) return "result";
+				
+				try
+				{
+					AsynchronousResultsCollectorTest.this.latch.await();
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+					throw new SQLException(e);
+				}
+				
+				if (outcome instanceof SQLException) throw (SQLException) outcome;
+				
+				return outcome;
+			}
+		};
+	}
+	
+	@SuppressWarnings("unchecked")
+	static <T> T proxy(Class<?> targetClass, java.lang.reflect.InvocationHandler handler)
+	{
+		return (T) Proxy.newProxyInstance(AsynchronousResultsCollectorTest.class.getClassLoader(), new Class<?>[] { targetClass }, handler);
+	}
+}
@@ -0,0 +1,260 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.invocation;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.sf.hajdbc.Database;
+import net.sf.hajdbc.DatabaseCluster;
+import net.sf.hajdbc.ExceptionType;
+import net.sf.hajdbc.MockDatabase;
+import net.sf.hajdbc.balancer.Balancer;
+import net.sf.hajdbc.balancer.simple.SimpleBalancerFactory;
+import net.sf.hajdbc.dialect.StandardDialectFactory;
+import net.sf.hajdbc.sql.ProxyFactory;
+import net.sf.hajdbc.sql.RootProxyFactory;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Paul Ferraro
+ */
+public class HedgedInvocationStrategyTest
+{
+	final MockDatabase db0 = new MockDatabase("0");
+	final MockDatabase db1 = new MockDatabase("1");
+	final Balancer<Void, MockDatabase> balancer = new SimpleBalancerFactory().createBalancer(new HashSet<>(Arrays.asList(this.db0, this.db1)));
+	final ExecutorService executor = Executors.newCachedThreadPool();
+	final List<MockDatabase> deactivated = new CopyOnWriteArrayList<>();
+	final List<Thread> threads = new CopyOnWriteArrayList<>();
+	final CountDownLatch latch = new CountDownLatch(1);
+	final HedgedReadStatistics statistics = new HedgedReadStatistics(50);
+	// Selects each database in turn, such that db0 is always read first, and db1 is always the hedge
+	final InvokeOnOneInvocationStrategy.DatabaseSelector selector = new InvokeOnOneInvocationStrategy.DatabaseSelector()
+	{
+		private final AtomicInteger index = new AtomicInteger(0);
+		
+		@Override
+		public <Z, D extends Database<Z>> D selectDatabase(Balancer<Z, D> balancer)
+		{
+			List<D> databases = balancer.snapshot();
+			return databases.isEmpty() ? null : databases.get(this.index.getAndIncrement() % databases.size());
+		}
+	};
+	final InvocationStrategy strategy = new HedgedInvocationStrategy(this.selector, this.statistics, new AsynchronousInvocations());
+	final DatabaseCluster<Void, MockDatabase> cluster = proxy(DatabaseCluster.class, new java.lang.reflect.InvocationHandler()
+	{
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Exception
+		{
+			switch (method.getName())
+			{
+				case "getBalancer": return HedgedInvocationStrategyTest.this.balancer;
+				case "getExecutor": return HedgedInvocationStrategyTest.this.executor;
+				case "getDialect": return new StandardDialectFactory().createDialect();
+				case "deactivate":
+				{
+					MockDatabase database = (MockDatabase) args[0];
+					HedgedInvocationStrategyTest.this.balancer.remove(database);
+					return HedgedInvocationStrategyTest.this.deactivated.add(database);
+				}
+			}
+			return (method.getReturnType() == Boolean.TYPE) ? Boolean.FALSE : null;
+		}
+	});
+	final ProxyFactory<Void, MockDatabase, Object, SQLException> factory = proxy(RootProxyFactory.class, new java.lang.reflect.InvocationHandler()
+	{
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args)
+		{
+			switch (method.getName())
+			{
+				case "getDatabaseCluster": return HedgedInvocationStrategyTest.this.cluster;
+				case "getExceptionFactory": return ExceptionType.SQL.getExceptionFactory();
+				case "getRoot": return proxy;
+			}
+			return null;
+		}
+	});
+	
+	@After
+	public void destroy()
+	{
+		this.latch.countDown();
+		this.executor.shutdownNow();
+	}
+	
+	@Test
+	public void inline() throws SQLException
+	{
+		SortedMap<MockDatabase, Object> results = this.strategy.invoke(this.factory, this.invoker(null, "hedge", "original"));
+		
+		// No hedging delay is known yet, so the read is invoked by the calling thread
+		Assert.assertEquals(Collections.singletonList(Thread.currentThread()), this.threads);
+		Assert.assertEquals(Collections.singleton(this.db0), results.keySet());
+		Assert.assertEquals("original", results.get(this.db0));
+		Assert.assertEquals(0, this.statistics.getHedges());
+	}
+	
+	@Test
+	public void inlineLatencies() throws SQLException
+	{
+		for (int i = 0; i < 64; ++i)
+		{
+			Assert.assertEquals(-1, this.statistics.getDelay());
+			
+			this.strategy.invoke(this.factory, new Invoker<Void, MockDatabase, Object, Object, SQLException>()
+			{
+				@Override
+				public Object invoke(MockDatabase database, Object object)
+				{
+					return null;
+				}
+			});
+		}
+		
+		// Inline reads establish the hedging delay
+		Assert.assertTrue(this.statistics.getDelay() >= 0);
+	}
+	
+	@Test
+	public void hedge() throws SQLException
+	{
+		this.warm();
+		
+		SortedMap<MockDatabase, Object> results = this.strategy.invoke(this.factory, this.invoker(this.latch, "hedge", "original"));
+		
+		Assert.assertEquals(Collections.singleton(this.db1), results.keySet());
+		Assert.assertEquals("hedge", results.get(this.db1));
+		Assert.assertEquals(1, this.statistics.getHedges());
+		Assert.assertEquals(1, this.statistics.getWins());
+	}
+	
+	@Test
+	public void hedgeException() throws SQLException
+	{
+		this.warm();
+		
+		// Hedge fails, after which the original read succeeds
+		SortedMap<MockDatabase, Object> results = this.strategy.invoke(this.factory, this.invoker(this.latch, new SQLException(), "original"));
+		
+		Assert.assertEquals(Collections.singleton(this.db0), results.keySet());
+		Assert.assertEquals("original", results.get(this.db0));
+		Assert.assertEquals(1, this.statistics.getHedges());
+		Assert.assertEquals(0, this.statistics.getWins());
+		Assert.assertTrue(this.deactivated.isEmpty());
+	}
+	
+	@Test
+	public void hedgeExceptionOriginalFailure() throws SQLException
+	{
+		this.warm();
+		
+		final SQLException hedgeException = new SQLException();
+		final SQLException originalException = new SQLException("failure", "08001");
+		
+		try
+		{
+			this.strategy.invoke(this.factory, this.invoker(this.latch, hedgeException, originalException));
+			Assert.fail();
+		}
+		catch (SQLException e)
+		{
+			// Original database failed, so the exception of the hedge is the outcome of the read
+			Assert.assertSame(hedgeException, e);
+		}
+		
+		Assert.assertEquals(Collections.singletonList(this.db0), this.deactivated);
+	}
+	
+	/**
+	 * Establishes a hedging delay of 1 ms.
+	 */
+	private void warm()
+	{
+		for (int i = 0; i < 64; ++i)
+		{
+			this.statistics.read(TimeUnit.MILLISECONDS.toNanos(1));
+		}
+	}
+	
+	/**
+	 * Creates an invoker returning (or throwing) the specified outcomes from the original and hedged reads.
+	 * If a latch is specified, the original read waits for it, and a failed hedge releases it.
+	 */
+	private Invoker<Void, MockDatabase, Object, Object, SQLException> invoker(final CountDownLatch latch, final Object hedge, final Object original)
+	{
+		return new Invoker<Void, MockDatabase, Object, Object, SQLException>()
+		{
+			@Override
+			public Object invoke(MockDatabase database, Object object) throws SQLException
+			{
+				boolean first = database.equals(HedgedInvocationStrategyTest.this.db0);
+				
+				HedgedInvocationStrategyTest.this.threads.add(Thread.currentThread());
+				
+				if (first && (latch != null))
+				{
+					try
+					{
+						latch.await();
+					}
+					catch (InterruptedException e)
+					{
+						Thread.currentThread().interrupt();
+						throw new SQLException(e);
+					}
+				}
+				
+				Object outcome = first ? original : hedge;
+				
+				if (outcome instanceof SQLException)
+				{
+					if (!first && (latch != null))
+					{
+						latch.countDown();
+					}
+					throw (SQLException) outcome;
+				}
+				
+				return outcome;
+			}
+		};
+	}
+	
+	@SuppressWarnings("unchecked")
+	static <T> T proxy(Class<?> targetClass, java.lang.reflect.InvocationHandler handler)
+	{
+		return (T) Proxy.newProxyInstance(HedgedInvocationStrategyTest.class.getClassLoader(), new Class<?>[] { targetClass }, handler);
+	}
+}
@@ -0,0 +1,274 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.invocation;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import net.sf.hajdbc.DatabaseCluster;
+import net.sf.hajdbc.ExceptionType;
+import net.sf.hajdbc.MockDatabase;
+import net.sf.hajdbc.balancer.Balancer;
+import net.sf.hajdbc.balancer.simple.SimpleBalancerFactory;
+import net.sf.hajdbc.sql.ProxyFactory;
+import net.sf.hajdbc.sql.RootProxyFactory;
+import net.sf.hajdbc.sql.TransactionModeEnum;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Paul Ferraro
+ */
+public class QuorumResultsCollectorTest
+{
+	final MockDatabase db0 = new MockDatabase("0");
+	final MockDatabase db1 = new MockDatabase("1");
+	final MockDatabase db2 = new MockDatabase("2");
+	final Balancer<Void, MockDatabase> balancer = new SimpleBalancerFactory().createBalancer(new HashSet<>(Arrays.asList(this.db0, this.db1, this.db2)));
+	final ExecutorService executor = Executors.newCachedThreadPool();
+	final BlockingQueue<MockDatabase> deactivated = new LinkedBlockingQueue<>();
+	final CountDownLatch latch = new CountDownLatch(1);
+	final CountDownLatch completed = new CountDownLatch(1);
+	final AsynchronousInvocations invocations = new AsynchronousInvocations();
+	volatile boolean cancelled = false;
+	volatile long timeout = 10000;
+	final DatabaseCluster<Void, MockDatabase> cluster = proxy(DatabaseCluster.class, new java.lang.reflect.InvocationHandler()
+	{
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Exception
+		{
+			switch (method.getName())
+			{
+				case "getBalancer": return QuorumResultsCollectorTest.this.balancer;
+				case "getExecutor": return QuorumResultsCollectorTest.this.executor;
+				case "getTransactionMode": return TransactionModeEnum.PARALLEL;
+				case "getWriteQuorum": return 2;
+				case "getWriteQuorumTimeout": return QuorumResultsCollectorTest.this.timeout;
+				case "deactivate":
+				{
+					MockDatabase database = (MockDatabase) args[0];
+					QuorumResultsCollectorTest.this.balancer.remove(database);
+					return QuorumResultsCollectorTest.this.deactivated.add(database);
+				}
+			}
+			return (method.getReturnType() == Boolean.TYPE) ? Boolean.FALSE : null;
+		}
+	});
+	final ProxyFactory<Void, MockDatabase, Object, SQLException> factory = proxy(RootProxyFactory.class, new java.lang.reflect.InvocationHandler()
+	{
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args)
+		{
+			switch (method.getName())
+			{
+				case "getDatabaseCluster": return QuorumResultsCollectorTest.this.cluster;
+				case "getExceptionFactory": return ExceptionType.SQL.getExceptionFactory();
+				case "getRoot": return proxy;
+				case "get": return QuorumResultsCollectorTest.this.statement;
+			}
+			return null;
+		}
+	});
+	final Statement statement = proxy(Statement.class, new java.lang.reflect.InvocationHandler()
+	{
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args)
+		{
+			if (method.getName().equals("cancel"))
+			{
+				// Cancelling the statement aborts the execution of the straggler
+				QuorumResultsCollectorTest.this.cancelled = true;
+				QuorumResultsCollectorTest.this.latch.countDown();
+			}
+			return null;
+		}
+	});
+	
+	@After
+	public void destroy()
+	{
+		this.latch.countDown();
+		this.executor.shutdownNow();
+	}
+	
+	@Test
+	public void quorum() throws Exception
+	{
+		InvokeOnManyInvocationStrategy.ResultsCollector collector = new QuorumResultsCollector(new TransactionalExecutorProvider(false), this.invocations);
+		
+		Map.Entry<SortedMap<MockDatabase, Object>, SortedMap<MockDatabase, SQLException>> results = collector.collectResults(this.factory, this.straggler("result"));
+		
+		// Returns as soon as the quorum is reached, without waiting for the remaining database
+		Assert.assertEquals(new HashSet<>(Arrays.asList(this.db0, this.db1)), results.getKey().keySet());
+		Assert.assertTrue(results.getValue().isEmpty());
+		
+		// The remaining database is an outstanding asynchronous write
+		Assert.assertFalse(this.invocations.isEmpty());
+		
+		this.latch.countDown();
+		this.invocations.await();
+		
+		Assert.assertNull(this.deactivated.poll(100, TimeUnit.MILLISECONDS));
+		Assert.assertFalse(this.cancelled);
+	}
+	
+	@Test
+	public void written() throws Exception
+	{
+		InvokeOnManyInvocationStrategy.ResultsCollector collector = new QuorumResultsCollector(new TransactionalExecutorProvider(false), this.invocations);
+		final BlockingQueue<Object> events = new LinkedBlockingQueue<>();
+		
+		collector.collectResults(this.factory, this.straggler("other"));
+		
+		this.invocations.whenWritten(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				events.add(QuorumResultsCollectorTest.this.deactivated.isEmpty() ? "written" : QuorumResultsCollectorTest.this.deactivated.peek());
+			}
+		});
+		
+		// Locks awaiting the write are not released while a straggler is still writing
+		Assert.assertNull(events.poll(100, TimeUnit.MILLISECONDS));
+		
+		this.latch.countDown();
+		
+		// ...and only once the straggler was verified
+		Assert.assertSame(this.db2, events.poll(5, TimeUnit.SECONDS));
+	}
+	
+	@Test
+	public void stragglerMismatch() throws Exception
+	{
+		InvokeOnManyInvocationStrategy.ResultsCollector collector = new QuorumResultsCollector(new TransactionalExecutorProvider(false), this.invocations);
+		
+		collector.collectResults(this.factory, this.straggler("other"));
+		
+		Assert.assertTrue(this.deactivated.isEmpty());
+		
+		this.latch.countDown();
+		
+		Assert.assertSame(this.db2, this.deactivated.poll(5, TimeUnit.SECONDS));
+	}
+	
+	@Test
+	public void stragglerFailure() throws Exception
+	{
+		InvokeOnManyInvocationStrategy.ResultsCollector collector = new QuorumResultsCollector(new TransactionalExecutorProvider(false), this.invocations);
+		
+		collector.collectResults(this.factory, this.straggler(new SQLException()));
+		
+		this.latch.countDown();
+		
+		Assert.assertSame(this.db2, this.deactivated.poll(5, TimeUnit.SECONDS));
+	}
+	
+	@Test
+	public void timeout() throws Exception
+	{
+		this.timeout = 100;
+		
+		InvokeOnManyInvocationStrategy.ResultsCollector collector = new QuorumResultsCollector(new TransactionalExecutorProvider(false), this.invocations);
+		
+		collector.collectResults(this.factory, this.straggler("result"));
+		
+		// Cancelled and deactivated once the timeout elapses
+		Assert.assertSame(this.db2, this.deactivated.poll(5, TimeUnit.SECONDS));
+		Assert.assertTrue(this.cancelled);
+		
+		// The write completes once the cancelled straggler has returned
+		this.invocations.await();
+		Assert.assertEquals(0, this.completed.getCount());
+	}
+	
+	@Test
+	public void noQuorum() throws Exception
+	{
+		InvokeOnManyInvocationStrategy.ResultsCollector collector = new QuorumResultsCollector(new TransactionalExecutorProvider(false), this.invocations);
+		
+		Map.Entry<SortedMap<MockDatabase, Object>, SortedMap<MockDatabase, SQLException>> results = collector.collectResults(this.factory, new Invoker<Void, MockDatabase, Object, Object, SQLException>()
+		{
+			@Override
+			public Object invoke(MockDatabase database, Object object) throws SQLException
+			{
+				if (database.equals(QuorumResultsCollectorTest.this.db2)) throw new SQLException();
+				return database.getId();
+			}
+		});
+		
+		// Waits for all databases, such that the results can be reconciled by the caller
+		Assert.assertEquals(new HashSet<>(Arrays.asList(this.db0, this.db1)), results.getKey().keySet());
+		Assert.assertEquals(new HashSet<>(Arrays.asList(this.db2)), results.getValue().keySet());
+		Assert.assertTrue(this.deactivated.isEmpty());
+		Assert.assertTrue(this.invocations.isEmpty());
+	}
+	
+	/**
+	 * Creates an invoker that returns "result" from the first two databases, and, once the latch is released, the specified outcome from the last database.
+	 */
+	private Invoker<Void, MockDatabase, Object, Object, SQLException> straggler(final Object outcome)
+	{
+		return new Invoker<Void, MockDatabase, Object, Object, SQLException>()
+		{
+			@Override
+			public Object invoke(MockDatabase database, Object object) throws SQLException
+			{
+				if (!database.equals(QuorumResultsCollectorTest.this.db2)) return "result";
+				
+				try
+				{
+					QuorumResultsCollectorTest.this.latch.await();
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+					throw new SQLException(e);
+				}
+				finally
+				{
+					QuorumResultsCollectorTest.this.completed.countDown();
+				}
+				
+				if (outcome instanceof SQLException) throw (SQLException) outcome;
+				
+				return outcome;
+			}
+		};
+	}
+	
+	@SuppressWarnings("unchecked")
+	static <T> T proxy(Class<?> targetClass, java.lang.reflect.InvocationHandler handler)
+	{
+		return (T) Proxy.newProxyInstance(QuorumResultsCollectorTest.class.getClassLoader(), new Class<?>[] { targetClass }, handler);
+	}
+}
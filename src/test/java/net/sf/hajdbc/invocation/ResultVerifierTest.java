@@ -0,0 +1,136 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.invocation;
+
+import java.util.SortedMap;
+
+import net.sf.hajdbc.MockDatabase;
+import net.sf.hajdbc.sql.InvocationResultFactory;
+import net.sf.hajdbc.util.Objects;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Paul Ferraro
+ */
+public class ResultVerifierTest
+{
+	final InvocationResultFactory<Void, MockDatabase, Object> factory = new InvocationResultFactory<Void, MockDatabase, Object>()
+	{
+		@Override
+		public boolean differs(Object primaryResult, Object backupResult)
+		{
+			return !Objects.equals(primaryResult, backupResult);
+		}
+
+		@Override
+		public Object createResult(SortedMap<MockDatabase, Object> results)
+		{
+			return results.values().iterator().next();
+		}
+	};
+	
+	@Test
+	public void scalar()
+	{
+		ResultVerifier verifier = new ResultVerifier(4);
+		
+		Assert.assertFalse(verifier.differs(this.factory, 1, 1));
+		Assert.assertTrue(verifier.differs(this.factory, 1, 2));
+		
+		Assert.assertEquals(2, verifier.getComparisons());
+		Assert.assertEquals(0, verifier.getSampledComparisons());
+		Assert.assertEquals(1, verifier.getMismatches());
+	}
+	
+	@Test
+	public void full()
+	{
+		ResultVerifier verifier = new ResultVerifier(0);
+		int[] primary = new int[100];
+		int[] backup = new int[100];
+		backup[1] = 1;
+		
+		// Arrays are compared by the result factory
+		Assert.assertTrue(verifier.differs(this.factory, primary, backup));
+		Assert.assertEquals(0, verifier.getSampledComparisons());
+	}
+	
+	@Test
+	public void shortArray()
+	{
+		ResultVerifier verifier = new ResultVerifier(4);
+		int[] primary = new int[4];
+		int[] backup = new int[4];
+		
+		Assert.assertFalse(verifier.differs(this.factory, primary, backup));
+		Assert.assertEquals(0, verifier.getSampledComparisons());
+	}
+	
+	@Test
+	public void length()
+	{
+		ResultVerifier verifier = new ResultVerifier(4);
+		
+		Assert.assertTrue(verifier.differs(this.factory, new int[100], new int[99]));
+		Assert.assertEquals(1, verifier.getSampledComparisons());
+		Assert.assertEquals(1, verifier.getMismatches());
+	}
+	
+	@Test
+	public void sampledMismatch()
+	{
+		ResultVerifier verifier = new ResultVerifier(4);
+		int[] primary = new int[100];
+		int[] backup = new int[100];
+		// Stride is 25, thus the first comparison samples positions 0, 25, 50, 75
+		backup[50] = 1;
+		
+		Assert.assertTrue(verifier.differs(this.factory, primary, backup));
+		Assert.assertEquals(1, verifier.getSampledComparisons());
+		Assert.assertEquals(1, verifier.getMismatches());
+	}
+	
+	@Test
+	public void rotation()
+	{
+		ResultVerifier verifier = new ResultVerifier(4);
+		int[] primary = new int[100];
+		int[] backup = new int[100];
+		// Outside the window of the first comparison
+		backup[7] = 1;
+		
+		int detected = -1;
+		
+		// Every position is sampled exactly once per stride of comparisons
+		for (int i = 0; i < 25; ++i)
+		{
+			if (verifier.differs(this.factory, primary, backup))
+			{
+				Assert.assertEquals(-1, detected);
+				detected = i;
+			}
+		}
+		
+		// Offset of the 8th comparison is 7
+		Assert.assertEquals(7, detected);
+		Assert.assertEquals(25, verifier.getSampledComparisons());
+		Assert.assertEquals(1, verifier.getMismatches());
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.invocation;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import net.sf.hajdbc.MockDatabase;
+import net.sf.hajdbc.util.ArraySortedMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the per-invocation allocation of collecting results into {@link TreeMap}s, as previously done by {@link AllResultsCollector}, against collecting them into arrays indexed by the balancer snapshot.
+ * Each benchmark collects one result per database, then performs the reads of {@link InvokeOnManyInvocationStrategy} and of result reconciliation.
+ * Run via {@link #main(String[])}, which enables the GC profiler, and compare the reported gc.alloc.rate.norm.
+ * @author Paul Ferraro
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ResultsCollectorBenchmark
+{
+	@Param({ "2", "3", "5" })
+	public int databases;
+
+	private List<MockDatabase> snapshot;
+
+	@Setup
+	public void setup()
+	{
+		List<MockDatabase> snapshot = new ArrayList<>(this.databases);
+		for (int i = 0; i < this.databases; ++i)
+		{
+			snapshot.add(new MockDatabase(Integer.toString(i)));
+		}
+		this.snapshot = snapshot;
+	}
+
+	@Benchmark
+	public void treeMap(Blackhole blackhole)
+	{
+		List<MockDatabase> invocations = new ArrayList<>(this.snapshot.size());
+		for (MockDatabase database: this.snapshot)
+		{
+			invocations.add(database);
+		}
+		List<Object> futures = new ArrayList<>(invocations.size());
+		for (MockDatabase database: invocations)
+		{
+			futures.add(database.getId());
+		}
+		SortedMap<MockDatabase, Object> resultMap = new TreeMap<>();
+		SortedMap<MockDatabase, Exception> exceptionMap = new TreeMap<>();
+		for (int i = 0; i < invocations.size(); ++i)
+		{
+			resultMap.put(invocations.get(i), futures.get(i));
+		}
+		this.consume(blackhole, new AbstractMap.SimpleImmutableEntry<>(resultMap, exceptionMap));
+	}
+
+	@Benchmark
+	public void arrays(Blackhole blackhole)
+	{
+		List<MockDatabase> snapshot = this.snapshot;
+		int size = snapshot.size();
+		Object[] futures = new Object[size];
+		for (int i = 0; i < size; ++i)
+		{
+			futures[i] = snapshot.get(i).getId();
+		}
+		ArraySortedMap<MockDatabase, Object> resultMap = new ArraySortedMap<>(snapshot);
+		ArraySortedMap<MockDatabase, Exception> exceptionMap = new ArraySortedMap<>(snapshot);
+		for (int i = 0; i < size; ++i)
+		{
+			resultMap.set(i, futures[i]);
+		}
+		this.consume(blackhole, new AbstractMap.SimpleImmutableEntry<SortedMap<MockDatabase, Object>, SortedMap<MockDatabase, Exception>>(resultMap, exceptionMap));
+	}
+
+	private void consume(Blackhole blackhole, Map.Entry<? extends SortedMap<MockDatabase, Object>, ? extends SortedMap<MockDatabase, Exception>> results)
+	{
+		SortedMap<MockDatabase, Object> resultMap = results.getKey();
+		blackhole.consume(results.getValue().isEmpty());
+		for (Map.Entry<MockDatabase, Object> entry: resultMap.entrySet())
+		{
+			blackhole.consume(entry.getValue());
+		}
+		blackhole.consume(resultMap.firstKey());
+	}
+
+	public static void main(String... args) throws RunnerException
+	{
+		new Runner(new OptionsBuilder().include(ResultsCollectorBenchmark.class.getSimpleName()).addProfiler(GCProfiler.class).forks(1).build()).run();
+	}
+}
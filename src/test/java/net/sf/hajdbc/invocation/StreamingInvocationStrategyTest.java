@@ -0,0 +1,199 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.invocation;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import net.sf.hajdbc.Database;
+import net.sf.hajdbc.DatabaseCluster;
+import net.sf.hajdbc.ExceptionType;
+import net.sf.hajdbc.MockDatabase;
+import net.sf.hajdbc.dialect.Dialect;
+import net.sf.hajdbc.dialect.StandardDialectFactory;
+import net.sf.hajdbc.dialect.mysql.MySQLDialect;
+import net.sf.hajdbc.dialect.mysql.MySQLDialectFactory;
+import net.sf.hajdbc.sql.ProxyFactory;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Paul Ferraro
+ */
+public class StreamingInvocationStrategyTest
+{
+	final MockDatabase database = new MockDatabase("0");
+	// Invokes directly against a single database
+	final InvocationStrategy strategy = new InvocationStrategy()
+	{
+		@Override
+		public <Z, D extends Database<Z>, T, R, E extends Exception> SortedMap<D, R> invoke(ProxyFactory<Z, D, T, E> map, Invoker<Z, D, T, R, E> invoker) throws E
+		{
+			@SuppressWarnings("unchecked")
+			D database = (D) StreamingInvocationStrategyTest.this.database;
+			SortedMap<D, R> results = new TreeMap<>();
+			results.put(database, invoker.invoke(database, map.get(database)));
+			return results;
+		}
+	};
+	volatile Dialect dialect = new StandardDialectFactory().createDialect();
+	volatile int fetchSize = 0;
+	final Statement statement = proxy(Statement.class, new java.lang.reflect.InvocationHandler()
+	{
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args)
+		{
+			switch (method.getName())
+			{
+				case "getFetchSize": return StreamingInvocationStrategyTest.this.fetchSize;
+				case "setFetchSize":
+				{
+					StreamingInvocationStrategyTest.this.fetchSize = (Integer) args[0];
+					return null;
+				}
+				case "getResultSetType": return ResultSet.TYPE_FORWARD_ONLY;
+				case "getResultSetConcurrency": return ResultSet.CONCUR_READ_ONLY;
+			}
+			return null;
+		}
+	});
+	final ProxyFactory<Void, MockDatabase, Statement, SQLException> factory = proxy(ProxyFactory.class, new java.lang.reflect.InvocationHandler()
+	{
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args)
+		{
+			switch (method.getName())
+			{
+				case "getDatabaseCluster": return StreamingInvocationStrategyTest.this.cluster;
+				case "getExceptionFactory": return ExceptionType.SQL.getExceptionFactory();
+				case "get": return StreamingInvocationStrategyTest.this.statement;
+			}
+			return null;
+		}
+	});
+	final DatabaseCluster<Void, MockDatabase> cluster = proxy(DatabaseCluster.class, new java.lang.reflect.InvocationHandler()
+	{
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args)
+		{
+			switch (method.getName())
+			{
+				case "getDialect": return StreamingInvocationStrategyTest.this.dialect;
+			}
+			return null;
+		}
+	});
+	// Returns the fetch size in effect during execution
+	final Invoker<Void, MockDatabase, Statement, Integer, SQLException> invoker = new Invoker<Void, MockDatabase, Statement, Integer, SQLException>()
+	{
+		@Override
+		public Integer invoke(MockDatabase database, Statement statement) throws SQLException
+		{
+			return statement.getFetchSize();
+		}
+	};
+	
+	@Test
+	public void stream() throws SQLException
+	{
+		SortedMap<MockDatabase, Integer> results = new StreamingInvocationStrategy(this.strategy, 100).invoke(this.factory, this.invoker);
+		
+		Assert.assertEquals(Integer.valueOf(100), results.get(this.database));
+		// Fetch size is restored following execution
+		Assert.assertEquals(0, this.fetchSize);
+	}
+	
+	@Test
+	public void mysql() throws SQLException
+	{
+		this.dialect = new MySQLDialectFactory().createDialect();
+		
+		// Row streaming is opt-in
+		SortedMap<MockDatabase, Integer> results = new StreamingInvocationStrategy(this.strategy, 100).invoke(this.factory, this.invoker);
+		
+		Assert.assertEquals(Integer.valueOf(100), results.get(this.database));
+		Assert.assertEquals(0, this.fetchSize);
+		
+		this.dialect = new MySQLDialect(true);
+		
+		results = new StreamingInvocationStrategy(this.strategy, 100).invoke(this.factory, this.invoker);
+		
+		Assert.assertEquals(Integer.valueOf(Integer.MIN_VALUE), results.get(this.database));
+		// Otherwise, subsequent queries would also be streamed
+		Assert.assertEquals(0, this.fetchSize);
+	}
+	
+	@Test
+	public void applicationFetchSize() throws SQLException
+	{
+		for (int fetchSize: new int[] { 100, 500, Integer.MIN_VALUE })
+		{
+			this.fetchSize = fetchSize;
+			
+			SortedMap<MockDatabase, Integer> results = new StreamingInvocationStrategy(this.strategy, 100).invoke(this.factory, this.invoker);
+			
+			Assert.assertEquals(Integer.valueOf(fetchSize), results.get(this.database));
+			Assert.assertEquals(fetchSize, this.fetchSize);
+		}
+	}
+	
+	@Test
+	public void driverFetchSize() throws SQLException
+	{
+		// e.g. Oracle
+		this.fetchSize = 10;
+		
+		SortedMap<MockDatabase, Integer> results = new StreamingInvocationStrategy(this.strategy, 100).invoke(this.factory, this.invoker);
+		
+		Assert.assertEquals(Integer.valueOf(100), results.get(this.database));
+		Assert.assertEquals(10, this.fetchSize);
+	}
+	
+	@Test
+	public void failure()
+	{
+		try
+		{
+			new StreamingInvocationStrategy(this.strategy, 100).invoke(this.factory, new Invoker<Void, MockDatabase, Statement, Integer, SQLException>()
+			{
+				@Override
+				public Integer invoke(MockDatabase database, Statement statement) throws SQLException
+				{
+					throw new SQLException();
+				}
+			});
+			Assert.fail();
+		}
+		catch (SQLException e)
+		{
+			Assert.assertEquals(0, this.fetchSize);
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	static <T> T proxy(Class<?> targetClass, java.lang.reflect.InvocationHandler handler)
+	{
+		return (T) Proxy.newProxyInstance(StreamingInvocationStrategyTest.class.getClassLoader(), new Class<?>[] { targetClass }, handler);
+	}
+}
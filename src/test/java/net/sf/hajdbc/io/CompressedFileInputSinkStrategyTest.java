@@ -0,0 +1,14 @@
+package net.sf.hajdbc.io;
+
+import java.io.File;
+import java.util.zip.Deflater;
+
+import net.sf.hajdbc.io.file.FileInputSinkStrategy;
+
+public class CompressedFileInputSinkStrategyTest extends InputSinkStrategyTest<File>
+{
+	public CompressedFileInputSinkStrategyTest()
+	{
+		super(new FileInputSinkStrategy(null, FileInputSinkStrategy.DEFAULT_POOL_SIZE, 0, FileInputSinkStrategy.DEFAULT_TIMEOUT, Deflater.BEST_SPEED));
+	}
+}
@@ -0,0 +1,133 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import net.sf.hajdbc.io.simple.SimpleInputSinkStrategy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares writing stream parameters of various sizes into an in-memory sink one byte or character at a time, as previously done by the simple input sink channels, against bulk reads into a sink pre-sized via the length hint, with and without such a hint.
+ * Run via {@link #main(String[])}, which enables the GC profiler.
+ * @author Paul Ferraro
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class InputSinkChannelBenchmark
+{
+	@Param({ "1024", "1048576", "10485760", "104857600" })
+	public int size;
+
+	private byte[] bytes;
+	private char[] chars;
+	private InputSinkChannel<InputStream, byte[]> streamChannel;
+	private InputSinkChannel<Reader, byte[]> readerChannel;
+
+	@Setup
+	public void setup()
+	{
+		this.bytes = new byte[this.size];
+		this.chars = new char[this.size];
+		Arrays.fill(this.bytes, (byte) 'x');
+		Arrays.fill(this.chars, 'x');
+		InputSinkStrategy<byte[]> strategy = new SimpleInputSinkStrategy();
+		this.streamChannel = strategy.createInputStreamChannel();
+		this.readerChannel = strategy.createReaderChannel();
+	}
+
+	@Benchmark
+	public byte[] streamPerByte() throws IOException
+	{
+		InputStream input = new ByteArrayInputStream(this.bytes);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		int b = input.read();
+		while (b >= 0)
+		{
+			output.write(b);
+			b = input.read();
+		}
+		return output.toByteArray();
+	}
+
+	@Benchmark
+	public byte[] streamBulk() throws IOException
+	{
+		return this.streamChannel.write(new ByteArrayInputStream(this.bytes));
+	}
+
+	@Benchmark
+	public byte[] streamBulkWithLength() throws IOException
+	{
+		return this.streamChannel.write(new ByteArrayInputStream(this.bytes), this.size);
+	}
+
+	@Benchmark
+	public byte[] readerPerChar() throws IOException
+	{
+		Reader reader = new CharArrayReader(this.chars);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		OutputStreamWriter writer = new OutputStreamWriter(output);
+		int c = reader.read();
+		while (c >= 0)
+		{
+			writer.write(c);
+			c = reader.read();
+		}
+		writer.flush();
+		return output.toByteArray();
+	}
+
+	@Benchmark
+	public byte[] readerBulk() throws IOException
+	{
+		return this.readerChannel.write(new CharArrayReader(this.chars));
+	}
+
+	@Benchmark
+	public byte[] readerBulkWithLength() throws IOException
+	{
+		return this.readerChannel.write(new CharArrayReader(this.chars), this.size);
+	}
+
+	public static void main(String... args) throws RunnerException
+	{
+		new Runner(new OptionsBuilder().include(InputSinkChannelBenchmark.class.getSimpleName()).addProfiler(GCProfiler.class).forks(1).build()).run();
+	}
+}
@@ -65,4 +65,64 @@ public abstract class InputSinkStrategyTest<S>
 			Assert.assertArrayEquals(expected, result);
 		}
 	}
+	
+	@Test
+	public void testInputStreamChannelLength() throws IOException
+	{
+		byte[] expected = new byte[Short.MAX_VALUE];
+		
+		this.random.nextBytes(expected);
+		
+		InputSinkChannel<InputStream, S> channel = this.strategy.createInputStreamChannel();
+		
+		// Input must be consumed fully, regardless of the length hint
+		for (long length: new long[] { 0, expected.length / 2, expected.length, expected.length * 2 })
+		{
+			S sink = channel.write(new ByteArrayInputStream(expected), length);
+			
+			try (InputStream input = channel.read(sink))
+			{
+				byte[] result = new byte[Short.MAX_VALUE];
+				
+				input.read(result);
+				
+				Assert.assertArrayEquals(expected, result);
+				Assert.assertEquals(-1, input.read());
+			}
+			
+			this.strategy.close(sink);
+		}
+	}
+	
+	@Test
+	public void testReaderChannelLength() throws IOException
+	{
+		int min = ' ';
+		int max = '~';
+		char[] expected = new char[Short.MAX_VALUE];
+		for (int i = 0; i < expected.length; ++i)
+		{
+			expected[i] = (char) (this.random.nextInt(max - min) + min);
+		}
+
+		InputSinkChannel<Reader, S> channel = this.strategy.createReaderChannel();
+		
+		// Input must be consumed fully, regardless of the length hint
+		for (long length: new long[] { 0, expected.length / 2, expected.length, expected.length * 2 })
+		{
+			S sink = channel.write(new CharArrayReader(expected), length);
+			
+			try (Reader reader = channel.read(sink))
+			{
+				char[] result = new char[Short.MAX_VALUE];
+				
+				reader.read(result);
+				
+				Assert.assertArrayEquals(expected, result);
+				Assert.assertEquals(-1, reader.read());
+			}
+			
+			this.strategy.close(sink);
+		}
+	}
 }
@@ -0,0 +1,107 @@
+package net.sf.hajdbc.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.Arrays;
+
+import net.sf.hajdbc.io.offheap.OffHeapInputSink;
+import net.sf.hajdbc.io.offheap.OffHeapInputSinkProvider;
+import net.sf.hajdbc.io.offheap.OffHeapInputSinkStrategy;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class OffHeapInputSinkStrategyTest extends InputSinkStrategyTest<OffHeapInputSink>
+{
+	private final OffHeapInputSinkStrategy strategy;
+	
+	public OffHeapInputSinkStrategyTest()
+	{
+		this(new OffHeapInputSinkStrategy(OffHeapInputSinkProvider.DEFAULT_THRESHOLD, null));
+	}
+	
+	private OffHeapInputSinkStrategyTest(OffHeapInputSinkStrategy strategy)
+	{
+		super(strategy);
+		this.strategy = strategy;
+	}
+	
+	@Test
+	public void testInputStreamChannelCloseWithOpenReader() throws IOException
+	{
+		InputSinkChannel<InputStream, OffHeapInputSink> channel = this.strategy.createInputStreamChannel();
+		
+		byte[] expected = new byte[Short.MAX_VALUE];
+		Arrays.fill(expected, (byte) 1);
+		
+		OffHeapInputSink sink = channel.write(new ByteArrayInputStream(expected));
+		
+		try (InputStream input = channel.read(sink))
+		{
+			this.strategy.close(sink);
+			
+			Assert.assertNull(sink.getBuffer());
+			
+			// Buffer of the closed sink must not be recycled while still being read
+			OffHeapInputSink other = channel.write(new ByteArrayInputStream(new byte[Short.MAX_VALUE]));
+			
+			byte[] result = new byte[Short.MAX_VALUE];
+			
+			input.read(result);
+			
+			Assert.assertArrayEquals(expected, result);
+			
+			this.strategy.close(other);
+		}
+		
+		try
+		{
+			channel.read(sink);
+			Assert.fail();
+		}
+		catch (IOException e)
+		{
+			// Expected
+		}
+	}
+	
+	@Test
+	public void testReaderChannelCloseWithOpenReader() throws IOException
+	{
+		InputSinkChannel<Reader, OffHeapInputSink> channel = this.strategy.createReaderChannel();
+		
+		char[] expected = new char[Short.MAX_VALUE];
+		Arrays.fill(expected, 'x');
+		
+		OffHeapInputSink sink = channel.write(new CharArrayReader(expected));
+		
+		try (Reader reader = channel.read(sink))
+		{
+			this.strategy.close(sink);
+			
+			// Buffer of the closed sink must not be recycled while still being read
+			OffHeapInputSink other = channel.write(new CharArrayReader(new char[Short.MAX_VALUE]));
+			
+			char[] result = new char[Short.MAX_VALUE];
+			
+			reader.read(result);
+			
+			Assert.assertArrayEquals(expected, result);
+			
+			this.strategy.close(other);
+		}
+		
+		try
+		{
+			channel.read(sink);
+			Assert.fail();
+		}
+		catch (IOException e)
+		{
+			// Expected
+		}
+	}
+}
@@ -1,11 +1,68 @@
 package net.sf.hajdbc.io;
 
+import java.io.ByteArrayInputStream;
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
 import net.sf.hajdbc.io.simple.SimpleInputSinkStrategy;
 
+import org.junit.Assert;
+import org.junit.Test;
+
 public class SimpleInputSinkStrategyTest extends InputSinkStrategyTest<byte[]>
 {
+	// Length hints that must neither overflow, nor be trusted to pre-allocate the sink
+	private static final long[] LENGTHS = new long[] { Long.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE / 2, -1, Long.MIN_VALUE };
+	
+	private final SimpleInputSinkStrategy strategy;
+	
 	public SimpleInputSinkStrategyTest()
 	{
-		super(new SimpleInputSinkStrategy());
+		this(new SimpleInputSinkStrategy());
+	}
+	
+	private SimpleInputSinkStrategyTest(SimpleInputSinkStrategy strategy)
+	{
+		super(strategy);
+		this.strategy = strategy;
+	}
+	
+	@Test
+	public void testInputStreamChannelHugeLength() throws IOException
+	{
+		byte[] expected = new byte[] { 1, 2, 3 };
+		InputSinkChannel<InputStream, byte[]> channel = this.strategy.createInputStreamChannel();
+		
+		for (long length: LENGTHS)
+		{
+			byte[] sink = channel.write(new ByteArrayInputStream(expected), length);
+			
+			Assert.assertArrayEquals(expected, sink);
+		}
+	}
+	
+	@Test
+	public void testReaderChannelHugeLength() throws IOException
+	{
+		char[] expected = new char[] { 'a', 'b', 'c' };
+		InputSinkChannel<Reader, byte[]> channel = this.strategy.createReaderChannel();
+		
+		for (long length: LENGTHS)
+		{
+			byte[] sink = channel.write(new CharArrayReader(expected), length);
+			
+			Assert.assertEquals(expected.length * 2, sink.length);
+			
+			try (Reader reader = channel.read(sink))
+			{
+				char[] result = new char[expected.length];
+				
+				Assert.assertEquals(expected.length, reader.read(result));
+				Assert.assertArrayEquals(expected, result);
+				Assert.assertEquals(-1, reader.read());
+			}
+		}
 	}
 }
@@ -0,0 +1,88 @@
+package net.sf.hajdbc.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.CharArrayReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+import net.sf.hajdbc.io.offheap.OffHeapInputSink;
+import net.sf.hajdbc.io.offheap.OffHeapInputSinkStrategy;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SpilledOffHeapInputSinkStrategyTest extends InputSinkStrategyTest<OffHeapInputSink>
+{
+	private final OffHeapInputSinkStrategy strategy;
+	
+	public SpilledOffHeapInputSinkStrategyTest()
+	{
+		this(new OffHeapInputSinkStrategy(InputSinkChannel.BUFFER_SIZE, null));
+	}
+	
+	private SpilledOffHeapInputSinkStrategyTest(OffHeapInputSinkStrategy strategy)
+	{
+		super(strategy);
+		this.strategy = strategy;
+	}
+	
+	@Test
+	public void testInputStreamChannelClose() throws IOException
+	{
+		InputSinkChannel<InputStream, OffHeapInputSink> channel = this.strategy.createInputStreamChannel();
+		
+		OffHeapInputSink sink = channel.write(new ByteArrayInputStream(new byte[Short.MAX_VALUE]));
+		
+		File file = sink.getFile();
+		
+		Assert.assertNotNull(file);
+		Assert.assertNull(sink.getBuffer());
+		
+		channel.read(sink).close();
+		
+		this.strategy.close(sink);
+		
+		// Spill file is not mapped, thus deleted immediately
+		Assert.assertFalse(file.exists());
+		
+		try
+		{
+			channel.read(sink);
+			Assert.fail();
+		}
+		catch (IOException e)
+		{
+			// Expected
+		}
+	}
+	
+	@Test
+	public void testReaderChannelClose() throws IOException
+	{
+		InputSinkChannel<Reader, OffHeapInputSink> channel = this.strategy.createReaderChannel();
+		
+		OffHeapInputSink sink = channel.write(new CharArrayReader(new char[Short.MAX_VALUE]));
+		
+		File file = sink.getFile();
+		
+		Assert.assertNotNull(file);
+		
+		channel.read(sink).close();
+		
+		this.strategy.close(sink);
+		
+		Assert.assertFalse(file.exists());
+		
+		try
+		{
+			channel.read(sink);
+			Assert.fail();
+		}
+		catch (IOException e)
+		{
+			// Expected
+		}
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.io.file;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SpillCodecTest
+{
+	@Test
+	public void compressible() throws IOException
+	{
+		byte[] expected = new byte[Short.MAX_VALUE];
+		byte[] text = "<element attribute=\"value\">text</element>".getBytes();
+		for (int i = 0; i < expected.length; ++i)
+		{
+			expected[i] = text[i % text.length];
+		}
+		
+		byte[] encoded = encode(new SpillCodec(Deflater.BEST_SPEED), expected);
+		
+		Assert.assertEquals(SpillCodec.DEFLATED, encoded[0]);
+		Assert.assertTrue(encoded.length < expected.length * SpillCodec.MAX_COMPRESSION_RATIO);
+		Assert.assertArrayEquals(expected, decode(new SpillCodec(Deflater.BEST_SPEED), encoded));
+	}
+	
+	@Test
+	public void incompressible() throws IOException
+	{
+		byte[] expected = new byte[Short.MAX_VALUE];
+		new Random().nextBytes(expected);
+		
+		byte[] encoded = encode(new SpillCodec(Deflater.BEST_SPEED), expected);
+		
+		Assert.assertEquals(SpillCodec.RAW, encoded[0]);
+		Assert.assertEquals(expected.length + 1, encoded.length);
+		Assert.assertArrayEquals(expected, decode(new SpillCodec(Deflater.BEST_SPEED), encoded));
+	}
+	
+	@Test
+	public void disabled() throws IOException
+	{
+		byte[] expected = new byte[Short.MAX_VALUE];
+		
+		byte[] encoded = encode(new SpillCodec(Deflater.NO_COMPRESSION), expected);
+		
+		Assert.assertEquals(SpillCodec.RAW, encoded[0]);
+		Assert.assertArrayEquals(expected, decode(new SpillCodec(Deflater.NO_COMPRESSION), encoded));
+	}
+	
+	private static byte[] encode(SpillCodec codec, byte[] content) throws IOException
+	{
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		int sample = Math.min(content.length, 8192);
+		
+		try (OutputStream output = codec.encode(result, content, 0, sample))
+		{
+			output.write(content);
+		}
+		
+		return result.toByteArray();
+	}
+	
+	private static byte[] decode(SpillCodec codec, byte[] encoded) throws IOException
+	{
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1024];
+		
+		try (InputStream input = codec.decode(new ByteArrayInputStream(encoded)))
+		{
+			int count = input.read(buffer);
+			while (count >= 0)
+			{
+				result.write(buffer, 0, count);
+				count = input.read(buffer);
+			}
+		}
+		
+		return result.toByteArray();
+	}
+}
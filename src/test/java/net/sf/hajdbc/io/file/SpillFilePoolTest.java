@@ -0,0 +1,239 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.io.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+
+import net.sf.hajdbc.io.InputSinkChannel;
+import net.sf.hajdbc.util.Files;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SpillFilePoolTest
+{
+	@Test
+	public void reuse() throws IOException
+	{
+		SpillFilePool pool = new SpillFilePool(null, ".lob", 1, 0, 0);
+		
+		File file = pool.acquire();
+		File other = pool.acquire();
+		
+		try
+		{
+			Assert.assertFalse(file.equals(other));
+			
+			write(file, 100);
+			pool.recycle(file);
+			
+			// Recycled files are truncated
+			Assert.assertEquals(0, file.length());
+			
+			// Files exceeding the pool capacity are deleted
+			pool.recycle(other);
+			
+			Assert.assertFalse(other.exists());
+			
+			Assert.assertEquals(file, pool.acquire());
+		}
+		finally
+		{
+			Files.delete(file);
+			Files.delete(other);
+		}
+	}
+	
+	@Test
+	public void readers() throws IOException
+	{
+		SpillFilePool pool = new SpillFilePool(null, ".lob", 2, 0, 0);
+		
+		File file = pool.acquire();
+		File other = pool.acquire();
+		
+		try
+		{
+			write(file, 100);
+			write(other, 100);
+			
+			pool.open(file).close();
+			
+			// A file whose readers were all closed is reused
+			pool.recycle(file);
+			
+			Assert.assertTrue(file.exists());
+			Assert.assertEquals(0, file.length());
+			
+			try (InputStream input = pool.open(other))
+			{
+				// A file with open readers is never truncated, nor reused
+				pool.recycle(other);
+				
+				Assert.assertFalse(other.exists());
+				Assert.assertEquals(100, input.skip(100));
+				
+				try
+				{
+					pool.open(other);
+					
+					Assert.fail();
+				}
+				catch (IOException e)
+				{
+					// Expected
+				}
+			}
+			
+			Assert.assertEquals(file, pool.acquire());
+			
+			File another = pool.acquire();
+			
+			Assert.assertFalse(other.equals(another));
+			
+			Files.delete(another);
+		}
+		finally
+		{
+			Files.delete(file);
+			Files.delete(other);
+		}
+	}
+	
+	@Test
+	public void reserve() throws IOException
+	{
+		int size = InputSinkChannel.BUFFER_SIZE * 2;
+		SpillFilePool pool = new SpillFilePool(null, ".lob", 0, size, 10);
+		
+		File file = pool.acquire();
+		File other = pool.acquire();
+		
+		try
+		{
+			pool.reserve(file, size);
+			
+			// Already reserved
+			pool.reserve(file, size);
+			
+			try
+			{
+				pool.reserve(other, 1);
+				
+				Assert.fail();
+			}
+			catch (IOException e)
+			{
+				// Expected
+			}
+			
+			write(file, size);
+			
+			// Recycling a file releases its disk space
+			pool.recycle(file);
+			
+			pool.reserve(other, size);
+		}
+		finally
+		{
+			Files.delete(file);
+			Files.delete(other);
+		}
+	}
+	
+	@Test
+	public void timeout() throws IOException
+	{
+		int size = InputSinkChannel.BUFFER_SIZE * 2;
+		SpillFilePool pool = new SpillFilePool(null, ".lob", 0, size, 10);
+		
+		File file = pool.acquire();
+		File other = pool.acquire();
+		File another = pool.acquire();
+		
+		try
+		{
+			pool.reserve(file, InputSinkChannel.BUFFER_SIZE);
+			pool.reserve(other, InputSinkChannel.BUFFER_SIZE);
+			
+			// Space is reserved after it is written, so a timed out file exceeds its reservation
+			write(file, size);
+			
+			try
+			{
+				pool.reserve(file, size);
+				
+				Assert.fail();
+			}
+			catch (IOException e)
+			{
+				// Expected
+			}
+			
+			// Only the reserved space of the file is released
+			pool.recycle(file);
+			
+			pool.reserve(another, InputSinkChannel.BUFFER_SIZE);
+			
+			try
+			{
+				pool.reserve(another, size);
+				
+				Assert.fail();
+			}
+			catch (IOException e)
+			{
+				// Expected
+			}
+		}
+		finally
+		{
+			Files.delete(file);
+			Files.delete(other);
+			Files.delete(another);
+		}
+	}
+	
+	@Test
+	public void maxSize()
+	{
+		try
+		{
+			new SpillFilePool(null, ".lob", 0, InputSinkChannel.BUFFER_SIZE - 1, 10);
+			
+			Assert.fail();
+		}
+		catch (IllegalArgumentException e)
+		{
+			// Expected
+		}
+		
+		new SpillFilePool(null, ".lob", 0, InputSinkChannel.BUFFER_SIZE, 10);
+	}
+	
+	private static void write(File file, int size) throws IOException
+	{
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+		{
+			raf.write(new byte[size]);
+		}
+	}
+}
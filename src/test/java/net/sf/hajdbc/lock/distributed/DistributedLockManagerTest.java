@@ -0,0 +1,381 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.lock.distributed;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import net.sf.hajdbc.DatabaseCluster;
+import net.sf.hajdbc.distributed.Command;
+import net.sf.hajdbc.distributed.CommandDispatcher;
+import net.sf.hajdbc.distributed.CommandDispatcherFactory;
+import net.sf.hajdbc.distributed.Member;
+import net.sf.hajdbc.distributed.MembershipListener;
+import net.sf.hajdbc.distributed.Stateful;
+import net.sf.hajdbc.lock.LockManager;
+import net.sf.hajdbc.lock.semaphore.SemaphoreLockManager;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests write lock leasing within an in-memory group, whose first member is the coordinator.
+ */
+public class DistributedLockManagerTest
+{
+	// Long enough that tests only pass if leases are revoked, rather than waited out
+	private static final long LEASE_TIME = 60000;
+	private static final long TIMEOUT = 5;
+	
+	final List<Node> nodes = new ArrayList<>();
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+	
+	@Before
+	public void init() throws Exception
+	{
+		for (String name: new String[] { "coordinator", "member" })
+		{
+			this.nodes.add(new Node(name, this));
+		}
+		for (Node node: this.nodes)
+		{
+			for (Node member: this.nodes)
+			{
+				node.manager.added(member.member);
+			}
+			node.manager.start();
+		}
+	}
+	
+	@After
+	public void destroy()
+	{
+		for (Node node: this.nodes)
+		{
+			node.manager.stop();
+		}
+		this.executor.shutdownNow();
+	}
+	
+	@Test
+	public void lease() throws Exception
+	{
+		Node member = this.nodes.get(1);
+		
+		this.lockAndUnlock(member, "a");
+		
+		// The lease retains the distributed lock on all members
+		for (Node node: this.nodes)
+		{
+			Assert.assertFalse(node.isUnlocked("a"));
+		}
+		
+		// Subsequent local acquisitions are served by the lease
+		int commands = member.commands;
+		this.lockAndUnlock(member, "a");
+		Assert.assertEquals(commands, member.commands);
+	}
+	
+	@Test
+	public void contention() throws Exception
+	{
+		Node coordinator = this.nodes.get(0);
+		Node member = this.nodes.get(1);
+		
+		this.lockAndUnlock(member, "a");
+		
+		// Contending members revoke the lease, rather than wait for it to expire
+		this.lockAndUnlock(coordinator, "a");
+		this.lockAndUnlock(member, "a");
+		this.lockAndUnlock(coordinator, "a");
+	}
+	
+	@Test
+	public void revokeWhileAcquiring() throws Exception
+	{
+		Node coordinator = this.nodes.get(0);
+		Node member = this.nodes.get(1);
+		
+		// Lease exists, but is not yet held
+		this.lockAndUnlock(member, "a");
+		this.lockAndUnlock(coordinator, "a");
+		
+		// Revocation arrives before the pending acquisition of the lease completes
+		member.manager.revokeLease(coordinator.descriptor("a"));
+		
+		Lock lock = member.manager.writeLock("a");
+		Assert.assertTrue(lock.tryLock(TIMEOUT, TimeUnit.SECONDS));
+		lock.unlock();
+		
+		// The revoked lease must not be retained
+		for (Node node: this.nodes)
+		{
+			Assert.assertTrue(node.isUnlocked("a"));
+		}
+	}
+	
+	@Test
+	public void globalLockRevokesLeases() throws Exception
+	{
+		Node coordinator = this.nodes.get(0);
+		Node member = this.nodes.get(1);
+		
+		this.lockAndUnlock(member, "a");
+		this.lockAndUnlock(coordinator, "b");
+		
+		// The global write lock, e.g. for activation, must revoke leases on all members, including its own
+		for (Node node: this.nodes)
+		{
+			Lock lock = node.manager.writeLock(null);
+			Assert.assertTrue(lock.tryLock(TIMEOUT, TimeUnit.SECONDS));
+			lock.unlock();
+			
+			this.lockAndUnlock(member, "a");
+			this.lockAndUnlock(coordinator, "b");
+		}
+		
+		// Revocations of the global lock are also received remotely
+		coordinator.manager.revokeLease(member.descriptor(null));
+		member.manager.revokeLease(coordinator.descriptor(null));
+	}
+	
+	private void lockAndUnlock(final Node node, final String id) throws Exception
+	{
+		// Lock from a separate thread, as would a concurrent transaction
+		Future<Boolean> future = this.executor.submit(new Callable<Boolean>()
+		{
+			@Override
+			public Boolean call() throws InterruptedException
+			{
+				Lock lock = node.manager.writeLock(id);
+				if (!lock.tryLock(TIMEOUT, TimeUnit.SECONDS)) return false;
+				lock.unlock();
+				return true;
+			}
+		});
+		Assert.assertTrue(future.get());
+	}
+	
+	static class Node implements CommandDispatcherFactory
+	{
+		private static final long serialVersionUID = 1L;
+		
+		final TestMember member;
+		final DistributedLockManagerTest test;
+		final LockManager lockManager = new SemaphoreLockManager(false);
+		final DistributedLockManager manager;
+		volatile LockCommandContext context;
+		volatile int commands = 0;
+		
+		Node(String name, DistributedLockManagerTest test) throws Exception
+		{
+			this.member = new TestMember(name);
+			this.test = test;
+			final LockManager lockManager = this.lockManager;
+			DatabaseCluster<?, ?> cluster = (DatabaseCluster<?, ?>) Proxy.newProxyInstance(this.getClass().getClassLoader(), new Class<?>[] { DatabaseCluster.class }, new java.lang.reflect.InvocationHandler()
+			{
+				@Override
+				public Object invoke(Object proxy, Method method, Object[] args)
+				{
+					switch (method.getName())
+					{
+						case "getLockManager": return lockManager;
+						case "getId": return "cluster";
+					}
+					return null;
+				}
+			});
+			this.manager = new DistributedLockManager(cluster, this, LEASE_TIME, Executors.defaultThreadFactory());
+		}
+		
+		RemoteLockDescriptor descriptor(String id)
+		{
+			return new TestRemoteLockDescriptor(id, this.member);
+		}
+		
+		/**
+		 * Indicates whether the local write lock of the specified id is available, i.e. not held by any member.
+		 */
+		boolean isUnlocked(String id) throws InterruptedException
+		{
+			Lock lock = this.lockManager.writeLock(id);
+			// Leases are released asynchronously
+			if (!lock.tryLock(TIMEOUT, TimeUnit.SECONDS)) return false;
+			lock.unlock();
+			return true;
+		}
+		
+		@Override
+		public String getId()
+		{
+			return "test";
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public <C> CommandDispatcher<C> createCommandDispatcher(String id, C context, Stateful stateful, MembershipListener membershipListener)
+		{
+			this.context = (LockCommandContext) context;
+			return (CommandDispatcher<C>) new TestCommandDispatcher(this);
+		}
+	}
+	
+	/**
+	 * Executes commands directly against the contexts of the other members of the group.
+	 */
+	static class TestCommandDispatcher implements CommandDispatcher<LockCommandContext>
+	{
+		private final Node node;
+		
+		TestCommandDispatcher(Node node)
+		{
+			this.node = node;
+		}
+		
+		@Override
+		public <R> Map<Member, R> executeAll(Command<R, LockCommandContext> command)
+		{
+			this.node.commands += 1;
+			Map<Member, R> results = new TreeMap<>();
+			for (Node node: this.node.test.nodes)
+			{
+				// Own messages are discarded
+				if (node != this.node)
+				{
+					results.put(node.member, command.execute(node.context));
+				}
+			}
+			return results;
+		}
+
+		@Override
+		public <R> R executeCoordinator(Command<R, LockCommandContext> command)
+		{
+			this.node.commands += 1;
+			return command.execute(this.node.test.nodes.get(0).context);
+		}
+
+		@Override
+		public boolean isCoordinator()
+		{
+			return this.node.test.nodes.get(0) == this.node;
+		}
+
+		@Override
+		public Member getLocal()
+		{
+			return this.node.member;
+		}
+
+		@Override
+		public Member getCoordinator()
+		{
+			return this.node.test.nodes.get(0).member;
+		}
+
+		@Override
+		public void start()
+		{
+		}
+
+		@Override
+		public void stop()
+		{
+		}
+	}
+	
+	static class TestMember implements Member
+	{
+		private static final long serialVersionUID = 1L;
+		
+		private final String name;
+		
+		TestMember(String name)
+		{
+			this.name = name;
+		}
+		
+		@Override
+		public int compareTo(Member member)
+		{
+			return this.name.compareTo(((TestMember) member).name);
+		}
+
+		@Override
+		public boolean equals(Object object)
+		{
+			return (object instanceof TestMember) && this.name.equals(((TestMember) object).name);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return this.name.hashCode();
+		}
+
+		@Override
+		public String toString()
+		{
+			return this.name;
+		}
+	}
+	
+	static class TestRemoteLockDescriptor implements RemoteLockDescriptor
+	{
+		private static final long serialVersionUID = 1L;
+		
+		private final String id;
+		private final Member member;
+		
+		TestRemoteLockDescriptor(String id, Member member)
+		{
+			this.id = id;
+			this.member = member;
+		}
+
+		@Override
+		public String getId()
+		{
+			return this.id;
+		}
+
+		@Override
+		public LockType getType()
+		{
+			return LockType.WRITE;
+		}
+
+		@Override
+		public Member getMember()
+		{
+			return this.member;
+		}
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.lock.semaphore;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.locks.Lock;
+
+import org.junit.Test;
+
+public class SemaphoreLockManagerTest
+{
+	private final SemaphoreLockManager manager = new SemaphoreLockManager(false);
+	
+	@Test
+	public void globalLock()
+	{
+		Lock writeLock = this.manager.writeLock(null);
+		Lock readLock = this.manager.readLock(null);
+		
+		assertTrue(writeLock.tryLock());
+		assertFalse(readLock.tryLock());
+		
+		writeLock.unlock();
+		
+		assertTrue(readLock.tryLock());
+		assertFalse(writeLock.tryLock());
+		
+		readLock.unlock();
+		
+		assertEquals(0, this.manager.size());
+	}
+	
+	@Test
+	public void namedLock()
+	{
+		Lock writeLock = this.manager.writeLock("a");
+		Lock readLock = this.manager.readLock("a");
+		Lock otherLock = this.manager.writeLock("b");
+		Lock globalLock = this.manager.writeLock(null);
+		
+		assertTrue(writeLock.tryLock());
+		assertEquals(1, this.manager.size());
+		
+		assertFalse(readLock.tryLock());
+		assertFalse(globalLock.tryLock());
+		assertEquals(1, this.manager.size());
+		
+		assertTrue(otherLock.tryLock());
+		assertEquals(2, this.manager.size());
+		
+		otherLock.unlock();
+		assertEquals(1, this.manager.size());
+		
+		writeLock.unlock();
+		assertEquals(0, this.manager.size());
+		
+		assertTrue(readLock.tryLock());
+		assertTrue(this.manager.readLock("a").tryLock());
+		assertEquals(1, this.manager.size());
+		
+		readLock.unlock();
+		assertEquals(1, this.manager.size());
+		
+		readLock.unlock();
+		assertEquals(0, this.manager.size());
+		
+		assertTrue(globalLock.tryLock());
+		globalLock.unlock();
+	}
+}
@@ -0,0 +1,178 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.lock.semaphore;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import org.junit.Test;
+
+public class StripedReadWriteLockTest
+{
+	private final StripedReadWriteLock lock = new StripedReadWriteLock(false, 4);
+	
+	@Test
+	public void readLock()
+	{
+		Lock readLock = this.lock.readLock();
+		Lock writeLock = this.lock.writeLock();
+		
+		assertTrue(readLock.tryLock());
+		assertTrue(readLock.tryLock());
+		assertFalse(writeLock.tryLock());
+		
+		readLock.unlock();
+		
+		assertFalse(writeLock.tryLock());
+		
+		readLock.unlock();
+		
+		assertTrue(writeLock.tryLock());
+		
+		writeLock.unlock();
+	}
+	
+	@Test
+	public void writeLock()
+	{
+		Lock readLock = this.lock.readLock();
+		Lock writeLock = this.lock.writeLock();
+		
+		assertTrue(writeLock.tryLock());
+		assertFalse(readLock.tryLock());
+		assertFalse(writeLock.tryLock());
+		
+		writeLock.unlock();
+		
+		assertTrue(readLock.tryLock());
+		
+		readLock.unlock();
+	}
+	
+	@Test
+	public void crossThreadUnlock() throws Exception
+	{
+		final Lock readLock = this.lock.readLock();
+		
+		readLock.lock();
+		
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try
+		{
+			Future<Void> future = executor.submit(new Callable<Void>()
+			{
+				@Override
+				public Void call()
+				{
+					readLock.unlock();
+					return null;
+				}
+			});
+			future.get();
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+		
+		assertTrue(this.lock.writeLock().tryLock());
+		
+		this.lock.writeLock().unlock();
+	}
+	
+	@Test
+	public void writeLockTimeout() throws InterruptedException
+	{
+		Lock readLock = this.lock.readLock();
+		Lock writeLock = this.lock.writeLock();
+		
+		readLock.lock();
+		
+		assertFalse(writeLock.tryLock(10, TimeUnit.MILLISECONDS));
+		
+		// Failed write lock attempt must restore the reader bias
+		assertTrue(readLock.tryLock());
+		
+		readLock.unlock();
+		readLock.unlock();
+		
+		assertTrue(writeLock.tryLock(10, TimeUnit.MILLISECONDS));
+		
+		writeLock.unlock();
+	}
+	
+	@Test
+	public void writerParksWhileDraining() throws Exception
+	{
+		final Lock readLock = this.lock.readLock();
+		final Lock writeLock = this.lock.writeLock();
+		
+		readLock.lock();
+		
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try
+		{
+			final Thread[] writer = new Thread[1];
+			Future<Void> future = executor.submit(new Callable<Void>()
+			{
+				@Override
+				public Void call()
+				{
+					writer[0] = Thread.currentThread();
+					writeLock.lock();
+					writeLock.unlock();
+					return null;
+				}
+			});
+			
+			while (!this.lock.writing)
+			{
+				Thread.sleep(1);
+			}
+			Thread.sleep(50);
+			
+			// Writer must wait for readers without spinning, i.e. is mostly parked
+			int parked = 0;
+			for (int i = 0; i < 20; ++i)
+			{
+				Thread.State state = writer[0].getState();
+				if ((state == Thread.State.WAITING) || (state == Thread.State.TIMED_WAITING))
+				{
+					parked += 1;
+				}
+				Thread.sleep(1);
+			}
+			assertFalse(future.isDone());
+			assertTrue(String.valueOf(parked), parked >= 15);
+			
+			readLock.unlock();
+			
+			future.get(1, TimeUnit.SECONDS);
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+}
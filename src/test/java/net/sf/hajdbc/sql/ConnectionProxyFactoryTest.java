@@ -0,0 +1,239 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.sql;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+
+import net.sf.hajdbc.DatabaseCluster;
+import net.sf.hajdbc.MockDatabase;
+import net.sf.hajdbc.SequenceAllocator;
+import net.sf.hajdbc.cache.SQLAnalysisCache;
+import net.sf.hajdbc.dialect.Dialect;
+import net.sf.hajdbc.dialect.SQLFunctionCall;
+import net.sf.hajdbc.dialect.postgresql.PostgreSQLDialect;
+import net.sf.hajdbc.invocation.Invoker;
+import net.sf.hajdbc.invocation.SimpleInvoker;
+import net.sf.hajdbc.io.simple.SimpleInputSinkStrategy;
+import net.sf.hajdbc.util.reflect.Methods;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Paul Ferraro
+ */
+public class ConnectionProxyFactoryTest
+{
+	final AtomicInteger reads = new AtomicInteger();
+	final SQLAnalysisCache analysisCache = new SQLAnalysisCache(16);
+	final Dialect dialect = new PostgreSQLDialect();
+	final AtomicLong sequence = new AtomicLong();
+	final SequenceAllocator allocator = new SequenceAllocator()
+	{
+		@Override
+		public long next(String sequence)
+		{
+			return ConnectionProxyFactoryTest.this.sequence.incrementAndGet();
+		}
+	};
+	volatile int isolation = Connection.TRANSACTION_READ_COMMITTED;
+	final Connection connection = proxy(Connection.class, new java.lang.reflect.InvocationHandler()
+	{
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args)
+		{
+			if (method.getName().equals("getTransactionIsolation"))
+			{
+				ConnectionProxyFactoryTest.this.reads.incrementAndGet();
+				return ConnectionProxyFactoryTest.this.isolation;
+			}
+			return null;
+		}
+	});
+	final DatabaseCluster<Void, MockDatabase> cluster = proxy(DatabaseCluster.class, new java.lang.reflect.InvocationHandler()
+	{
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args)
+		{
+			if (method.getName().equals("getInputSinkStrategy")) return new SimpleInputSinkStrategy();
+			if (method.getName().equals("getSQLAnalysisCache")) return ConnectionProxyFactoryTest.this.analysisCache;
+			if (method.getName().equals("getSequenceAllocator")) return ConnectionProxyFactoryTest.this.allocator;
+			if (method.getName().equals("getDialect")) return ConnectionProxyFactoryTest.this.dialect;
+			return (method.getReturnType() == Boolean.TYPE) ? Boolean.FALSE : null;
+		}
+	});
+	final RootProxyFactory<Void, MockDatabase> root = proxy(RootProxyFactory.class, new java.lang.reflect.InvocationHandler()
+	{
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args)
+		{
+			return method.getName().equals("getDatabaseCluster") ? ConnectionProxyFactoryTest.this.cluster : null;
+		}
+	});
+	final ProxyFactory<Void, MockDatabase, Object, SQLException> parent = proxy(ProxyFactory.class, new java.lang.reflect.InvocationHandler()
+	{
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args)
+		{
+			return method.getName().equals("getRoot") ? ConnectionProxyFactoryTest.this.root : null;
+		}
+	});
+	final ConnectionProxyFactory<Void, MockDatabase, Object> factory = new ConnectionProxyFactory<>(null, this.parent, null, new TreeMap<MockDatabase, Connection>(), null);
+	
+	@Test
+	public void cached() throws SQLException
+	{
+		Assert.assertEquals(Connection.TRANSACTION_READ_COMMITTED, this.factory.getTransactionIsolation(this.connection));
+		Assert.assertEquals(Connection.TRANSACTION_READ_COMMITTED, this.factory.getTransactionIsolation(this.connection));
+		Assert.assertEquals(1, this.reads.get());
+		
+		// Changed via Connection.setTransactionIsolation(...)
+		this.factory.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+		Assert.assertEquals(Connection.TRANSACTION_SERIALIZABLE, this.factory.getTransactionIsolation(this.connection));
+		Assert.assertEquals(1, this.reads.get());
+		
+		// Unknown, e.g. following a failed Connection.setTransactionIsolation(...)
+		this.factory.setTransactionIsolation(null);
+		Assert.assertEquals(Connection.TRANSACTION_READ_COMMITTED, this.factory.getTransactionIsolation(this.connection));
+		Assert.assertEquals(2, this.reads.get());
+	}
+	
+	@Test
+	public void invalidate() throws SQLException
+	{
+		AbstractStatementProxyFactory<Void, MockDatabase, Statement> statementFactory = new StatementProxyFactory<>(this.connection, this.factory, null, new TreeMap<MockDatabase, Statement>(), null);
+		
+		Assert.assertEquals(Connection.TRANSACTION_READ_COMMITTED, statementFactory.getTransactionIsolation());
+		
+		statementFactory.invalidateConnectionState("UPDATE test SET isolated = 1");
+		Assert.assertEquals(Connection.TRANSACTION_READ_COMMITTED, statementFactory.getTransactionIsolation());
+		Assert.assertEquals(1, this.reads.get());
+		
+		// Changed via SQL
+		this.isolation = Connection.TRANSACTION_SERIALIZABLE;
+		statementFactory.invalidateConnectionState("set transaction isolation level serializable");
+		Assert.assertEquals(Connection.TRANSACTION_SERIALIZABLE, statementFactory.getTransactionIsolation());
+		Assert.assertEquals(2, this.reads.get());
+		
+		this.isolation = Connection.TRANSACTION_REPEATABLE_READ;
+		statementFactory.invalidateConnectionState("SET SESSION tx_isolation = 'REPEATABLE-READ'");
+		Assert.assertEquals(Connection.TRANSACTION_REPEATABLE_READ, statementFactory.getTransactionIsolation());
+		Assert.assertEquals(3, this.reads.get());
+	}
+	
+	@Test
+	public void prepared() throws SQLException
+	{
+		TransactionContext<Void, MockDatabase> context = proxy(TransactionContext.class, new java.lang.reflect.InvocationHandler()
+		{
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args)
+			{
+				return null;
+			}
+		});
+		Method executeUpdateMethod = Methods.getMethod(PreparedStatement.class, "executeUpdate");
+		
+		// Determined once, when the statement is prepared
+		Assert.assertFalse(AbstractStatementProxyFactory.changesConnectionState("UPDATE test SET value = ?"));
+		Assert.assertTrue(AbstractStatementProxyFactory.changesConnectionState("SET TRANSACTION ISOLATION LEVEL SERIALIZABLE"));
+		Assert.assertTrue(AbstractStatementProxyFactory.changesConnectionState("SET autocommit = 0"));
+		
+		PreparedStatementProxyFactory<Void, MockDatabase> update = new PreparedStatementProxyFactory<>(this.connection, this.factory, null, new TreeMap<MockDatabase, PreparedStatement>(), context, Collections.<Lock>emptyList(), false, false);
+		PreparedStatementProxyFactory<Void, MockDatabase> isolation = new PreparedStatementProxyFactory<>(this.connection, this.factory, null, new TreeMap<MockDatabase, PreparedStatement>(), context, Collections.<Lock>emptyList(), false, true);
+		
+		Assert.assertEquals(Connection.TRANSACTION_READ_COMMITTED, update.getTransactionIsolation());
+		Assert.assertEquals(1, this.reads.get());
+		
+		new PreparedStatementInvocationHandler<>(update).getInvocationStrategy(null, executeUpdateMethod);
+		Assert.assertEquals(Connection.TRANSACTION_READ_COMMITTED, update.getTransactionIsolation());
+		Assert.assertEquals(1, this.reads.get());
+		
+		// Each execution may change the isolation level
+		PreparedStatementInvocationHandler<Void, MockDatabase> handler = new PreparedStatementInvocationHandler<>(isolation);
+		
+		this.isolation = Connection.TRANSACTION_SERIALIZABLE;
+		handler.getInvocationStrategy(null, executeUpdateMethod);
+		Assert.assertEquals(Connection.TRANSACTION_SERIALIZABLE, update.getTransactionIsolation());
+		Assert.assertEquals(2, this.reads.get());
+		
+		this.isolation = Connection.TRANSACTION_REPEATABLE_READ;
+		handler.getInvocationStrategy(null, executeUpdateMethod);
+		Assert.assertEquals(Connection.TRANSACTION_REPEATABLE_READ, update.getTransactionIsolation());
+		Assert.assertEquals(3, this.reads.get());
+	}
+	
+	@Test
+	public void parameterized() throws SQLException
+	{
+		PreparedStatementProxyFactoryFactory<Void, MockDatabase> factoryFactory = new PreparedStatementProxyFactoryFactory<>(null, Collections.<Lock>emptyList(), false, false);
+		Invoker<Void, MockDatabase, Connection, PreparedStatement, SQLException> invoker = new SimpleInvoker<>(Methods.getMethod(Connection.class, "prepareStatement", String.class), new Object[] { "SELECT ?" }, null);
+		ParameterizedSQL parameterizedSQL = new ParameterizedSQL("SELECT ?", Collections.<SQLFunctionCall>emptyList(), Collections.singletonList(7));
+		
+		// The parameterized SQL is carried by the invoker of the prepareStatement(...) invocation
+		AbstractPreparedStatementProxyFactory<Void, MockDatabase, PreparedStatement> parameterized = (AbstractPreparedStatementProxyFactory<Void, MockDatabase, PreparedStatement>) factoryFactory.createProxyFactory(this.connection, this.factory, new ParameterizedSQLInvoker<>(invoker, parameterizedSQL), new TreeMap<MockDatabase, PreparedStatement>());
+		Assert.assertSame(parameterizedSQL, parameterized.getParameterizedSQL());
+		
+		// So a subsequent, unparameterized invocation is never affected
+		AbstractPreparedStatementProxyFactory<Void, MockDatabase, PreparedStatement> simple = (AbstractPreparedStatementProxyFactory<Void, MockDatabase, PreparedStatement>) factoryFactory.createProxyFactory(this.connection, this.factory, invoker, new TreeMap<MockDatabase, PreparedStatement>());
+		Assert.assertNull(simple.getParameterizedSQL());
+	}
+	
+	@Test
+	public void allocated() throws SQLException
+	{
+		String sql = "INSERT INTO test (id) VALUES (nextval('test_seq'))";
+		
+		EvaluatedSQL first = this.factory.evaluateNextSequenceValues(sql);
+		Assert.assertTrue(first.isRewritten());
+		Assert.assertEquals("INSERT INTO test (id) VALUES (1)", first.getSQL());
+		Assert.assertEquals(1, this.analysisCache.size());
+		
+		// Statements containing pre-allocated sequence values are never cached
+		this.factory.extractLocks(first);
+		this.factory.evaluate(first);
+		
+		EvaluatedSQL second = this.factory.evaluateNextSequenceValues(sql);
+		Assert.assertEquals("INSERT INTO test (id) VALUES (2)", second.getSQL());
+		this.factory.extractLocks(second);
+		this.factory.isSelectForUpdate(second);
+		Assert.assertEquals(1, this.analysisCache.size());
+		
+		// Statements without sequence expressions are cached as usual
+		EvaluatedSQL unchanged = this.factory.evaluateNextSequenceValues("UPDATE test SET value = 1");
+		Assert.assertFalse(unchanged.isRewritten());
+		this.factory.extractLocks(unchanged);
+		Assert.assertEquals(2, this.analysisCache.size());
+	}
+	
+	@SuppressWarnings("unchecked")
+	static <T> T proxy(Class<?> targetClass, java.lang.reflect.InvocationHandler handler)
+	{
+		return (T) Proxy.newProxyInstance(ConnectionProxyFactoryTest.class.getClassLoader(), new Class<?>[] { targetClass }, handler);
+	}
+}
@@ -110,6 +110,7 @@ public class DriverTest
 		when(balancer.contains(database)).thenReturn(true);
 		when(balancer.isEmpty()).thenReturn(false);
 		when(balancer.size()).thenReturn(1);
+		when(balancer.snapshot()).thenReturn(Collections.singletonList(database));
 		when(balancer.iterator()).thenReturn(Collections.singleton(database).iterator());
 		when(balancer.next()).thenReturn(database);
 		when(cluster.getExecutor()).thenReturn(Executors.newCachedThreadPool());
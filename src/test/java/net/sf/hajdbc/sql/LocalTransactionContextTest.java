@@ -0,0 +1,395 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.sql;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Lock;
+
+import net.sf.hajdbc.Database;
+import net.sf.hajdbc.DatabaseCluster;
+import net.sf.hajdbc.ExceptionType;
+import net.sf.hajdbc.MockDatabase;
+import net.sf.hajdbc.balancer.Balancer;
+import net.sf.hajdbc.balancer.WriteSequenceTracker;
+import net.sf.hajdbc.balancer.simple.SimpleBalancerFactory;
+import net.sf.hajdbc.dialect.StandardDialectFactory;
+import net.sf.hajdbc.durability.Durability;
+import net.sf.hajdbc.durability.none.NoDurability;
+import net.sf.hajdbc.invocation.InvocationStrategies;
+import net.sf.hajdbc.invocation.InvocationStrategy;
+import net.sf.hajdbc.invocation.Invoker;
+import net.sf.hajdbc.invocation.ResultVerifier;
+import net.sf.hajdbc.lock.semaphore.SemaphoreLockManager;
+import net.sf.hajdbc.tx.SimpleTransactionIdentifierFactory;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LocalTransactionContextTest
+{
+	final MockDatabase db0 = new MockDatabase("0");
+	final MockDatabase db1 = new MockDatabase("1");
+	final MockDatabase db2 = new MockDatabase("2");
+	final Balancer<Void, MockDatabase> balancer = new SimpleBalancerFactory().createBalancer(new HashSet<>(Arrays.asList(this.db0, this.db1)));
+	final SemaphoreLockManager lockManager = new SemaphoreLockManager(false);
+	final ExecutorService executor = Executors.newCachedThreadPool();
+	final List<MockDatabase> deactivated = new CopyOnWriteArrayList<>();
+	volatile boolean asynchronous = false;
+	volatile int quorum = 0;
+	final DatabaseCluster<Void, MockDatabase> cluster = proxy(DatabaseCluster.class, new java.lang.reflect.InvocationHandler()
+	{
+		private final Durability<Void, MockDatabase> durability = new NoDurability<>();
+		private final ResultVerifier verifier = new ResultVerifier(0);
+		private final SimpleTransactionIdentifierFactory transactionIdFactory = new SimpleTransactionIdentifierFactory();
+		
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args)
+		{
+			switch (method.getName())
+			{
+				case "getLockManager": return LocalTransactionContextTest.this.lockManager;
+				case "isAsynchronousWriteEnabled": return LocalTransactionContextTest.this.asynchronous;
+				case "getWriteQuorum": return LocalTransactionContextTest.this.quorum;
+				case "getWriteQuorumTimeout": return 10000L;
+				case "getExecutor": return LocalTransactionContextTest.this.executor;
+				case "getTransactionMode": return TransactionModeEnum.PARALLEL;
+				case "getDialect": return new StandardDialectFactory().createDialect();
+				case "getResultVerifier": return this.verifier;
+				case "deactivate":
+				{
+					MockDatabase database = (MockDatabase) args[0];
+					LocalTransactionContextTest.this.balancer.remove(database);
+					return LocalTransactionContextTest.this.deactivated.add(database);
+				}
+				case "getDurability": return this.durability;
+				case "getTransactionIdentifierFactory": return this.transactionIdFactory;
+				case "getBalancer": return LocalTransactionContextTest.this.balancer;
+				case "isActive": return true;
+			}
+			return (method.getReturnType() == Boolean.TYPE) ? Boolean.FALSE : null;
+		}
+	});
+	final ProxyFactory<Void, MockDatabase, Object, SQLException> factory = proxy(RootProxyFactory.class, new java.lang.reflect.InvocationHandler()
+	{
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args)
+		{
+			switch (method.getName())
+			{
+				case "getDatabaseCluster": return LocalTransactionContextTest.this.cluster;
+				case "getExceptionFactory": return ExceptionType.SQL.getExceptionFactory();
+				case "getRoot": return proxy;
+			}
+			return null;
+		}
+	});
+	final Invoker<Void, MockDatabase, Object, Object, SQLException> invoker = new Invoker<Void, MockDatabase, Object, Object, SQLException>()
+	{
+		@Override
+		public Object invoke(MockDatabase database, Object object)
+		{
+			return database.getId();
+		}
+	};
+	
+	@Test
+	public void explicitTransaction() throws SQLException
+	{
+		WriteSequenceTracker<MockDatabase> tracker = this.balancer.getWriteSequenceTracker();
+		TransactionContext<Void, MockDatabase> context = new LocalTransactionContext<>(this.cluster);
+		Connection connection = connection(false);
+		InvocationStrategy all = new InvokeOnDatabasesInvocationStrategy(this.db0, this.db1);
+		InvocationStrategy read = new InvokeOnDatabasesInvocationStrategy(this.db0);
+		
+		// Holds back the low watermark, so individually committed sequences remain visible
+		long concurrent = tracker.next();
+		
+		context.start(all, connection).invoke(this.factory, this.invoker);
+		context.start(all, connection).invoke(this.factory, this.invoker);
+		
+		// Nothing committed yet
+		Assert.assertSame(read, context.read(read));
+		
+		// Only db0 completes the commit
+		context.end(new InvokeOnDatabasesInvocationStrategy(this.db0), Durability.Phase.COMMIT).invoke(this.factory, this.invoker);
+		
+		long sequence = concurrent + 1;
+		Assert.assertTrue(tracker.isCommitted(this.db0, sequence));
+		Assert.assertFalse(tracker.isCommitted(this.db1, sequence));
+		Assert.assertNotSame(read, context.read(read));
+		Assert.assertEquals(this.db0, this.balancer.next(sequence));
+		
+		tracker.completed(concurrent);
+		
+		// Both transactions have completed
+		Assert.assertTrue(tracker.isCommitted(this.db1, sequence));
+	}
+	
+	@Test
+	public void rollback() throws SQLException
+	{
+		WriteSequenceTracker<MockDatabase> tracker = this.balancer.getWriteSequenceTracker();
+		TransactionContext<Void, MockDatabase> context = new LocalTransactionContext<>(this.cluster);
+		Connection connection = connection(false);
+		InvocationStrategy all = new InvokeOnDatabasesInvocationStrategy(this.db0, this.db1);
+		InvocationStrategy read = new InvokeOnDatabasesInvocationStrategy(this.db0);
+		
+		context.start(all, connection).invoke(this.factory, this.invoker);
+		context.end(all, Durability.Phase.ROLLBACK).invoke(this.factory, this.invoker);
+		
+		// Rolled back writes are not routed
+		Assert.assertSame(read, context.read(read));
+		
+		// ...nor do they hold back the low watermark
+		long sequence = tracker.next();
+		tracker.completed(sequence);
+		Assert.assertTrue(tracker.isCommitted(this.db1, sequence));
+	}
+	
+	@Test
+	public void autoCommit() throws SQLException
+	{
+		WriteSequenceTracker<MockDatabase> tracker = this.balancer.getWriteSequenceTracker();
+		TransactionContext<Void, MockDatabase> context = new LocalTransactionContext<>(this.cluster);
+		Connection connection = connection(true);
+		InvocationStrategy read = new InvokeOnDatabasesInvocationStrategy(this.db0);
+		
+		long concurrent = tracker.next();
+		
+		context.start(new InvokeOnDatabasesInvocationStrategy(this.db1), connection).invoke(this.factory, this.invoker);
+		
+		long sequence = concurrent + 1;
+		Assert.assertFalse(tracker.isCommitted(this.db0, sequence));
+		Assert.assertTrue(tracker.isCommitted(this.db1, sequence));
+		Assert.assertNotSame(read, context.read(read));
+		Assert.assertEquals(this.db1, this.balancer.next(sequence));
+	}
+	
+	@After
+	public void destroy()
+	{
+		this.executor.shutdownNow();
+	}
+	
+	@Test
+	public void asynchronousWrite() throws Exception
+	{
+		this.asynchronous = true;
+		
+		TransactionContext<Void, MockDatabase> context = new LocalTransactionContext<>(this.cluster);
+		Connection connection = connection(false);
+		Lock globalLock = this.lockManager.writeLock(null);
+		final CountDownLatch latch = new CountDownLatch(1);
+		final List<String> writes = new CopyOnWriteArrayList<>();
+		Invoker<Void, MockDatabase, Object, Object, SQLException> invoker = new Invoker<Void, MockDatabase, Object, Object, SQLException>()
+		{
+			@Override
+			public Object invoke(MockDatabase database, Object object) throws SQLException
+			{
+				if (database.equals(LocalTransactionContextTest.this.db1))
+				{
+					try
+					{
+						latch.await();
+					}
+					catch (InterruptedException e)
+					{
+						Thread.currentThread().interrupt();
+					}
+				}
+				writes.add(database.getId());
+				return null;
+			}
+		};
+		
+		SortedMap<MockDatabase, Object> results = context.write(InvocationStrategies.TRANSACTION_INVOKE_ON_ALL, connection).invoke(this.factory, invoker);
+		
+		// Returns once the primary database has written
+		Assert.assertEquals(Collections.singleton(this.db0), results.keySet());
+		Assert.assertEquals(Arrays.asList("0"), writes);
+		
+		// The cluster lock is held until the write completes on every database, thus activation cannot proceed
+		Assert.assertFalse(globalLock.tryLock());
+		
+		latch.countDown();
+		
+		// Subsequent operations wait for outstanding writes
+		context.await();
+		
+		Assert.assertEquals(Arrays.asList("0", "1"), writes);
+		Assert.assertTrue(globalLock.tryLock());
+		globalLock.unlock();
+		Assert.assertTrue(this.deactivated.isEmpty());
+	}
+	
+	@Test
+	public void asynchronousWriteFailure() throws Exception
+	{
+		this.asynchronous = true;
+		
+		TransactionContext<Void, MockDatabase> context = new LocalTransactionContext<>(this.cluster);
+		Connection connection = connection(false);
+		Lock globalLock = this.lockManager.writeLock(null);
+		Invoker<Void, MockDatabase, Object, Object, SQLException> invoker = new Invoker<Void, MockDatabase, Object, Object, SQLException>()
+		{
+			@Override
+			public Object invoke(MockDatabase database, Object object) throws SQLException
+			{
+				if (database.equals(LocalTransactionContextTest.this.db1)) throw new SQLException();
+				return null;
+			}
+		};
+		
+		context.write(InvocationStrategies.TRANSACTION_INVOKE_ON_ALL, connection).invoke(this.factory, invoker);
+		context.await();
+		
+		// The failed write was detected asynchronously, and its database deactivated
+		Assert.assertEquals(Collections.singletonList(this.db1), this.deactivated);
+		Assert.assertTrue(globalLock.tryLock());
+		globalLock.unlock();
+	}
+	
+	@Test
+	public void quorumWrite() throws Exception
+	{
+		this.quorum = 2;
+		this.balancer.add(this.db2);
+		
+		final TransactionContext<Void, MockDatabase> context = new LocalTransactionContext<>(this.cluster);
+		Connection connection = connection(false);
+		Lock globalLock = this.lockManager.writeLock(null);
+		final CountDownLatch latch = new CountDownLatch(1);
+		final List<String> events = new CopyOnWriteArrayList<>();
+		Invoker<Void, MockDatabase, Object, Object, SQLException> invoker = new Invoker<Void, MockDatabase, Object, Object, SQLException>()
+		{
+			@Override
+			public Object invoke(MockDatabase database, Object object) throws SQLException
+			{
+				if (database.equals(LocalTransactionContextTest.this.db2))
+				{
+					try
+					{
+						latch.await();
+					}
+					catch (InterruptedException e)
+					{
+						Thread.currentThread().interrupt();
+					}
+				}
+				events.add(database.getId());
+				return null;
+			}
+		};
+		
+		SortedMap<MockDatabase, Object> results = context.write(InvocationStrategies.TRANSACTION_INVOKE_ON_ALL, connection).invoke(this.factory, invoker);
+		
+		// Returns once the quorum has written
+		Assert.assertEquals(new HashSet<>(Arrays.asList(this.db0, this.db1)), results.keySet());
+		
+		// The cluster lock is held while the slow database is still writing
+		Assert.assertFalse(globalLock.tryLock());
+		
+		// The commit, like any subsequent operation on the connection, waits for the slow database
+		Thread commit = new Thread()
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					context.await();
+					events.add("commit");
+				}
+				catch (SQLException e)
+				{
+					events.add(e.toString());
+				}
+			}
+		};
+		commit.start();
+		commit.join(200);
+		
+		Assert.assertTrue(commit.isAlive());
+		Assert.assertFalse(events.contains("commit"));
+		
+		latch.countDown();
+		commit.join(5000);
+		
+		Assert.assertEquals(Arrays.asList("2", "commit"), events.subList(2, events.size()));
+		Assert.assertTrue(globalLock.tryLock());
+		globalLock.unlock();
+		Assert.assertTrue(this.deactivated.isEmpty());
+	}
+	
+	static Connection connection(final boolean autoCommit)
+	{
+		return proxy(Connection.class, new java.lang.reflect.InvocationHandler()
+		{
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args)
+			{
+				return method.getName().equals("getAutoCommit") ? autoCommit : null;
+			}
+		});
+	}
+	
+	@SuppressWarnings("unchecked")
+	static <T> T proxy(Class<?> targetClass, java.lang.reflect.InvocationHandler handler)
+	{
+		return (T) Proxy.newProxyInstance(LocalTransactionContextTest.class.getClassLoader(), new Class<?>[] { targetClass }, handler);
+	}
+	
+	/**
+	 * Invokes on a fixed set of databases.
+	 */
+	static class InvokeOnDatabasesInvocationStrategy implements InvocationStrategy
+	{
+		private final MockDatabase[] databases;
+		
+		InvokeOnDatabasesInvocationStrategy(MockDatabase... databases)
+		{
+			this.databases = databases;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public <Z, D extends Database<Z>, T, R, E extends Exception> SortedMap<D, R> invoke(ProxyFactory<Z, D, T, E> proxy, Invoker<Z, D, T, R, E> invoker) throws E
+		{
+			SortedMap<D, R> results = new TreeMap<>();
+			for (MockDatabase database: this.databases)
+			{
+				results.put((D) database, invoker.invoke((D) database, null));
+			}
+			return results;
+		}
+	}
+}
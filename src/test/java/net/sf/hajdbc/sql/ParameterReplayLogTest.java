@@ -0,0 +1,192 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.sql;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.lang.reflect.Method;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import net.sf.hajdbc.ExceptionFactory;
+import net.sf.hajdbc.ExceptionType;
+import net.sf.hajdbc.MockDatabase;
+import net.sf.hajdbc.invocation.SimpleInvoker;
+import net.sf.hajdbc.util.reflect.Methods;
+
+import org.junit.Test;
+import org.mockito.InOrder;
+
+public class ParameterReplayLogTest
+{
+	private static final Method setIntMethod = Methods.getMethod(PreparedStatement.class, "setInt", Integer.TYPE, Integer.TYPE);
+	private static final Method clearParametersMethod = Methods.getMethod(PreparedStatement.class, "clearParameters");
+	private static final Method addBatchMethod = Methods.getMethod(PreparedStatement.class, "addBatch");
+	
+	private final ExceptionFactory<SQLException> exceptionFactory = ExceptionType.SQL.getExceptionFactory();
+	private final MockDatabase database = new MockDatabase("db");
+	
+	@Test
+	public void replay() throws SQLException
+	{
+		ParameterReplayLog<Void, MockDatabase, PreparedStatement> log = new ParameterReplayLog<>(this.exceptionFactory, true);
+		
+		log.setParameter(1, this.createInvoker(setIntMethod, 1, 10));
+		log.setParameter(2, this.createInvoker(setIntMethod, 2, 20));
+		log.addBatch(this.createInvoker(addBatchMethod));
+		// Only the last value of a parameter is retained
+		log.setParameter(1, this.createInvoker(setIntMethod, 1, 11));
+		log.setParameter(1, this.createInvoker(setIntMethod, 1, 12));
+		log.addBatch(this.createInvoker(addBatchMethod));
+		log.clearParameters(this.createInvoker(clearParametersMethod));
+		log.setParameter(1, this.createInvoker(setIntMethod, 1, 13));
+		
+		PreparedStatement statement = mock(PreparedStatement.class);
+		
+		log.replay(this.database, statement);
+		
+		InOrder order = inOrder(statement);
+		order.verify(statement).setInt(1, 10);
+		order.verify(statement).setInt(2, 20);
+		order.verify(statement).addBatch();
+		order.verify(statement).setInt(1, 12);
+		order.verify(statement).setInt(2, 20);
+		order.verify(statement).addBatch();
+		order.verify(statement).clearParameters();
+		order.verify(statement).setInt(1, 13);
+		order.verifyNoMoreInteractions();
+	}
+	
+	@Test
+	public void clear() throws SQLException
+	{
+		ParameterReplayLog<Void, MockDatabase, PreparedStatement> log = new ParameterReplayLog<>(this.exceptionFactory, true);
+		
+		log.setParameter(1, this.createInvoker(setIntMethod, 1, 10));
+		log.addBatch(this.createInvoker(addBatchMethod));
+		log.clear();
+		
+		PreparedStatement statement = mock(PreparedStatement.class);
+		
+		log.replay(this.database, statement);
+		
+		verifyZeroInteractions(statement);
+	}
+	
+	@Test
+	public void clearBatches() throws SQLException
+	{
+		ParameterReplayLog<Void, MockDatabase, PreparedStatement> log = new ParameterReplayLog<>(this.exceptionFactory, true);
+		
+		log.setParameter(1, this.createInvoker(setIntMethod, 1, 10));
+		log.addBatch(this.createInvoker(addBatchMethod));
+		log.setParameter(1, this.createInvoker(setIntMethod, 1, 11));
+		log.clearBatches();
+		
+		PreparedStatement statement = mock(PreparedStatement.class);
+		
+		log.replay(this.database, statement);
+		
+		// Parameters survive the execution of a batch
+		verify(statement).setInt(1, 11);
+		verifyNoMoreInteractions(statement);
+	}
+	
+	@Test
+	public void flush() throws SQLException
+	{
+		ParameterReplayLog<Void, MockDatabase, PreparedStatement> log = new ParameterReplayLog<>(this.exceptionFactory, true);
+		
+		log.setParameter(1, this.createInvoker(setIntMethod, 1, 10));
+		log.addBatch(this.createInvoker(addBatchMethod));
+		log.setParameter(1, this.createInvoker(setIntMethod, 1, 11));
+		
+		PreparedStatement statement = mock(PreparedStatement.class);
+		
+		log.flush(this.database, statement, false);
+		
+		verify(statement).setInt(1, 11);
+		verifyNoMoreInteractions(statement);
+		
+		SQLException exception = new SQLException();
+		doThrow(exception).when(statement).addBatch();
+		
+		try
+		{
+			log.flush(this.database, statement, true);
+			fail();
+		}
+		catch (SQLException e)
+		{
+			assertSame(exception, e);
+		}
+	}
+	
+	@Test
+	public void disabled() throws SQLException
+	{
+		ParameterReplayLog<Void, MockDatabase, PreparedStatement> log = new ParameterReplayLog<>(this.exceptionFactory, false);
+		PreparedStatement statement = mock(PreparedStatement.class);
+		
+		// Nothing pending
+		log.replay(this.database, statement);
+		
+		log.setParameter(1, this.createInvoker(setIntMethod, 1, 10));
+		
+		try
+		{
+			log.replay(this.database, statement);
+			fail();
+		}
+		catch (SQLException e)
+		{
+			verifyZeroInteractions(statement);
+		}
+	}
+	
+	@Test
+	public void disabledExecuted() throws SQLException
+	{
+		ParameterReplayLog<Void, MockDatabase, PreparedStatement> log = new ParameterReplayLog<>(this.exceptionFactory, false);
+		PreparedStatement statement = mock(PreparedStatement.class);
+		
+		log.setParameter(1, this.createInvoker(setIntMethod, 1, 10));
+		log.executed();
+		
+		// Executed parameters are no longer pending
+		log.replay(this.database, statement);
+		
+		log.setParameter(1, this.createInvoker(setIntMethod, 1, 11));
+		
+		try
+		{
+			log.replay(this.database, statement);
+			fail();
+		}
+		catch (SQLException e)
+		{
+			verifyZeroInteractions(statement);
+		}
+	}
+	
+	private SimpleInvoker<Void, MockDatabase, PreparedStatement, Void, SQLException> createInvoker(Method method, Object... parameters)
+	{
+		return new SimpleInvoker<>(method, parameters, this.exceptionFactory);
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.sql;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import net.sf.hajdbc.dialect.SQLFeature;
+import net.sf.hajdbc.dialect.SQLFunctionCall;
+
+import org.junit.Test;
+
+public class ParameterizedSQLTest
+{
+	@Test
+	public void parameterize() throws SQLException
+	{
+		String sql = "INSERT INTO test (a, b, c, d) VALUES (?, CURRENT_TIMESTAMP, ?, RAND())";
+		int timestamp = sql.indexOf("CURRENT_TIMESTAMP");
+		int rand = sql.indexOf("RAND()");
+		
+		ParameterizedSQL parameterizedSQL = new ParameterizedSQL(sql, Arrays.asList(new SQLFunctionCall(SQLFeature.CURRENT_TIMESTAMP, timestamp, timestamp + 17), new SQLFunctionCall(SQLFeature.RAND, rand, rand + 6)), Arrays.asList(sql.indexOf('?'), sql.lastIndexOf('?')));
+		
+		assertEquals("INSERT INTO test (a, b, c, d) VALUES (?, ?, ?, ?)", parameterizedSQL.getSQL());
+		assertEquals(1, parameterizedSQL.getParameterIndex(1));
+		assertEquals(3, parameterizedSQL.getParameterIndex(2));
+		assertEquals(5, parameterizedSQL.getParameterIndex(3));
+		
+		long now = System.currentTimeMillis();
+		Object[] values = parameterizedSQL.evaluate(now);
+		
+		assertEquals(2, values.length);
+		assertEquals(new java.sql.Timestamp(now), values[0]);
+		assertTrue(values[1] instanceof Double);
+		
+		PreparedStatement statement = mock(PreparedStatement.class);
+		
+		parameterizedSQL.bind(statement, values);
+		
+		verify(statement).setTimestamp(2, (java.sql.Timestamp) values[0]);
+		verify(statement).setDouble(4, (Double) values[1]);
+	}
+}
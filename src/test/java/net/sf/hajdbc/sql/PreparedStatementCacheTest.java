@@ -0,0 +1,99 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.sql;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+
+import net.sf.hajdbc.MockDatabase;
+import net.sf.hajdbc.cache.PreparedStatementCacheStatistics;
+import net.sf.hajdbc.util.reflect.Methods;
+
+import org.junit.Test;
+
+public class PreparedStatementCacheTest
+{
+	private static final Method prepareStatementMethod = Methods.getMethod(Connection.class, "prepareStatement", String.class);
+	
+	private final PreparedStatementCacheStatistics statistics = new PreparedStatementCacheStatistics();
+	private final PreparedStatementCache<Void, MockDatabase> cache = new PreparedStatementCache<>(2, this.statistics);
+	
+	@Test
+	public void take()
+	{
+		PreparedStatementProxyFactory<Void, MockDatabase> factory = mock(PreparedStatementProxyFactory.class);
+		
+		assertNull(this.cache.take(createKey("SELECT 1")));
+		
+		assertTrue(this.cache.offer(createKey("SELECT 1"), factory));
+		assertFalse(this.cache.offer(createKey("SELECT 1"), mock(PreparedStatementProxyFactory.class)));
+		assertEquals(1, this.statistics.size());
+		
+		assertSame(factory, this.cache.take(createKey("SELECT 1")));
+		
+		// A taken statement is no longer cached
+		assertNull(this.cache.take(createKey("SELECT 1")));
+		
+		assertEquals(1, this.statistics.getHits());
+		assertEquals(2, this.statistics.getMisses());
+		assertEquals(0, this.statistics.size());
+	}
+	
+	@Test
+	public void evict()
+	{
+		PreparedStatementProxyFactory<Void, MockDatabase> factory1 = mock(PreparedStatementProxyFactory.class);
+		PreparedStatementProxyFactory<Void, MockDatabase> factory2 = mock(PreparedStatementProxyFactory.class);
+		PreparedStatementProxyFactory<Void, MockDatabase> factory3 = mock(PreparedStatementProxyFactory.class);
+		
+		this.cache.offer(createKey("SELECT 1"), factory1);
+		this.cache.offer(createKey("SELECT 2"), factory2);
+		this.cache.offer(createKey("SELECT 3"), factory3);
+		
+		verify(factory1).discard();
+		verify(factory2, never()).discard();
+		verify(factory3, never()).discard();
+		
+		assertEquals(1, this.statistics.getEvictions());
+		assertEquals(2, this.statistics.size());
+		assertNull(this.cache.take(createKey("SELECT 1")));
+		assertSame(factory2, this.cache.take(createKey("SELECT 2")));
+	}
+	
+	@Test
+	public void clear()
+	{
+		PreparedStatementProxyFactory<Void, MockDatabase> factory = mock(PreparedStatementProxyFactory.class);
+		
+		this.cache.offer(createKey("SELECT 1"), factory);
+		
+		this.cache.clear();
+		
+		verify(factory, never()).discard();
+		assertEquals(0, this.statistics.size());
+		assertNull(this.cache.take(createKey("SELECT 1")));
+	}
+	
+	private static PreparedStatementCache.Key createKey(String sql)
+	{
+		return new PreparedStatementCache.Key(prepareStatementMethod, new Object[] { sql });
+	}
+}
@@ -0,0 +1,239 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.sql;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.sf.hajdbc.DatabaseCluster;
+import net.sf.hajdbc.MockDatabase;
+import net.sf.hajdbc.balancer.Balancer;
+import net.sf.hajdbc.balancer.simple.SimpleBalancerFactory;
+import net.sf.hajdbc.dialect.StandardDialectFactory;
+import net.sf.hajdbc.invocation.Invoker;
+import net.sf.hajdbc.io.simple.SimpleInputSinkStrategy;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Paul Ferraro
+ */
+public class ResultSetProxyFactoryTest
+{
+	final MockDatabase db0 = new MockDatabase("0");
+	final MockDatabase db1 = new MockDatabase("1");
+	final Balancer<Void, MockDatabase> balancer = new SimpleBalancerFactory().createBalancer(new HashSet<>(Arrays.asList(this.db0, this.db1)));
+	final List<MockDatabase> deactivated = new CopyOnWriteArrayList<>();
+	final List<MockDatabase> closed = new CopyOnWriteArrayList<>();
+	final AtomicInteger autoCommitReads = new AtomicInteger();
+	volatile boolean autoCommit = true;
+	final Connection connection = proxy(Connection.class, new java.lang.reflect.InvocationHandler()
+	{
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args)
+		{
+			if (method.getName().equals("getAutoCommit"))
+			{
+				ResultSetProxyFactoryTest.this.autoCommitReads.incrementAndGet();
+				return ResultSetProxyFactoryTest.this.autoCommit;
+			}
+			return null;
+		}
+	});
+	final DatabaseCluster<Void, MockDatabase> cluster = proxy(DatabaseCluster.class, new java.lang.reflect.InvocationHandler()
+	{
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args)
+		{
+			switch (method.getName())
+			{
+				case "getInputSinkStrategy": return new SimpleInputSinkStrategy();
+				case "getBalancer": return ResultSetProxyFactoryTest.this.balancer;
+				case "getDialect": return new StandardDialectFactory().createDialect();
+				case "getStreamingFetchSize": return 0;
+				case "isActive": return true;
+				case "deactivate":
+				{
+					MockDatabase database = (MockDatabase) args[0];
+					return ResultSetProxyFactoryTest.this.balancer.remove(database) && ResultSetProxyFactoryTest.this.deactivated.add(database);
+				}
+			}
+			return (method.getReturnType() == Boolean.TYPE) ? Boolean.FALSE : null;
+		}
+	});
+	final RootProxyFactory<Void, MockDatabase> root = proxy(RootProxyFactory.class, new java.lang.reflect.InvocationHandler()
+	{
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args)
+		{
+			return method.getName().equals("getDatabaseCluster") ? ResultSetProxyFactoryTest.this.cluster : null;
+		}
+	});
+	final ProxyFactory<Void, MockDatabase, Object, SQLException> parent = proxy(ProxyFactory.class, new java.lang.reflect.InvocationHandler()
+	{
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args)
+		{
+			return method.getName().equals("getRoot") ? ResultSetProxyFactoryTest.this.root : null;
+		}
+	});
+	final ConnectionProxyFactory<Void, MockDatabase, Object> connectionFactory = new ConnectionProxyFactory<>(null, this.parent, null, new TreeMap<MockDatabase, Connection>(), null);
+	final Map<MockDatabase, ResultSet> results = new TreeMap<>();
+	final Map<MockDatabase, SQLException> exceptions = new TreeMap<>();
+	// Executes the query, returning the result set, or throwing the exception, configured for each database
+	final Invoker<Void, MockDatabase, Statement, ResultSet, SQLException> queryInvoker = new Invoker<Void, MockDatabase, Statement, ResultSet, SQLException>()
+	{
+		@Override
+		public ResultSet invoke(MockDatabase database, Statement statement) throws SQLException
+		{
+			SQLException exception = ResultSetProxyFactoryTest.this.exceptions.get(database);
+			
+			if (exception != null) throw exception;
+			
+			return ResultSetProxyFactoryTest.this.results.get(database);
+		}
+	};
+	
+	@Test
+	public void failover() throws SQLException
+	{
+		ResultSetProxyFactory<Void, MockDatabase, Statement> factory = this.createFactory();
+		
+		ResultSet results = factory.failover(new SQLException("failure", "08001"));
+		
+		// Query is re-executed against the next database
+		Assert.assertSame(this.results.get(this.db1), results);
+		Assert.assertEquals(Collections.singletonList(this.db0), this.deactivated);
+		Assert.assertEquals(Collections.singletonList(this.db0), this.closed);
+		Assert.assertEquals(1, factory.entries().size());
+		Assert.assertSame(results, factory.get(this.db1));
+	}
+	
+	@Test
+	public void moved() throws SQLException
+	{
+		ResultSetProxyFactory<Void, MockDatabase, Statement> factory = this.createFactory();
+		
+		factory.moved();
+		
+		// Consumed rows cannot be re-read from another database
+		Assert.assertNull(factory.failover(new SQLException("failure", "08001")));
+		Assert.assertTrue(this.deactivated.isEmpty());
+	}
+	
+	@Test
+	public void exception() throws SQLException
+	{
+		ResultSetProxyFactory<Void, MockDatabase, Statement> factory = this.createFactory();
+		
+		Assert.assertNull(factory.failover(new SQLException("invalid", "42000")));
+		Assert.assertTrue(this.deactivated.isEmpty());
+	}
+	
+	@Test
+	public void transaction() throws SQLException
+	{
+		this.autoCommit = false;
+		
+		ResultSetProxyFactory<Void, MockDatabase, Statement> factory = this.createFactory();
+		
+		// Snapshot of the transaction cannot be reproduced on another database
+		Assert.assertNull(factory.failover(new SQLException("failure", "08001")));
+		Assert.assertNull(factory.failover(new SQLException("failure", "08001")));
+		Assert.assertTrue(this.deactivated.isEmpty());
+		
+		// Auto-commit mode is read via the connection proxy factory, which caches it
+		Assert.assertEquals(1, this.autoCommitReads.get());
+	}
+	
+	@Test
+	public void exhausted() throws SQLException
+	{
+		this.exceptions.put(this.db1, new SQLException("failure", "08001"));
+		
+		ResultSetProxyFactory<Void, MockDatabase, Statement> factory = this.createFactory();
+		
+		try
+		{
+			factory.failover(new SQLException("failure", "08001"));
+			Assert.fail();
+		}
+		catch (SQLException e)
+		{
+			// No remaining databases
+			Assert.assertEquals(Arrays.asList(this.db0, this.db1), this.deactivated);
+			Assert.assertTrue(this.balancer.isEmpty());
+		}
+	}
+	
+	private ResultSetProxyFactory<Void, MockDatabase, Statement> createFactory()
+	{
+		Map<MockDatabase, Statement> statements = new TreeMap<>();
+		
+		for (final MockDatabase database: Arrays.asList(this.db0, this.db1))
+		{
+			statements.put(database, proxy(Statement.class, new java.lang.reflect.InvocationHandler()
+			{
+				@Override
+				public Object invoke(Object proxy, Method method, Object[] args)
+				{
+					return null;
+				}
+			}));
+			
+			this.results.put(database, proxy(ResultSet.class, new java.lang.reflect.InvocationHandler()
+			{
+				@Override
+				public Object invoke(Object proxy, Method method, Object[] args)
+				{
+					if (method.getName().equals("close"))
+					{
+						ResultSetProxyFactoryTest.this.closed.add(database);
+					}
+					return null;
+				}
+			}));
+		}
+		
+		StatementProxyFactory<Void, MockDatabase> statementFactory = new StatementProxyFactory<>(this.connection, this.connectionFactory, null, statements, null);
+		
+		Map<MockDatabase, ResultSet> results = new TreeMap<>();
+		results.put(this.db0, this.results.get(this.db0));
+		
+		return new ResultSetProxyFactory<>(null, statementFactory, this.queryInvoker, results, null, null);
+	}
+	
+	@SuppressWarnings("unchecked")
+	static <T> T proxy(Class<?> targetClass, java.lang.reflect.InvocationHandler handler)
+	{
+		return (T) Proxy.newProxyInstance(ResultSetProxyFactoryTest.class.getClassLoader(), new Class<?>[] { targetClass }, handler);
+	}
+}
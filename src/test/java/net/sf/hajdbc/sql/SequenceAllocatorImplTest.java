@@ -0,0 +1,273 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.sql;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import net.sf.hajdbc.DatabaseCluster;
+import net.sf.hajdbc.DatabaseProperties;
+import net.sf.hajdbc.MockDatabase;
+import net.sf.hajdbc.SequenceAllocator;
+import net.sf.hajdbc.SequenceProperties;
+import net.sf.hajdbc.SequenceSupport;
+import net.sf.hajdbc.balancer.Balancer;
+import net.sf.hajdbc.balancer.simple.SimpleBalancerFactory;
+import net.sf.hajdbc.cache.DatabaseMetaDataCache;
+import net.sf.hajdbc.dialect.Dialect;
+import net.sf.hajdbc.lock.semaphore.SemaphoreLockManager;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Paul Ferraro
+ */
+public class SequenceAllocatorImplTest
+{
+	final SequenceDatabase db0 = new SequenceDatabase("0");
+	final SequenceDatabase db1 = new SequenceDatabase("1");
+	final Balancer<Void, MockDatabase> balancer = new SimpleBalancerFactory().createBalancer(new HashSet<MockDatabase>(Arrays.asList(this.db0, this.db1)));
+	final List<MockDatabase> deactivated = new ArrayList<>();
+	final SequenceProperties sequence = proxy(SequenceProperties.class, new java.lang.reflect.InvocationHandler()
+	{
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args)
+		{
+			return method.getName().equals("getIncrement") ? 2 : null;
+		}
+	});
+	final DatabaseCluster<Void, MockDatabase> cluster = proxy(DatabaseCluster.class, new java.lang.reflect.InvocationHandler()
+	{
+		private final SemaphoreLockManager lockManager = new SemaphoreLockManager(false);
+		
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args)
+		{
+			switch (method.getName())
+			{
+				case "getLockManager": return this.lockManager;
+				case "getBalancer": return SequenceAllocatorImplTest.this.balancer;
+				case "getDialect": return dialect();
+				case "getDatabaseMetaDataCache": return SequenceAllocatorImplTest.this.cache();
+				case "deactivate":
+				{
+					MockDatabase database = (MockDatabase) args[0];
+					SequenceAllocatorImplTest.this.balancer.remove(database);
+					return SequenceAllocatorImplTest.this.deactivated.add(database);
+				}
+			}
+			return null;
+		}
+	});
+	
+	@Test
+	public void allocate() throws SQLException
+	{
+		SequenceAllocator allocator = new SequenceAllocatorImpl<>(this.cluster, 3);
+		SequenceDatabase primary = (SequenceDatabase) this.balancer.primary();
+		
+		primary.value = 10;
+		
+		Assert.assertEquals(10L, allocator.next("sequence"));
+		Assert.assertEquals(12L, allocator.next("sequence"));
+		Assert.assertEquals(14L, allocator.next("sequence"));
+		
+		// Block was reserved with a single query, and every database was advanced past the block
+		Assert.assertEquals(1, primary.queries);
+		Assert.assertEquals(16L, this.db0.value);
+		Assert.assertEquals(16L, this.db1.value);
+		
+		// Exhausted block reserves the next
+		Assert.assertEquals(16L, allocator.next("sequence"));
+		Assert.assertEquals(2, primary.queries);
+		Assert.assertEquals(22L, this.db0.value);
+		Assert.assertEquals(22L, this.db1.value);
+		Assert.assertTrue(this.deactivated.isEmpty());
+	}
+	
+	@Test
+	public void unknownSequence() throws SQLException
+	{
+		SequenceAllocator allocator = new SequenceAllocatorImpl<>(this.cluster, 3);
+		
+		try
+		{
+			allocator.next("unknown");
+			Assert.fail();
+		}
+		catch (SQLException e)
+		{
+			Assert.assertTrue(this.deactivated.isEmpty());
+		}
+	}
+	
+	@Test
+	public void failure() throws SQLException
+	{
+		SequenceAllocator allocator = new SequenceAllocatorImpl<>(this.cluster, 3);
+		SequenceDatabase primary = (SequenceDatabase) this.balancer.primary();
+		SequenceDatabase backup = (primary == this.db0) ? this.db1 : this.db0;
+		
+		backup.failing = true;
+		
+		// A failing backup is deactivated
+		Assert.assertEquals(0L, allocator.next("sequence"));
+		Assert.assertEquals(Arrays.<MockDatabase>asList(backup), this.deactivated);
+		Assert.assertEquals(6L, primary.value);
+		
+		// A failing primary fails the allocation
+		allocator = new SequenceAllocatorImpl<>(this.cluster, 3);
+		primary.failing = true;
+		
+		try
+		{
+			allocator.next("sequence");
+			Assert.fail();
+		}
+		catch (SQLException e)
+		{
+			Assert.assertEquals(Arrays.<MockDatabase>asList(backup), this.deactivated);
+		}
+	}
+	
+	Dialect dialect()
+	{
+		final SequenceSupport support = proxy(SequenceSupport.class, new java.lang.reflect.InvocationHandler()
+		{
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args)
+			{
+				switch (method.getName())
+				{
+					case "getNextSequenceValueSQL": return "NEXTVAL";
+					case "getAlterSequenceSQL": return "ALTER " + args[1];
+				}
+				return null;
+			}
+		});
+		return proxy(Dialect.class, new java.lang.reflect.InvocationHandler()
+		{
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args)
+			{
+				return method.getName().equals("getSequenceSupport") ? support : null;
+			}
+		});
+	}
+	
+	DatabaseMetaDataCache<Void, MockDatabase> cache()
+	{
+		final DatabaseProperties properties = proxy(DatabaseProperties.class, new java.lang.reflect.InvocationHandler()
+		{
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args)
+			{
+				return (method.getName().equals("findSequence") && args[0].equals("sequence")) ? SequenceAllocatorImplTest.this.sequence : null;
+			}
+		});
+		return proxy(DatabaseMetaDataCache.class, new java.lang.reflect.InvocationHandler()
+		{
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args)
+			{
+				return method.getName().equals("getDatabaseProperties") ? properties : null;
+			}
+		});
+	}
+	
+	@SuppressWarnings("unchecked")
+	static <T> T proxy(Class<?> targetClass, java.lang.reflect.InvocationHandler handler)
+	{
+		return (T) Proxy.newProxyInstance(SequenceAllocatorImplTest.class.getClassLoader(), new Class<?>[] { targetClass }, handler);
+	}
+	
+	/**
+	 * Mock database whose connections model a single sequence.
+	 */
+	static class SequenceDatabase extends MockDatabase
+	{
+		volatile long value = 0;
+		volatile int queries = 0;
+		volatile boolean failing = false;
+		
+		SequenceDatabase(String id)
+		{
+			super(id);
+		}
+		
+		@Override
+		public Connection connect(Void connectionSource, String password)
+		{
+			return proxy(Connection.class, new java.lang.reflect.InvocationHandler()
+			{
+				@Override
+				public Object invoke(Object connection, Method method, Object[] args)
+				{
+					return method.getName().equals("createStatement") ? proxy(java.sql.Statement.class, new StatementHandler()) : null;
+				}
+			});
+		}
+		
+		class StatementHandler implements java.lang.reflect.InvocationHandler
+		{
+			@Override
+			public Object invoke(Object statement, Method method, Object[] args) throws SQLException
+			{
+				switch (method.getName())
+				{
+					case "executeQuery":
+					{
+						SequenceDatabase.this.queries += 1;
+						final long result = SequenceDatabase.this.value;
+						SequenceDatabase.this.value += 2;
+						return proxy(java.sql.ResultSet.class, new java.lang.reflect.InvocationHandler()
+						{
+							@Override
+							public Object invoke(Object resultSet, Method method, Object[] args)
+							{
+								switch (method.getName())
+								{
+									case "next": return true;
+									case "getLong": return result;
+								}
+								return null;
+							}
+						});
+					}
+					case "execute":
+					{
+						if (SequenceDatabase.this.failing)
+						{
+							throw new SQLException();
+						}
+						SequenceDatabase.this.value = Long.parseLong(((String) args[0]).substring("ALTER ".length()));
+						return false;
+					}
+				}
+				return null;
+			}
+		}
+	}
+}
@@ -0,0 +1,155 @@
+package net.sf.hajdbc.sql;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import javax.sql.rowset.serial.SerialBlob;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StreamingBlobTest
+{
+	private static final int CHUNK_SIZE = 16;
+	
+	private final byte[] expected = new byte[100];
+	
+	public StreamingBlobTest()
+	{
+		for (int i = 0; i < this.expected.length; ++i)
+		{
+			this.expected[i] = (byte) i;
+		}
+	}
+	
+	@Test
+	public void getBytes() throws SQLException
+	{
+		CountingBlob counter = new CountingBlob(this.expected);
+		Blob blob = new StreamingBlob(counter, CHUNK_SIZE);
+		
+		Assert.assertEquals(this.expected.length, blob.length());
+		
+		// Sequential small reads are served by chunk
+		for (int position = 1; position <= this.expected.length; position += 4)
+		{
+			Assert.assertArrayEquals(Arrays.copyOfRange(this.expected, position - 1, Math.min(position + 3, this.expected.length)), blob.getBytes(position, 4));
+		}
+		
+		Assert.assertEquals((this.expected.length + CHUNK_SIZE - 1) / CHUNK_SIZE, counter.reads);
+		
+		// Large reads bypass the chunk
+		Assert.assertArrayEquals(Arrays.copyOfRange(this.expected, 9, 9 + CHUNK_SIZE), blob.getBytes(10, CHUNK_SIZE));
+	}
+	
+	@Test
+	public void getBinaryStream() throws SQLException, IOException
+	{
+		Blob blob = new StreamingBlob(new SerialBlob(this.expected), CHUNK_SIZE);
+		
+		byte[] result = new byte[this.expected.length];
+		
+		try (InputStream input = blob.getBinaryStream())
+		{
+			int offset = 0;
+			int count = 0;
+			while ((count = input.read(result, offset, result.length - offset)) > 0)
+			{
+				offset += count;
+			}
+			Assert.assertEquals(this.expected.length, offset);
+			Assert.assertEquals(-1, input.read());
+		}
+		
+		Assert.assertArrayEquals(this.expected, result);
+	}
+	
+	@Test
+	public void setBytes() throws SQLException
+	{
+		Blob blob = new StreamingBlob(new SerialBlob(this.expected), CHUNK_SIZE);
+		
+		Assert.assertArrayEquals(Arrays.copyOfRange(this.expected, 0, 4), blob.getBytes(1, 4));
+		
+		blob.setBytes(1, new byte[] { 9, 9 });
+		
+		// Modifications invalidate the chunk
+		Assert.assertArrayEquals(new byte[] { 9, 9, 2, 3 }, blob.getBytes(1, 4));
+	}
+	
+	@Test
+	public void setBinaryStream() throws SQLException, IOException
+	{
+		Blob blob = new StreamingBlob(new WritableBlob(this.expected), CHUNK_SIZE);
+		
+		Assert.assertArrayEquals(Arrays.copyOfRange(this.expected, 0, 4), blob.getBytes(1, 4));
+		
+		try (OutputStream output = blob.setBinaryStream(2))
+		{
+			output.write(9);
+			
+			// Each write invalidates the chunk
+			Assert.assertArrayEquals(new byte[] { 0, 9, 2, 3 }, blob.getBytes(1, 4));
+			
+			output.write(new byte[] { 9, 9 }, 0, 2);
+			
+			Assert.assertArrayEquals(new byte[] { 0, 9, 9, 9 }, blob.getBytes(1, 4));
+		}
+	}
+	
+	private static class CountingBlob extends SerialBlob
+	{
+		private static final long serialVersionUID = 1L;
+		
+		int reads = 0;
+		
+		CountingBlob(byte[] bytes) throws SQLException
+		{
+			super(bytes);
+		}
+
+		@Override
+		public byte[] getBytes(long position, int length) throws javax.sql.rowset.serial.SerialException
+		{
+			this.reads += 1;
+			// Truncate reads past the end of the blob, as drivers do
+			return super.getBytes(position, (int) Math.min(length, this.length() - position + 1));
+		}
+	}
+	
+	private static class WritableBlob extends SerialBlob
+	{
+		private static final long serialVersionUID = 1L;
+		
+		WritableBlob(byte[] bytes) throws SQLException
+		{
+			super(bytes);
+		}
+
+		@Override
+		public OutputStream setBinaryStream(final long position)
+		{
+			return new OutputStream()
+			{
+				private long offset = position;
+				
+				@Override
+				public void write(int b) throws IOException
+				{
+					try
+					{
+						WritableBlob.this.setBytes(this.offset++, new byte[] { (byte) b });
+					}
+					catch (SQLException e)
+					{
+						throw new IOException(e);
+					}
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package net.sf.hajdbc.sql;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.sql.Clob;
+import java.sql.SQLException;
+
+import javax.sql.rowset.serial.SerialClob;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StreamingClobTest
+{
+	private static final int CHUNK_SIZE = 16;
+	
+	private final char[] expected = new char[100];
+	
+	public StreamingClobTest()
+	{
+		for (int i = 0; i < this.expected.length; ++i)
+		{
+			this.expected[i] = (char) ('a' + (i % 26));
+		}
+	}
+	
+	@Test
+	public void getSubString() throws SQLException
+	{
+		Clob clob = new StreamingClob(new WritableClob(this.expected), CHUNK_SIZE);
+		String value = new String(this.expected);
+		
+		Assert.assertEquals(this.expected.length, clob.length());
+		
+		for (int position = 1; position <= this.expected.length; position += 4)
+		{
+			Assert.assertEquals(value.substring(position - 1, Math.min(position + 3, this.expected.length)), clob.getSubString(position, 4));
+		}
+	}
+	
+	@Test
+	public void setCharacterStream() throws SQLException, IOException
+	{
+		Clob clob = new StreamingClob(new WritableClob(this.expected), CHUNK_SIZE);
+		
+		Assert.assertEquals("abcd", clob.getSubString(1, 4));
+		
+		try (Writer writer = clob.setCharacterStream(2))
+		{
+			writer.write('x');
+			
+			// Each write invalidates the chunk
+			Assert.assertEquals("axcd", clob.getSubString(1, 4));
+			
+			writer.write("yz");
+			
+			Assert.assertEquals("axyz", clob.getSubString(1, 4));
+		}
+	}
+	
+	@Test
+	public void setAsciiStream() throws SQLException, IOException
+	{
+		Clob clob = new StreamingClob(new WritableClob(this.expected), CHUNK_SIZE);
+		
+		Assert.assertEquals("abcd", clob.getSubString(1, 4));
+		
+		try (OutputStream output = clob.setAsciiStream(2))
+		{
+			output.write('x');
+			
+			Assert.assertEquals("axcd", clob.getSubString(1, 4));
+			
+			output.write(new byte[] { 'y', 'z' }, 0, 2);
+			
+			Assert.assertEquals("axyz", clob.getSubString(1, 4));
+		}
+	}
+	
+	private static class WritableClob extends SerialClob
+	{
+		private static final long serialVersionUID = 1L;
+		
+		WritableClob(char[] chars) throws SQLException
+		{
+			super(chars);
+		}
+
+		@Override
+		public String getSubString(long position, int length) throws javax.sql.rowset.serial.SerialException
+		{
+			// Truncate reads past the end of the clob, as drivers do
+			return super.getSubString(position, (int) Math.min(length, this.length() - position + 1));
+		}
+
+		@Override
+		public OutputStream setAsciiStream(final long position)
+		{
+			return new OutputStream()
+			{
+				private long offset = position;
+				
+				@Override
+				public void write(int b) throws IOException
+				{
+					WritableClob.this.write(this.offset++, (char) b);
+				}
+			};
+		}
+
+		@Override
+		public Writer setCharacterStream(final long position)
+		{
+			return new Writer()
+			{
+				private long offset = position;
+				
+				@Override
+				public void write(char[] chars, int offset, int length) throws IOException
+				{
+					for (int i = 0; i < length; ++i)
+					{
+						WritableClob.this.write(this.offset++, chars[offset + i]);
+					}
+				}
+
+				@Override
+				public void flush()
+				{
+				}
+
+				@Override
+				public void close()
+				{
+				}
+			};
+		}
+		
+		void write(long position, char c) throws IOException
+		{
+			try
+			{
+				this.setString(position, String.valueOf(c));
+			}
+			catch (SQLException e)
+			{
+				throw new IOException(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,184 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.sql;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import net.sf.hajdbc.DatabaseCluster;
+import net.sf.hajdbc.ExceptionType;
+import net.sf.hajdbc.MockDatabase;
+import net.sf.hajdbc.dialect.StandardDialectFactory;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Paul Ferraro
+ */
+public class StreamingResultSetTest
+{
+	final MockDatabase db0 = new MockDatabase("0");
+	final List<MockDatabase> deactivated = new CopyOnWriteArrayList<>();
+	volatile SQLException exception = null;
+	final DatabaseCluster<Void, MockDatabase> cluster = proxy(DatabaseCluster.class, new java.lang.reflect.InvocationHandler()
+	{
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args)
+		{
+			switch (method.getName())
+			{
+				case "isActive": return true;
+				case "getDialect": return new StandardDialectFactory().createDialect();
+				case "deactivate": return StreamingResultSetTest.this.deactivated.add((MockDatabase) args[0]);
+			}
+			return (method.getReturnType() == Boolean.TYPE) ? Boolean.FALSE : null;
+		}
+	});
+	final RootProxyFactory<Void, MockDatabase> root = proxy(RootProxyFactory.class, new java.lang.reflect.InvocationHandler()
+	{
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args)
+		{
+			switch (method.getName())
+			{
+				case "getDatabaseCluster": return StreamingResultSetTest.this.cluster;
+				case "getExceptionFactory": return ExceptionType.SQL.getExceptionFactory();
+				case "getRoot": return proxy;
+			}
+			return null;
+		}
+	});
+	final ProxyFactory<Void, MockDatabase, Statement, SQLException> statementFactory = proxy(ProxyFactory.class, new java.lang.reflect.InvocationHandler()
+	{
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args)
+		{
+			switch (method.getName())
+			{
+				case "getDatabaseCluster": return StreamingResultSetTest.this.cluster;
+				case "getRoot": return StreamingResultSetTest.this.root;
+			}
+			return null;
+		}
+	});
+	final TransactionContext<Void, MockDatabase> context = proxy(TransactionContext.class, new java.lang.reflect.InvocationHandler()
+	{
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args)
+		{
+			return null;
+		}
+	});
+	// Result set of the database, whose column getters throw the configured exception, if any
+	final ResultSet results = proxy(ResultSet.class, new java.lang.reflect.InvocationHandler()
+	{
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws SQLException
+		{
+			SQLException exception = StreamingResultSetTest.this.exception;
+			
+			if (method.getName().startsWith("get") && (exception != null)) throw exception;
+			
+			switch (method.getName())
+			{
+				case "next": return true;
+				case "getInt": return 1;
+			}
+			return null;
+		}
+	});
+	
+	@Test
+	public void get() throws SQLException
+	{
+		ResultSet results = this.createResultSet();
+		
+		Assert.assertTrue(results.next());
+		Assert.assertEquals(1, results.getInt(1));
+	}
+	
+	@Test
+	public void failure() throws SQLException
+	{
+		ResultSet results = this.createResultSet();
+		
+		Assert.assertTrue(results.next());
+		
+		this.exception = new SQLException("failure", "08001");
+		
+		try
+		{
+			results.getInt(1);
+			Assert.fail();
+		}
+		catch (SQLException e)
+		{
+			Assert.assertSame(this.exception, e);
+		}
+		
+		// Database is deactivated, as it would be via the result set proxy
+		Assert.assertEquals(Collections.singletonList(this.db0), this.deactivated);
+	}
+	
+	@Test
+	public void exception() throws SQLException
+	{
+		ResultSet results = this.createResultSet();
+		
+		Assert.assertTrue(results.next());
+		
+		this.exception = new SQLException("invalid column", "42000");
+		
+		try
+		{
+			results.getInt(2);
+			Assert.fail();
+		}
+		catch (SQLException e)
+		{
+			Assert.assertSame(this.exception, e);
+		}
+		
+		Assert.assertTrue(this.deactivated.isEmpty());
+	}
+	
+	private ResultSet createResultSet()
+	{
+		Map<MockDatabase, ResultSet> map = new TreeMap<>();
+		map.put(this.db0, this.results);
+		
+		ResultSetProxyFactory<Void, MockDatabase, Statement> factory = new ResultSetProxyFactory<>(null, this.statementFactory, null, map, this.context, null);
+		
+		return new StreamingResultSet<>(factory, null, this.results);
+	}
+	
+	@SuppressWarnings("unchecked")
+	static <T> T proxy(Class<?> targetClass, java.lang.reflect.InvocationHandler handler)
+	{
+		return (T) Proxy.newProxyInstance(StreamingResultSetTest.class.getClassLoader(), new Class<?>[] { targetClass }, handler);
+	}
+}
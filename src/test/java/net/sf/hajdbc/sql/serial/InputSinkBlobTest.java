@@ -0,0 +1,126 @@
+package net.sf.hajdbc.sql.serial;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import net.sf.hajdbc.io.InputSinkChannel;
+import net.sf.hajdbc.io.simple.SimpleInputSinkStrategy;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class InputSinkBlobTest
+{
+	private final byte[] expected = new byte[100];
+	private final Blob blob;
+	
+	public InputSinkBlobTest() throws IOException
+	{
+		for (int i = 0; i < this.expected.length; ++i)
+		{
+			this.expected[i] = (byte) i;
+		}
+		
+		InputSinkChannel<InputStream, byte[]> channel = new SimpleInputSinkStrategy().createInputStreamChannel();
+		
+		this.blob = new InputSinkBlob<>(channel, channel.write(new ByteArrayInputStream(this.expected), this.expected.length), this.expected.length);
+	}
+	
+	@Test
+	public void getBytes() throws SQLException
+	{
+		Assert.assertEquals(this.expected.length, this.blob.length());
+		
+		Assert.assertArrayEquals(this.expected, this.blob.getBytes(1, this.expected.length));
+		Assert.assertArrayEquals(Arrays.copyOfRange(this.expected, 9, 19), this.blob.getBytes(10, 10));
+		
+		// Reads past the end of the blob are truncated
+		Assert.assertArrayEquals(Arrays.copyOfRange(this.expected, 95, 100), this.blob.getBytes(96, 10));
+		Assert.assertEquals(0, this.blob.getBytes(this.expected.length + 1, 10).length);
+	}
+	
+	@Test
+	public void getBinaryStream() throws SQLException, IOException
+	{
+		// Each database reads its own stream
+		for (int i = 0; i < 2; ++i)
+		{
+			try (InputStream input = this.blob.getBinaryStream())
+			{
+				Assert.assertArrayEquals(this.expected, read(input, this.expected.length));
+				Assert.assertEquals(-1, input.read());
+			}
+		}
+		
+		try (InputStream input = this.blob.getBinaryStream(10, 10))
+		{
+			Assert.assertArrayEquals(Arrays.copyOfRange(this.expected, 9, 19), read(input, 10));
+			Assert.assertEquals(-1, input.read());
+		}
+	}
+	
+	@Test
+	public void invalidPosition()
+	{
+		long[][] arguments = new long[][] { { 0, 1 }, { this.expected.length + 2, 1 }, { 1, -1 } };
+		
+		for (long[] args: arguments)
+		{
+			try
+			{
+				this.blob.getBinaryStream(args[0], args[1]);
+				
+				Assert.fail(Arrays.toString(args));
+			}
+			catch (SQLException e)
+			{
+				// Expected
+			}
+		}
+	}
+	
+	@Test
+	public void readOnly() throws SQLException
+	{
+		try
+		{
+			this.blob.setBytes(1, new byte[] { 9 });
+			
+			Assert.fail();
+		}
+		catch (SQLException e)
+		{
+			// Expected
+		}
+		
+		try
+		{
+			this.blob.truncate(1);
+			
+			Assert.fail();
+		}
+		catch (SQLException e)
+		{
+			// Expected
+		}
+		
+		Assert.assertArrayEquals(this.expected, this.blob.getBytes(1, this.expected.length));
+	}
+	
+	private static byte[] read(InputStream input, int length) throws IOException
+	{
+		byte[] result = new byte[length];
+		int offset = 0;
+		int count = 0;
+		while ((offset < length) && ((count = input.read(result, offset, length - offset)) > 0))
+		{
+			offset += count;
+		}
+		Assert.assertEquals(length, offset);
+		return result;
+	}
+}
@@ -0,0 +1,128 @@
+package net.sf.hajdbc.sql.serial;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.sql.NClob;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import net.sf.hajdbc.io.InputSinkChannel;
+import net.sf.hajdbc.io.simple.SimpleInputSinkStrategy;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class InputSinkClobTest
+{
+	private final String expected;
+	private final NClob clob;
+	
+	public InputSinkClobTest() throws IOException
+	{
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 100; ++i)
+		{
+			builder.append((char) ('\u00e0' + (i % 26)));
+		}
+		this.expected = builder.toString();
+		
+		InputSinkChannel<Reader, byte[]> channel = new SimpleInputSinkStrategy().createReaderChannel();
+		
+		this.clob = new InputSinkClob<>(channel, channel.write(new StringReader(this.expected), this.expected.length()), this.expected.length());
+	}
+	
+	@Test
+	public void getSubString() throws SQLException
+	{
+		Assert.assertEquals(this.expected.length(), this.clob.length());
+		
+		Assert.assertEquals(this.expected, this.clob.getSubString(1, this.expected.length()));
+		Assert.assertEquals(this.expected.substring(9, 19), this.clob.getSubString(10, 10));
+		
+		// Reads past the end of the clob are truncated
+		Assert.assertEquals(this.expected.substring(95), this.clob.getSubString(96, 10));
+		Assert.assertEquals("", this.clob.getSubString(this.expected.length() + 1, 10));
+	}
+	
+	@Test
+	public void getCharacterStream() throws SQLException, IOException
+	{
+		// Each database reads its own reader
+		for (int i = 0; i < 2; ++i)
+		{
+			try (Reader reader = this.clob.getCharacterStream())
+			{
+				Assert.assertEquals(this.expected, read(reader, this.expected.length()));
+				Assert.assertEquals(-1, reader.read());
+			}
+		}
+		
+		try (Reader reader = this.clob.getCharacterStream(10, 10))
+		{
+			Assert.assertEquals(this.expected.substring(9, 19), read(reader, 10));
+			Assert.assertEquals(-1, reader.read());
+		}
+	}
+	
+	@Test
+	public void invalidPosition()
+	{
+		long[][] arguments = new long[][] { { 0, 1 }, { this.expected.length() + 2, 1 }, { 1, -1 } };
+		
+		for (long[] args: arguments)
+		{
+			try
+			{
+				this.clob.getCharacterStream(args[0], args[1]);
+				
+				Assert.fail(Arrays.toString(args));
+			}
+			catch (SQLException e)
+			{
+				// Expected
+			}
+		}
+	}
+	
+	@Test
+	public void readOnly() throws SQLException
+	{
+		try
+		{
+			this.clob.setString(1, "x");
+			
+			Assert.fail();
+		}
+		catch (SQLException e)
+		{
+			// Expected
+		}
+		
+		try
+		{
+			this.clob.truncate(1);
+			
+			Assert.fail();
+		}
+		catch (SQLException e)
+		{
+			// Expected
+		}
+		
+		Assert.assertEquals(this.expected, this.clob.getSubString(1, this.expected.length()));
+	}
+	
+	private static String read(Reader reader, int length) throws IOException
+	{
+		char[] result = new char[length];
+		int offset = 0;
+		int count = 0;
+		while ((offset < length) && ((count = reader.read(result, offset, length - offset)) > 0))
+		{
+			offset += count;
+		}
+		Assert.assertEquals(length, offset);
+		return new String(result);
+	}
+}
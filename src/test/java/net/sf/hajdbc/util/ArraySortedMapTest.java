@@ -0,0 +1,139 @@
+/*
+ * HA-JDBC: High-Availability JDBC
+ * Copyright (C) 2014  Paul Ferraro
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.hajdbc.util;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Paul Ferraro
+ */
+public class ArraySortedMapTest
+{
+	@Test
+	public void test()
+	{
+		ArraySortedMap<Integer, String> map = new ArraySortedMap<>(Arrays.asList(1, 2, 3, 4));
+		SortedMap<Integer, String> expected = new TreeMap<>();
+		
+		Assert.assertTrue(map.isEmpty());
+		Assert.assertEquals(expected, map);
+		
+		map.set(3, "4");
+		map.set(0, null);
+		map.put(2, "2");
+		expected.put(4, "4");
+		expected.put(1, null);
+		expected.put(2, "2");
+		
+		Assert.assertEquals(expected, map);
+		Assert.assertEquals(3, map.size());
+		Assert.assertTrue(map.containsKey(1));
+		Assert.assertFalse(map.containsKey(3));
+		Assert.assertNull(map.get(3));
+		Assert.assertEquals(Integer.valueOf(1), map.firstKey());
+		Assert.assertEquals(Integer.valueOf(4), map.lastKey());
+		Assert.assertEquals(Arrays.asList(1, 2, 4), Arrays.asList(map.keySet().toArray()));
+		
+		Assert.assertEquals(expected.headMap(2), map.headMap(2));
+		Assert.assertEquals(expected.headMap(3), map.headMap(3));
+		Assert.assertEquals(expected.tailMap(3), map.tailMap(3));
+		Assert.assertEquals(expected.subMap(2, 4), map.subMap(2, 4));
+		Assert.assertTrue(map.headMap(1).isEmpty());
+		
+		try
+		{
+			// Views cannot accommodate new keys
+			map.headMap(3).put(5, "5");
+			Assert.fail();
+		}
+		catch (IllegalArgumentException e)
+		{
+		}
+		
+		try
+		{
+			map.headMap(1).firstKey();
+			Assert.fail();
+		}
+		catch (NoSuchElementException e)
+		{
+		}
+		
+		Iterator<Map.Entry<Integer, String>> entries = map.entrySet().iterator();
+		while (entries.hasNext())
+		{
+			Map.Entry<Integer, String> entry = entries.next();
+			if (entry.getValue() == null)
+			{
+				entries.remove();
+			}
+			else
+			{
+				entry.setValue(entry.getValue() + entry.getValue());
+			}
+		}
+		expected.remove(1);
+		expected.put(2, "22");
+		expected.put(4, "44");
+		
+		Assert.assertEquals(expected, map);
+		
+		// Views write through to the parent map
+		Assert.assertEquals("44", map.tailMap(3).remove(4));
+		expected.remove(4);
+		
+		Assert.assertEquals(expected, map);
+		
+		map.clear();
+		
+		Assert.assertTrue(map.isEmpty());
+	}
+	
+	@Test
+	public void insert()
+	{
+		ArraySortedMap<Integer, String> map = new ArraySortedMap<>(Arrays.asList(1, 3));
+		SortedMap<Integer, String> expected = new TreeMap<>();
+		
+		map.put(3, "3");
+		expected.put(3, "3");
+		
+		// e.g. a newly activated database
+		Assert.assertNull(map.put(2, "2"));
+		Assert.assertNull(map.put(4, "4"));
+		Assert.assertNull(map.put(0, null));
+		expected.put(2, "2");
+		expected.put(4, "4");
+		expected.put(0, null);
+		
+		Assert.assertEquals(expected, map);
+		Assert.assertEquals(Arrays.asList(0, 2, 3, 4), Arrays.asList(map.keySet().toArray()));
+		Assert.assertFalse(map.containsKey(1));
+		Assert.assertEquals(expected.tailMap(2), map.tailMap(2));
+		Assert.assertEquals("2", map.tailMap(2).remove(2));
+		Assert.assertFalse(map.containsKey(2));
+	}
+}